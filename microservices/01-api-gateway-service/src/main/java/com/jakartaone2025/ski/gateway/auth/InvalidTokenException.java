@@ -0,0 +1,15 @@
+package com.jakartaone2025.ski.gateway.auth;
+
+/**
+ * トークンの形式・署名・クレームが不正な場合の例外
+ */
+public class InvalidTokenException extends RuntimeException {
+
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+
+    public InvalidTokenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -2,14 +2,28 @@ package com.jakartaone2025.ski.gateway.auth;
 
 import org.eclipse.microprofile.jwt.JsonWebToken;
 import org.eclipse.microprofile.jwt.Claims;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.core.SecurityContext;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricRegistry;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
 import java.security.Principal;
 import java.util.Set;
 import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
@@ -28,6 +42,103 @@ public class JwtService {
     @ConfigProperty(name = "mp.jwt.verify.audiences", defaultValue = "ski-equipment-shop")
     private String audience;
     
+    @Inject
+    @ConfigProperty(name = "mp.jwt.verify.publickey")
+    private Optional<String> publicKeyPem;
+    
+    @Inject
+    @ConfigProperty(name = "mp.jwt.verify.publickey.location")
+    private Optional<String> publicKeyLocation;
+    
+    @Inject
+    @ConfigProperty(name = "mp.jwt.verify.clock.skew", defaultValue = "60")
+    private long clockSkewSeconds;
+    
+    @Inject
+    @ConfigProperty(name = "gateway.auth.token-cache.max-entries", defaultValue = "10000")
+    private int tokenCacheMaxEntries;
+    
+    @Inject
+    @ConfigProperty(name = "gateway.auth.token-cache.eviction.interval.seconds", defaultValue = "60")
+    private long evictionIntervalSeconds;
+    
+    @Inject
+    private MetricRegistry metricRegistry;
+    
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+    
+    private JwtVerifier verifier;
+    private VerifiedTokenCache tokenCache;
+    private ScheduledFuture<?> evictionTask;
+    
+    @PostConstruct
+    void init() {
+        try {
+            verifier = new JwtVerifier(JwtVerifier.parsePublicKey(loadPublicKeyPem()), issuer, audience, clockSkewSeconds);
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+            // 公開鍵がなければ全てのトークンを拒否する（フェイルクローズ）
+            logger.severe("Failed to load JWT public key, all bearer tokens will be rejected: " + e.getMessage());
+        }
+        
+        tokenCache = new VerifiedTokenCache(tokenCacheMaxEntries, () -> System.currentTimeMillis() / 1000);
+        evictionTask = scheduler.scheduleWithFixedDelay(
+            tokenCache::evictExpired, evictionIntervalSeconds, evictionIntervalSeconds, TimeUnit.SECONDS);
+        
+        metricRegistry.gauge("gateway.auth.token-cache.size", tokenCache, VerifiedTokenCache::size);
+        metricRegistry.gauge("gateway.auth.token-cache.hits", tokenCache, VerifiedTokenCache::getHits);
+        metricRegistry.gauge("gateway.auth.token-cache.misses", tokenCache, VerifiedTokenCache::getMisses);
+        metricRegistry.gauge("gateway.auth.token-cache.evictions", tokenCache, VerifiedTokenCache::getEvictions);
+    }
+    
+    @PreDestroy
+    void stopEviction() {
+        if (evictionTask != null) {
+            evictionTask.cancel(false);
+        }
+    }
+    
+    /**
+     * Bearer トークンを検証してクレームを返す（検証に失敗した場合は空）
+     * 署名検証はトークン毎に有効期限内で1回だけ行い、以降はキャッシュを返す
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (token == null || token.isEmpty() || verifier == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(tokenCache.get(token, t -> verifier.verify(t, System.currentTimeMillis() / 1000)));
+        } catch (InvalidTokenException e) {
+            logger.fine("JWT verification failed: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+    
+    private String loadPublicKeyPem() throws IOException {
+        if (publicKeyPem.isPresent()) {
+            return publicKeyPem.get();
+        }
+        String location = publicKeyLocation
+            .orElseThrow(() -> new IOException("mp.jwt.verify.publickey(.location) is not configured"));
+        
+        if (location.startsWith("http:") || location.startsWith("https:") || location.startsWith("file:")) {
+            try (InputStream in = new URL(location).openStream()) {
+                return new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+            }
+        }
+        String resource = location.startsWith("classpath:") ? location.substring("classpath:".length()) : location;
+        try (InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(resource)) {
+            if (in != null) {
+                return new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+            }
+        }
+        Path path = Path.of(location);
+        if (Files.isReadable(path)) {
+            return Files.readString(path, StandardCharsets.US_ASCII);
+        }
+        throw new IOException("Public key not found: " + location);
+    }
+    
     /**
      * JWT トークンを検証
      * MicroProfile JWTでは、フレームワークが自動的にトークンを検証します
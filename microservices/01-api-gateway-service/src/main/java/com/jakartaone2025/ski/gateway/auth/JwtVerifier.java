@@ -0,0 +1,153 @@
+package com.jakartaone2025.ski.gateway.auth;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * RS256 署名の JWT を JDK の暗号 API と JSON-P で検証する
+ *
+ * 署名・iss・aud・exp・nbf を mp.jwt.verify.* の設定に従って検証し、
+ * ゲートウェイで必要なクレームだけを取り出す。
+ */
+public class JwtVerifier {
+
+    private static final Base64.Decoder BASE64_URL = Base64.getUrlDecoder();
+
+    private final PublicKey publicKey;
+    private final String issuer;
+    private final String audience;
+    private final long clockSkewSeconds;
+
+    public JwtVerifier(PublicKey publicKey, String issuer, String audience, long clockSkewSeconds) {
+        this.publicKey = publicKey;
+        this.issuer = issuer;
+        this.audience = audience;
+        this.clockSkewSeconds = clockSkewSeconds;
+    }
+
+    /**
+     * PEM 形式（BEGIN PUBLIC KEY）の RSA 公開鍵を読み込む
+     */
+    public static PublicKey parsePublicKey(String pem) throws GeneralSecurityException {
+        String base64 = pem
+            .replaceAll("-----(BEGIN|END) PUBLIC KEY-----", "")
+            .replaceAll("\\s", "");
+        return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(base64)));
+    }
+
+    /**
+     * トークンを検証してクレームを返す
+     *
+     * @throws InvalidTokenException 形式・署名・クレームのいずれかが不正な場合
+     */
+    public VerifiedToken verify(String token, long nowEpochSecond) {
+        int firstDot = token.indexOf('.');
+        int secondDot = token.indexOf('.', firstDot + 1);
+        if (firstDot <= 0 || secondDot <= firstDot || token.indexOf('.', secondDot + 1) >= 0) {
+            throw new InvalidTokenException("Invalid token format");
+        }
+
+        JsonObject header = decodeJson(token.substring(0, firstDot));
+        if (!"RS256".equals(header.getString("alg", null))) {
+            throw new InvalidTokenException("Unsupported algorithm: " + header.getString("alg", null));
+        }
+        verifySignature(token, firstDot, secondDot);
+
+        JsonObject claims = decodeJson(token.substring(firstDot + 1, secondDot));
+        if (issuer != null && !issuer.equals(claims.getString("iss", null))) {
+            throw new InvalidTokenException("Issuer mismatch");
+        }
+        if (audience != null && !hasAudience(claims.get("aud"))) {
+            throw new InvalidTokenException("Audience mismatch");
+        }
+
+        JsonValue exp = claims.get("exp");
+        if (exp == null || exp.getValueType() != JsonValue.ValueType.NUMBER) {
+            throw new InvalidTokenException("Missing exp claim");
+        }
+        long expiresAt = claims.getJsonNumber("exp").longValue();
+        if (nowEpochSecond - clockSkewSeconds >= expiresAt) {
+            throw new InvalidTokenException("Token expired");
+        }
+        JsonValue nbf = claims.get("nbf");
+        if (nbf != null && nbf.getValueType() == JsonValue.ValueType.NUMBER
+                && nowEpochSecond + clockSkewSeconds < claims.getJsonNumber("nbf").longValue()) {
+            throw new InvalidTokenException("Token not yet valid");
+        }
+
+        String subject = claims.getString("sub", null);
+        if (subject == null || subject.isEmpty()) {
+            throw new InvalidTokenException("Missing sub claim");
+        }
+        String username = claims.getString("preferred_username", claims.getString("upn", subject));
+        return new VerifiedToken(subject, username, roles(claims), expiresAt + clockSkewSeconds);
+    }
+
+    private void verifySignature(String token, int firstDot, int secondDot) {
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initVerify(publicKey);
+            signature.update(token.substring(0, secondDot).getBytes(StandardCharsets.US_ASCII));
+            if (!signature.verify(BASE64_URL.decode(token.substring(secondDot + 1)))) {
+                throw new InvalidTokenException("Invalid signature");
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new InvalidTokenException("Invalid signature", e);
+        }
+    }
+
+    private boolean hasAudience(JsonValue aud) {
+        if (aud == null) {
+            return false;
+        }
+        if (aud.getValueType() == JsonValue.ValueType.STRING) {
+            return audience.equals(((JsonString) aud).getString());
+        }
+        if (aud.getValueType() == JsonValue.ValueType.ARRAY) {
+            for (JsonValue value : aud.asJsonArray()) {
+                if (value.getValueType() == JsonValue.ValueType.STRING && audience.equals(((JsonString) value).getString())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> roles(JsonObject claims) {
+        JsonValue groups = claims.get("groups");
+        if (groups == null || groups.getValueType() != JsonValue.ValueType.ARRAY) {
+            return Set.of();
+        }
+        Set<String> roles = new HashSet<>();
+        JsonArray array = groups.asJsonArray();
+        for (JsonValue value : array) {
+            if (value.getValueType() == JsonValue.ValueType.STRING) {
+                roles.add(((JsonString) value).getString());
+            }
+        }
+        return Set.copyOf(roles);
+    }
+
+    private static JsonObject decodeJson(String base64Url) {
+        try (JsonReader reader = Json.createReader(new StringReader(
+                new String(BASE64_URL.decode(base64Url), StandardCharsets.UTF_8)))) {
+            return reader.readObject();
+        } catch (RuntimeException e) {
+            throw new InvalidTokenException("Malformed token", e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.jakartaone2025.ski.gateway.auth;
+
+import java.util.Set;
+
+/**
+ * 署名検証済みのトークンから取り出したクレーム
+ *
+ * @param subject ユーザーID（sub）
+ * @param username ユーザー名（preferred_username / upn、なければ sub）
+ * @param roles ロール（groups）
+ * @param expiresAt 有効期限（エポック秒）
+ */
+public record VerifiedToken(String subject, String username, Set<String> roles, long expiresAt) {
+
+    public boolean isExpired(long nowEpochSecond) {
+        return nowEpochSecond >= expiresAt;
+    }
+}
@@ -0,0 +1,116 @@
+package com.jakartaone2025.ski.gateway.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * 検証済みトークンのクレームキャッシュ
+ *
+ * キーはトークンの SHA-256 ダイジェスト（トークン本体は保持しない）。
+ * 有効期限を過ぎたエントリは参照時と定期的な {@link #evictExpired()} で削除し、
+ * 件数が上限に達した場合は任意のエントリを1件破棄してから追加する。
+ * 検証に失敗したトークンはキャッシュしない。
+ */
+final class VerifiedTokenCache {
+
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, VerifiedToken> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param clock 現在時刻（エポック秒）
+     */
+    VerifiedTokenCache(int maxEntries, LongSupplier clock) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.clock = clock;
+    }
+
+    /**
+     * キャッシュ済みのクレームを返し、なければ verifier で検証して保存する
+     *
+     * @throws InvalidTokenException 検証に失敗した場合
+     */
+    VerifiedToken get(String token, Function<String, VerifiedToken> verifier) {
+        long now = clock.getAsLong();
+        String key = digest(token);
+        VerifiedToken cached = entries.get(key);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                hits.increment();
+                return cached;
+            }
+            entries.remove(key, cached);
+        }
+
+        misses.increment();
+        VerifiedToken verified = verifier.apply(token);
+        if (verified.isExpired(now)) {
+            throw new InvalidTokenException("Token expired");
+        }
+        if (entries.size() >= maxEntries) {
+            evictOne();
+        }
+        entries.put(key, verified);
+        return verified;
+    }
+
+    /**
+     * 有効期限切れのエントリを削除（定期実行）
+     */
+    int evictExpired() {
+        long now = clock.getAsLong();
+        int removed = 0;
+        for (Iterator<VerifiedToken> it = entries.values().iterator(); it.hasNext(); ) {
+            if (it.next().isExpired(now)) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private void evictOne() {
+        Iterator<String> it = entries.keySet().iterator();
+        if (it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    long getEvictions() {
+        return evictions.sum();
+    }
+}
@@ -0,0 +1,292 @@
+package com.jakartaone2025.ski.gateway.bff;
+
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.CompletionCallback;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriBuilder;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import com.jakartaone2025.ski.gateway.metrics.RequestTiming;
+import com.jakartaone2025.ski.gateway.proxy.UpstreamInvoker;
+import com.jakartaone2025.ski.gateway.proxy.UpstreamRequest;
+import com.jakartaone2025.ski.gateway.resilience.PriorityLanes;
+import com.jakartaone2025.ski.gateway.resilience.UpstreamRejectedException;
+import com.jakartaone2025.ski.gateway.routing.RoutingService;
+import java.io.StringReader;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * 画面単位の複合エンドポイント（Backend for Frontend）
+ *
+ * 1 画面に必要な複数サービスへの呼び出しをゲートウェイ内で並行に行い、1 つのレスポンスにまとめる。
+ * 各呼び出しは個別のタイムアウト（gateway.bff.&lt;page&gt;.&lt;part&gt;.timeout.ms）で待ち、
+ * 任意のパートが失敗した場合は "partial": true の部分的な応答を返す。
+ */
+@Path("/bff")
+@RequestScoped
+public class BffResource {
+
+    private static final Logger logger = Logger.getLogger(BffResource.class.getName());
+
+    private static final String PRODUCT_PAGE = "product-page";
+
+    @Inject
+    private RoutingService routingService;
+
+    @Inject
+    private UpstreamInvoker upstreamInvoker;
+
+    @Inject
+    private PriorityLanes priorityLanes;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Inject
+    @ConfigProperty(name = "gateway.bff.product-page.lane", defaultValue = "browse")
+    private String productPageLane;
+
+    @Inject
+    @ConfigProperty(name = "gateway.bff.product-page.product.timeout.ms", defaultValue = "2000")
+    private long productTimeoutMillis;
+
+    @Inject
+    @ConfigProperty(name = "gateway.bff.product-page.category.timeout.ms", defaultValue = "1000")
+    private long categoryTimeoutMillis;
+
+    @Inject
+    @ConfigProperty(name = "gateway.bff.product-page.cart.timeout.ms", defaultValue = "800")
+    private long cartTimeoutMillis;
+
+    @Inject
+    @ConfigProperty(name = "gateway.bff.product-page.loyalty.timeout.ms", defaultValue = "500")
+    private long loyaltyTimeoutMillis;
+
+    @Inject
+    @ConfigProperty(name = "gateway.bff.product-page.recommendations.timeout.ms", defaultValue = "1500")
+    private long recommendationsTimeoutMillis;
+
+    @Inject
+    @ConfigProperty(name = "gateway.proxy.timeout.seconds", defaultValue = "30")
+    private long proxyTimeoutSeconds;
+
+    @Context
+    private HttpServletRequest request;
+
+    @Context
+    private HttpHeaders headers;
+
+    /**
+     * 商品詳細画面（商品・カテゴリ・カート・ポイント・おすすめ商品）
+     *
+     * 商品は必須、それ以外は任意。カテゴリは商品のカテゴリ ID が分かってから取得する。
+     * カートは cartId / sessionId、なければログインユーザーのカートを取得する。
+     */
+    @GET
+    @Path("/product-page/{productId}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void productPage(@PathParam("productId") String productId,
+                            @QueryParam("cartId") String cartId,
+                            @QueryParam("sessionId") String sessionId,
+                            @Suspended AsyncResponse asyncResponse) {
+        asyncResponse.setTimeoutHandler(timedOut -> timedOut.resume(gatewayTimeout()));
+        asyncResponse.setTimeout(proxyTimeoutSeconds, TimeUnit.SECONDS);
+        RequestTiming timing = RequestTiming.from(request.getAttribute(RequestTiming.PROPERTY));
+        timing.route("bff-product-page", "bff");
+
+        // 非同期コールバックからはリクエストコンテキストを参照できないため、先に転送ヘッダーを組み立てる
+        MultivaluedMap<String, Object> forwarded = forwardedHeaders();
+        String userId = (String) request.getAttribute("auth.userId");
+
+        // 空きがなければリクエストスレッドを返して待ち、枠が渡されたスレッドで続ける
+        priorityLanes.admit(productPageLane, slot -> {
+            asyncResponse.register((CompletionCallback) error -> slot.release());
+            if (asyncResponse.isDone()) {
+                // 枠を待っている間に応答済み（タイムアウト）
+                slot.release();
+                return;
+            }
+            timing.admitted();
+            assembleProductPage(productId, cartId, sessionId, forwarded, userId, asyncResponse);
+        }, shed -> asyncResponse.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, shed.getRetryAfterSeconds())
+            .entity("{\"error\": \"Service Unavailable\", \"message\": \"The gateway is overloaded, please retry later\"}")
+            .build()));
+    }
+
+    private void assembleProductPage(String productId, String cartId, String sessionId,
+                                     MultivaluedMap<String, Object> forwarded, String userId, AsyncResponse asyncResponse) {
+        CompletionStage<String> product = fetch("GET", "product", forwarded,
+            uri -> uri.path("/api/v1/products/{productId}").build(productId));
+        CompletionStage<String> category = product.thenCompose(json -> {
+            String categoryId = categoryIdOf(json);
+            return categoryId == null
+                ? CompletableFuture.completedFuture(null)
+                : fetch("GET", "product", forwarded, uri -> uri.path("/api/v1/categories/{categoryId}").build(categoryId));
+        });
+
+        CompletionStage<String> cart;
+        if (cartId != null) {
+            cart = fetch("GET", "cart", forwarded, uri -> uri.path("/api/v1/carts/{cartId}").build(cartId));
+        } else if (sessionId != null) {
+            cart = fetch("GET", "cart", forwarded, uri -> uri.path("/api/v1/carts/session/{sessionId}").build(sessionId));
+        } else if (userId != null) {
+            cart = fetch("GET", "cart", forwarded, uri -> uri.path("/api/v1/carts/customer/{customerId}").build(userId));
+        } else {
+            cart = CompletableFuture.completedFuture(null);
+        }
+
+        CompletionStage<String> loyalty = userId == null
+            ? CompletableFuture.completedFuture(null)
+            : fetch("GET", "point", forwarded, uri -> uri.path("/api/v1/loyalty/points/{customerId}").build(userId));
+
+        CompletionStage<String> recommendations = fetch("POST", "ai", forwarded, uri -> {
+            uri.path("/api/v1/recommendations/bundle").queryParam("baseProductId", productId);
+            if (userId != null) {
+                uri.queryParam("userId", userId);
+            }
+            return uri.build();
+        });
+
+        new CompositeResponse()
+            .required("product", product, productTimeoutMillis)
+            .optional("category", category, productTimeoutMillis + categoryTimeoutMillis)
+            .optional("cart", cart, cartTimeoutMillis)
+            .optional("loyalty", loyalty, loyaltyTimeoutMillis)
+            .optional("recommendations", recommendations, recommendationsTimeoutMillis)
+            .assemble()
+            .whenComplete((result, error) -> {
+                if (error != null) {
+                    asyncResponse.resume(failure(productId, CompositeResponse.unwrap(error)));
+                    return;
+                }
+                result.errors().forEach((part, reason) -> metricRegistry.counter("gateway.bff.degraded",
+                    new Tag("page", PRODUCT_PAGE), new Tag("part", part), new Tag("reason", reason)).inc());
+                asyncResponse.resume(Response.ok(result.body(), MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.CACHE_CONTROL, "private, no-store")
+                    .build());
+            });
+    }
+
+    /**
+     * 上流を呼び出し、2xx のレスポンスボディ（JSON）を返す
+     */
+    private CompletionStage<String> fetch(String method, String serviceName, MultivaluedMap<String, Object> forwarded,
+                                          Function<UriBuilder, URI> uri) {
+        try {
+            String serviceUrl = routingService.chooseInstance(serviceName).getUrl();
+            UpstreamRequest upstreamRequest = new UpstreamRequest(serviceUrl,
+                uri.apply(UriBuilder.fromUri(serviceUrl)), forwarded);
+            return upstreamInvoker.send(method, upstreamRequest, upstreamRequest.getUri().getPath(), response -> {
+                if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+                    throw new UpstreamStatusException(serviceName, response.getStatus());
+                }
+                String body = response.hasEntity() ? response.readEntity(String.class) : null;
+                return body == null || body.isBlank() ? null : body;
+            });
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 商品の JSON からカテゴリ ID を取り出す（取り出せなければ null）
+     */
+    static String categoryIdOf(String productJson) {
+        if (productJson == null) {
+            return null;
+        }
+        try (JsonReader reader = Json.createReader(new StringReader(productJson))) {
+            JsonObject product = reader.readObject();
+            JsonValue category = product.get("category");
+            if (category == null || category.getValueType() != JsonValue.ValueType.OBJECT) {
+                return null;
+            }
+            JsonValue id = category.asJsonObject().get("id");
+            return id != null && id.getValueType() == JsonValue.ValueType.STRING
+                ? ((JsonString) id).getString()
+                : null;
+        } catch (JsonException | IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private MultivaluedMap<String, Object> forwardedHeaders() {
+        MultivaluedMap<String, Object> forwarded = new MultivaluedHashMap<>();
+        forwarded.putSingle(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON);
+        for (String headerName : new String[] {HttpHeaders.AUTHORIZATION, HttpHeaders.ACCEPT_LANGUAGE, "X-Request-ID"}) {
+            String headerValue = headers.getHeaderString(headerName);
+            if (headerValue != null) {
+                forwarded.putSingle(headerName, headerValue);
+            }
+        }
+
+        // 認証情報（AuthenticationFilter で検証済みのトークンのクレーム）を転送
+        String userId = (String) request.getAttribute("auth.userId");
+        String username = (String) request.getAttribute("auth.username");
+        if (userId != null) {
+            forwarded.putSingle("X-User-ID", userId);
+        }
+        if (username != null) {
+            forwarded.putSingle("X-Username", username);
+        }
+        return forwarded;
+    }
+
+    /**
+     * 必須パートの失敗を応答に変換
+     */
+    private Response failure(String productId, Throwable error) {
+        if (error instanceof UpstreamStatusException statusError && statusError.getStatus() == 404) {
+            return Response.status(Response.Status.NOT_FOUND)
+                .entity("{\"error\": \"Not Found\", \"message\": \"The requested product was not found\"}")
+                .build();
+        }
+        logger.warning(String.format("Product page for %s failed: %s", productId, error.getMessage()));
+        if (error instanceof UpstreamRejectedException rejected) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, rejected.getRetryAfterSeconds())
+                .entity("{\"error\": \"Service Unavailable\", \"message\": \"The requested service is temporarily overloaded\"}")
+                .build();
+        }
+        if (error instanceof TimeoutException) {
+            return gatewayTimeout();
+        }
+        return Response.status(Response.Status.BAD_GATEWAY)
+            .entity("{\"error\": \"Bad Gateway\", \"message\": \"The upstream service returned an error\"}")
+            .build();
+    }
+
+    private Response gatewayTimeout() {
+        return Response.status(Response.Status.GATEWAY_TIMEOUT)
+            .entity("{\"error\": \"Gateway Timeout\", \"message\": \"The upstream service did not respond in time\"}")
+            .build();
+    }
+}
@@ -0,0 +1,131 @@
+package com.jakartaone2025.ski.gateway.bff;
+
+import com.jakartaone2025.ski.gateway.resilience.UpstreamRejectedException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 複数の上流呼び出しの結果（JSON）を1つのレスポンスにまとめる
+ *
+ * 各パートは個別のタイムアウトで待ち、必須パートが失敗した時点で全体を失敗させる。
+ * 任意パートが失敗・タイムアウトした場合は null に置き換え、理由を errors に入れて部分的な応答を返す。
+ */
+final class CompositeResponse {
+
+    private final List<Part> parts = new ArrayList<>();
+
+    /**
+     * 必須パートを追加（失敗すると全体が失敗する）
+     */
+    CompositeResponse required(String name, CompletionStage<String> json, long timeoutMillis) {
+        return add(name, json, timeoutMillis, true);
+    }
+
+    /**
+     * 任意パートを追加（失敗すると null になる。null で完了したパートは対象外として扱う）
+     */
+    CompositeResponse optional(String name, CompletionStage<String> json, long timeoutMillis) {
+        return add(name, json, timeoutMillis, false);
+    }
+
+    private CompositeResponse add(String name, CompletionStage<String> json, long timeoutMillis, boolean required) {
+        // 元の呼び出しを共有する他のパートに影響しないよう、コピーにタイムアウトを設定する
+        CompletableFuture<String> future = json.toCompletableFuture().copy().orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        parts.add(new Part(name, future, required));
+        return this;
+    }
+
+    /**
+     * 全パートの完了（またはタイムアウト）を待って組み立てる
+     *
+     * 必須パートが失敗した場合はその原因で失敗する。
+     */
+    CompletionStage<Result> assemble() {
+        CompletableFuture<Result> result = new CompletableFuture<>();
+        CompletableFuture<?>[] settled = new CompletableFuture<?>[parts.size()];
+        for (int i = 0; i < settled.length; i++) {
+            Part part = parts.get(i);
+            if (part.required()) {
+                part.future().whenComplete((value, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(unwrap(error));
+                    }
+                });
+            }
+            settled[i] = part.future().handle((value, error) -> null);
+        }
+        CompletableFuture.allOf(settled).thenRun(() -> {
+            if (!result.isDone()) {
+                result.complete(build());
+            }
+        });
+        return result;
+    }
+
+    private Result build() {
+        StringBuilder body = new StringBuilder(1024).append('{');
+        Map<String, String> errors = new LinkedHashMap<>();
+        for (Part part : parts) {
+            String value = part.future().handle((json, error) -> {
+                if (error != null) {
+                    errors.put(part.name(), reasonOf(unwrap(error)));
+                    return null;
+                }
+                return json;
+            }).join();
+            body.append('"').append(part.name()).append("\":").append(value == null ? "null" : value).append(',');
+        }
+        body.append("\"partial\":").append(!errors.isEmpty()).append(",\"errors\":{");
+        boolean first = true;
+        for (Map.Entry<String, String> error : errors.entrySet()) {
+            if (!first) {
+                body.append(',');
+            }
+            body.append('"').append(error.getKey()).append("\":\"").append(error.getValue()).append('"');
+            first = false;
+        }
+        body.append("}}");
+        return new Result(body.toString(), Collections.unmodifiableMap(errors));
+    }
+
+    static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * 失敗理由（レスポンスの errors とメトリクスのタグ値）
+     */
+    static String reasonOf(Throwable error) {
+        if (error instanceof TimeoutException) {
+            return "timeout";
+        }
+        if (error instanceof UpstreamRejectedException) {
+            return "unavailable";
+        }
+        if (error instanceof UpstreamStatusException statusError) {
+            return "status-" + statusError.getStatus();
+        }
+        return "error";
+    }
+
+    private record Part(String name, CompletableFuture<String> future, boolean required) {
+    }
+
+    /**
+     * 組み立て結果（errors は失敗した任意パートの名前と理由）
+     */
+    record Result(String body, Map<String, String> errors) {
+
+        boolean partial() {
+            return !errors.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.jakartaone2025.ski.gateway.bff;
+
+/**
+ * 上流が 2xx 以外のステータスを返した場合の例外
+ */
+final class UpstreamStatusException extends RuntimeException {
+
+    private final int status;
+
+    UpstreamStatusException(String serviceName, int status) {
+        super(String.format("%s responded with status %d", serviceName, status), null, false, false);
+        this.status = status;
+    }
+
+    int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,104 @@
+package com.jakartaone2025.ski.gateway.cache;
+
+/**
+ * 上流レスポンスの Cache-Control ディレクティブ
+ *
+ * @param noStore no-store
+ * @param noCache no-cache（保存は可能だが毎回再検証が必要）
+ * @param privateResponse private（共有キャッシュには保存しない）
+ * @param publicResponse public（Authorization 付きのリクエストへの応答も共有キャッシュに保存できる）
+ * @param maxAge max-age 秒（未指定は -1）
+ * @param sharedMaxAge s-maxage 秒（未指定は -1、共有キャッシュでは max-age より優先）
+ * @param staleWhileRevalidate stale-while-revalidate 秒（未指定は -1）
+ */
+public record CacheDirectives(
+        boolean noStore,
+        boolean noCache,
+        boolean privateResponse,
+        boolean publicResponse,
+        long maxAge,
+        long sharedMaxAge,
+        long staleWhileRevalidate) {
+
+    public static final CacheDirectives NONE = new CacheDirectives(false, false, false, false, -1, -1, -1);
+
+    /**
+     * Cache-Control ヘッダーを解析（null や不正な値は無視）
+     */
+    public static CacheDirectives parse(String cacheControl) {
+        if (cacheControl == null || cacheControl.isBlank()) {
+            return NONE;
+        }
+
+        boolean noStore = false;
+        boolean noCache = false;
+        boolean privateResponse = false;
+        boolean publicResponse = false;
+        long maxAge = -1;
+        long sharedMaxAge = -1;
+        long staleWhileRevalidate = -1;
+
+        for (String token : cacheControl.split(",")) {
+            String directive = token.trim().toLowerCase();
+            int eq = directive.indexOf('=');
+            String name = eq < 0 ? directive : directive.substring(0, eq).trim();
+            String value = eq < 0 ? null : directive.substring(eq + 1).trim().replace("\"", "");
+
+            switch (name) {
+                case "no-store" -> noStore = true;
+                case "no-cache" -> noCache = true;
+                case "private" -> privateResponse = true;
+                case "public" -> publicResponse = true;
+                case "max-age" -> maxAge = seconds(value);
+                case "s-maxage" -> sharedMaxAge = seconds(value);
+                case "stale-while-revalidate" -> staleWhileRevalidate = seconds(value);
+                default -> {
+                    // その他のディレクティブは無視
+                }
+            }
+        }
+        return new CacheDirectives(noStore, noCache, privateResponse, publicResponse, maxAge, sharedMaxAge,
+            staleWhileRevalidate);
+    }
+
+    private static long seconds(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Authorization 付きのリクエストへの応答を共有キャッシュに保存できるか（RFC 9111 3.5: public か s-maxage が必要）
+     */
+    public boolean allowsSharingAuthorized() {
+        return publicResponse || sharedMaxAge >= 0;
+    }
+
+    /**
+     * 共有キャッシュとしての鮮度（秒）。指定がなければ既定値
+     */
+    public long freshnessSeconds(long defaultSeconds) {
+        if (noCache) {
+            return 0;
+        }
+        if (sharedMaxAge >= 0) {
+            return sharedMaxAge;
+        }
+        return maxAge >= 0 ? maxAge : defaultSeconds;
+    }
+
+    /**
+     * 期限切れ後に古い内容を返しつつ再検証できる秒数。指定がなければ既定値
+     */
+    public long staleSeconds(long defaultSeconds) {
+        if (noCache) {
+            return 0;
+        }
+        return staleWhileRevalidate >= 0 ? staleWhileRevalidate : defaultSeconds;
+    }
+}
@@ -0,0 +1,174 @@
+package com.jakartaone2025.ski.gateway.cache;
+
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import com.jakartaone2025.ski.gateway.compression.ContentCoding;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * キャッシュ済みレスポンス（ボディはバッファ済み）
+ *
+ * 内容は不変で、再検証で鮮度が更新された場合は新しいインスタンスに置き換える。
+ * ボディが gzip 圧縮済みの場合、ヘッダーには Content-Encoding / Content-Length を含めない。
+ */
+public final class CachedResponse {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private final int status;
+    private final MultivaluedMap<String, Object> headers;
+    private final byte[] body;
+    private final String contentEncoding;
+    private final String etag;
+    private final long storedAtMillis;
+    private final long freshUntilMillis;
+    private final long staleUntilMillis;
+    private final long sizeBytes;
+    private final AtomicBoolean revalidating = new AtomicBoolean();
+
+    CachedResponse(int status, MultivaluedMap<String, Object> headers, byte[] body, String contentEncoding, String etag,
+                   long storedAtMillis, long freshUntilMillis, long staleUntilMillis) {
+        this.status = status;
+        this.headers = headers;
+        this.body = body;
+        this.contentEncoding = contentEncoding;
+        this.etag = etag;
+        this.storedAtMillis = storedAtMillis;
+        this.freshUntilMillis = freshUntilMillis;
+        this.staleUntilMillis = staleUntilMillis;
+        this.sizeBytes = ENTRY_OVERHEAD_BYTES + body.length + headerBytes(headers);
+    }
+
+    /**
+     * キャッシュに保存しないバッファ済みレスポンス（リクエストの合流などで共有する場合に使用）
+     */
+    public static CachedResponse uncached(int status, MultivaluedMap<String, Object> headers, byte[] body) {
+        long now = System.currentTimeMillis();
+        Object etag = headers.getFirst("ETag");
+        String contentEncoding = gzipEncoding(headers);
+        return new CachedResponse(status, contentEncoding == null ? headers : withoutEncoding(headers), body,
+            contentEncoding, etag == null ? null : etag.toString(), now, now, now);
+    }
+
+    /**
+     * 上流が gzip で返したレスポンスの Content-Encoding（それ以外は null。未知の符号化はヘッダーのまま中継する）
+     */
+    static String gzipEncoding(MultivaluedMap<String, Object> headers) {
+        Object encoding = headers.getFirst("Content-Encoding");
+        return encoding != null && ContentCoding.GZIP.equalsIgnoreCase(encoding.toString().trim())
+            ? ContentCoding.GZIP : null;
+    }
+
+    /**
+     * 圧縮済みボディと一緒に保持するヘッダー（符号化に依存するヘッダーを除く）
+     */
+    static MultivaluedMap<String, Object> withoutEncoding(MultivaluedMap<String, Object> headers) {
+        MultivaluedMap<String, Object> copy = new MultivaluedHashMap<>(headers);
+        copy.remove("Content-Encoding");
+        copy.remove("Content-Length");
+        return copy;
+    }
+
+    private static long headerBytes(MultivaluedMap<String, Object> headers) {
+        long bytes = 0;
+        for (Map.Entry<String, List<Object>> entry : headers.entrySet()) {
+            for (Object value : entry.getValue()) {
+                bytes += entry.getKey().length() + String.valueOf(value).length();
+            }
+        }
+        return bytes;
+    }
+
+    public boolean isFresh(long nowMillis) {
+        return nowMillis < freshUntilMillis;
+    }
+
+    /**
+     * 期限切れだが stale-while-revalidate の範囲内か
+     */
+    public boolean isServableStale(long nowMillis) {
+        return !isFresh(nowMillis) && nowMillis < staleUntilMillis;
+    }
+
+    /**
+     * バックグラウンド再検証を開始する権利を取得（同時に1件のみ）
+     */
+    public boolean tryStartRevalidation() {
+        return revalidating.compareAndSet(false, true);
+    }
+
+    public void finishRevalidation() {
+        revalidating.set(false);
+    }
+
+    /**
+     * キャッシュに入ってからの経過秒数（Age ヘッダー用）
+     */
+    public long ageSeconds(long nowMillis) {
+        return Math.max(0, (nowMillis - storedAtMillis) / 1000);
+    }
+
+    /**
+     * クライアントの If-None-Match がこのエントリの ETag に一致するか
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (etag == null || ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || weakEquals(value, etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean weakEquals(String a, String b) {
+        return stripWeak(a).equals(stripWeak(b));
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public MultivaluedMap<String, Object> getHeaders() {
+        return headers;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * ボディが gzip 圧縮済みか
+     */
+    public boolean isGzipped() {
+        return contentEncoding != null;
+    }
+
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * クライアントに返すボディ（gzip を受け付けないクライアントには展開して返す）
+     */
+    public byte[] bodyFor(boolean acceptsGzip) {
+        return isGzipped() && !acceptsGzip ? ContentCoding.gunzip(body) : body;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+}
@@ -0,0 +1,279 @@
+package com.jakartaone2025.ski.gateway.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MultivaluedMap;
+import com.jakartaone2025.ski.gateway.compression.CompressionSettings;
+import com.jakartaone2025.ski.gateway.compression.ContentCoding;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * キャッシュ可能ルート（gateway.routes.&lt;name&gt;.cacheable=true）向けのレスポンスキャッシュ
+ *
+ * キーはメソッド・パス・正規化したクエリ・Vary 対象のリクエストヘッダー値から組み立てる。
+ * 容量はバイト数で制限し、超過分は最も長く参照されていないエントリから破棄する（LRU）。
+ * 鮮度は上流の Cache-Control（s-maxage / max-age / no-cache / stale-while-revalidate）に従う。
+ * 圧縮対象のボディは gzip 圧縮して保存し、ヒットの度に圧縮し直さない。
+ */
+@ApplicationScoped
+public class ResponseCache {
+
+    /**
+     * キャッシュ参照結果（メトリクスのタグ値）
+     */
+    public enum Outcome {
+        HIT, STALE, REVALIDATED, MISS, BYPASS;
+
+        final String tag = name().toLowerCase();
+    }
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Inject
+    private Config config;
+
+    @Inject
+    @ConfigProperty(name = "gateway.cache.enabled", defaultValue = "true")
+    private boolean enabled;
+
+    @Inject
+    @ConfigProperty(name = "gateway.cache.max-bytes", defaultValue = "67108864")
+    private long maxBytes;
+
+    @Inject
+    @ConfigProperty(name = "gateway.cache.max-entry-bytes", defaultValue = "1048576")
+    private long maxEntryBytes;
+
+    @Inject
+    @ConfigProperty(name = "gateway.cache.default-ttl.seconds", defaultValue = "30")
+    private long defaultTtlSeconds;
+
+    @Inject
+    @ConfigProperty(name = "gateway.cache.default-stale-while-revalidate.seconds", defaultValue = "30")
+    private long defaultStaleSeconds;
+
+    private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, List<String>> varyByBaseKey = new ConcurrentHashMap<>();
+    private final Map<String, Counter[]> countersByRoute = new ConcurrentHashMap<>();
+    private final LongAdder evictions = new LongAdder();
+    private CompressionSettings compression = CompressionSettings.DISABLED;
+    private long currentBytes;
+
+    @PostConstruct
+    void registerMetrics() {
+        compression = CompressionSettings.from(config);
+        metricRegistry.gauge("gateway.cache.bytes", this, ResponseCache::getCurrentBytes);
+        metricRegistry.gauge("gateway.cache.entries", this, ResponseCache::getEntryCount);
+        metricRegistry.gauge("gateway.cache.evictions", evictions, LongAdder::sum);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * メソッド・パス・クエリからキャッシュキーの基本部分を作成（クエリはキー・値の順にソート）
+     */
+    public static String baseKey(String method, String path, MultivaluedMap<String, String> queryParameters) {
+        StringBuilder key = new StringBuilder(method).append(' ').append(path);
+        if (queryParameters != null && !queryParameters.isEmpty()) {
+            List<String> pairs = new ArrayList<>();
+            for (Map.Entry<String, List<String>> entry : queryParameters.entrySet()) {
+                for (String value : entry.getValue()) {
+                    pairs.add(entry.getKey() + "=" + value);
+                }
+            }
+            Collections.sort(pairs);
+            key.append('?').append(String.join("&", pairs));
+        }
+        return key.toString();
+    }
+
+    /**
+     * 上流が Vary で指定したリクエストヘッダーの値を加えたキーを作成
+     */
+    public String variantKey(String baseKey, Function<String, String> requestHeader) {
+        List<String> varyHeaders = varyByBaseKey.get(baseKey);
+        if (varyHeaders == null || varyHeaders.isEmpty()) {
+            return baseKey;
+        }
+        StringBuilder key = new StringBuilder(baseKey);
+        for (String headerName : varyHeaders) {
+            String value = requestHeader.apply(headerName);
+            key.append('\n').append(headerName).append(':').append(value == null ? "" : value.trim());
+        }
+        return key.toString();
+    }
+
+    public synchronized CachedResponse get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * 上流レスポンスが共有キャッシュに保存可能か
+     */
+    public boolean isStorable(int status, CacheDirectives directives, MultivaluedMap<String, Object> upstreamHeaders) {
+        return isStorable(status, directives, upstreamHeaders, false);
+    }
+
+    /**
+     * 上流レスポンスが共有キャッシュに保存可能か
+     *
+     * @param authorized リクエストに Authorization が付いていたか（上流が明示的に共有を許可した場合のみ保存する）
+     */
+    public boolean isStorable(int status, CacheDirectives directives, MultivaluedMap<String, Object> upstreamHeaders,
+                              boolean authorized) {
+        if (status != 200 || directives.noStore() || directives.privateResponse()) {
+            return false;
+        }
+        if (authorized && !directives.allowsSharingAuthorized()) {
+            return false;
+        }
+        if (upstreamHeaders.containsKey("Set-Cookie")) {
+            return false;
+        }
+        Object vary = upstreamHeaders.getFirst("Vary");
+        return vary == null || !vary.toString().contains("*");
+    }
+
+    /**
+     * 上流レスポンスをキャッシュに保存して保存したエントリを返す（大きすぎる場合は保存しない）
+     */
+    public CachedResponse store(String baseKey, Function<String, String> requestHeader, int status,
+                                MultivaluedMap<String, Object> headers, byte[] body, CacheDirectives directives) {
+        Object vary = headers.getFirst("Vary");
+        if (vary != null) {
+            List<String> varyHeaders = new ArrayList<>();
+            for (String name : vary.toString().split(",")) {
+                if (!name.isBlank()) {
+                    varyHeaders.add(name.trim().toLowerCase());
+                }
+            }
+            Collections.sort(varyHeaders);
+            varyByBaseKey.put(baseKey, List.copyOf(varyHeaders));
+        } else {
+            varyByBaseKey.remove(baseKey);
+        }
+
+        Object etag = headers.getFirst("ETag");
+        String contentEncoding = CachedResponse.gzipEncoding(headers);
+        if (contentEncoding == null && !headers.containsKey("Content-Encoding")
+                && compression.shouldCompress(body.length, headers.getFirst("Content-Type"))) {
+            byte[] compressed = ContentCoding.gzip(body, compression.level());
+            // 縮まない場合は圧縮せずに保存する
+            if (compressed.length < body.length) {
+                body = compressed;
+                contentEncoding = ContentCoding.GZIP;
+            }
+        }
+        CachedResponse entry = newEntry(status, contentEncoding == null ? headers : CachedResponse.withoutEncoding(headers),
+            body, contentEncoding, etag == null ? null : etag.toString(), directives, System.currentTimeMillis());
+
+        // 鮮度がなく再検証もできないレスポンスは保存しても使えない
+        if (entry.getEtag() == null && !entry.isFresh(System.currentTimeMillis())) {
+            return entry;
+        }
+        put(variantKey(baseKey, requestHeader), entry);
+        return entry;
+    }
+
+    /**
+     * 304 Not Modified を受けて既存エントリの鮮度を更新
+     */
+    public CachedResponse refresh(String key, CachedResponse cached, CacheDirectives directives) {
+        CachedResponse refreshed = newEntry(cached.getStatus(), cached.getHeaders(), cached.getBody(),
+            cached.getContentEncoding(), cached.getEtag(), directives, System.currentTimeMillis());
+        put(key, refreshed);
+        return refreshed;
+    }
+
+    private CachedResponse newEntry(int status, MultivaluedMap<String, Object> headers, byte[] body,
+                                    String contentEncoding, String etag, CacheDirectives directives, long now) {
+        long freshUntil = now + TimeUnit.SECONDS.toMillis(directives.freshnessSeconds(defaultTtlSeconds));
+        long staleUntil = freshUntil + TimeUnit.SECONDS.toMillis(directives.staleSeconds(defaultStaleSeconds));
+        return new CachedResponse(status, headers, body, contentEncoding, etag, now, freshUntil, staleUntil);
+    }
+
+    private synchronized void put(String key, CachedResponse entry) {
+        if (entry.getSizeBytes() > maxEntryBytes) {
+            return;
+        }
+
+        CachedResponse previous = entries.put(key, entry);
+        if (previous != null) {
+            currentBytes -= previous.getSizeBytes();
+        }
+        currentBytes += entry.getSizeBytes();
+
+        // 容量超過分を LRU 順に破棄
+        Iterator<CachedResponse> eldest = entries.values().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            CachedResponse evicted = eldest.next();
+            if (evicted == entry) {
+                continue;
+            }
+            eldest.remove();
+            currentBytes -= evicted.getSizeBytes();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * ルート毎の参照結果を記録
+     */
+    public void record(String routeName, Outcome outcome) {
+        countersByRoute.computeIfAbsent(routeName, this::createCounters)[outcome.ordinal()].inc();
+    }
+
+    private Counter[] createCounters(String routeName) {
+        Outcome[] outcomes = Outcome.values();
+        Counter[] counters = new Counter[outcomes.length];
+        for (Outcome outcome : outcomes) {
+            counters[outcome.ordinal()] = metricRegistry.counter("gateway.cache.requests",
+                new Tag("route", routeName), new Tag("result", outcome.tag));
+        }
+        return counters;
+    }
+
+    public long getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    void configure(long maxBytes, long maxEntryBytes, long defaultTtlSeconds, long defaultStaleSeconds) {
+        this.enabled = true;
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.defaultStaleSeconds = defaultStaleSeconds;
+    }
+
+    void configure(long maxBytes, long maxEntryBytes, long defaultTtlSeconds, long defaultStaleSeconds,
+                   CompressionSettings compression) {
+        configure(maxBytes, maxEntryBytes, defaultTtlSeconds, defaultStaleSeconds);
+        this.compression = compression;
+    }
+}
@@ -0,0 +1,270 @@
+package com.jakartaone2025.ski.gateway.client;
+
+import com.jakartaone2025.ski.gateway.resilience.UpstreamRejectedException;
+import jakarta.ws.rs.client.Client;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpAsyncClient4Engine;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * 上流サービス1つ分のコネクションプール付きHTTPクライアント
+ *
+ * サービス毎に独立したプールを持つため、応答の遅いサービスが
+ * 他サービス向けのコネクションを使い潰すことはない。
+ * 同時に借用できるのは max-connections 件までで、空きがなければスレッドを使わずに checkout-timeout まで待ち、
+ * それでも空かなければ {@link UpstreamRejectedException} で拒否する。
+ * 一定時間利用されなかったプールはクライアントごと破棄し、次回利用時に再生成する。
+ *
+ * async-engine=true の場合は Apache HttpAsyncClient（NIO）のエンジンを使い、応答待ちの間もスレッドを占有しない。
+ * RESTEasy が既定で作る非同期エンジンはプールサイズ・TTL・タイムアウトの設定を使わないため、同じ設定値で組み立てる。
+ */
+public class UpstreamClientPool {
+
+    private static final Logger logger = Logger.getLogger(UpstreamClientPool.class.getName());
+
+    // 非同期エンジンの I/O スレッド数（プール毎。接続の多重化は NIO で行うため少数でよい）
+    private static final int ASYNC_IO_THREADS = 2;
+
+    private final String serviceName;
+    private final UpstreamClientSettings settings;
+    private final ScheduledExecutorService scheduler;
+
+    // 借用の空き枠（上限 max-connections）と空きを待つ借用（lock で保護）
+    private final Object lock = new Object();
+    private int available;
+    private final ArrayDeque<CompletableFuture<Lease>> waiters = new ArrayDeque<>();
+    private final LongAdder totalLeases = new LongAdder();
+    private final LongAdder checkoutTimeouts = new LongAdder();
+
+    private Client client;
+    private volatile long lastUsedMillis = System.currentTimeMillis();
+
+    /**
+     * @param scheduler checkout-timeout の判定に使う
+     */
+    public UpstreamClientPool(String serviceName, UpstreamClientSettings settings, ScheduledExecutorService scheduler) {
+        this.serviceName = serviceName;
+        this.settings = settings;
+        this.scheduler = scheduler;
+        this.available = settings.maxConnections();
+    }
+
+    /**
+     * クライアントを借用する（利用後は必ず {@link Lease#close()} すること）
+     *
+     * 空きがあれば完了済みの future を返し、なければ返却された時点で完了する。
+     * checkout-timeout 以内に空きができなかった場合は {@link UpstreamRejectedException} で失敗する。
+     */
+    public CompletableFuture<Lease> acquire() {
+        CompletableFuture<Lease> waiter;
+        synchronized (lock) {
+            if (waiters.isEmpty() && available > 0) {
+                available--;
+                waiter = null;
+            } else {
+                waiter = new CompletableFuture<>();
+                waiters.add(waiter);
+            }
+        }
+        if (waiter == null) {
+            return CompletableFuture.completedFuture(lease());
+        }
+        ScheduledFuture<?> timeout = scheduler.schedule(() -> expire(waiter),
+            settings.checkoutTimeoutMillis(), TimeUnit.MILLISECONDS);
+        waiter.whenComplete((lease, error) -> timeout.cancel(false));
+        return waiter;
+    }
+
+    private Lease lease() {
+        totalLeases.increment();
+        lastUsedMillis = System.currentTimeMillis();
+        return new Lease();
+    }
+
+    /**
+     * 返却された枠を待っている借用の先頭に渡す（なければ空き枠に戻す）
+     */
+    private void release() {
+        CompletableFuture<Lease> next;
+        synchronized (lock) {
+            next = waiters.poll();
+            if (next == null) {
+                available++;
+                return;
+            }
+        }
+        next.complete(lease());
+    }
+
+    private void expire(CompletableFuture<Lease> waiter) {
+        boolean removed;
+        synchronized (lock) {
+            removed = waiters.remove(waiter);
+        }
+        if (removed) {
+            checkoutTimeouts.increment();
+            waiter.completeExceptionally(
+                new UpstreamRejectedException(serviceName, UpstreamRejectedException.Reason.POOL_EXHAUSTED, 1));
+        }
+    }
+
+    /**
+     * アイドル時間を超過し、かつ利用中のリクエストがなければクライアントを破棄
+     */
+    public synchronized boolean evictIfIdle(long nowMillis) {
+        if (client == null || getInFlight() > 0) {
+            return false;
+        }
+        if (nowMillis - lastUsedMillis < TimeUnit.SECONDS.toMillis(settings.idleTimeoutSeconds())) {
+            return false;
+        }
+
+        client.close();
+        client = null;
+        logger.fine(String.format("Evicted idle connection pool for %s", serviceName));
+        return true;
+    }
+
+    /**
+     * コネクション取得待ちのタイムアウトを記録
+     */
+    public void recordCheckoutTimeout() {
+        checkoutTimeouts.increment();
+    }
+
+    public synchronized void close() {
+        if (client != null) {
+            client.close();
+            client = null;
+        }
+    }
+
+    private synchronized Client client() {
+        if (client == null) {
+            client = createClient();
+        }
+        return client;
+    }
+
+    private Client createClient() {
+        ResteasyClientBuilder builder = ((ResteasyClientBuilder) ResteasyClientBuilder.newBuilder())
+            .connectionPoolSize(settings.maxConnections())
+            .maxPooledPerRoute(settings.maxConnections())
+            .connectionTTL(settings.keepAliveSeconds(), TimeUnit.SECONDS)
+            .connectionCheckoutTimeout(settings.checkoutTimeoutMillis(), TimeUnit.MILLISECONDS)
+            .connectTimeout(settings.connectTimeoutMillis(), TimeUnit.MILLISECONDS)
+            .readTimeout(settings.readTimeoutMillis(), TimeUnit.MILLISECONDS);
+
+        if (settings.asyncEngine()) {
+            builder.httpEngine(new ApacheHttpAsyncClient4Engine(createAsyncHttpClient(), true));
+        }
+
+        logger.info(String.format("Created connection pool for %s (maxConnections=%d, asyncEngine=%s)",
+            serviceName, settings.maxConnections(), settings.asyncEngine()));
+        return builder.build();
+    }
+
+    /**
+     * 非同期エンジン用の HTTP クライアント（プールサイズ・TTL・各タイムアウトをこのプールの設定に合わせる）
+     *
+     * ゲートウェイとして中継するため、リダイレクトは追わず、Cookie・認証・接続の利用者情報は保持しない。
+     */
+    private CloseableHttpAsyncClient createAsyncHttpClient() {
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout((int) settings.connectTimeoutMillis())
+            .setSocketTimeout((int) settings.readTimeoutMillis())
+            .setConnectionRequestTimeout((int) settings.checkoutTimeoutMillis())
+            .setRedirectsEnabled(false)
+            .build();
+        IOReactorConfig reactorConfig = IOReactorConfig.custom()
+            .setIoThreadCount(ASYNC_IO_THREADS)
+            .setConnectTimeout((int) settings.connectTimeoutMillis())
+            .setSoTimeout((int) settings.readTimeoutMillis())
+            .setTcpNoDelay(true)
+            .build();
+        return HttpAsyncClients.custom()
+            .setMaxConnTotal(settings.maxConnections())
+            .setMaxConnPerRoute(settings.maxConnections())
+            .setConnectionTimeToLive(settings.keepAliveSeconds(), TimeUnit.SECONDS)
+            .setDefaultRequestConfig(requestConfig)
+            .setDefaultIOReactorConfig(reactorConfig)
+            .disableCookieManagement()
+            .disableAuthCaching()
+            .disableConnectionState()
+            .build();
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public UpstreamClientSettings getSettings() {
+        return settings;
+    }
+
+    public int getInFlight() {
+        synchronized (lock) {
+            return settings.maxConnections() - available;
+        }
+    }
+
+    public int getMaxConnections() {
+        return settings.maxConnections();
+    }
+
+    /**
+     * プールの飽和率（0.0〜1.0）
+     */
+    public double getSaturation() {
+        return Math.min(1.0, (double) getInFlight() / settings.maxConnections());
+    }
+
+    public long getTotalLeases() {
+        return totalLeases.sum();
+    }
+
+    public long getCheckoutTimeouts() {
+        return checkoutTimeouts.sum();
+    }
+
+    public synchronized boolean isOpen() {
+        return client != null;
+    }
+
+    /**
+     * 借用中のクライアント
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease() {
+        }
+
+        /**
+         * 借用中のクライアント（初回利用時に生成する）
+         */
+        public Client client() {
+            return UpstreamClientPool.this.client();
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                lastUsedMillis = System.currentTimeMillis();
+                UpstreamClientPool.this.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.jakartaone2025.ski.gateway.client;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * 上流サービス毎のクライアントプールを管理するレジストリ
+ */
+@ApplicationScoped
+public class UpstreamClientRegistry {
+
+    private static final Logger logger = Logger.getLogger(UpstreamClientRegistry.class.getName());
+
+    @Inject
+    private Config config;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Inject
+    @ConfigProperty(name = "gateway.upstream.eviction.interval.seconds", defaultValue = "30")
+    private long evictionIntervalSeconds;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    private static final String STREAM_POOL_SUFFIX = "-stream";
+
+    private final Map<String, UpstreamClientPool> pools = new ConcurrentHashMap<>();
+    private ScheduledFuture<?> evictionTask;
+
+    @PostConstruct
+    void startEviction() {
+        evictionTask = scheduler.scheduleWithFixedDelay(
+            this::evictIdlePools, evictionIntervalSeconds, evictionIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * サービス名に対応するプールを取得（未作成なら作成）
+     */
+    public UpstreamClientPool pool(String serviceName) {
+        return pools.computeIfAbsent(serviceName, this::createPool);
+    }
+
+    /**
+     * サービスの長時間接続（SSE 等）専用のプールを取得（未作成なら作成）
+     *
+     * 通常のリクエスト用プールとは分け、ストリームが通常リクエストのコネクションを使い潰さないようにする。
+     */
+    public UpstreamClientPool streamPool(String serviceName, int maxStreams, long idleTimeoutMillis) {
+        return pools.computeIfAbsent(serviceName + STREAM_POOL_SUFFIX, name -> {
+            UpstreamClientPool pool = new UpstreamClientPool(name,
+                UpstreamClientSettings.from(config, serviceName).forStreaming(maxStreams, idleTimeoutMillis), scheduler);
+            registerMetrics(pool);
+            return pool;
+        });
+    }
+
+    public Collection<UpstreamClientPool> getPools() {
+        return pools.values();
+    }
+
+    private UpstreamClientPool createPool(String serviceName) {
+        UpstreamClientPool pool = new UpstreamClientPool(serviceName, UpstreamClientSettings.from(config, serviceName), scheduler);
+        registerMetrics(pool);
+        return pool;
+    }
+
+    private void registerMetrics(UpstreamClientPool pool) {
+        Tag upstream = new Tag("upstream", pool.getServiceName());
+        metricRegistry.gauge("gateway.upstream.pool.in-flight", pool, UpstreamClientPool::getInFlight, upstream);
+        metricRegistry.gauge("gateway.upstream.pool.max-connections", pool, UpstreamClientPool::getMaxConnections, upstream);
+        metricRegistry.gauge("gateway.upstream.pool.saturation", pool, UpstreamClientPool::getSaturation, upstream);
+        metricRegistry.gauge("gateway.upstream.pool.leases", pool, UpstreamClientPool::getTotalLeases, upstream);
+        metricRegistry.gauge("gateway.upstream.pool.checkout-timeouts", pool, UpstreamClientPool::getCheckoutTimeouts, upstream);
+    }
+
+    /**
+     * アイドル状態のプールを破棄（定期実行）
+     */
+    void evictIdlePools() {
+        long now = System.currentTimeMillis();
+        for (UpstreamClientPool pool : pools.values()) {
+            try {
+                pool.evictIfIdle(now);
+            } catch (Exception e) {
+                logger.warning(String.format("Failed to evict pool for %s: %s", pool.getServiceName(), e.getMessage()));
+            }
+        }
+    }
+
+    @PreDestroy
+    void closeAll() {
+        if (evictionTask != null) {
+            evictionTask.cancel(false);
+        }
+        pools.values().forEach(UpstreamClientPool::close);
+        pools.clear();
+    }
+}
@@ -0,0 +1,62 @@
+package com.jakartaone2025.ski.gateway.client;
+
+import org.eclipse.microprofile.config.Config;
+
+/**
+ * 上流サービス毎のHTTPクライアント設定
+ *
+ * {@code gateway.upstream.<service>.*} が未設定の項目は
+ * {@code gateway.upstream.default.*}、さらに組み込みのデフォルト値の順にフォールバックする。
+ */
+public record UpstreamClientSettings(
+        int maxConnections,
+        long connectTimeoutMillis,
+        long readTimeoutMillis,
+        long checkoutTimeoutMillis,
+        long keepAliveSeconds,
+        long idleTimeoutSeconds,
+        boolean asyncEngine) {
+
+    private static final String PREFIX = "gateway.upstream.";
+
+    /**
+     * 設定からサービスのクライアント設定を読み込む
+     */
+    public static UpstreamClientSettings from(Config config, String serviceName) {
+        return new UpstreamClientSettings(
+            intValue(config, serviceName, "max-connections", 50),
+            longValue(config, serviceName, "connect-timeout.ms", 2000),
+            longValue(config, serviceName, "read-timeout.ms", 30000),
+            longValue(config, serviceName, "checkout-timeout.ms", 1000),
+            longValue(config, serviceName, "keep-alive.seconds", 60),
+            longValue(config, serviceName, "idle-timeout.seconds", 300),
+            booleanValue(config, serviceName, "async-engine", true)
+        );
+    }
+
+    /**
+     * 長時間接続（SSE 等）用の設定（読み込みタイムアウトを無通信タイムアウトとして使う）
+     */
+    public UpstreamClientSettings forStreaming(int maxStreams, long idleTimeoutMillis) {
+        return new UpstreamClientSettings(maxStreams, connectTimeoutMillis, idleTimeoutMillis, checkoutTimeoutMillis,
+            keepAliveSeconds, idleTimeoutSeconds, asyncEngine);
+    }
+
+    private static int intValue(Config config, String serviceName, String key, int defaultValue) {
+        return config.getOptionalValue(PREFIX + serviceName + "." + key, Integer.class)
+            .or(() -> config.getOptionalValue(PREFIX + "default." + key, Integer.class))
+            .orElse(defaultValue);
+    }
+
+    private static long longValue(Config config, String serviceName, String key, long defaultValue) {
+        return config.getOptionalValue(PREFIX + serviceName + "." + key, Long.class)
+            .or(() -> config.getOptionalValue(PREFIX + "default." + key, Long.class))
+            .orElse(defaultValue);
+    }
+
+    private static boolean booleanValue(Config config, String serviceName, String key, boolean defaultValue) {
+        return config.getOptionalValue(PREFIX + serviceName + "." + key, Boolean.class)
+            .or(() -> config.getOptionalValue(PREFIX + "default." + key, Boolean.class))
+            .orElse(defaultValue);
+    }
+}
@@ -0,0 +1,114 @@
+package com.jakartaone2025.ski.gateway.compression;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import org.eclipse.microprofile.config.Config;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression Interceptor - クライアントが受け付ける場合にレスポンスボディを gzip で圧縮
+ *
+ * ボディは書き込みながら圧縮するため、ストリーミング中継のレスポンスもバッファせずに圧縮できる。
+ * 既に Content-Encoding が付いたレスポンス（圧縮済みのキャッシュエントリ等）はそのまま返す。
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+@ApplicationScoped
+public class CompressionInterceptor implements ContainerRequestFilter, WriterInterceptor {
+
+    /**
+     * クライアントが gzip を受け付けるか（リクエストプロパティ）
+     */
+    public static final String ACCEPTS_GZIP_PROPERTY = "compression.acceptsGzip";
+
+    @Inject
+    private Config config;
+
+    private CompressionSettings settings = CompressionSettings.DISABLED;
+
+    @PostConstruct
+    void init() {
+        settings = CompressionSettings.from(config);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        // 非同期応答の書き込みはリクエストスレッド外で行われるため、ネゴシエーション結果をプロパティに残す
+        if (settings.enabled() && ContentCoding.acceptsGzip(requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING))) {
+            requestContext.setProperty(ACCEPTS_GZIP_PROPERTY, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+        if (!Boolean.TRUE.equals(context.getProperty(ACCEPTS_GZIP_PROPERTY))
+                || headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+                || !settings.shouldCompress(lengthOf(context), context.getMediaType())) {
+            context.proceed();
+            return;
+        }
+
+        headers.putSingle(HttpHeaders.CONTENT_ENCODING, ContentCoding.GZIP);
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        addVaryAcceptEncoding(headers);
+        Object etag = headers.getFirst(HttpHeaders.ETAG);
+        if (etag != null) {
+            headers.putSingle(HttpHeaders.ETAG, ContentCoding.weakEtag(etag.toString()));
+        }
+
+        GZIPOutputStream gzip = ContentCoding.gzipStream(context.getOutputStream(), settings.level());
+        context.setOutputStream(gzip);
+        try {
+            context.proceed();
+        } finally {
+            gzip.finish();
+        }
+    }
+
+    /**
+     * 圧縮の有無でレスポンスが変わることを共有キャッシュに伝える
+     */
+    public static void addVaryAcceptEncoding(MultivaluedMap<String, Object> headers) {
+        Object vary = headers.getFirst("Vary");
+        if (vary == null) {
+            headers.putSingle("Vary", HttpHeaders.ACCEPT_ENCODING);
+        } else if (!vary.toString().toLowerCase().contains("accept-encoding")) {
+            headers.putSingle("Vary", vary + ", " + HttpHeaders.ACCEPT_ENCODING);
+        }
+    }
+
+    /**
+     * ボディの長さ（バッファ済みのボディ、または上流の Content-Length から分かる場合のみ。不明なら -1）
+     */
+    private static long lengthOf(WriterInterceptorContext context) {
+        Object entity = context.getEntity();
+        if (entity instanceof byte[] bytes) {
+            return bytes.length;
+        }
+        if (entity instanceof String text) {
+            return text.length() < 1024 ? text.getBytes(StandardCharsets.UTF_8).length : text.length();
+        }
+        Object contentLength = context.getHeaders().getFirst(HttpHeaders.CONTENT_LENGTH);
+        if (contentLength != null) {
+            try {
+                return Long.parseLong(contentLength.toString());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,35 @@
+package com.jakartaone2025.ski.gateway.compression;
+
+import org.eclipse.microprofile.config.Config;
+
+/**
+ * レスポンス圧縮の設定（{@code gateway.compression.*}）
+ *
+ * @param enabled 圧縮するか
+ * @param minSizeBytes これより小さいボディは圧縮しない（長さが分からないストリーミングは圧縮する）
+ * @param level gzip の圧縮レベル（1〜9）
+ */
+public record CompressionSettings(boolean enabled, long minSizeBytes, int level) {
+
+    public static final CompressionSettings DISABLED = new CompressionSettings(false, Long.MAX_VALUE, 0);
+
+    private static final String PREFIX = "gateway.compression.";
+
+    /**
+     * 設定から読み込む
+     */
+    public static CompressionSettings from(Config config) {
+        return new CompressionSettings(
+            config.getOptionalValue(PREFIX + "enabled", Boolean.class).orElse(true),
+            config.getOptionalValue(PREFIX + "min-size.bytes", Long.class).orElse(1024L),
+            config.getOptionalValue(PREFIX + "level", Integer.class).orElse(5)
+        );
+    }
+
+    /**
+     * 長さ（不明なら負数）とメディアタイプから圧縮対象か判定
+     */
+    public boolean shouldCompress(long length, Object contentType) {
+        return enabled && (length < 0 || length >= minSizeBytes) && ContentCoding.isCompressible(contentType);
+    }
+}
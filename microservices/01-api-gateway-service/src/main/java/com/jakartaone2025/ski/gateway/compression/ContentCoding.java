@@ -0,0 +1,121 @@
+package com.jakartaone2025.ski.gateway.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * レスポンス圧縮（Content-Encoding: gzip）のネゴシエーションと圧縮・展開
+ */
+public final class ContentCoding {
+
+    public static final String GZIP = "gzip";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private ContentCoding() {
+    }
+
+    /**
+     * Accept-Encoding が gzip を受け付けるか（q=0 は拒否。gzip の指定がなければ * に従う）
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] params = element.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = qualityOf(params) > 0;
+            if (coding.equals(GZIP) || coding.equals("x-gzip")) {
+                return accepted;
+            }
+            if (coding.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    private static double qualityOf(String[] params) {
+        for (int i = 1; i < params.length; i++) {
+            String param = params[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * 圧縮する価値のあるメディアタイプか（テキスト系。SSE は逐次配信のため対象外）
+     */
+    public static boolean isCompressible(Object contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toString().toLowerCase(Locale.ROOT);
+        int parameters = type.indexOf(';');
+        if (parameters >= 0) {
+            type = type.substring(0, parameters).trim();
+        }
+        if (type.equals("text/event-stream")) {
+            return false;
+        }
+        return type.startsWith("text/")
+            || type.equals("application/json")
+            || type.equals("application/xml")
+            || type.equals("application/javascript")
+            || type.endsWith("+json")
+            || type.endsWith("+xml");
+    }
+
+    /**
+     * ストリーミング用の gzip 出力（flush で圧縮済みの分を送り出す）
+     *
+     * 書き込み完了後は {@link GZIPOutputStream#finish()} で末尾を書き出すこと（元のストリームは閉じない）。
+     */
+    public static GZIPOutputStream gzipStream(OutputStream output, int level) throws IOException {
+        return new GZIPOutputStream(output, BUFFER_SIZE, true) {
+            {
+                def.setLevel(level);
+            }
+        };
+    }
+
+    public static byte[] gzip(byte[] body, int level) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = gzipStream(buffer, level)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    public static byte[] gunzip(byte[] body) {
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body), BUFFER_SIZE)) {
+            return gzip.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 圧縮したレスポンス用の ETag（表現が変わるため強い ETag は弱い ETag にする）
+     */
+    public static String weakEtag(String etag) {
+        return etag == null || etag.startsWith("W/") ? etag : "W/" + etag;
+    }
+}
@@ -23,9 +23,9 @@ public class CorsFilter implements ContainerResponseFilter {
         responseContext.getHeaders().add("Access-Control-Allow-Origin", "*");
         responseContext.getHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, PATCH, OPTIONS");
         responseContext.getHeaders().add("Access-Control-Allow-Headers", 
-            "Origin, Content-Type, Accept, Authorization, X-Requested-With, X-User-ID, X-Username");
+            "Origin, Content-Type, Accept, Authorization, X-Requested-With, X-User-ID, X-Username, X-Waiting-Room-Token");
         responseContext.getHeaders().add("Access-Control-Expose-Headers",
-            "X-RateLimit-Limit, X-RateLimit-Remaining, X-RateLimit-Reset");
+            "X-RateLimit-Limit, X-RateLimit-Remaining, X-RateLimit-Reset, Retry-After, X-Waiting-Room-Token, X-Waiting-Room-Position");
         responseContext.getHeaders().add("Access-Control-Max-Age", "3600");
         
         // プリフライトリクエストの場合
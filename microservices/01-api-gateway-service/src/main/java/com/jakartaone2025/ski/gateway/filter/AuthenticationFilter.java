@@ -9,8 +9,10 @@ import jakarta.ws.rs.container.PreMatching;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.Provider;
 import com.jakartaone2025.ski.gateway.auth.JwtService;
+import com.jakartaone2025.ski.gateway.auth.VerifiedToken;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.logging.Logger;
 
 /**
@@ -24,6 +26,11 @@ public class AuthenticationFilter implements ContainerRequestFilter {
     
     private static final Logger logger = Logger.getLogger(AuthenticationFilter.class.getName());
     
+    /**
+     * 検証済みトークンを保持するリクエストプロパティ（RateLimitingFilter で検証済みなら再検証しない）
+     */
+    static final String VERIFIED_TOKEN_PROPERTY = "auth.verifiedToken";
+    
     @Inject
     private JwtService jwtService;
     
@@ -36,7 +43,8 @@ public class AuthenticationFilter implements ContainerRequestFilter {
         "/auth/register",
         "/auth/refresh",
         "/products/public",
-        "/static"
+        "/static",
+        "/waiting-room"
     );
     
     @Override
@@ -65,32 +73,29 @@ public class AuthenticationFilter implements ContainerRequestFilter {
         String tokenString = authHeader.substring(7);
         
         try {
-            // MicroProfile JWTではコンテナが自動的にトークンを検証し、
-            // SecurityContextに設定するため、ここでは基本的な検証のみ行う
-            // 実際の検証はMicroProfile JWTランタイムが処理
-            
-            // Authorizationヘッダーの形式チェック
             if (tokenString.isEmpty()) {
                 logger.warning("Empty JWT token for path: " + path);
                 abortWithUnauthorized(requestContext, "Empty token");
                 return;
             }
             
-            // Note: MicroProfile JWTが有効な場合、コンテナが自動的に
-            // SecurityContextにJsonWebTokenを設定します
-            // この実装では、後続のフィルターやリソースで
-            // @Inject JsonWebToken jwt; でトークンを取得できます
-            
-            // 基本的なトークン検証（実際の署名検証はMicroProfile JWTが実行）
-            String[] tokenParts = tokenString.split("\\.");
-            if (tokenParts.length != 3) {
-                logger.warning("Invalid JWT token format for path: " + path);
-                abortWithUnauthorized(requestContext, "Invalid token format");
+            Object previous = requestContext.getProperty(VERIFIED_TOKEN_PROPERTY);
+            Optional<VerifiedToken> verified = previous instanceof VerifiedToken token
+                ? Optional.of(token)
+                : jwtService.verify(tokenString);
+            if (verified.isEmpty()) {
+                logger.warning("Invalid JWT token for path: " + path);
+                abortWithUnauthorized(requestContext, "Invalid or expired token");
                 return;
             }
             
-            // トークンをヘッダーとして保存（後続の処理で使用）
+            // 後続の処理（上流への X-User-ID / X-Username 転送）で使用
+            VerifiedToken token = verified.get();
+            requestContext.setProperty(VERIFIED_TOKEN_PROPERTY, token);
             requestContext.setProperty("auth.token", tokenString);
+            requestContext.setProperty("auth.userId", token.subject());
+            requestContext.setProperty("auth.username", token.username());
+            requestContext.setProperty("auth.roles", token.roles());
             
             logger.fine(String.format("JWT token validated for path: %s", path));
             
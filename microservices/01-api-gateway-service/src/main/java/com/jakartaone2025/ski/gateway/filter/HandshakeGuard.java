@@ -0,0 +1,74 @@
+package com.jakartaone2025.ski.gateway.filter;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import com.jakartaone2025.ski.gateway.auth.JwtService;
+import com.jakartaone2025.ski.gateway.auth.VerifiedToken;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+/**
+ * WebSocket ハンドシェイクの認証・レート制限
+ *
+ * WebSocket のアップグレード要求には JAX-RS のフィルターが適用されないため、
+ * AuthenticationFilter / RateLimitingFilter と同じ判定をここで行う。
+ */
+@ApplicationScoped
+public class HandshakeGuard {
+
+    private static final Logger logger = Logger.getLogger(HandshakeGuard.class.getName());
+
+    /**
+     * 判定結果
+     */
+    public enum Outcome {
+        ADMITTED, UNAUTHORIZED, RATE_LIMITED
+    }
+
+    @Inject
+    private RateLimitService rateLimitService;
+
+    @Inject
+    private JwtService jwtService;
+
+    /**
+     * 接続を受け付けるか判定する
+     *
+     * @param path 中継先のパス
+     * @param bearerToken Bearer トークン（なければ null）
+     * @param clientIp クライアントの IP（X-Forwarded-For。分からなければ null）
+     */
+    public Result check(String path, String bearerToken, String clientIp) {
+        Optional<VerifiedToken> verified = bearerToken == null || bearerToken.isEmpty()
+            ? Optional.empty()
+            : jwtService.verify(bearerToken);
+        // 識別できないクライアントを1つの枠にまとめると全員が巻き添えで制限されるため、制限しない
+        // （トークンがなければ認証で拒否される）
+        String clientId = verified.map(token -> "user:" + token.subject())
+            .orElse(clientIp == null || clientIp.isEmpty() ? null : "ip:" + clientIp);
+
+        try {
+            if (clientId != null && !rateLimitService.isRequestAllowed(clientId, path)) {
+                logger.warning(String.format("Rate limit exceeded for WebSocket client: %s, path: %s", clientId, path));
+                return new Result(Outcome.RATE_LIMITED, null, clientId);
+            }
+        } catch (Exception e) {
+            // レート制限エラーの場合は接続を通す（可用性優先）
+            logger.severe("Error in rate limiting: " + e.getMessage());
+        }
+
+        if (verified.isEmpty()) {
+            logger.warning("Missing or invalid token for WebSocket path: " + path);
+            return new Result(Outcome.UNAUTHORIZED, null, clientId);
+        }
+        return new Result(Outcome.ADMITTED, verified.get(), clientId);
+    }
+
+    /**
+     * @param outcome 判定
+     * @param token 検証済みトークン（受け付けた場合のみ）
+     * @param clientId レート制限のクライアント識別子（識別できず制限しなかった場合は null）
+     */
+    public record Result(Outcome outcome, VerifiedToken token, String clientId) {
+    }
+}
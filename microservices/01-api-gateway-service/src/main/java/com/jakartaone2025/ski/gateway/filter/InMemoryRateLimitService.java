@@ -1,145 +1,118 @@
 package com.jakartaone2025.ski.gateway.filter;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.Config;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
-import java.time.Duration;
-import java.time.Instant;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import com.jakartaone2025.ski.gateway.routing.RoutingService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
  * In-Memory Rate Limit Service Implementation
  * 本番環境では Redis などの分散キャッシュを使用することを推奨
+ *
+ * クライアント × レートクラス（ルート設定の rate-class）単位で
+ * {@link SlidingWindowRateLimiter} により制限する。
  */
 @ApplicationScoped
+@Typed(InMemoryRateLimitService.class)
 public class InMemoryRateLimitService implements RateLimitService {
-    
+
     private static final Logger logger = Logger.getLogger(InMemoryRateLimitService.class.getName());
-    
-    private final int defaultRequestsPerMinute;
-    private final int authRequestsPerMinute;
-    private final int windowSeconds;
-    private final ConcurrentHashMap<String, RateLimitEntry> rateLimitMap = new ConcurrentHashMap<>();
-    
+
+    private final RateClassResolver rateClasses;
+    private final SlidingWindowRateLimiter limiter;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Inject
+    @ConfigProperty(name = "gateway.ratelimit.eviction.interval.seconds", defaultValue = "60")
+    private long evictionIntervalSeconds;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    private ScheduledFuture<?> evictionTask;
+
     @Inject
     public InMemoryRateLimitService(
+            RoutingService routingService,
+            Config config,
             @ConfigProperty(name = "gateway.ratelimit.default.requests", defaultValue = "100") int defaultRequestsPerMinute,
-            @ConfigProperty(name = "gateway.ratelimit.auth.requests", defaultValue = "200") int authRequestsPerMinute,
-            @ConfigProperty(name = "gateway.ratelimit.window.seconds", defaultValue = "60") int windowSeconds) {
-        this.defaultRequestsPerMinute = defaultRequestsPerMinute;
-        this.authRequestsPerMinute = authRequestsPerMinute;
-        this.windowSeconds = windowSeconds;
+            @ConfigProperty(name = "gateway.ratelimit.window.seconds", defaultValue = "60") int windowSeconds,
+            @ConfigProperty(name = "gateway.ratelimit.max-clients", defaultValue = "100000") int maxClients,
+            @ConfigProperty(name = "gateway.ratelimit.overflow-stripes", defaultValue = "4096") int overflowStripes) {
+        this.rateClasses = new RateClassResolver(routingService, config, defaultRequestsPerMinute);
+        this.limiter = new SlidingWindowRateLimiter(
+            TimeUnit.SECONDS.toMillis(windowSeconds), rateClasses.size(), maxClients, overflowStripes);
     }
-    
+
+    @PostConstruct
+    void startEviction() {
+        evictionTask = scheduler.scheduleWithFixedDelay(
+            this::cleanupExpiredEntries, evictionIntervalSeconds, evictionIntervalSeconds, TimeUnit.SECONDS);
+
+        metricRegistry.gauge("gateway.ratelimit.allowed", limiter, SlidingWindowRateLimiter::getAllowedCount);
+        metricRegistry.gauge("gateway.ratelimit.rejected", limiter, SlidingWindowRateLimiter::getRejectedCount);
+        metricRegistry.gauge("gateway.ratelimit.tracked-clients", limiter, SlidingWindowRateLimiter::getTrackedClients);
+        metricRegistry.gauge("gateway.ratelimit.overflow", limiter, SlidingWindowRateLimiter::getOverflowCount);
+        metricRegistry.gauge("gateway.ratelimit.evicted", limiter, SlidingWindowRateLimiter::getEvictedCount);
+    }
+
+    @PreDestroy
+    void stopEviction() {
+        if (evictionTask != null) {
+            evictionTask.cancel(false);
+        }
+    }
+
     @Override
     public boolean isRequestAllowed(String clientId, String path) {
-        int limit = getLimit(path);
-        String key = generateKey(clientId, path);
-        
-        rateLimitMap.compute(key, (k, entry) -> {
-            Instant now = Instant.now();
-            
-            if (entry == null) {
-                return new RateLimitEntry(now, new AtomicInteger(1), limit);
-            }
-            
-            // ウィンドウがリセットされた場合
-            if (now.isAfter(entry.windowStart.plus(Duration.ofSeconds(windowSeconds)))) {
-                return new RateLimitEntry(now, new AtomicInteger(1), limit);
-            }
-            
-            // 現在のウィンドウ内でのリクエスト
-            entry.requestCount.incrementAndGet();
-            return entry;
-        });
-        
-        RateLimitEntry entry = rateLimitMap.get(key);
-        return entry.requestCount.get() <= limit;
+        int rateClass = rateClasses.indexOf(path);
+        return limiter.tryAcquire(clientId, rateClass, rateClasses.limitOf(rateClass));
     }
-    
+
     @Override
     public int getLimit(String path) {
-        if (path.startsWith("/auth")) {
-            return authRequestsPerMinute;
-        }
-        return defaultRequestsPerMinute;
+        return rateClasses.limitOf(rateClasses.indexOf(path));
     }
-    
+
     @Override
     public int getRemaining(String clientId, String path) {
-        String key = generateKey(clientId, path);
-        RateLimitEntry entry = rateLimitMap.get(key);
-        
-        if (entry == null) {
-            return getLimit(path);
-        }
-        
-        int remaining = entry.limit - entry.requestCount.get();
-        return Math.max(0, remaining);
+        int rateClass = rateClasses.indexOf(path);
+        return limiter.remaining(clientId, rateClass, rateClasses.limitOf(rateClass));
     }
-    
+
     @Override
     public long getResetTime(String clientId, String path) {
-        String key = generateKey(clientId, path);
-        RateLimitEntry entry = rateLimitMap.get(key);
-        
-        if (entry == null) {
-            return Instant.now().plus(Duration.ofSeconds(windowSeconds)).getEpochSecond();
-        }
-        
-        return entry.windowStart.plus(Duration.ofSeconds(windowSeconds)).getEpochSecond();
-    }
-    
-    private String generateKey(String clientId, String path) {
-        return String.format("%s:%s:%d", 
-            clientId, 
-            normalizePathForRateLimit(path),
-            Instant.now().getEpochSecond() / windowSeconds
-        );
+        return limiter.resetEpochSecond();
     }
-    
-    private String normalizePathForRateLimit(String path) {
-        // パスを正規化（例：/users/123 -> /users/{id}）
-        if (path.matches("/users/\\d+.*")) {
-            return "/users/{id}";
-        }
-        if (path.matches("/products/\\d+.*")) {
-            return "/products/{id}";
-        }
-        if (path.matches("/orders/\\d+.*")) {
-            return "/orders/{id}";
-        }
-        return path;
+
+    RateClassResolver getRateClasses() {
+        return rateClasses;
     }
-    
-    /**
-     * Rate Limit Entry
-     */
-    private static class RateLimitEntry {
-        final Instant windowStart;
-        final AtomicInteger requestCount;
-        final int limit;
-        
-        RateLimitEntry(Instant windowStart, AtomicInteger requestCount, int limit) {
-            this.windowStart = windowStart;
-            this.requestCount = requestCount;
-            this.limit = limit;
-        }
+
+    SlidingWindowRateLimiter getLimiter() {
+        return limiter;
     }
-    
+
     /**
-     * Clean up expired entries (実運用では定期実行)
+     * Clean up expired entries（定期実行）
      */
     public void cleanupExpiredEntries() {
-        Instant cutoff = Instant.now().minus(Duration.ofSeconds((long) windowSeconds * 2));
-        
-        rateLimitMap.entrySet().removeIf(entry -> {
-            RateLimitEntry rateLimitEntry = entry.getValue();
-            return rateLimitEntry.windowStart.isBefore(cutoff);
-        });
-        
-        logger.info("Cleaned up expired rate limit entries. Current size: " + rateLimitMap.size());
+        int removed = limiter.evictIdle();
+        if (removed > 0) {
+            logger.info(String.format("Cleaned up %d idle rate limit entries. Current size: %d",
+                removed, limiter.getTrackedClients()));
+        }
     }
 }
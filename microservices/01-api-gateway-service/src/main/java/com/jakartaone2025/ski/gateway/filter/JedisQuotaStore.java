@@ -0,0 +1,66 @@
+package com.jakartaone2025.ski.gateway.filter;
+
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import java.util.List;
+
+/**
+ * Redis の Lua スクリプトでクォータを原子的に確保する {@link QuotaStore}
+ */
+class JedisQuotaStore implements QuotaStore, AutoCloseable {
+
+    /**
+     * 使用済み件数を読み、上限内で確保できる分だけ加算して {確保件数, 使用済み件数} を返す
+     */
+    static final String ACQUIRE_SCRIPT = """
+        local used = tonumber(redis.call('GET', KEYS[1]) or '0')
+        local grant = math.min(tonumber(ARGV[1]), tonumber(ARGV[2]) - used)
+        if grant <= 0 then
+          return {0, used}
+        end
+        used = redis.call('INCRBY', KEYS[1], grant)
+        if used == grant then
+          redis.call('PEXPIRE', KEYS[1], ARGV[3])
+        end
+        return {grant, used}
+        """;
+
+    private final JedisPooled jedis;
+    private volatile String scriptSha;
+
+    JedisQuotaStore(JedisPooled jedis) {
+        this.jedis = jedis;
+    }
+
+    @Override
+    public Grant acquire(String key, int requested, int limit, long ttlMillis) {
+        List<String> keys = List.of(key);
+        List<String> args = List.of(Integer.toString(requested), Integer.toString(limit), Long.toString(ttlMillis));
+
+        Object result;
+        try {
+            result = jedis.evalsha(scriptSha(), keys, args);
+        } catch (JedisNoScriptException e) {
+            // Redis 再起動などでスクリプトキャッシュが消えた場合は再登録
+            scriptSha = null;
+            result = jedis.evalsha(scriptSha(), keys, args);
+        }
+
+        List<?> values = (List<?>) result;
+        return new Grant(((Long) values.get(0)).intValue(), (Long) values.get(1));
+    }
+
+    private String scriptSha() {
+        String sha = scriptSha;
+        if (sha == null) {
+            sha = jedis.scriptLoad(ACQUIRE_SCRIPT);
+            scriptSha = sha;
+        }
+        return sha;
+    }
+
+    @Override
+    public void close() {
+        jedis.close();
+    }
+}
@@ -0,0 +1,230 @@
+package com.jakartaone2025.ski.gateway.filter;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * 共有ストアのクォータをバッチ単位でローカルにリースするレート制限エンジン
+ *
+ * 各ノードはクライアント × レートクラス毎に少量のクォータを前借りし、
+ * リースを使い切るまではストアへ問い合わせずにローカルで消費する。
+ * ストアは確保済み件数で上限を管理するため、全ノード合計でも上限を超えない
+ * （未使用のリース分だけ実効上限が下がる方向に誤差が出る）。
+ *
+ * ストアが利用できない間は、ローカルの {@link SlidingWindowRateLimiter} で制限する。
+ */
+final class LeasedQuotaLimiter {
+
+    private static final Logger logger = Logger.getLogger(LeasedQuotaLimiter.class.getName());
+
+    private final QuotaStore store;
+    private final SlidingWindowRateLimiter fallback;
+    private final long windowMillis;
+    private final int leaseSize;
+    private final int maxClients;
+    private final long retryMillis;
+    private final int rateClassCount;
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<String, Lease[]> leases = new ConcurrentHashMap<>();
+    private volatile long storeUnavailableUntil;
+
+    private final LongAdder storeCalls = new LongAdder();
+    private final LongAdder storeFailures = new LongAdder();
+    private final LongAdder fallbackDecisions = new LongAdder();
+
+    LeasedQuotaLimiter(QuotaStore store, SlidingWindowRateLimiter fallback, long windowMillis, int rateClassCount,
+                       int leaseSize, int maxClients, long retryMillis, LongSupplier clock) {
+        this.store = store;
+        this.fallback = fallback;
+        this.windowMillis = windowMillis;
+        this.rateClassCount = rateClassCount;
+        this.leaseSize = Math.max(1, leaseSize);
+        this.maxClients = maxClients;
+        this.retryMillis = retryMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * リクエストを1件消費できれば true
+     */
+    boolean tryAcquire(String clientId, int rateClass, String rateClassName, int limit) {
+        long now = clock.getAsLong();
+        long window = now / windowMillis;
+
+        Lease lease = lease(clientId, rateClass, window);
+        if (lease != null && lease.window == window && lease.take()) {
+            return true;
+        }
+
+        if (now < storeUnavailableUntil) {
+            fallbackDecisions.increment();
+            return fallback.tryAcquire(clientId, rateClass, limit);
+        }
+
+        try {
+            if (lease == null) {
+                // 追跡上限を超えたクライアントはリースせず1件ずつ確保
+                return acquireFromStore(clientId, rateClassName, window, 1, limit).granted() > 0;
+            }
+            return refill(lease, clientId, rateClassName, window, limit);
+        } catch (RuntimeException e) {
+            storeFailures.increment();
+            if (now >= storeUnavailableUntil) {
+                logger.warning(String.format("Rate limit store unavailable, falling back to local limiting for %dms: %s",
+                    retryMillis, e.getMessage()));
+            }
+            storeUnavailableUntil = now + retryMillis;
+            fallbackDecisions.increment();
+            return fallback.tryAcquire(clientId, rateClass, limit);
+        }
+    }
+
+    /**
+     * 残りリクエスト数の推定値（ストアへは問い合わせない）
+     */
+    int remaining(String clientId, int rateClass, int limit) {
+        long window = clock.getAsLong() / windowMillis;
+        Lease[] clientLeases = leases.get(clientId);
+        if (clientLeases == null || clientLeases[rateClass] == null || clientLeases[rateClass].window != window) {
+            return fallback.remaining(clientId, rateClass, limit);
+        }
+        Lease lease = clientLeases[rateClass];
+        long remaining = limit - lease.storeUsed + Math.max(0, lease.tokens.get());
+        return (int) Math.max(0, Math.min(limit, remaining));
+    }
+
+    long resetEpochSecond() {
+        long windowEnd = (clock.getAsLong() / windowMillis + 1) * windowMillis;
+        return (windowEnd + 999) / 1000;
+    }
+
+    /**
+     * 現在・直前のウィンドウで使われていないリースを削除（定期実行）
+     */
+    int evictIdle() {
+        long window = clock.getAsLong() / windowMillis;
+        int removed = 0;
+        for (Iterator<Lease[]> it = leases.values().iterator(); it.hasNext(); ) {
+            boolean idle = true;
+            for (Lease lease : it.next()) {
+                if (lease != null && window - lease.window <= 1) {
+                    idle = false;
+                    break;
+                }
+            }
+            if (idle) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private Lease lease(String clientId, int rateClass, long window) {
+        Lease[] clientLeases = leases.get(clientId);
+        if (clientLeases == null) {
+            if (leases.size() >= maxClients) {
+                return null;
+            }
+            Lease[] created = new Lease[rateClassCount];
+            clientLeases = leases.putIfAbsent(clientId, created);
+            if (clientLeases == null) {
+                clientLeases = created;
+            }
+        }
+        Lease lease = clientLeases[rateClass];
+        if (lease == null) {
+            synchronized (clientLeases) {
+                lease = clientLeases[rateClass];
+                if (lease == null) {
+                    lease = new Lease(window);
+                    clientLeases[rateClass] = lease;
+                }
+            }
+        }
+        return lease;
+    }
+
+    /**
+     * ストアから次のバッチを確保（同一クライアントの確保は直列化し、同時に何度も問い合わせない）
+     */
+    private boolean refill(Lease lease, String clientId, String rateClassName, long window, int limit) {
+        synchronized (lease) {
+            if (lease.window != window) {
+                lease.tokens.set(0);
+                lease.storeUsed = 0;
+                lease.exhausted = false;
+                lease.window = window;
+            }
+            // 待っている間に他スレッドが補充済みならそれを使う
+            if (lease.take()) {
+                return true;
+            }
+            if (lease.exhausted) {
+                return false;
+            }
+
+            QuotaStore.Grant grant = acquireFromStore(clientId, rateClassName, window, Math.min(leaseSize, limit), limit);
+            lease.storeUsed = grant.used();
+            if (grant.granted() <= 0) {
+                // このウィンドウの残りはストアに問い合わせずに拒否
+                lease.exhausted = true;
+                return false;
+            }
+            lease.tokens.addAndGet(grant.granted() - 1);
+            return true;
+        }
+    }
+
+    private QuotaStore.Grant acquireFromStore(String clientId, String rateClassName, long window, int requested, int limit) {
+        storeCalls.increment();
+        String key = "gateway:ratelimit:" + rateClassName + ":" + clientId + ":" + window;
+        return store.acquire(key, requested, limit, windowMillis * 2);
+    }
+
+    long getStoreCalls() {
+        return storeCalls.sum();
+    }
+
+    long getStoreFailures() {
+        return storeFailures.sum();
+    }
+
+    long getFallbackDecisions() {
+        return fallbackDecisions.sum();
+    }
+
+    long getTrackedClients() {
+        return leases.mappingCount();
+    }
+
+    /**
+     * クライアント × レートクラス毎のローカルリース
+     */
+    private static final class Lease {
+        final AtomicInteger tokens = new AtomicInteger();
+        volatile long window;
+        volatile long storeUsed;
+        volatile boolean exhausted;
+
+        Lease(long window) {
+            this.window = window;
+        }
+
+        boolean take() {
+            int current;
+            do {
+                current = tokens.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!tokens.compareAndSet(current, current - 1));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.jakartaone2025.ski.gateway.filter;
+
+/**
+ * ノード間で共有するレート制限クォータの保存先（Redis など）
+ */
+interface QuotaStore {
+
+    /**
+     * キーのクォータから最大 requested 件を原子的に確保する
+     *
+     * @param key        クライアント × レートクラス × ウィンドウ毎のキー
+     * @param requested  確保したい件数（ローカルリースのバッチサイズ）
+     * @param limit      ウィンドウ内の上限
+     * @param ttlMillis  キーの有効期限
+     * @return 確保できた件数と確保後の使用済み件数
+     */
+    Grant acquire(String key, int requested, int limit, long ttlMillis);
+
+    /**
+     * クォータ確保の結果
+     */
+    record Grant(int granted, long used) {
+    }
+}
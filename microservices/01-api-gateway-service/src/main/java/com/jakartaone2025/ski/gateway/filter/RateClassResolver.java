@@ -0,0 +1,73 @@
+package com.jakartaone2025.ski.gateway.filter;
+
+import org.eclipse.microprofile.config.Config;
+import com.jakartaone2025.ski.gateway.routing.Route;
+import com.jakartaone2025.ski.gateway.routing.RoutingService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * パスからレートクラス（ルート設定の rate-class）とその上限を解決する
+ *
+ * レートクラスは起動時に連番へ割り当て、上限は gateway.ratelimit.&lt;class&gt;.requests から読み込む。
+ */
+final class RateClassResolver {
+
+    static final String DEFAULT_RATE_CLASS = "default";
+
+    private final RoutingService routingService;
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final int[] limits;
+
+    RateClassResolver(RoutingService routingService, Config config, int defaultRequests) {
+        this.routingService = routingService;
+
+        register(DEFAULT_RATE_CLASS);
+        for (Route route : routingService.getRoutes()) {
+            register(route.rateClass());
+        }
+        this.limits = new int[names.size()];
+        for (int i = 0; i < limits.length; i++) {
+            String rateClass = names.get(i);
+            limits[i] = DEFAULT_RATE_CLASS.equals(rateClass)
+                ? defaultRequests
+                : config.getOptionalValue("gateway.ratelimit." + rateClass + ".requests", Integer.class)
+                    .orElse(defaultRequests);
+        }
+    }
+
+    private void register(String rateClass) {
+        if (indexes.putIfAbsent(rateClass, names.size()) == null) {
+            names.add(rateClass);
+        }
+    }
+
+    /**
+     * パスに対応するレートクラス番号（コンパイル済みルートテーブルを参照）
+     */
+    int indexOf(String path) {
+        if (path.isEmpty() || path.charAt(0) != '/') {
+            path = "/" + path;
+        }
+        Route route = routingService.findRoute(path);
+        if (route == null) {
+            return 0;
+        }
+        return indexes.getOrDefault(route.rateClass(), 0);
+    }
+
+    String nameOf(int rateClass) {
+        return names.get(rateClass);
+    }
+
+    int limitOf(int rateClass) {
+        return limits[rateClass];
+    }
+
+    int size() {
+        return limits.length;
+    }
+}
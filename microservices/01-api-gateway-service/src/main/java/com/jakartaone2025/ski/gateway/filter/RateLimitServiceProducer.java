@@ -0,0 +1,32 @@
+package com.jakartaone2025.ski.gateway.filter;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * 設定（gateway.ratelimit.backend=memory|redis）に応じてレート制限の実装を選択する
+ */
+@ApplicationScoped
+public class RateLimitServiceProducer {
+
+    @Inject
+    @ConfigProperty(name = "gateway.ratelimit.backend", defaultValue = "memory")
+    private String backend;
+
+    @Inject
+    private Instance<InMemoryRateLimitService> inMemoryRateLimitService;
+
+    @Inject
+    private Instance<RedisRateLimitService> redisRateLimitService;
+
+    @Produces
+    RateLimitService rateLimitService() {
+        if ("redis".equalsIgnoreCase(backend)) {
+            return redisRateLimitService.get();
+        }
+        return inMemoryRateLimitService.get();
+    }
+}
@@ -10,6 +10,9 @@ import jakarta.ws.rs.container.PreMatching;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.Provider;
+import com.jakartaone2025.ski.gateway.auth.JwtService;
+import com.jakartaone2025.ski.gateway.auth.VerifiedToken;
+import java.util.Optional;
 import java.util.logging.Logger;
 
 /**
@@ -26,6 +29,9 @@ public class RateLimitingFilter implements ContainerRequestFilter {
     @Inject
     private RateLimitService rateLimitService;
     
+    @Inject
+    private JwtService jwtService;
+    
     @Context
     private HttpServletRequest request;
     
@@ -63,15 +69,11 @@ public class RateLimitingFilter implements ContainerRequestFilter {
         // Authorization ヘッダーからユーザーIDを取得
         String authHeader = requestContext.getHeaderString("Authorization");
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            try {
-                // JWT トークンからユーザーIDを抽出（簡略化）
-                String token = authHeader.substring(7);
-                String userId = extractUserIdFromToken(token);
-                if (userId != null) {
-                    return "user:" + userId;
-                }
-            } catch (Exception e) {
-                logger.warning("Failed to extract user ID from token: " + e.getMessage());
+            // 署名検証済みのトークンのみユーザー単位で制限（結果は AuthenticationFilter でも再利用）
+            Optional<VerifiedToken> verified = jwtService.verify(authHeader.substring(7));
+            if (verified.isPresent()) {
+                requestContext.setProperty(AuthenticationFilter.VERIFIED_TOKEN_PROPERTY, verified.get());
+                return "user:" + verified.get().subject();
             }
         }
         
@@ -84,12 +86,6 @@ public class RateLimitingFilter implements ContainerRequestFilter {
         
         return "ip:" + clientIp;
     }
-    
-    private String extractUserIdFromToken(String token) {
-        // JWT トークンの解析（実装は後で詳細化）
-        // 現在は簡略化
-        return null;
-    }
 }
 
 /**
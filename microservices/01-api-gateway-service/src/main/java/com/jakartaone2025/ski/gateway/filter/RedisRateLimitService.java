@@ -0,0 +1,140 @@
+package com.jakartaone2025.ski.gateway.filter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.DefaultJedisClientConfig;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisPooled;
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Redis Rate Limit Service Implementation
+ *
+ * ゲートウェイの全ノードで Redis 上のクォータを共有し、ノード数に関係なく上限を適用する。
+ * クォータはバッチ単位でローカルにリースするため、大半のリクエストは Redis へ問い合わせない。
+ * Redis が利用できない場合は {@link InMemoryRateLimitService} のローカル制限に切り替える。
+ */
+@ApplicationScoped
+@Typed(RedisRateLimitService.class)
+public class RedisRateLimitService implements RateLimitService {
+
+    private static final Logger logger = Logger.getLogger(RedisRateLimitService.class.getName());
+
+    @Inject
+    private InMemoryRateLimitService localRateLimitService;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Inject
+    @ConfigProperty(name = "gateway.ratelimit.redis.host", defaultValue = "localhost")
+    private String host;
+
+    @Inject
+    @ConfigProperty(name = "gateway.ratelimit.redis.port", defaultValue = "6379")
+    private int port;
+
+    @Inject
+    @ConfigProperty(name = "gateway.ratelimit.redis.timeout.ms", defaultValue = "200")
+    private int timeoutMillis;
+
+    @Inject
+    @ConfigProperty(name = "gateway.ratelimit.redis.max-connections", defaultValue = "16")
+    private int maxConnections;
+
+    @Inject
+    @ConfigProperty(name = "gateway.ratelimit.redis.lease-size", defaultValue = "10")
+    private int leaseSize;
+
+    @Inject
+    @ConfigProperty(name = "gateway.ratelimit.redis.retry.seconds", defaultValue = "5")
+    private long retrySeconds;
+
+    @Inject
+    @ConfigProperty(name = "gateway.ratelimit.window.seconds", defaultValue = "60")
+    private int windowSeconds;
+
+    @Inject
+    @ConfigProperty(name = "gateway.ratelimit.max-clients", defaultValue = "100000")
+    private int maxClients;
+
+    @Inject
+    @ConfigProperty(name = "gateway.ratelimit.eviction.interval.seconds", defaultValue = "60")
+    private long evictionIntervalSeconds;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    private JedisQuotaStore store;
+    private RateClassResolver rateClasses;
+    private LeasedQuotaLimiter limiter;
+    private ScheduledFuture<?> evictionTask;
+
+    @PostConstruct
+    void initialize() {
+        GenericObjectPoolConfig<Connection> poolConfig = new GenericObjectPoolConfig<>();
+        poolConfig.setMaxTotal(maxConnections);
+        poolConfig.setMaxWait(Duration.ofMillis(timeoutMillis));
+        store = new JedisQuotaStore(new JedisPooled(poolConfig, new HostAndPort(host, port),
+            DefaultJedisClientConfig.builder().timeoutMillis(timeoutMillis).build()));
+
+        rateClasses = localRateLimitService.getRateClasses();
+        limiter = new LeasedQuotaLimiter(store, localRateLimitService.getLimiter(),
+            TimeUnit.SECONDS.toMillis(windowSeconds), rateClasses.size(), leaseSize, maxClients,
+            TimeUnit.SECONDS.toMillis(retrySeconds), System::currentTimeMillis);
+
+        evictionTask = scheduler.scheduleWithFixedDelay(
+            limiter::evictIdle, evictionIntervalSeconds, evictionIntervalSeconds, TimeUnit.SECONDS);
+
+        metricRegistry.gauge("gateway.ratelimit.redis.calls", limiter, LeasedQuotaLimiter::getStoreCalls);
+        metricRegistry.gauge("gateway.ratelimit.redis.failures", limiter, LeasedQuotaLimiter::getStoreFailures);
+        metricRegistry.gauge("gateway.ratelimit.redis.fallback", limiter, LeasedQuotaLimiter::getFallbackDecisions);
+        metricRegistry.gauge("gateway.ratelimit.redis.leased-clients", limiter, LeasedQuotaLimiter::getTrackedClients);
+
+        logger.info(String.format("Redis rate limiting enabled (%s:%d, lease size %d)", host, port, leaseSize));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (evictionTask != null) {
+            evictionTask.cancel(false);
+        }
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Override
+    public boolean isRequestAllowed(String clientId, String path) {
+        int rateClass = rateClasses.indexOf(path);
+        return limiter.tryAcquire(clientId, rateClass, rateClasses.nameOf(rateClass), rateClasses.limitOf(rateClass));
+    }
+
+    @Override
+    public int getLimit(String path) {
+        return rateClasses.limitOf(rateClasses.indexOf(path));
+    }
+
+    @Override
+    public int getRemaining(String clientId, String path) {
+        int rateClass = rateClasses.indexOf(path);
+        return limiter.remaining(clientId, rateClass, rateClasses.limitOf(rateClass));
+    }
+
+    @Override
+    public long getResetTime(String clientId, String path) {
+        return limiter.resetEpochSecond();
+    }
+}
@@ -0,0 +1,306 @@
+package com.jakartaone2025.ski.gateway.filter;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * クライアント毎のスライディングウィンドウ・カウンタによるレート制限エンジン
+ *
+ * 直前ウィンドウの件数を経過割合で按分し、現在ウィンドウの件数と合算して判定する。
+ * 状態（ウィンドウ番号24bit・直前件数20bit・現在件数20bit）は1つの long に詰めて CAS で更新するため、
+ * ロックを取らず、登録済みクライアントへのリクエストではオブジェクトを生成しない。
+ *
+ * 追跡するクライアント数は上限を持ち、上限に達した時点で新規クライアントの登録時に
+ * 一定時間アクセスのないクライアントを削除して空きを作る（1ウィンドウに1回まで、定期実行は {@link #evictIdle()}）。
+ * それでも空きがない新規クライアントはハッシュで振り分けた共有スロット（オーバーフロー領域）で制限する。
+ * 共有スロットの上限は直前・現在のウィンドウで使ったクライアントの概数倍にし、
+ * 同じスロットに振り分けられた無関係なクライアント同士が互いの上限を消費しないようにする。
+ */
+public final class SlidingWindowRateLimiter {
+
+    /** 1ウィンドウで数えられる最大件数 */
+    public static final int MAX_LIMIT = (1 << 20) - 1;
+
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = MAX_LIMIT;
+    private static final long WINDOW_MASK = (1L << 24) - 1;
+
+    // 共有スロットの利用クライアントの概数（ウィンドウ番号8bit・直前28bit・現在28bit のビットマップ）
+    private static final int OCCUPANCY_BITS = 28;
+    private static final long OCCUPANCY_MASK = (1L << OCCUPANCY_BITS) - 1;
+    private static final long OCCUPANCY_WINDOW_MASK = 0xFF;
+
+    private final long windowMillis;
+    private final int maxClients;
+    private final int rateClassCount;
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<String, ClientWindows> clients = new ConcurrentHashMap<>();
+    private final AtomicLongArray overflow;
+    private final AtomicLongArray overflowOccupancy;
+    private final int overflowMask;
+    // 上限到達時にアイドルなクライアントを削除した最後のウィンドウ
+    private final AtomicLong lastReclaimWindow = new AtomicLong(-1);
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public SlidingWindowRateLimiter(long windowMillis, int rateClassCount, int maxClients, int overflowStripes) {
+        this(windowMillis, rateClassCount, maxClients, overflowStripes, System::currentTimeMillis);
+    }
+
+    public SlidingWindowRateLimiter(long windowMillis, int rateClassCount, int maxClients, int overflowStripes,
+                                    LongSupplier clock) {
+        if (windowMillis <= 0 || rateClassCount <= 0 || maxClients < 0 || overflowStripes <= 0) {
+            throw new IllegalArgumentException("Invalid rate limiter settings");
+        }
+        this.windowMillis = windowMillis;
+        this.rateClassCount = rateClassCount;
+        this.maxClients = maxClients;
+        this.clock = clock;
+
+        // ストライプ数は2のべき乗に切り上げ（剰余をマスクで計算するため）
+        int stripes = Integer.highestOneBit(Math.max(1, overflowStripes - 1)) << 1;
+        this.overflowMask = stripes - 1;
+        this.overflow = new AtomicLongArray(stripes * rateClassCount);
+        this.overflowOccupancy = new AtomicLongArray(stripes);
+    }
+
+    /**
+     * リクエストを1件消費できれば true（上限到達時は消費せず false）
+     */
+    public boolean tryAcquire(String clientId, int rateClass, int limit) {
+        long now = clock.getAsLong();
+        long window = now / windowMillis;
+        long elapsed = now - window * windowMillis;
+        int cappedLimit = Math.min(limit, MAX_LIMIT);
+
+        AtomicLongArray slots;
+        int index;
+        ClientWindows client = clientWindows(clientId, window);
+        if (client != null) {
+            slots = client.slots;
+            index = rateClass;
+        } else {
+            int stripe = overflowStripe(clientId);
+            slots = overflow;
+            index = stripe * rateClassCount + rateClass;
+            cappedLimit = sharedLimit(cappedLimit, occupy(stripe, clientId, window));
+        }
+
+        while (true) {
+            long current = slots.get(index);
+            long rolled = roll(current, window);
+            if (estimate(rolled, elapsed) >= cappedLimit) {
+                // 上限到達時もウィンドウの繰り越しだけは反映しておく
+                if (rolled != current) {
+                    slots.compareAndSet(index, current, rolled);
+                }
+                rejected.increment();
+                return false;
+            }
+            long next = rolled + 1;
+            if (slots.compareAndSet(index, current, next)) {
+                allowed.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 残りリクエスト数（状態は変更しない）
+     */
+    public int remaining(String clientId, int rateClass, int limit) {
+        long now = clock.getAsLong();
+        long window = now / windowMillis;
+        long elapsed = now - window * windowMillis;
+
+        long state;
+        int cappedLimit = Math.min(limit, MAX_LIMIT);
+        ClientWindows client = clients.get(clientId);
+        if (client != null) {
+            state = client.slots.get(rateClass);
+        } else if (clients.size() >= maxClients) {
+            int stripe = overflowStripe(clientId);
+            state = overflow.get(stripe * rateClassCount + rateClass);
+            long occupancy = rollOccupancy(overflowOccupancy.get(stripe), window) | occupancyBit(clientId);
+            cappedLimit = sharedLimit(cappedLimit, occupancy);
+        } else {
+            return limit;
+        }
+        long used = estimate(roll(state, window), elapsed);
+        return (int) Math.max(0, cappedLimit - used);
+    }
+
+    /**
+     * 現在のウィンドウが終了する時刻（エポック秒）
+     */
+    public long resetEpochSecond() {
+        long now = clock.getAsLong();
+        long windowEnd = (now / windowMillis + 1) * windowMillis;
+        return (windowEnd + 999) / 1000;
+    }
+
+    /**
+     * 直前・現在のどちらのウィンドウにもアクセスのないクライアントを削除（定期実行）
+     */
+    public int evictIdle() {
+        long window = clock.getAsLong() / windowMillis;
+        int removed = 0;
+        for (Iterator<ClientWindows> it = clients.values().iterator(); it.hasNext(); ) {
+            if (window - it.next().lastWindow > 1) {
+                it.remove();
+                removed++;
+            }
+        }
+        evicted.add(removed);
+        return removed;
+    }
+
+    private ClientWindows clientWindows(String clientId, long window) {
+        ClientWindows client = clients.get(clientId);
+        if (client == null) {
+            if (clients.size() >= maxClients && (reclaimIdle(window) == 0 || clients.size() >= maxClients)) {
+                overflowed.increment();
+                return null;
+            }
+            ClientWindows created = new ClientWindows(rateClassCount, window);
+            client = clients.putIfAbsent(clientId, created);
+            if (client == null) {
+                return created;
+            }
+        }
+        // 同一ウィンドウ内では volatile 書き込みを避ける
+        if (client.lastWindow != window) {
+            client.lastWindow = window;
+        }
+        return client;
+    }
+
+    /**
+     * 上限到達時にアイドルなクライアントを削除（全件走査のため1ウィンドウに1回まで）
+     */
+    private int reclaimIdle(long window) {
+        long last = lastReclaimWindow.get();
+        if (last == window || !lastReclaimWindow.compareAndSet(last, window)) {
+            return 0;
+        }
+        return evictIdle();
+    }
+
+    private int overflowStripe(String clientId) {
+        int h = clientId.hashCode();
+        h ^= (h >>> 16);
+        return h & overflowMask;
+    }
+
+    /**
+     * 共有スロットの利用クライアントとして記録し、直前・現在のウィンドウの利用状況を返す
+     */
+    private long occupy(int stripe, String clientId, long window) {
+        long bit = occupancyBit(clientId);
+        while (true) {
+            long current = overflowOccupancy.get(stripe);
+            long next = rollOccupancy(current, window) | bit;
+            if (next == current || overflowOccupancy.compareAndSet(stripe, current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * クライアントのビット（ストライプの選択に使わない上位ビットから選ぶ）
+     */
+    private static long occupancyBit(String clientId) {
+        return 1L << (((clientId.hashCode() * 0x9E3779B9) >>> 27) % OCCUPANCY_BITS);
+    }
+
+    /**
+     * 利用状況を指定ウィンドウまで繰り越す
+     */
+    private static long rollOccupancy(long state, long window) {
+        long stateWindow = state >>> (OCCUPANCY_BITS * 2);
+        long currentWindow = window & OCCUPANCY_WINDOW_MASK;
+        if (stateWindow == currentWindow) {
+            return state;
+        }
+        long previous = 0;
+        if (((stateWindow + 1) & OCCUPANCY_WINDOW_MASK) == currentWindow) {
+            previous = state & OCCUPANCY_MASK;
+        }
+        return (currentWindow << (OCCUPANCY_BITS * 2)) | (previous << OCCUPANCY_BITS);
+    }
+
+    /**
+     * 共有スロットの上限（1クライアント分の上限 × 直前・現在のウィンドウで使ったクライアントの概数）
+     */
+    private static int sharedLimit(int limit, long occupancy) {
+        int sharers = Long.bitCount(((occupancy >>> OCCUPANCY_BITS) | occupancy) & OCCUPANCY_MASK);
+        return (int) Math.min((long) limit * Math.max(1, sharers), MAX_LIMIT);
+    }
+
+    /**
+     * 状態を指定ウィンドウまで繰り越す
+     */
+    private static long roll(long state, long window) {
+        long stateWindow = state >>> (COUNT_BITS * 2);
+        long currentWindow = window & WINDOW_MASK;
+        if (stateWindow == currentWindow) {
+            return state;
+        }
+        long previousCount = 0;
+        if (((stateWindow + 1) & WINDOW_MASK) == currentWindow) {
+            previousCount = state & COUNT_MASK;
+        }
+        return (currentWindow << (COUNT_BITS * 2)) | (previousCount << COUNT_BITS);
+    }
+
+    /**
+     * 直前ウィンドウの件数を未経過割合で按分した推定件数
+     */
+    private long estimate(long state, long elapsedMillis) {
+        long previousCount = (state >>> COUNT_BITS) & COUNT_MASK;
+        long currentCount = state & COUNT_MASK;
+        long weighted = (previousCount * (windowMillis - elapsedMillis) + windowMillis - 1) / windowMillis;
+        return weighted + currentCount;
+    }
+
+    public long getTrackedClients() {
+        return clients.mappingCount();
+    }
+
+    public long getAllowedCount() {
+        return allowed.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getOverflowCount() {
+        return overflowed.sum();
+    }
+
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    /**
+     * クライアント1件分のレートクラス毎の状態
+     */
+    private static final class ClientWindows {
+        final AtomicLongArray slots;
+        volatile long lastWindow;
+
+        ClientWindows(int rateClassCount, long window) {
+            this.slots = new AtomicLongArray(rateClassCount);
+            this.lastWindow = window;
+        }
+    }
+}
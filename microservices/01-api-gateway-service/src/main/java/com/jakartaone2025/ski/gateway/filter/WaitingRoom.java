@@ -0,0 +1,274 @@
+package com.jakartaone2025.ski.gateway.filter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * フラッシュセール向けの仮想待合室
+ *
+ * 対象ルートへの新規の買い物客に到着順の整理券を発行し、毎分 admissions-per-minute 人ずつ入場させる。
+ * 入場した客には有効期限付きの入場券を発行し、期限内は待たずに通過させる。
+ * 待ち行列は「発行済みの整理券番号」と「入場済みの番号」の2つのカウンタだけで表すため、
+ * 順番と入場までの目安時間は待ち人数に関係なく O(1) で求まる。
+ *
+ * 整理券・入場券は HMAC-SHA256 で署名し、発行先のクライアント（ユーザーまたは IP）に紐付ける。
+ * 待ち行列はゲートウェイのノード毎に持つため、複数ノードで運用する場合は
+ * gateway.waiting-room.secret を共有し、ノード数で admissions-per-minute を割って設定する。
+ */
+@ApplicationScoped
+public class WaitingRoom {
+
+    private static final Logger logger = Logger.getLogger(WaitingRoom.class.getName());
+
+    private static final String TICKET = "t";
+    private static final String PASS = "p";
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Inject
+    @ConfigProperty(name = "gateway.waiting-room.enabled", defaultValue = "false")
+    private boolean enabled;
+
+    @Inject
+    @ConfigProperty(name = "gateway.waiting-room.routes", defaultValue = "cart,orders,payments")
+    private List<String> routes;
+
+    @Inject
+    @ConfigProperty(name = "gateway.waiting-room.admissions-per-minute", defaultValue = "600")
+    private long admissionsPerMinute;
+
+    @Inject
+    @ConfigProperty(name = "gateway.waiting-room.burst", defaultValue = "20")
+    private long burst;
+
+    @Inject
+    @ConfigProperty(name = "gateway.waiting-room.pass.minutes", defaultValue = "15")
+    private long passMinutes;
+
+    @Inject
+    @ConfigProperty(name = "gateway.waiting-room.ticket.minutes", defaultValue = "120")
+    private long ticketMinutes;
+
+    @Inject
+    @ConfigProperty(name = "gateway.waiting-room.secret")
+    private Optional<String> secret;
+
+    private Set<String> protectedRoutes = Set.of();
+    private ThreadLocal<Mac> macs;
+    private LongSupplier nanoClock = System::nanoTime;
+    private LongSupplier millisClock = System::currentTimeMillis;
+
+    // 次に発行する整理券番号と、入場済みの番号（ミリ単位。これ未満の整理券は入場できる）
+    private final AtomicLong nextTicket = new AtomicLong();
+    private final AtomicLong servedMilli = new AtomicLong();
+    private final AtomicLong lastAdvanceNanos = new AtomicLong();
+
+    private final LongAdder ticketsIssued = new LongAdder();
+    private final LongAdder passesIssued = new LongAdder();
+    private final LongAdder rejectedTokens = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        byte[] keyBytes;
+        if (secret.isPresent() && !secret.get().isBlank()) {
+            keyBytes = secret.get().getBytes(StandardCharsets.UTF_8);
+        } else {
+            // 未設定の場合はノード毎の鍵（再起動や他ノードでは発行済みの券が無効になる）
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            if (enabled) {
+                logger.warning("gateway.waiting-room.secret is not set; using a random per-node key");
+            }
+        }
+        install(keyBytes);
+        protectedRoutes = Set.copyOf(routes.stream().map(String::trim).toList());
+
+        metricRegistry.gauge("gateway.waiting-room.enabled", this, w -> w.enabled ? 1 : 0);
+        metricRegistry.gauge("gateway.waiting-room.waiting", this, WaitingRoom::getWaiting);
+        metricRegistry.gauge("gateway.waiting-room.tickets", ticketsIssued, LongAdder::sum);
+        metricRegistry.gauge("gateway.waiting-room.admitted", passesIssued, LongAdder::sum);
+        metricRegistry.gauge("gateway.waiting-room.rejected-tokens", rejectedTokens, LongAdder::sum);
+        if (enabled) {
+            logger.info(String.format("Waiting room enabled for routes %s: %d admissions/minute (burst %d)",
+                protectedRoutes, admissionsPerMinute, burst));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * ルートが待合室の対象か
+     */
+    public boolean isProtected(String routeName) {
+        return enabled && protectedRoutes.contains(routeName);
+    }
+
+    /**
+     * 入場を判定する
+     *
+     * 有効な入場券があれば通過、順番が来た整理券は入場券と交換して通過させる。
+     * 券を持たない（または無効な券の）クライアントには新しい整理券を発行する。
+     *
+     * @param token クライアントが提示した入場券または整理券（なければ null）
+     * @param clientId 券を紐付けるクライアント識別子
+     */
+    public Admission admit(String token, String clientId) {
+        Admission admission = check(token, clientId);
+        if (admission != null) {
+            return admission;
+        }
+        long ticket = nextTicket.getAndIncrement();
+        ticketsIssued.increment();
+        long expiresAt = TimeUnit.MILLISECONDS.toSeconds(millisClock.getAsLong()) + TimeUnit.MINUTES.toSeconds(ticketMinutes);
+        return ticketAdmission(ticket, sign(TICKET + "." + ticket + "." + expiresAt, clientId), clientId);
+    }
+
+    /**
+     * 提示された券の状態を返す（新しい整理券は発行しない。有効な券でなければ null）
+     */
+    public Admission check(String token, String clientId) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        String[] parts = token.split("\\.");
+        long now = TimeUnit.MILLISECONDS.toSeconds(millisClock.getAsLong());
+        try {
+            if (parts.length == 3 && PASS.equals(parts[0]) && verify(parts, clientId)
+                    && Long.parseLong(parts[1]) > now) {
+                return new Admission(true, null, 0, 0);
+            }
+            if (parts.length == 4 && TICKET.equals(parts[0]) && verify(parts, clientId)
+                    && Long.parseLong(parts[2]) > now) {
+                return ticketAdmission(Long.parseLong(parts[1]), token, clientId);
+            }
+        } catch (NumberFormatException e) {
+            // 改ざんされた券として扱う
+        }
+        rejectedTokens.increment();
+        return null;
+    }
+
+    private Admission ticketAdmission(long ticket, String token, String clientId) {
+        long served = served();
+        if (ticket < served) {
+            passesIssued.increment();
+            long expiresAt = TimeUnit.MILLISECONDS.toSeconds(millisClock.getAsLong()) + TimeUnit.MINUTES.toSeconds(passMinutes);
+            return new Admission(true, sign(PASS + "." + expiresAt, clientId), 0, 0);
+        }
+        long position = ticket - served + 1;
+        long etaSeconds = admissionsPerMinute <= 0
+            ? Long.MAX_VALUE
+            : (position * 60 + admissionsPerMinute - 1) / admissionsPerMinute;
+        return new Admission(false, token, position, etaSeconds);
+    }
+
+    /**
+     * 入場済みの整理券番号（経過時間に応じて進める）
+     *
+     * 空いている時間の入場枠は burst 人分までしか繰り越さないため、待ち客がいない状態から急に混んでも
+     * 一度に入場させるのは burst 人までとなる。
+     */
+    private long served() {
+        long now = nanoClock.getAsLong();
+        long last = lastAdvanceNanos.get();
+        long elapsed = now - last;
+        // 細かすぎる更新は CAS の競合を増やすだけなので 10ms 単位でまとめる
+        if (elapsed >= TimeUnit.MILLISECONDS.toNanos(10) && lastAdvanceNanos.compareAndSet(last, now)) {
+            long amount = (long) (admissionsPerMinute * 1000 * (elapsed / 60e9));
+            long cap = (nextTicket.get() + burst) * 1000;
+            servedMilli.accumulateAndGet(amount, (current, add) -> Math.max(current, Math.min(cap, current + add)));
+        }
+        return servedMilli.get() / 1000;
+    }
+
+    /**
+     * 入場を待っている整理券の数
+     */
+    public long getWaiting() {
+        return Math.max(0, nextTicket.get() - served());
+    }
+
+    private String sign(String payload, String clientId) {
+        return payload + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(mac(payload, clientId));
+    }
+
+    private boolean verify(String[] parts, String clientId) {
+        String payload = String.join(".", Arrays.copyOf(parts, parts.length - 1));
+        byte[] signature;
+        try {
+            signature = Base64.getUrlDecoder().decode(parts[parts.length - 1]);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(mac(payload, clientId), signature);
+    }
+
+    private byte[] mac(String payload, String clientId) {
+        Mac mac = macs.get();
+        mac.update(payload.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) '|');
+        return mac.doFinal(clientId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void install(byte[] keyBytes) {
+        SecretKeySpec key = new SecretKeySpec(keyBytes, "HmacSHA256");
+        // Mac はスレッドセーフでないためスレッド毎に持つ
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        });
+        this.servedMilli.set(burst * 1000);
+        this.lastAdvanceNanos.set(nanoClock.getAsLong());
+    }
+
+    /**
+     * 入場判定の結果
+     *
+     * @param admitted 通過させるか
+     * @param token クライアントに返す券（入場時は新しい入場券、待機時は整理券。返す必要がなければ null）
+     * @param position 待ち順（1 が先頭）
+     * @param etaSeconds 入場までの目安秒数
+     */
+    public record Admission(boolean admitted, String token, long position, long etaSeconds) {
+    }
+
+    void configure(Set<String> protectedRoutes, long admissionsPerMinute, long burst, long passMinutes, long ticketMinutes,
+                   byte[] keyBytes, LongSupplier nanoClock, LongSupplier millisClock) {
+        this.enabled = true;
+        this.protectedRoutes = protectedRoutes;
+        this.admissionsPerMinute = admissionsPerMinute;
+        this.burst = burst;
+        this.passMinutes = passMinutes;
+        this.ticketMinutes = ticketMinutes;
+        this.nanoClock = nanoClock;
+        this.millisClock = millisClock;
+        install(keyBytes);
+    }
+}
@@ -0,0 +1,110 @@
+package com.jakartaone2025.ski.gateway.filter;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.PreMatching;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+import com.jakartaone2025.ski.gateway.routing.Route;
+import com.jakartaone2025.ski.gateway.routing.RoutingService;
+import java.util.logging.Logger;
+
+/**
+ * Waiting Room Filter - 待合室モードの対象ルートへの入場を制御
+ *
+ * 入場券のないリクエストは整理券を発行して 503 で返し、順番が来た整理券は入場券と交換して通過させる。
+ * 券は X-Waiting-Room-Token ヘッダーでやり取りする。
+ */
+@Provider
+@PreMatching
+@Priority(2500)
+@RequestScoped
+public class WaitingRoomFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final Logger logger = Logger.getLogger(WaitingRoomFilter.class.getName());
+
+    public static final String TOKEN_HEADER = "X-Waiting-Room-Token";
+    public static final String POSITION_HEADER = "X-Waiting-Room-Position";
+
+    private static final String ISSUED_TOKEN_PROPERTY = "waitingRoom.issuedToken";
+
+    // 順番待ちの確認間隔の上限（秒）
+    private static final long MAX_RETRY_AFTER_SECONDS = 30;
+
+    @Inject
+    private WaitingRoom waitingRoom;
+
+    @Inject
+    private RoutingService routingService;
+
+    @Context
+    private HttpServletRequest request;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!waitingRoom.isEnabled() || "OPTIONS".equals(requestContext.getMethod())) {
+            return;
+        }
+
+        String path = requestContext.getUriInfo().getPath();
+        if (path.isEmpty() || path.charAt(0) != '/') {
+            path = "/" + path;
+        }
+        Route route = routingService.findRoute(path);
+        if (route == null || !waitingRoom.isProtected(route.name())) {
+            return;
+        }
+
+        String clientId = clientIdOf(request);
+        WaitingRoom.Admission admission = waitingRoom.admit(requestContext.getHeaderString(TOKEN_HEADER), clientId);
+        if (admission.admitted()) {
+            // 新しく発行した入場券はレスポンスヘッダーで返す
+            if (admission.token() != null) {
+                requestContext.setProperty(ISSUED_TOKEN_PROPERTY, admission.token());
+            }
+            return;
+        }
+
+        logger.fine(String.format("Client %s queued at position %d for path: %s", clientId, admission.position(), path));
+        requestContext.abortWith(queued(admission));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object token = requestContext.getProperty(ISSUED_TOKEN_PROPERTY);
+        if (token != null) {
+            responseContext.getHeaders().putSingle(TOKEN_HEADER, token);
+        }
+    }
+
+    /**
+     * 待機中の応答（整理券・順番・目安時間を返す）
+     */
+    static Response queued(WaitingRoom.Admission admission) {
+        long retryAfter = Math.max(1, Math.min(MAX_RETRY_AFTER_SECONDS, admission.etaSeconds()));
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, retryAfter)
+            .header(TOKEN_HEADER, admission.token())
+            .header(POSITION_HEADER, admission.position())
+            .entity(String.format("{\"error\": \"Waiting Room\", \"message\": \"You are in the queue\", "
+                + "\"position\": %d, \"etaSeconds\": %d, \"ticket\": \"%s\"}",
+                admission.position(), admission.etaSeconds(), admission.token()))
+            .build();
+    }
+
+    /**
+     * 券を紐付けるクライアント識別子（RateLimitingFilter が決めたユーザーまたは IP）
+     */
+    public static String clientIdOf(HttpServletRequest request) {
+        Object clientId = request.getAttribute("rateLimit.clientId");
+        return clientId instanceof String id ? id : "ip:" + request.getRemoteAddr();
+    }
+}
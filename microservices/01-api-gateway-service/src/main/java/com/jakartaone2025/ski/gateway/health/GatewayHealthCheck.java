@@ -12,7 +12,9 @@ import org.eclipse.microprofile.health.HealthCheckResponse;
 import org.eclipse.microprofile.health.Liveness;
 import org.eclipse.microprofile.health.Readiness;
 import com.jakartaone2025.ski.gateway.routing.RoutingService;
+import com.jakartaone2025.ski.gateway.routing.UpstreamInstance;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -40,9 +42,9 @@ public class GatewayHealthCheck {
     public HealthCheck readinessCheck() {
         return () -> {
             // 主要サービスの可用性をチェック
-            boolean authServiceHealthy = checkCriticalService("http://localhost:8084");
-            boolean userServiceHealthy = checkCriticalService("http://localhost:8081");
-            boolean productServiceHealthy = checkCriticalService("http://localhost:8083");
+            boolean authServiceHealthy = checkCriticalService("auth");
+            boolean userServiceHealthy = checkCriticalService("user");
+            boolean productServiceHealthy = checkCriticalService("product");
             
             boolean isReady = authServiceHealthy && userServiceHealthy && productServiceHealthy;
             
@@ -62,32 +64,28 @@ public class GatewayHealthCheck {
     public Response getAllServicesHealth() {
         Map<String, Object> healthStatus = new HashMap<>();
         
-        // すべてのサービスの状態を確認
-        Map<String, String> services = Map.of(
-            "user-service", "http://localhost:8081",
-            "product-service", "http://localhost:8083", 
-            "auth-service", "http://localhost:8084",
-            "inventory-service", "http://localhost:8085",
-            "order-service", "http://localhost:8086",
-            "payment-service", "http://localhost:8087",
-            "cart-service", "http://localhost:8088",
-            "coupon-service", "http://localhost:8089",
-            "point-service", "http://localhost:8090",
-            "ai-service", "http://localhost:8091"
-        );
+        // すべてのサービスの状態を確認（利用可能なインスタンスが1つ以上あれば健康）
+        Map<String, List<UpstreamInstance>> services = routingService.getServiceInstances();
         
         Map<String, Boolean> serviceStatuses = new HashMap<>();
+        Map<String, Map<String, Boolean>> instanceStatuses = new HashMap<>();
         int healthyCount = 0;
         
         for (var entry : services.entrySet()) {
-            boolean isHealthy = routingService.isServiceHealthy(entry.getValue());
-            serviceStatuses.put(entry.getKey(), isHealthy);
+            Map<String, Boolean> instances = new HashMap<>();
+            for (UpstreamInstance instance : entry.getValue()) {
+                instances.put(instance.getUrl(), routingService.isServiceHealthy(instance.getUrl()));
+            }
+            boolean isHealthy = instances.containsValue(true);
+            serviceStatuses.put(entry.getKey() + "-service", isHealthy);
+            instanceStatuses.put(entry.getKey() + "-service", instances);
             if (isHealthy) {
                 healthyCount++;
             }
         }
         
         healthStatus.put("services", serviceStatuses);
+        healthStatus.put("instances", instanceStatuses);
         healthStatus.put("totalServices", services.size());
         healthStatus.put("healthyServices", healthyCount);
         healthStatus.put("unhealthyServices", services.size() - healthyCount);
@@ -102,9 +100,9 @@ public class GatewayHealthCheck {
             .build();
     }
     
-    private boolean checkCriticalService(String serviceUrl) {
+    private boolean checkCriticalService(String serviceName) {
         try {
-            return routingService.isServiceHealthy(serviceUrl);
+            return routingService.isServiceAvailable(serviceName);
         } catch (Exception e) {
             return false;
         }
@@ -0,0 +1,183 @@
+package com.jakartaone2025.ski.gateway.health;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * 上流サービスのヘルス状態監視
+ *
+ * アクティブチェック: バックグラウンドで定期的に {@code GET /health} を送信する。
+ * パッシブチェック: 実リクエストで連続して 5xx / タイムアウトが発生した上流を
+ * 一定時間ルーティング対象から除外（イジェクト）し、クールダウン後に復帰させる。
+ *
+ * リクエスト処理スレッドはキャッシュされた状態を参照するだけで、ヘルスチェックを待たない。
+ * アクティブチェックは専用のクライアントで送るため、サービス毎のコネクションプールの
+ * 同時借用数やアイドル判定には影響しない。
+ */
+@ApplicationScoped
+public class UpstreamHealthMonitor {
+
+    private static final Logger logger = Logger.getLogger(UpstreamHealthMonitor.class.getName());
+
+    @Inject
+    @ConfigProperty(name = "health.check.enabled", defaultValue = "true")
+    private boolean activeCheckEnabled;
+
+    @Inject
+    @ConfigProperty(name = "health.check.interval.seconds", defaultValue = "10")
+    private long probeIntervalSeconds;
+
+    @Inject
+    @ConfigProperty(name = "health.check.timeout.seconds", defaultValue = "5")
+    private long probeTimeoutSeconds;
+
+    @Inject
+    @ConfigProperty(name = "gateway.outlier.consecutive-failures", defaultValue = "5")
+    private int consecutiveFailureThreshold;
+
+    @Inject
+    @ConfigProperty(name = "gateway.outlier.ejection.seconds", defaultValue = "30")
+    private long ejectionSeconds;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    private final Map<String, UpstreamHealth> upstreams = new ConcurrentHashMap<>();
+    private ScheduledFuture<?> probeTask;
+    private Client probeClient;
+
+    @PostConstruct
+    void startProbing() {
+        if (activeCheckEnabled) {
+            probeClient = ClientBuilder.newBuilder()
+                .connectTimeout(probeTimeoutSeconds, TimeUnit.SECONDS)
+                .readTimeout(probeTimeoutSeconds, TimeUnit.SECONDS)
+                .build();
+            // 起動をブロックしないよう初回チェックもバックグラウンドで実行
+            probeTask = scheduler.scheduleWithFixedDelay(
+                this::probeAll, 0, probeIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stopProbing() {
+        if (probeTask != null) {
+            probeTask.cancel(false);
+        }
+        if (probeClient != null) {
+            probeClient.close();
+        }
+    }
+
+    /**
+     * 監視対象の上流を登録
+     */
+    public void register(String upstreamUrl) {
+        upstreams.computeIfAbsent(upstreamUrl, url -> new UpstreamHealth());
+    }
+
+    /**
+     * 上流にリクエストを送ってよいか（未登録・未チェックの上流は利用可能とみなす）
+     */
+    public boolean isAvailable(String upstreamUrl) {
+        UpstreamHealth health = upstreams.get(upstreamUrl);
+        return health == null || health.isAvailable(System.currentTimeMillis());
+    }
+
+    /**
+     * 実リクエストの成功を記録
+     */
+    public void recordSuccess(String upstreamUrl) {
+        UpstreamHealth health = upstreams.get(upstreamUrl);
+        if (health != null) {
+            health.consecutiveFailures.set(0);
+        }
+    }
+
+    /**
+     * 実リクエストの失敗（5xx / タイムアウト / 接続エラー）を記録
+     */
+    public void recordFailure(String upstreamUrl) {
+        UpstreamHealth health = upstreams.get(upstreamUrl);
+        if (health == null) {
+            return;
+        }
+
+        int failures = health.consecutiveFailures.incrementAndGet();
+        if (failures >= consecutiveFailureThreshold && health.consecutiveFailures.compareAndSet(failures, 0)) {
+            health.ejectedUntilMillis = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ejectionSeconds);
+            logger.warning(String.format("Ejected %s after %d consecutive failures (cool-down %ds)",
+                upstreamUrl, failures, ejectionSeconds));
+        }
+    }
+
+    /**
+     * 全上流のアクティブチェックを非同期で実行（定期実行）
+     */
+    void probeAll() {
+        upstreams.forEach(this::probe);
+    }
+
+    private void probe(String upstreamUrl, UpstreamHealth health) {
+        try {
+            CompletableFuture<Response> call = probeClient.target(upstreamUrl).path("health")
+                .request().rx().get().toCompletableFuture();
+            
+            // タイムアウト後に届いた応答も含め、接続は必ず返却する
+            call.whenComplete((response, error) -> {
+                if (response != null) {
+                    response.close();
+                }
+            });
+            
+            call.copy()
+                .orTimeout(probeTimeoutSeconds, TimeUnit.SECONDS)
+                .whenComplete((response, error) -> {
+                    boolean healthy = error == null && response.getStatus() == Response.Status.OK.getStatusCode();
+                    if (health.markProbed(healthy)) {
+                        logger.info(String.format("Health check for %s: %s", upstreamUrl, healthy ? "HEALTHY" : "UNHEALTHY"));
+                    }
+                });
+        } catch (Exception e) {
+            health.markProbed(false);
+            logger.warning(String.format("Health check failed for %s: %s", upstreamUrl, e.getMessage()));
+        }
+    }
+
+    /**
+     * 上流1つ分のヘルス状態
+     */
+    private static class UpstreamHealth {
+        final AtomicInteger consecutiveFailures = new AtomicInteger();
+        volatile boolean probeHealthy = true;
+        volatile long ejectedUntilMillis;
+
+        boolean isAvailable(long nowMillis) {
+            return probeHealthy && nowMillis >= ejectedUntilMillis;
+        }
+
+        /**
+         * アクティブチェックの結果を反映（状態が変化した場合は true）
+         */
+        boolean markProbed(boolean healthy) {
+            boolean changed = probeHealthy != healthy;
+            probeHealthy = healthy;
+            return changed;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.jakartaone2025.ski.gateway.metrics;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.PreMatching;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import com.jakartaone2025.ski.gateway.routing.Route;
+import com.jakartaone2025.ski.gateway.routing.RoutingService;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Request Metrics Filter - リクエスト毎の応答時間・ステータス・送受信バイト数を計測
+ *
+ * 最初に動くフィルターとして受信時刻を記録し、最も外側のインターセプターとして
+ * クライアントへ書き込んだ（圧縮後の）バイト数を数え、書き込み完了時に {@link RouteMetrics} へ記録する。
+ */
+@Provider
+@PreMatching
+@Priority(100)
+@ApplicationScoped
+public class RequestMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    @Inject
+    private RouteMetrics routeMetrics;
+
+    @Inject
+    private RoutingService routingService;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        RequestTiming timing = new RequestTiming(System.nanoTime());
+        requestContext.setProperty(RequestTiming.PROPERTY, timing);
+        if (requestContext.hasEntity()) {
+            requestContext.setEntityStream(new CountingInputStream(requestContext.getEntityStream(), timing));
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (!(requestContext.getProperty(RequestTiming.PROPERTY) instanceof RequestTiming timing)) {
+            return;
+        }
+        timing.status(responseContext.getStatus());
+        if (timing.getRoute() == null) {
+            // レート制限・認証エラー等でリソースに届かなかった場合はパスからルートを求める
+            String path = requestContext.getUriInfo().getPath();
+            Route route = routingService.findRoute(path.startsWith("/") ? path : "/" + path);
+            if (route != null) {
+                timing.route(route.name(), route.service());
+            }
+        }
+        // ボディがなければここで完了、あればボディの書き込み完了時に記録する
+        if (!responseContext.hasEntity() && timing.complete()) {
+            routeMetrics.record(timing, true);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        if (!(context.getProperty(RequestTiming.PROPERTY) instanceof RequestTiming timing)) {
+            context.proceed();
+            return;
+        }
+        CountingOutputStream output = new CountingOutputStream(context.getOutputStream());
+        context.setOutputStream(output);
+        try {
+            context.proceed();
+        } finally {
+            timing.addBytesOut(output.count);
+            if (timing.complete()) {
+                // SSE は接続時間が応答時間の分布を歪めるため、応答完了までの時間は記録しない
+                routeMetrics.record(timing, !isEventStream(context.getMediaType()));
+            }
+        }
+    }
+
+    private static boolean isEventStream(MediaType mediaType) {
+        return mediaType != null && mediaType.isCompatible(MediaType.SERVER_SENT_EVENTS_TYPE);
+    }
+
+    /**
+     * 読み込んだバイト数を数える入力ストリーム
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private final RequestTiming timing;
+
+        private CountingInputStream(InputStream input, RequestTiming timing) {
+            super(input);
+            this.timing = timing;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                timing.addBytesIn(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                timing.addBytesIn(read);
+            }
+            return read;
+        }
+    }
+
+    /**
+     * 書き込んだバイト数を数える出力ストリーム（書き込みは1スレッドから行われる）
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream output) {
+            super(output);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            out.write(buffer, offset, length);
+            count += length;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.jakartaone2025.ski.gateway.metrics;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * リクエスト1件分の計測値（各段階の時刻・ステータス・送受信バイト数）
+ *
+ * RequestMetricsFilter が受信時に作成してリクエストプロパティに保持し、
+ * 処理の各段階（ルート決定・レーン通過・上流送信・上流の応答ヘッダー受信）で時刻を記録する。
+ * ヘッジ等で上流へ複数回送信した場合は、最初の送信と最初の応答を記録する。
+ */
+public final class RequestTiming {
+
+    /**
+     * 計測値を保持するリクエストプロパティ
+     */
+    public static final String PROPERTY = "metrics.timing";
+
+    private final long startNanos;
+    private volatile String route;
+    private volatile String upstream;
+    private volatile long admittedNanos;
+    private final AtomicLong upstreamSentNanos = new AtomicLong();
+    private final AtomicLong firstByteNanos = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private volatile int status;
+
+    public RequestTiming(long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * リクエストプロパティの計測値（フィルターを通っていない場合は記録先のない計測値）
+     */
+    public static RequestTiming from(Object property) {
+        return property instanceof RequestTiming timing ? timing : new RequestTiming(System.nanoTime());
+    }
+
+    public void route(String routeName, String upstreamName) {
+        this.route = routeName;
+        this.upstream = upstreamName;
+    }
+
+    /**
+     * レーン（実行枠）を取得した
+     */
+    public void admitted() {
+        admittedNanos = System.nanoTime();
+    }
+
+    /**
+     * 上流へ送信した
+     */
+    public void upstreamSent() {
+        upstreamSentNanos.compareAndSet(0, System.nanoTime());
+    }
+
+    /**
+     * 上流の応答ヘッダーを受信した
+     */
+    public void firstByte() {
+        firstByteNanos.compareAndSet(0, System.nanoTime());
+    }
+
+    void status(int status) {
+        this.status = status;
+    }
+
+    void addBytesIn(long bytes) {
+        bytesIn.addAndGet(bytes);
+    }
+
+    void addBytesOut(long bytes) {
+        bytesOut.addAndGet(bytes);
+    }
+
+    /**
+     * 記録を完了する権利を取得（1回のみ）
+     */
+    boolean complete() {
+        return completed.compareAndSet(false, true);
+    }
+
+    String getRoute() {
+        return route;
+    }
+
+    String getUpstream() {
+        return upstream;
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    long getBytesIn() {
+        return bytesIn.get();
+    }
+
+    long getBytesOut() {
+        return bytesOut.get();
+    }
+
+    /**
+     * 受信からレーン通過までの時間（フィルター処理と実行枠の待ち時間。未通過なら -1）
+     */
+    long queueNanos() {
+        return admittedNanos == 0 ? -1 : admittedNanos - startNanos;
+    }
+
+    /**
+     * 上流への送信から応答ヘッダー受信までの時間（接続確立を含む。上流を呼ばなかった場合は -1）
+     */
+    long upstreamNanos() {
+        long sent = upstreamSentNanos.get();
+        long firstByte = firstByteNanos.get();
+        return sent == 0 || firstByte == 0 ? -1 : firstByte - sent;
+    }
+
+    long totalNanos(long nowNanos) {
+        return nowNanos - startNanos;
+    }
+}
@@ -0,0 +1,158 @@
+package com.jakartaone2025.ski.gateway.metrics;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import com.jakartaone2025.ski.gateway.resilience.LatencyHistogram;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ルート・上流サービス毎の応答時間の分布・ステータスコード・送受信バイト数
+ *
+ * 応答時間は段階毎（queue: 受信からレーン通過まで / upstream: 上流への送信から応答ヘッダー受信まで / total: 応答完了まで）に
+ * 直近ウィンドウのヒストグラムへ記録し、p50 / p95 / p99 をゲージとして公開する。
+ */
+@ApplicationScoped
+public class RouteMetrics {
+
+    /**
+     * 計測する段階（メトリクスのタグ値）
+     */
+    public enum Phase {
+        QUEUE, UPSTREAM, TOTAL;
+
+        final String tag = name().toLowerCase();
+    }
+
+    // ルートを決める前に応答した（レート制限・認証エラー等）リクエストのタグ値
+    static final String UNMATCHED = "unmatched";
+
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Inject
+    @ConfigProperty(name = "gateway.metrics.window.seconds", defaultValue = "60")
+    private long windowSeconds;
+
+    private final Map<String, RouteStats> statsByRoute = new ConcurrentHashMap<>();
+
+    /**
+     * リクエスト1件分の計測値を記録（応答の書き込み完了時に1回だけ呼ぶ）
+     *
+     * @param includeTotal 応答完了までの時間を記録するか（SSE 等の長時間接続は除く）
+     */
+    public void record(RequestTiming timing, boolean includeTotal) {
+        RouteStats stats = stats(timing.getRoute() == null ? UNMATCHED : timing.getRoute(),
+            timing.getUpstream() == null ? UNMATCHED : timing.getUpstream());
+        recordPhase(stats, Phase.QUEUE, timing.queueNanos());
+        recordPhase(stats, Phase.UPSTREAM, timing.upstreamNanos());
+        if (includeTotal) {
+            recordPhase(stats, Phase.TOTAL, timing.totalNanos(System.nanoTime()));
+        }
+        stats.responses.computeIfAbsent(timing.getStatus(), status -> statusCounter(stats, status)).increment();
+        stats.bytesIn.add(timing.getBytesIn());
+        stats.bytesOut.add(timing.getBytesOut());
+    }
+
+    private static void recordPhase(RouteStats stats, Phase phase, long nanos) {
+        if (nanos >= 0) {
+            stats.latencies[phase.ordinal()].record(nanos);
+        }
+    }
+
+    /**
+     * 直近の応答時間のパーセンタイル値（ミリ秒）
+     */
+    public double percentileMillis(String route, String upstream, Phase phase, double quantile) {
+        RouteStats stats = statsByRoute.get(key(route, upstream));
+        return stats == null ? 0 : stats.latencies[phase.ordinal()].percentileNanos(quantile) / 1_000_000.0;
+    }
+
+    /**
+     * ステータスコード毎の応答数
+     */
+    public long getResponses(String route, String upstream, int status) {
+        RouteStats stats = statsByRoute.get(key(route, upstream));
+        LongAdder counter = stats == null ? null : stats.responses.get(status);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public long getBytesOut(String route, String upstream) {
+        RouteStats stats = statsByRoute.get(key(route, upstream));
+        return stats == null ? 0 : stats.bytesOut.sum();
+    }
+
+    public long getBytesIn(String route, String upstream) {
+        RouteStats stats = statsByRoute.get(key(route, upstream));
+        return stats == null ? 0 : stats.bytesIn.sum();
+    }
+
+    private RouteStats stats(String route, String upstream) {
+        return statsByRoute.computeIfAbsent(key(route, upstream), key -> createStats(route, upstream));
+    }
+
+    private static String key(String route, String upstream) {
+        return route + '\n' + upstream;
+    }
+
+    private RouteStats createStats(String route, String upstream) {
+        RouteStats stats = new RouteStats(route, upstream, TimeUnit.SECONDS.toMillis(windowSeconds));
+        if (metricRegistry == null) {
+            return stats;
+        }
+        Tag routeTag = new Tag("route", route);
+        Tag upstreamTag = new Tag("upstream", upstream);
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = stats.latencies[phase.ordinal()];
+            Tag phaseTag = new Tag("phase", phase.tag);
+            for (double quantile : QUANTILES) {
+                metricRegistry.gauge(String.format("gateway.route.latency.p%d.ms", Math.round(quantile * 100)), histogram,
+                    h -> h.percentileNanos(quantile) / 1_000_000.0, routeTag, upstreamTag, phaseTag);
+            }
+        }
+        metricRegistry.gauge("gateway.route.bytes.in", stats.bytesIn, LongAdder::sum, routeTag, upstreamTag);
+        metricRegistry.gauge("gateway.route.bytes.out", stats.bytesOut, LongAdder::sum, routeTag, upstreamTag);
+        return stats;
+    }
+
+    private LongAdder statusCounter(RouteStats stats, int status) {
+        LongAdder counter = new LongAdder();
+        if (metricRegistry != null) {
+            metricRegistry.gauge("gateway.route.responses", counter, LongAdder::sum,
+                new Tag("route", stats.route), new Tag("upstream", stats.upstream), new Tag("status", String.valueOf(status)));
+        }
+        return counter;
+    }
+
+    void configure(long windowSeconds) {
+        this.windowSeconds = windowSeconds;
+    }
+
+    /**
+     * ルート・上流サービス1組分の統計
+     */
+    private static final class RouteStats {
+
+        private final String route;
+        private final String upstream;
+        private final LatencyHistogram[] latencies = new LatencyHistogram[Phase.values().length];
+        private final Map<Integer, LongAdder> responses = new ConcurrentHashMap<>();
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder bytesOut = new LongAdder();
+
+        private RouteStats(String route, String upstream, long windowMillis) {
+            this.route = route;
+            this.upstream = upstream;
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new LatencyHistogram(windowMillis, System::nanoTime);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.jakartaone2025.ski.gateway.proxy;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+
+/**
+ * 上流へ転送するリクエストヘッダー・クライアントへ返すレスポンスヘッダーの選別
+ */
+public final class ForwardedHeaders {
+
+    // 転送するリクエストヘッダー
+    private static final String[] REQUEST_HEADERS = {
+        "Authorization", "Content-Type", "Accept", "Accept-Language",
+        "User-Agent", "X-Forwarded-For", "X-Real-IP"
+    };
+
+    // 転送するレスポンスヘッダー
+    private static final String[] RESPONSE_HEADERS = {
+        "Content-Type", "Content-Length", "Content-Encoding", "Cache-Control", "ETag",
+        "Last-Modified", "Location", "Set-Cookie", "Vary"
+    };
+
+    private ForwardedHeaders() {
+    }
+
+    /**
+     * 上流へ転送するリクエストヘッダー
+     *
+     * @param userId AuthenticationFilter で検証済みのユーザーID（未認証なら null）
+     * @param username 検証済みのユーザー名（未認証なら null）
+     */
+    public static MultivaluedMap<String, Object> request(HttpHeaders headers, String userId, String username) {
+        MultivaluedMap<String, Object> forwarded = new MultivaluedHashMap<>();
+
+        for (String headerName : REQUEST_HEADERS) {
+            String headerValue = headers.getHeaderString(headerName);
+            if (headerValue != null) {
+                forwarded.putSingle(headerName, headerValue);
+            }
+        }
+
+        // カスタムヘッダー（X-で始まるもの）も転送（認証情報のヘッダーはクライアントの値を信用しない）
+        for (String headerName : headers.getRequestHeaders().keySet()) {
+            if (headerName.startsWith("X-") && !headerName.equals("X-Forwarded-For") && !headerName.equals("X-Real-IP")
+                    && !headerName.equalsIgnoreCase("X-User-ID") && !headerName.equalsIgnoreCase("X-Username")) {
+                String headerValue = headers.getHeaderString(headerName);
+                if (headerValue != null) {
+                    forwarded.putSingle(headerName, headerValue);
+                }
+            }
+        }
+
+        // 認証情報（検証済みのトークンのクレーム）を転送
+        if (userId != null) {
+            forwarded.putSingle("X-User-ID", userId);
+        }
+        if (username != null) {
+            forwarded.putSingle("X-Username", username);
+        }
+        return forwarded;
+    }
+
+    /**
+     * クライアントへ返す上流のレスポンスヘッダー
+     */
+    public static MultivaluedMap<String, Object> response(MultivaluedMap<String, Object> upstreamHeaders) {
+        MultivaluedMap<String, Object> responseHeaders = new MultivaluedHashMap<>();
+        for (String headerName : RESPONSE_HEADERS) {
+            Object headerValue = upstreamHeaders.getFirst(headerName);
+            if (headerValue != null) {
+                responseHeaders.add(headerName, headerValue);
+            }
+        }
+        return responseHeaders;
+    }
+}
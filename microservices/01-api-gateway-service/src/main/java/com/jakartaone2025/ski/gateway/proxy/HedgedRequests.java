@@ -0,0 +1,268 @@
+package com.jakartaone2025.ski.gateway.proxy;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import com.jakartaone2025.ski.gateway.resilience.LatencyHistogram;
+import com.jakartaone2025.ski.gateway.resilience.RetryBudget;
+import com.jakartaone2025.ski.gateway.resilience.UpstreamRejectedException;
+import com.jakartaone2025.ski.gateway.routing.Route;
+import com.jakartaone2025.ski.gateway.routing.RoutingService;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * 冪等なリクエストのヘッジ（遅い応答への重複送信）とリトライ
+ *
+ * 最初の試行がルートの p95 応答時間（gateway.hedge.percentile）を過ぎても返らない場合に
+ * 2 回目の試行を送り、先に返った応答を使う。最初の試行が接続エラー等で失敗した場合も
+ * 同じ枠で 1 回だけリトライする。どちらも上流サービス毎の {@link RetryBudget} の範囲内でのみ行う。
+ *
+ * ヘッジの遅延はルート毎の応答時間の分布から求め、サンプルが少ない間はヘッジしない。
+ */
+@ApplicationScoped
+public class HedgedRequests {
+
+    @Inject
+    private RoutingService routingService;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Inject
+    @ConfigProperty(name = "gateway.hedge.percentile", defaultValue = "0.95")
+    private double percentile;
+
+    @Inject
+    @ConfigProperty(name = "gateway.hedge.min-delay.ms", defaultValue = "10")
+    private long minDelayMillis;
+
+    @Inject
+    @ConfigProperty(name = "gateway.hedge.max-delay.ms", defaultValue = "1000")
+    private long maxDelayMillis;
+
+    @Inject
+    @ConfigProperty(name = "gateway.hedge.min-samples", defaultValue = "100")
+    private long minSamples;
+
+    @Inject
+    @ConfigProperty(name = "gateway.hedge.window.seconds", defaultValue = "30")
+    private long windowSeconds;
+
+    @Inject
+    @ConfigProperty(name = "gateway.retry-budget.ratio", defaultValue = "0.1")
+    private double budgetRatio;
+
+    @Inject
+    @ConfigProperty(name = "gateway.retry-budget.min-per-second", defaultValue = "5")
+    private double budgetMinPerSecond;
+
+    @Resource
+    private ManagedScheduledExecutorService managedScheduler;
+
+    private ScheduledExecutorService scheduler;
+    private long refreshNanos = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, RouteStats> statsByRoute = new ConcurrentHashMap<>();
+    private final Map<String, RetryBudget> budgetsByService = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void registerMetrics() {
+        scheduler = managedScheduler;
+        for (Route route : routingService.getRoutes()) {
+            if (!route.hedge() || statsByRoute.containsKey(route.name())) {
+                continue;
+            }
+            RouteStats stats = stats(route.name());
+            Tag tag = new Tag("route", route.name());
+            metricRegistry.gauge("gateway.hedge.requests", stats.requests, LongAdder::sum, tag);
+            metricRegistry.gauge("gateway.hedge.sent", stats.hedges, LongAdder::sum, tag);
+            metricRegistry.gauge("gateway.hedge.wins", stats.hedgeWins, LongAdder::sum, tag);
+            metricRegistry.gauge("gateway.hedge.retries", stats.retries, LongAdder::sum, tag);
+            metricRegistry.gauge("gateway.hedge.budget-exhausted", stats.budgetExhausted, LongAdder::sum, tag);
+            metricRegistry.gauge("gateway.hedge.rate", stats, RouteStats::hedgeRate, tag);
+            metricRegistry.gauge("gateway.hedge.delay.ms", stats, s -> s.hedgeDelayNanos / 1_000_000.0, tag);
+            // 1 試行毎の応答時間とヘッジ後にクライアントが待った時間の p99（差がヘッジの効果）
+            metricRegistry.gauge("gateway.hedge.upstream.p99.ms", stats.upstream, h -> h.percentileNanos(0.99) / 1_000_000.0, tag);
+            metricRegistry.gauge("gateway.hedge.effective.p99.ms", stats.effective, h -> h.percentileNanos(0.99) / 1_000_000.0, tag);
+
+            RetryBudget budget = budget(route.service());
+            metricRegistry.gauge("gateway.retry-budget.tokens", budget, RetryBudget::getTokens,
+                new Tag("upstream", route.service()));
+        }
+    }
+
+    /**
+     * ヘッジ・リトライ付きで上流を呼び出す
+     *
+     * attempt は試行番号（0 が最初の試行）を受け取り、2 回目以降は別のインスタンスを選んでよい。
+     * リクエストコンテキストに依存してはならない（タイマースレッドから呼ばれるため）。
+     */
+    public <T> CompletionStage<T> execute(String routeName, String serviceName, IntFunction<CompletionStage<T>> attempt) {
+        long start = System.nanoTime();
+        RouteStats stats = stats(routeName);
+        RetryBudget budget = budget(serviceName);
+        stats.requests.increment();
+        budget.deposit();
+
+        Attempts<T> attempts = new Attempts<>(stats, budget, attempt);
+        attempts.launch(0);
+
+        long delayNanos = stats.hedgeDelayNanos();
+        if (delayNanos > 0 && !attempts.result.isDone()) {
+            scheduler.schedule(attempts::hedge, delayNanos, TimeUnit.NANOSECONDS);
+        }
+        return attempts.result.whenComplete((value, error) -> stats.effective.record(System.nanoTime() - start));
+    }
+
+    private RouteStats stats(String routeName) {
+        return statsByRoute.computeIfAbsent(routeName, name -> new RouteStats());
+    }
+
+    private RetryBudget budget(String serviceName) {
+        return budgetsByService.computeIfAbsent(serviceName,
+            name -> new RetryBudget(budgetRatio, budgetMinPerSecond, Math.max(10, budgetMinPerSecond * 10), System::nanoTime));
+    }
+
+    /**
+     * リクエスト1件分の試行（最大 2 回）
+     */
+    private final class Attempts<T> {
+
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicInteger started = new AtomicInteger();
+        final AtomicInteger pending = new AtomicInteger();
+        final RouteStats stats;
+        final RetryBudget budget;
+        final IntFunction<CompletionStage<T>> attempt;
+
+        Attempts(RouteStats stats, RetryBudget budget, IntFunction<CompletionStage<T>> attempt) {
+            this.stats = stats;
+            this.budget = budget;
+            this.attempt = attempt;
+        }
+
+        /**
+         * ヘッジ遅延の経過時に最初の試行がまだ返っていなければ 2 回目を送る
+         */
+        void hedge() {
+            if (result.isDone() || started.get() != 1) {
+                return;
+            }
+            if (!budget.tryWithdraw()) {
+                stats.budgetExhausted.increment();
+                return;
+            }
+            if (started.compareAndSet(1, 2)) {
+                stats.hedges.increment();
+                launch(1);
+            }
+        }
+
+        void launch(int number) {
+            if (number == 0) {
+                started.set(1);
+            }
+            pending.incrementAndGet();
+            long start = System.nanoTime();
+            CompletionStage<T> stage;
+            try {
+                stage = attempt.apply(number);
+            } catch (RuntimeException e) {
+                stage = CompletableFuture.failedFuture(e);
+            }
+            stage.whenComplete((value, error) -> {
+                int remaining = pending.decrementAndGet();
+                if (error == null) {
+                    stats.upstream.record(System.nanoTime() - start);
+                    if (result.complete(value) && number > 0) {
+                        stats.hedgeWins.increment();
+                    }
+                    return;
+                }
+                // もう一方の試行が実行中ならその結果を待つ
+                if (remaining > 0 || result.isDone()) {
+                    return;
+                }
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                // 上流保護による拒否はリトライしても同じ結果になる
+                if (!(cause instanceof UpstreamRejectedException) && started.get() == 1) {
+                    if (budget.tryWithdraw()) {
+                        if (started.compareAndSet(1, 2)) {
+                            stats.retries.increment();
+                            launch(1);
+                            return;
+                        }
+                    } else {
+                        stats.budgetExhausted.increment();
+                    }
+                }
+                result.completeExceptionally(cause);
+            });
+        }
+    }
+
+    /**
+     * ルート毎のヘッジの統計と遅延
+     */
+    private final class RouteStats {
+        final LatencyHistogram upstream = new LatencyHistogram(TimeUnit.SECONDS.toMillis(windowSeconds), System::nanoTime);
+        final LatencyHistogram effective = new LatencyHistogram(TimeUnit.SECONDS.toMillis(windowSeconds), System::nanoTime);
+        final LongAdder requests = new LongAdder();
+        final LongAdder hedges = new LongAdder();
+        final LongAdder hedgeWins = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder budgetExhausted = new LongAdder();
+        volatile long hedgeDelayNanos;
+        volatile long computedAtNanos = System.nanoTime() - refreshNanos;
+
+        /**
+         * ヘッジまでの遅延（0 はヘッジしない）。分布の集計は 1 秒に 1 回まで
+         */
+        long hedgeDelayNanos() {
+            long now = System.nanoTime();
+            if (now - computedAtNanos >= refreshNanos) {
+                computedAtNanos = now;
+                if (upstream.count() < minSamples) {
+                    hedgeDelayNanos = 0;
+                } else {
+                    long delay = upstream.percentileNanos(percentile);
+                    hedgeDelayNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(minDelayMillis),
+                        Math.min(TimeUnit.MILLISECONDS.toNanos(maxDelayMillis), delay));
+                }
+            }
+            return hedgeDelayNanos;
+        }
+
+        double hedgeRate() {
+            long total = requests.sum();
+            return total == 0 ? 0 : (double) hedges.sum() / total;
+        }
+    }
+
+    void configure(ScheduledExecutorService scheduler, double percentile, long minDelayMillis, long maxDelayMillis,
+                   long minSamples, double budgetRatio, double budgetMinPerSecond) {
+        this.scheduler = scheduler;
+        this.refreshNanos = 0;
+        this.percentile = percentile;
+        this.minDelayMillis = minDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.minSamples = minSamples;
+        this.windowSeconds = 30;
+        this.budgetRatio = budgetRatio;
+        this.budgetMinPerSecond = budgetMinPerSecond;
+    }
+}
@@ -0,0 +1,104 @@
+package com.jakartaone2025.ski.gateway.proxy;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 同一内容の同時リクエストを1回の上流呼び出しにまとめる（single-flight）
+ *
+ * 最初のリクエスト（リーダー）だけが上流を呼び出し、実行中に到着した同じキーのリクエストは
+ * その結果を共有する。待機が gateway.coalesce.max-wait.ms を超えた場合は自分で上流を呼び出す。
+ * 上流のエラーも共有し、障害時に待機中のリクエストが一斉に再送しないようにする。
+ */
+@ApplicationScoped
+public class RequestCoalescer {
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Inject
+    @ConfigProperty(name = "gateway.coalesce.max-wait.ms", defaultValue = "5000")
+    private long maxWaitMillis;
+
+    private final Map<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder followers = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    @PostConstruct
+    void registerMetrics() {
+        metricRegistry.gauge("gateway.coalesce.leaders", leaders, LongAdder::sum);
+        metricRegistry.gauge("gateway.coalesce.followers", followers, LongAdder::sum);
+        metricRegistry.gauge("gateway.coalesce.timeouts", timeouts, LongAdder::sum);
+        metricRegistry.gauge("gateway.coalesce.in-flight", inFlight, Map::size);
+    }
+
+    /**
+     * 同じキーの呼び出しが実行中ならその結果を待ち、なければ call を実行する
+     *
+     * call はタイムアウト時に別スレッドから呼ばれることがあるため、
+     * リクエストコンテキストに依存してはならない。
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletionStage<T> execute(String key, Supplier<CompletionStage<T>> call) {
+        CompletableFuture<T> flight = new CompletableFuture<>();
+        CompletableFuture<T> existing = (CompletableFuture<T>) inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            followers.increment();
+            return existing.copy()
+                .orTimeout(maxWaitMillis, TimeUnit.MILLISECONDS)
+                .handle((result, error) -> {
+                    if (error == null) {
+                        return CompletableFuture.completedFuture(result);
+                    }
+                    Throwable cause = unwrap(error);
+                    if (cause instanceof TimeoutException) {
+                        timeouts.increment();
+                        return call.get();
+                    }
+                    return CompletableFuture.<T>failedFuture(cause);
+                })
+                .thenCompose(Function.identity());
+        }
+
+        leaders.increment();
+        CompletionStage<T> upstream;
+        try {
+            upstream = call.get();
+        } catch (RuntimeException e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        upstream.whenComplete((result, error) -> {
+            inFlight.remove(key, flight);
+            if (error != null) {
+                flight.completeExceptionally(unwrap(error));
+            } else {
+                flight.complete(result);
+            }
+        });
+        return upstream;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    void configure(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+}
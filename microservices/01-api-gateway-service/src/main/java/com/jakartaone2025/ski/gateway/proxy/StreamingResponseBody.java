@@ -0,0 +1,60 @@
+package com.jakartaone2025.ski.gateway.proxy;
+
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 上流レスポンスをチャンク単位でクライアントへ中継するストリーミングボディ
+ *
+ * ボディ全体をヒープに載せず、固定長バッファで読み書きを繰り返す。
+ * クライアント側の書き込みがブロックすれば上流からの読み込みも止まるため、
+ * 遅いクライアントに対しても自然にバックプレッシャーがかかる。
+ */
+public class StreamingResponseBody implements StreamingOutput {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final Response upstream;
+    private final int bufferSize;
+    private final Runnable onComplete;
+
+    public StreamingResponseBody(Response upstream) {
+        this(upstream, () -> { });
+    }
+
+    public StreamingResponseBody(Response upstream, Runnable onComplete) {
+        this(upstream, DEFAULT_BUFFER_SIZE, onComplete);
+    }
+
+    public StreamingResponseBody(Response upstream, int bufferSize, Runnable onComplete) {
+        this.upstream = upstream;
+        this.bufferSize = bufferSize;
+        this.onComplete = onComplete;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        try (InputStream input = upstream.readEntity(InputStream.class)) {
+            if (input == null) {
+                return;
+            }
+
+            byte[] buffer = new byte[bufferSize];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+                // 次の読み込みがブロックする場合のみフラッシュ（小さなチャンクの連続送信を避ける）
+                if (input.available() == 0) {
+                    output.flush();
+                }
+            }
+            output.flush();
+        } finally {
+            upstream.close();
+            onComplete.run();
+        }
+    }
+}
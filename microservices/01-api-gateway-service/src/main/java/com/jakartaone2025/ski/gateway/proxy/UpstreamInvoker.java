@@ -0,0 +1,136 @@
+package com.jakartaone2025.ski.gateway.proxy;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.Response;
+import com.jakartaone2025.ski.gateway.client.UpstreamClientPool;
+import com.jakartaone2025.ski.gateway.resilience.ResilienceRegistry;
+import com.jakartaone2025.ski.gateway.resilience.UpstreamGuard;
+import com.jakartaone2025.ski.gateway.resilience.UpstreamRejectedException;
+import com.jakartaone2025.ski.gateway.routing.RoutingService;
+import com.jakartaone2025.ski.gateway.routing.UpstreamInstance;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * 上流へリクエストを送り、レスポンスを読み切ってから変換結果を返す
+ *
+ * サービス毎の上流保護（バルクヘッド・同時実行数制限・サーキットブレーカー）、
+ * コネクションプールの借用、インスタンスの負荷情報とパッシブヘルスチェックへの記録をまとめて行う。
+ * リクエストコンテキストを参照しないため、非同期コールバックからも呼び出せる。
+ */
+@ApplicationScoped
+public class UpstreamInvoker {
+
+    private static final Logger logger = Logger.getLogger(UpstreamInvoker.class.getName());
+
+    @Inject
+    private RoutingService routingService;
+
+    @Inject
+    private ResilienceRegistry resilience;
+
+    /**
+     * GET を送信する
+     */
+    public <T> CompletionStage<T> get(UpstreamRequest upstreamRequest, String path, Function<Response, T> reader) {
+        return send("GET", upstreamRequest, path, reader);
+    }
+
+    /**
+     * ボディなしのリクエストを送信する（上流保護で拒否された場合は {@link UpstreamRejectedException} で失敗する）
+     */
+    public <T> CompletionStage<T> send(String method, UpstreamRequest upstreamRequest, String path,
+                                       Function<Response, T> reader) {
+        String serviceUrl = upstreamRequest.getServiceUrl();
+        UpstreamGuard.Permit permit;
+        try {
+            permit = resilience.acquire(routingService.getServiceName(serviceUrl));
+        } catch (UpstreamRejectedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        UpstreamClientPool pool = routingService.getClientPool(serviceUrl);
+        // プールに空きがなければスレッドを使わずに待つ
+        return pool.acquire()
+            .whenComplete((lease, error) -> {
+                if (error != null) {
+                    permit.release();
+                }
+            })
+            .thenCompose(lease -> sendWithLease(method, upstreamRequest, path, reader, permit, pool, lease));
+    }
+
+    private <T> CompletionStage<T> sendWithLease(String method, UpstreamRequest upstreamRequest, String path,
+                                                 Function<Response, T> reader, UpstreamGuard.Permit permit,
+                                                 UpstreamClientPool pool, UpstreamClientPool.Lease lease) {
+        String serviceUrl = upstreamRequest.getServiceUrl();
+        UpstreamInstance.Call call = routingService.getInstance(serviceUrl).begin();
+
+        CompletionStage<Response> upstream;
+        try {
+            upstream = upstreamRequest.build(lease.client()).rx().method(method);
+            upstreamRequest.onSent();
+        } catch (RuntimeException e) {
+            call.end();
+            lease.close();
+            permit.release();
+            throw e;
+        }
+
+        return upstream.handle((response, error) -> {
+            try {
+                if (error != null) {
+                    permit.onError();
+                    reportError(pool, serviceUrl, path, error);
+                    throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+                }
+                upstreamRequest.onResponseHeaders();
+                permit.onResponse(response.getStatus());
+                call.onResponse(response.getStatus() >= 500);
+                reportStatus(serviceUrl, response.getStatus());
+                return reader.apply(response);
+            } finally {
+                if (response != null) {
+                    response.close();
+                }
+                call.end();
+                lease.close();
+                permit.release();
+            }
+        });
+    }
+
+    /**
+     * 上流への送信失敗を記録
+     */
+    public void reportError(UpstreamClientPool pool, String serviceUrl, String path, Throwable error) {
+        routingService.reportFailure(serviceUrl);
+        if (isPoolCheckoutTimeout(error)) {
+            pool.recordCheckoutTimeout();
+        }
+        logger.severe(String.format("Error proxying request to %s: %s", path, error.getMessage()));
+    }
+
+    /**
+     * パッシブヘルスチェック（5xx が連続した上流は一時的に除外される）
+     */
+    public void reportStatus(String serviceUrl, int status) {
+        if (status >= 500) {
+            routingService.reportFailure(serviceUrl);
+        } else {
+            routingService.reportSuccess(serviceUrl);
+        }
+    }
+
+    private boolean isPoolCheckoutTimeout(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause.getClass().getSimpleName().equals("ConnectionPoolTimeoutException")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
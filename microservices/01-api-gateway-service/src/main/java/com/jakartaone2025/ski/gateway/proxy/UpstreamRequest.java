@@ -0,0 +1,102 @@
+package com.jakartaone2025.ski.gateway.proxy;
+
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.Invocation;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.UriBuilder;
+import com.jakartaone2025.ski.gateway.metrics.RequestTiming;
+import java.net.URI;
+
+/**
+ * 上流サービスへ送るリクエストの内容（URI と転送ヘッダー）
+ *
+ * リクエストスレッドで組み立てておくことで、非同期コールバックなど
+ * リクエストコンテキストを参照できないスレッドからも同じリクエストを送信できる。
+ * クライアントからのリクエストの計測値を持つ場合は、送信と応答ヘッダー受信の時刻を記録する。
+ */
+public final class UpstreamRequest {
+
+    private final String serviceUrl;
+    private final URI uri;
+    private final MultivaluedMap<String, Object> headers;
+    private final RequestTiming timing;
+
+    public UpstreamRequest(String serviceUrl, URI uri, MultivaluedMap<String, Object> headers) {
+        this(serviceUrl, uri, headers, null);
+    }
+
+    private UpstreamRequest(String serviceUrl, URI uri, MultivaluedMap<String, Object> headers, RequestTiming timing) {
+        this.serviceUrl = serviceUrl;
+        this.uri = uri;
+        this.headers = headers;
+        this.timing = timing;
+    }
+
+    /**
+     * クライアントからのリクエストの計測値を紐付けたリクエストを作成
+     */
+    public UpstreamRequest withTiming(RequestTiming requestTiming) {
+        return new UpstreamRequest(serviceUrl, uri, headers, requestTiming);
+    }
+
+    /**
+     * 上流へ送信した（計測値がある場合のみ記録）
+     */
+    public void onSent() {
+        if (timing != null) {
+            timing.upstreamSent();
+        }
+    }
+
+    /**
+     * 上流の応答ヘッダーを受信した（計測値がある場合のみ記録）
+     */
+    public void onResponseHeaders() {
+        if (timing != null) {
+            timing.firstByte();
+        }
+    }
+
+    /**
+     * 指定したクライアントでリクエストビルダーを作成
+     */
+    public Invocation.Builder build(Client client) {
+        return client.target(uri).request().headers(headers);
+    }
+
+    /**
+     * ヘッダーを1つ追加したリクエストを作成（元のリクエストは変更しない）
+     */
+    public UpstreamRequest withHeader(String name, Object value) {
+        MultivaluedMap<String, Object> copy = new MultivaluedHashMap<>(headers);
+        copy.putSingle(name, value);
+        return new UpstreamRequest(serviceUrl, uri, copy, timing);
+    }
+
+    /**
+     * 同じサービスの別インスタンスへ送るリクエストを作成（パス・クエリ・ヘッダーは同じ）
+     */
+    public UpstreamRequest withServiceUrl(String instanceUrl) {
+        if (instanceUrl.equals(serviceUrl)) {
+            return this;
+        }
+        String target = uri.toString();
+        URI rebased = target.startsWith(serviceUrl)
+            ? URI.create(instanceUrl + target.substring(serviceUrl.length()))
+            : UriBuilder.fromUri(uri).uri(URI.create(instanceUrl)).replacePath(uri.getRawPath()).build();
+        return new UpstreamRequest(instanceUrl, rebased, headers, timing);
+    }
+
+    public String getServiceUrl() {
+        return serviceUrl;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public MultivaluedMap<String, Object> getHeaders() {
+        return headers;
+    }
+}
@@ -0,0 +1,92 @@
+package com.jakartaone2025.ski.gateway.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 応答時間の変化から上流の同時実行数の上限を自動調整する（gradient + AIMD）
+ *
+ * 長期の応答時間（EWMA）と直近の応答時間の比（gradient）で上限を増減し、
+ * 応答時間が伸び始めた時点で上流のキューが溜まる前に上限を絞る。
+ * タイムアウト・接続エラー・503/504 は過負荷のシグナルとして上限を乗算的に減らす。
+ */
+public final class AdaptiveConcurrencyLimit {
+
+    // 長期平均に反映する割合（約 1/LONG_WINDOW の重み）
+    private static final double LONG_WINDOW = 600;
+    // 直近の応答時間がこの倍率までの遅延は許容する
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.estimatedLimit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * 現在の上限内であれば実行中の件数を増やして true（true の場合は必ず {@link #release()} すること）
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * 1件分の応答時間を反映する
+     *
+     * @param rttNanos 上流の応答時間
+     * @param inFlightAtStart 呼び出し開始時点の実行中件数（上限に達していない間は増やさない）
+     * @param dropped タイムアウト・過負荷で失敗した場合 true
+     */
+    public synchronized void onSample(long rttNanos, int inFlightAtStart, boolean dropped) {
+        double newLimit;
+        if (dropped) {
+            newLimit = estimatedLimit * BACKOFF_RATIO;
+        } else {
+            longRttNanos = longRttNanos == 0 ? rttNanos : longRttNanos + (rttNanos - longRttNanos) / LONG_WINDOW;
+            // 長期平均が直近より大きく外れている場合（負荷が下がった直後）は追従を早める
+            if (longRttNanos > rttNanos * 2) {
+                longRttNanos = longRttNanos * 0.95;
+            }
+
+            // 上限まで使われていない間は増やさない（負荷が低いだけで上流の余力は分からないため）
+            if (inFlightAtStart < estimatedLimit / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRttNanos / Math.max(1, rttNanos)));
+            double queueSize = Math.sqrt(estimatedLimit);
+            newLimit = estimatedLimit * gradient + queueSize;
+            newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        }
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,138 @@
+package com.jakartaone2025.ski.gateway.resilience;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 失敗率ベースのサーキットブレーカー
+ *
+ * CLOSED: 直近 windowSize 件の結果を記録し、minimumCalls 件以上で失敗率が閾値を超えたら OPEN。
+ * OPEN: openMillis の間はすべて拒否し、経過後に HALF_OPEN へ移行。
+ * HALF_OPEN: halfOpenProbes 件だけ試行を許可し、すべて成功したら CLOSED、1件でも失敗したら OPEN に戻る。
+ *
+ * CLOSED 状態の許可判定はロックを取らない（状態変化と結果の記録のみ同期する）。
+ */
+public final class CircuitBreaker {
+
+    /**
+     * ブレーカーの状態（メトリクスの値は ordinal）
+     */
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long openMillis;
+    private final int halfOpenProbes;
+    private final LongSupplier clock;
+
+    // 直近の結果（true = 失敗）のリングバッファ
+    private final boolean[] outcomes;
+    private int next;
+    private int recorded;
+    private int failures;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openUntilMillis;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    public CircuitBreaker(ResilienceSettings settings, LongSupplier clock) {
+        this.failureRateThreshold = settings.failureRateThreshold();
+        this.minimumCalls = Math.max(1, settings.minimumCalls());
+        this.openMillis = settings.openMillis();
+        this.halfOpenProbes = Math.max(1, settings.halfOpenProbes());
+        this.outcomes = new boolean[Math.max(this.minimumCalls, settings.windowSize())];
+        this.clock = clock;
+    }
+
+    /**
+     * 呼び出しを許可するか（許可した場合は必ず {@link #onSuccess()} か {@link #onFailure()} を呼ぶこと）
+     */
+    public boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN) {
+                if (clock.getAsLong() < openUntilMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probesStarted = 0;
+                probesSucceeded = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesStarted >= halfOpenProbes) {
+                    return false;
+                }
+                probesStarted++;
+            }
+            return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++probesSucceeded >= halfOpenProbes) {
+                close();
+            }
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && failures * 100L >= (long) failureRateThreshold * recorded) {
+                open();
+            }
+        }
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        openUntilMillis = clock.getAsLong() + openMillis;
+        state = State.OPEN;
+    }
+
+    private void close() {
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        state = State.CLOSED;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * OPEN の場合に HALF_OPEN へ移行するまでの残り秒数（切り上げ、最小1秒）
+     */
+    public long retryAfterSeconds() {
+        long remaining = openUntilMillis - clock.getAsLong();
+        return Math.max(1, (remaining + 999) / 1000);
+    }
+}
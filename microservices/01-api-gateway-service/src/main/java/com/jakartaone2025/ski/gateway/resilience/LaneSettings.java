@@ -0,0 +1,47 @@
+package com.jakartaone2025.ski.gateway.resilience;
+
+import org.eclipse.microprofile.config.Config;
+
+/**
+ * 実行レーン毎の同時実行数・待ち行列・待ち時間 SLO の設定
+ *
+ * {@code gateway.lanes.<lane>.*} が未設定の項目は
+ * {@code gateway.lanes.default.*}、さらに組み込みのデフォルト値の順にフォールバックする。
+ *
+ * @param maxConcurrent レーン内で同時に処理するリクエスト数
+ * @param maxQueue 空きを待てるリクエスト数（超えた分は待たずに遮断）
+ * @param queueSloMillis 待ち時間の上限（超えたリクエストは遮断し、レーンを混雑中とみなす）
+ * @param retryAfterSeconds 遮断時に返す Retry-After
+ */
+public record LaneSettings(
+        int maxConcurrent,
+        int maxQueue,
+        long queueSloMillis,
+        long retryAfterSeconds) {
+
+    private static final String PREFIX = "gateway.lanes.";
+
+    /**
+     * 設定からレーンの設定を読み込む
+     */
+    public static LaneSettings from(Config config, String laneName) {
+        return new LaneSettings(
+            intValue(config, laneName, "max-concurrent", 100),
+            intValue(config, laneName, "max-queue", 100),
+            longValue(config, laneName, "queue-slo.ms", 500),
+            longValue(config, laneName, "retry-after.seconds", 1)
+        );
+    }
+
+    private static int intValue(Config config, String laneName, String key, int defaultValue) {
+        return config.getOptionalValue(PREFIX + laneName + "." + key, Integer.class)
+            .or(() -> config.getOptionalValue(PREFIX + "default." + key, Integer.class))
+            .orElse(defaultValue);
+    }
+
+    private static long longValue(Config config, String laneName, String key, long defaultValue) {
+        return config.getOptionalValue(PREFIX + laneName + "." + key, Long.class)
+            .or(() -> config.getOptionalValue(PREFIX + "default." + key, Long.class))
+            .orElse(defaultValue);
+    }
+}
@@ -0,0 +1,125 @@
+package com.jakartaone2025.ski.gateway.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * 直近の応答時間の分布を保持する対数バケットのヒストグラム
+ *
+ * マイクロ秒単位の値を 2 の冪毎に 8 分割したバケット（誤差 12.5% 以内）に数え、
+ * 固定長の配列だけで記録するため、記録時にメモリを確保しない。
+ * 2 つのウィンドウを交互に使い、パーセンタイルは直近 1〜2 ウィンドウ分から求める。
+ */
+public final class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 16;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = LINEAR_BUCKETS + (64 - 4) * SUB_BUCKETS;
+
+    private final long windowNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLongArray[] windows = {new AtomicLongArray(BUCKETS), new AtomicLongArray(BUCKETS)};
+
+    private volatile int current;
+    private volatile long windowStartNanos;
+
+    public LatencyHistogram(long windowMillis, LongSupplier nanoClock) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.nanoClock = nanoClock;
+        this.windowStartNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * 応答時間を1件記録
+     */
+    public void record(long latencyNanos) {
+        rotateIfNeeded();
+        windows[current].incrementAndGet(bucketOf(Math.max(0, latencyNanos / 1000)));
+    }
+
+    /**
+     * 直近のパーセンタイル値（ナノ秒、バケットの上限値）。サンプルがなければ 0
+     *
+     * @param quantile 0.0〜1.0（0.95 なら p95）
+     */
+    public long percentileNanos(double quantile) {
+        rotateIfNeeded();
+        AtomicLongArray a = windows[0];
+        AtomicLongArray b = windows[1];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += a.get(i) + b.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += a.get(i) + b.get(i);
+            if (seen >= rank) {
+                return TimeUnit.MICROSECONDS.toNanos(upperBoundOf(i));
+            }
+        }
+        return TimeUnit.MICROSECONDS.toNanos(upperBoundOf(BUCKETS - 1));
+    }
+
+    /**
+     * 直近 1〜2 ウィンドウ分のサンプル数
+     */
+    public long count() {
+        rotateIfNeeded();
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += windows[0].get(i) + windows[1].get(i);
+        }
+        return total;
+    }
+
+    private void rotateIfNeeded() {
+        long now = nanoClock.getAsLong();
+        if (now - windowStartNanos < windowNanos) {
+            return;
+        }
+        synchronized (this) {
+            long elapsed = now - windowStartNanos;
+            if (elapsed < windowNanos) {
+                return;
+            }
+            int next = 1 - current;
+            AtomicLongArray stale = windows[next];
+            for (int i = 0; i < BUCKETS; i++) {
+                stale.set(i, 0);
+            }
+            // 2 ウィンドウ以上記録がなかった場合は現在のウィンドウも古い
+            if (elapsed >= windowNanos * 2) {
+                AtomicLongArray old = windows[current];
+                for (int i = 0; i < BUCKETS; i++) {
+                    old.set(i, 0);
+                }
+            }
+            current = next;
+            windowStartNanos = now;
+        }
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < LINEAR_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket + 1;
+        }
+        int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+        int sub = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BUCKET_BITS);
+    }
+}
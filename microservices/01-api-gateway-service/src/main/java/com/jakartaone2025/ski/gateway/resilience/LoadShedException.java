@@ -0,0 +1,39 @@
+package com.jakartaone2025.ski.gateway.resilience;
+
+/**
+ * 過負荷のためにゲートウェイがリクエストを処理せずに遮断した場合の例外（503 で応答する）
+ */
+public class LoadShedException extends RuntimeException {
+
+    /**
+     * 遮断理由（メトリクスのタグ値）
+     */
+    public enum Reason {
+        QUEUE_FULL, QUEUE_TIMEOUT, PRIORITY;
+
+        final String tag = name().toLowerCase().replace('_', '-');
+    }
+
+    private final String laneName;
+    private final Reason reason;
+    private final long retryAfterSeconds;
+
+    public LoadShedException(String laneName, Reason reason, long retryAfterSeconds) {
+        super(String.format("Request in lane %s shed: %s", laneName, reason.tag), null, false, false);
+        this.laneName = laneName;
+        this.reason = reason;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getLaneName() {
+        return laneName;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
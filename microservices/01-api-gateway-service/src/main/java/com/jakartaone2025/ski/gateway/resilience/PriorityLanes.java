@@ -0,0 +1,160 @@
+package com.jakartaone2025.ski.gateway.resilience;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import org.jboss.resteasy.concurrent.ContextualExecutors;
+import com.jakartaone2025.ski.gateway.routing.Route;
+import com.jakartaone2025.ski.gateway.routing.RoutingService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * 優先度付きの実行レーン（ルートの lane 設定で振り分ける）
+ *
+ * gateway.lanes に優先度の高い順にレーンを並べ、レーン毎に独立した同時実行枠と待ち行列を持たせる。
+ * カタログ閲覧などが枠を使い切っても注文・決済などのレーンは待たされず、
+ * 優先度の高いレーンが混雑している間は低いレーンのリクエストを先に遮断してゲートウェイ全体の負荷を下げる。
+ */
+@ApplicationScoped
+public class PriorityLanes {
+
+    private static final Logger logger = Logger.getLogger(PriorityLanes.class.getName());
+
+    @Inject
+    private Config config;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Inject
+    private RoutingService routingService;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    @Inject
+    @ConfigProperty(name = "gateway.lanes.enabled", defaultValue = "true")
+    private boolean enabled;
+
+    private TrafficLane[] lanes = new TrafficLane[0];
+    private final Map<String, TrafficLane> lanesByName = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        List<TrafficLane> configured = new ArrayList<>();
+        List<String> names = config.getOptionalValues("gateway.lanes", String.class).orElse(List.of());
+        for (String name : names) {
+            String laneName = name.trim();
+            LaneSettings settings = LaneSettings.from(config, laneName);
+            configured.add(new TrafficLane(laneName, configured.size(), settings, scheduler));
+            logger.info(String.format("Lane %s: priority=%d, max-concurrent=%d, max-queue=%d, queue-slo=%dms",
+                laneName, configured.size() - 1, settings.maxConcurrent(), settings.maxQueue(), settings.queueSloMillis()));
+        }
+        install(configured);
+
+        for (Route route : routingService.getRoutes()) {
+            if (!lanesByName.containsKey(route.lane())) {
+                logger.warning(String.format("Route %s refers to unknown lane %s; its requests are not limited",
+                    route.name(), route.lane()));
+            }
+        }
+        for (TrafficLane lane : lanes) {
+            registerMetrics(lane);
+        }
+    }
+
+    /**
+     * レーンの実行枠を取得する（未定義のレーン・無効時は制限しない）
+     *
+     * 空きがなければ枠が渡されるまで完了しない。過負荷のために遮断した場合は {@link LoadShedException} で失敗する。
+     */
+    public CompletableFuture<TrafficLane.Slot> admit(String laneName) {
+        TrafficLane lane = enabled ? lanesByName.get(laneName) : null;
+        if (lane == null) {
+            return CompletableFuture.completedFuture(TrafficLane.Slot.NONE);
+        }
+        // 優先度の高いレーンが混雑している間は、自分の枠に空きがあっても譲る
+        for (int i = 0; i < lane.getPriority(); i++) {
+            if (lanes[i].isCongested()) {
+                LoadShedException e = lane.shed(LoadShedException.Reason.PRIORITY);
+                logger.fine(e.getMessage());
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        CompletableFuture<TrafficLane.Slot> admission = lane.enter();
+        admission.exceptionally(e -> {
+            logger.fine(e.getMessage());
+            return null;
+        });
+        return admission;
+    }
+
+    /**
+     * レーンの実行枠を取得して admitted を、遮断した場合は shed を実行する（JAX-RS リソースから呼ぶ）
+     *
+     * 空きがあれば呼び出したスレッドでそのまま実行する。待つ場合は呼び出したスレッドを返し、
+     * 枠が渡された（または遮断した）スレッドでリクエストコンテキストを引き継いで実行する。
+     */
+    public void admit(String laneName, Consumer<TrafficLane.Slot> admitted, Consumer<LoadShedException> shed) {
+        CompletableFuture<TrafficLane.Slot> admission = admit(laneName);
+        if (admission.isDone()) {
+            complete(admission, admitted, shed);
+            return;
+        }
+        Runnable resume = ContextualExecutors.runnable(() -> complete(admission, admitted, shed));
+        admission.whenComplete((slot, error) -> resume.run());
+    }
+
+    private static void complete(CompletableFuture<TrafficLane.Slot> admission,
+                                 Consumer<TrafficLane.Slot> admitted, Consumer<LoadShedException> shed) {
+        if (admission.isCompletedExceptionally()) {
+            shed.accept((LoadShedException) admission.exceptionNow());
+        } else {
+            admitted.accept(admission.resultNow());
+        }
+    }
+
+    public List<TrafficLane> getLanes() {
+        return List.of(lanes);
+    }
+
+    private void registerMetrics(TrafficLane lane) {
+        Tag tag = new Tag("lane", lane.getName());
+        metricRegistry.gauge("gateway.lane.in-flight", lane, TrafficLane::getInFlight, tag);
+        metricRegistry.gauge("gateway.lane.waiting", lane, TrafficLane::getWaiting, tag);
+        metricRegistry.gauge("gateway.lane.admitted", lane, TrafficLane::getAdmitted, tag);
+        metricRegistry.gauge("gateway.lane.congested", lane, l -> l.isCongested() ? 1 : 0, tag);
+        metricRegistry.gauge("gateway.lane.queue-time.p99.ms", lane, l -> l.queueTimeMillis(0.99), tag);
+        for (LoadShedException.Reason reason : LoadShedException.Reason.values()) {
+            metricRegistry.gauge("gateway.lane.shed", lane, l -> l.getShed(reason), tag, new Tag("reason", reason.tag));
+        }
+    }
+
+    private void install(List<TrafficLane> ordered) {
+        this.lanes = ordered.toArray(new TrafficLane[0]);
+        lanesByName.clear();
+        for (TrafficLane lane : lanes) {
+            lanesByName.put(lane.getName(), lane);
+        }
+    }
+
+    /**
+     * レーンを優先度の高い順に設定して有効にする
+     */
+    void configure(List<TrafficLane> ordered) {
+        this.enabled = true;
+        install(ordered);
+    }
+}
@@ -0,0 +1,69 @@
+package com.jakartaone2025.ski.gateway.resilience;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * 上流サービス毎の {@link UpstreamGuard} を管理するレジストリ
+ */
+@ApplicationScoped
+public class ResilienceRegistry {
+
+    private static final Logger logger = Logger.getLogger(ResilienceRegistry.class.getName());
+
+    @Inject
+    private Config config;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    private final Map<String, UpstreamGuard> guards = new ConcurrentHashMap<>();
+
+    /**
+     * サービス名に対応するガードを取得（未作成なら作成）
+     */
+    public UpstreamGuard guard(String serviceName) {
+        return guards.computeIfAbsent(serviceName, this::createGuard);
+    }
+
+    /**
+     * 上流への呼び出しを開始する
+     *
+     * @throws UpstreamRejectedException 上流を保護するために拒否した場合
+     */
+    public UpstreamGuard.Permit acquire(String serviceName) {
+        try {
+            return guard(serviceName).acquire();
+        } catch (UpstreamRejectedException e) {
+            logger.fine(e.getMessage());
+            throw e;
+        }
+    }
+
+    private UpstreamGuard createGuard(String serviceName) {
+        ResilienceSettings settings = ResilienceSettings.from(config, serviceName);
+        UpstreamGuard guard = new UpstreamGuard(serviceName, settings, System::currentTimeMillis);
+        registerMetrics(guard);
+        logger.info(String.format("Resilience for %s: max-concurrent=%d, limit=%d..%d, circuit=%d%% of %d calls",
+            serviceName, settings.maxConcurrent(), settings.minLimit(), settings.maxLimit(),
+            settings.failureRateThreshold(), settings.windowSize()));
+        return guard;
+    }
+
+    private void registerMetrics(UpstreamGuard guard) {
+        Tag upstream = new Tag("upstream", guard.getServiceName());
+        metricRegistry.gauge("gateway.resilience.circuit.state", guard, g -> g.getCircuitBreaker().getState().ordinal(), upstream);
+        metricRegistry.gauge("gateway.resilience.bulkhead.in-flight", guard, UpstreamGuard::getInFlight, upstream);
+        metricRegistry.gauge("gateway.resilience.concurrency.limit", guard, g -> g.getConcurrencyLimit().getLimit(), upstream);
+        for (UpstreamRejectedException.Reason reason : UpstreamRejectedException.Reason.values()) {
+            metricRegistry.gauge("gateway.resilience.rejected", guard, g -> g.getRejections(reason),
+                upstream, new Tag("reason", reason.tag));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.jakartaone2025.ski.gateway.resilience;
+
+import org.eclipse.microprofile.config.Config;
+
+/**
+ * 上流サービス毎のサーキットブレーカー・バルクヘッド・同時実行数制限の設定
+ *
+ * {@code gateway.resilience.<service>.*} が未設定の項目は
+ * {@code gateway.resilience.default.*}、さらに組み込みのデフォルト値の順にフォールバックする。
+ */
+public record ResilienceSettings(
+        int failureRateThreshold,
+        int minimumCalls,
+        int windowSize,
+        long openMillis,
+        int halfOpenProbes,
+        int maxConcurrent,
+        int initialLimit,
+        int minLimit,
+        int maxLimit) {
+
+    private static final String PREFIX = "gateway.resilience.";
+
+    /**
+     * 設定からサービスの設定を読み込む
+     */
+    public static ResilienceSettings from(Config config, String serviceName) {
+        int maxConcurrent = intValue(config, serviceName, "bulkhead.max-concurrent", 100);
+        return new ResilienceSettings(
+            intValue(config, serviceName, "circuit.failure-rate-threshold", 50),
+            intValue(config, serviceName, "circuit.minimum-calls", 20),
+            intValue(config, serviceName, "circuit.window-size", 100),
+            longValue(config, serviceName, "circuit.open.ms", 30000),
+            intValue(config, serviceName, "circuit.half-open.probes", 3),
+            maxConcurrent,
+            intValue(config, serviceName, "limit.initial", 20),
+            intValue(config, serviceName, "limit.min", 4),
+            intValue(config, serviceName, "limit.max", maxConcurrent)
+        );
+    }
+
+    private static int intValue(Config config, String serviceName, String key, int defaultValue) {
+        return config.getOptionalValue(PREFIX + serviceName + "." + key, Integer.class)
+            .or(() -> config.getOptionalValue(PREFIX + "default." + key, Integer.class))
+            .orElse(defaultValue);
+    }
+
+    private static long longValue(Config config, String serviceName, String key, long defaultValue) {
+        return config.getOptionalValue(PREFIX + serviceName + "." + key, Long.class)
+            .or(() -> config.getOptionalValue(PREFIX + "default." + key, Long.class))
+            .orElse(defaultValue);
+    }
+}
@@ -0,0 +1,94 @@
+package com.jakartaone2025.ski.gateway.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 再送（ヘッジ・リトライ）の予算を管理するトークンバケット
+ *
+ * 通常のリクエスト1件毎に ratio 分のトークンを積み立て、再送1件で1トークンを消費する。
+ * 加えて毎秒 minPerSecond 分を補充するため、低トラフィック時でも最低限の再送はできる。
+ * 再送は「通常リクエスト数 × ratio + minPerSecond/秒」を超えないため、
+ * 障害時に再送が上流への負荷を増幅させることはない。
+ */
+public final class RetryBudget {
+
+    // トークンはミリ単位の整数で保持する
+    private static final long SCALE = 1000;
+
+    private final long depositPerRequest;
+    private final long refillPerSecond;
+    private final long maxBalance;
+    private final LongSupplier nanoClock;
+
+    private final AtomicLong balance;
+    private final AtomicLong lastRefillNanos;
+
+    /**
+     * @param ratio 通常リクエスト1件あたりに積み立てる再送の割合（0.1 なら 10%）
+     * @param minPerSecond 毎秒補充する再送数
+     * @param maxTokens 積み立てられる上限
+     */
+    public RetryBudget(double ratio, double minPerSecond, double maxTokens, LongSupplier nanoClock) {
+        this.depositPerRequest = Math.round(ratio * SCALE);
+        this.refillPerSecond = Math.round(minPerSecond * SCALE);
+        this.maxBalance = Math.max(SCALE, Math.round(maxTokens * SCALE));
+        this.nanoClock = nanoClock;
+        this.balance = new AtomicLong(Math.min(maxBalance, refillPerSecond));
+        this.lastRefillNanos = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * 通常リクエスト1件分を積み立てる
+     */
+    public void deposit() {
+        add(depositPerRequest);
+    }
+
+    /**
+     * 再送1件分のトークンを取得できれば true
+     */
+    public boolean tryWithdraw() {
+        refill();
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    private void refill() {
+        if (refillPerSecond == 0) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        long last = lastRefillNanos.get();
+        long elapsed = now - last;
+        // 細かすぎる補充は CAS の競合を増やすだけなので 10ms 単位でまとめる
+        if (elapsed < TimeUnit.MILLISECONDS.toNanos(10) || !lastRefillNanos.compareAndSet(last, now)) {
+            return;
+        }
+        add((long) (refillPerSecond * (elapsed / 1e9)));
+    }
+
+    private void add(long amount) {
+        long current;
+        do {
+            current = balance.get();
+            if (current >= maxBalance) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(maxBalance, current + amount)));
+    }
+
+    /**
+     * 現在再送できる件数
+     */
+    public double getTokens() {
+        return (double) balance.get() / SCALE;
+    }
+}
@@ -0,0 +1,228 @@
+package com.jakartaone2025.ski.gateway.resilience;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 優先度付きの実行レーン（トラフィッククラス1つ分の同時実行枠と待ち行列）
+ *
+ * 空きがなければ到着順に queue-slo.ms まで待ち、待ち行列が一杯か SLO を超えた場合は遮断する。
+ * 待っている間はスレッドを使わず、枠が返却された時点で scheduler から待ち行列の先頭に枠を渡す。
+ * 待ち時間が SLO の半分を超えた・遮断したレーンは一定時間「混雑中」となり、
+ * それより優先度の低いレーンは自分の枠に空きがあっても遮断される（{@link PriorityLanes}）。
+ */
+public final class TrafficLane {
+
+    // 混雑中とみなし続ける時間
+    private static final long CONGESTION_HOLD_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final String name;
+    private final int priority;
+    private final LaneSettings settings;
+    private final long queueSloNanos;
+    private final ScheduledExecutorService scheduler;
+    private final Object lock = new Object();
+    // 以下は lock で保護する
+    private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+    private int available;
+    private final LatencyHistogram queueTime = new LatencyHistogram(TimeUnit.SECONDS.toMillis(30), System::nanoTime);
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder[] shed = new LongAdder[LoadShedException.Reason.values().length];
+
+    private volatile long congestedUntilNanos = System.nanoTime();
+
+    /**
+     * @param priority 優先度（0 が最も高い）
+     * @param scheduler 待ち時間の SLO 超過の判定と、待っていたリクエストへの枠の受け渡しに使う
+     */
+    public TrafficLane(String name, int priority, LaneSettings settings, ScheduledExecutorService scheduler) {
+        this.name = name;
+        this.priority = priority;
+        this.settings = settings;
+        this.queueSloNanos = TimeUnit.MILLISECONDS.toNanos(settings.queueSloMillis());
+        this.scheduler = scheduler;
+        this.available = settings.maxConcurrent();
+        for (int i = 0; i < shed.length; i++) {
+            shed[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 実行枠を取得する（空きがなければ SLO の範囲で待ち行列に入る。取得した枠は必ず {@link Slot#release()} すること）
+     *
+     * 空きがあれば完了済みの future を返す。待ち行列が一杯、または SLO 内に空きができなかった場合は
+     * {@link LoadShedException} で失敗する。
+     */
+    public CompletableFuture<Slot> enter() {
+        long start = System.nanoTime();
+        Waiter waiter;
+        synchronized (lock) {
+            if (queue.isEmpty() && available > 0) {
+                available--;
+                waiter = null;
+            } else if (queue.size() >= settings.maxQueue()) {
+                return CompletableFuture.failedFuture(shed(LoadShedException.Reason.QUEUE_FULL));
+            } else {
+                waiter = new Waiter(start);
+                queue.add(waiter);
+            }
+        }
+        if (waiter == null) {
+            return CompletableFuture.completedFuture(admit(start));
+        }
+        waiter.timeout = scheduler.schedule(() -> expire(waiter), queueSloNanos, TimeUnit.NANOSECONDS);
+        return waiter.future;
+    }
+
+    /**
+     * 枠を返却する（待っているリクエストがあれば先頭に渡す）
+     */
+    private void release() {
+        Waiter next;
+        synchronized (lock) {
+            next = queue.poll();
+            if (next == null) {
+                available++;
+                return;
+            }
+        }
+        ScheduledFuture<?> timeout = next.timeout;
+        if (timeout != null) {
+            timeout.cancel(false);
+        }
+        Slot slot = admit(next.start);
+        // 返却したスレッド（別のリクエストの完了処理）で次のリクエストの処理を続けない
+        try {
+            scheduler.execute(() -> next.future.complete(slot));
+        } catch (RejectedExecutionException e) {
+            next.future.complete(slot);
+        }
+    }
+
+    /**
+     * SLO 内に枠を渡せなかった待ちを遮断する
+     */
+    private void expire(Waiter waiter) {
+        boolean removed;
+        synchronized (lock) {
+            removed = queue.remove(waiter);
+        }
+        if (removed) {
+            waiter.future.completeExceptionally(shed(LoadShedException.Reason.QUEUE_TIMEOUT));
+        }
+    }
+
+    private Slot admit(long start) {
+        long waited = System.nanoTime() - start;
+        queueTime.record(waited);
+        if (waited > queueSloNanos / 2) {
+            markCongested();
+        }
+        admitted.increment();
+        return new Slot(this);
+    }
+
+    /**
+     * 遮断を記録し、応答用の例外を作る
+     */
+    LoadShedException shed(LoadShedException.Reason reason) {
+        shed[reason.ordinal()].increment();
+        if (reason != LoadShedException.Reason.PRIORITY) {
+            markCongested();
+        }
+        return new LoadShedException(name, reason, settings.retryAfterSeconds());
+    }
+
+    private void markCongested() {
+        congestedUntilNanos = System.nanoTime() + CONGESTION_HOLD_NANOS;
+    }
+
+    /**
+     * 直近に待ち時間が SLO の半分を超えた、または遮断したか
+     */
+    public boolean isCongested() {
+        return System.nanoTime() - congestedUntilNanos < 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public LaneSettings getSettings() {
+        return settings;
+    }
+
+    public int getInFlight() {
+        synchronized (lock) {
+            return settings.maxConcurrent() - available;
+        }
+    }
+
+    public int getWaiting() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getShed(LoadShedException.Reason reason) {
+        return shed[reason.ordinal()].sum();
+    }
+
+    /**
+     * 直近の待ち時間のパーセンタイル（ミリ秒）
+     */
+    public double queueTimeMillis(double quantile) {
+        return queueTime.percentileNanos(quantile) / 1_000_000.0;
+    }
+
+    /**
+     * 取得した実行枠（release は何度呼んでも1回分だけ返却する）
+     */
+    public static final class Slot {
+
+        /**
+         * レーンの対象外（制限しない）リクエスト用
+         */
+        public static final Slot NONE = new Slot(null);
+
+        private final TrafficLane lane;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Slot(TrafficLane lane) {
+            this.lane = lane;
+        }
+
+        public void release() {
+            if (lane != null && released.compareAndSet(false, true)) {
+                lane.release();
+            }
+        }
+    }
+
+    /**
+     * 待ち行列に入ったリクエスト
+     */
+    private static final class Waiter {
+        final long start;
+        final CompletableFuture<Slot> future = new CompletableFuture<>();
+        volatile ScheduledFuture<?> timeout;
+
+        Waiter(long start) {
+            this.start = start;
+        }
+    }
+}
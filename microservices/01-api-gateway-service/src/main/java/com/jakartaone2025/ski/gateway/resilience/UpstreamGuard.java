@@ -0,0 +1,138 @@
+package com.jakartaone2025.ski.gateway.resilience;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 上流サービス1つ分の障害分離（バルクヘッド・同時実行数制限・サーキットブレーカー）
+ *
+ * バルクヘッドは設定値による同時実行数の上限、同時実行数制限は応答時間から調整される上限で、
+ * どちらかを超えた呼び出しは上流に送らずに即座に拒否する。
+ * 応答の遅いサービスがゲートウェイのスレッドやコネクションを使い潰すことを防ぎ、
+ * 障害の影響をそのサービスのルートだけに留める。
+ */
+public final class UpstreamGuard {
+
+    private final String serviceName;
+    private final Semaphore bulkhead;
+    private final int maxConcurrent;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final CircuitBreaker circuitBreaker;
+
+    private final LongAdder[] rejections = new LongAdder[UpstreamRejectedException.Reason.values().length];
+
+    public UpstreamGuard(String serviceName, ResilienceSettings settings, LongSupplier clock) {
+        this.serviceName = serviceName;
+        this.maxConcurrent = settings.maxConcurrent();
+        this.bulkhead = new Semaphore(settings.maxConcurrent());
+        this.concurrencyLimit = new AdaptiveConcurrencyLimit(settings.initialLimit(), settings.minLimit(), settings.maxLimit());
+        this.circuitBreaker = new CircuitBreaker(settings, clock);
+        for (int i = 0; i < rejections.length; i++) {
+            rejections[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 上流への呼び出しを開始する（利用後は必ず {@link Permit#release()} すること）
+     *
+     * @throws UpstreamRejectedException 上流を保護するために拒否した場合
+     */
+    public Permit acquire() {
+        if (!bulkhead.tryAcquire()) {
+            throw reject(UpstreamRejectedException.Reason.BULKHEAD_FULL, 1);
+        }
+        int inFlightAtStart = concurrencyLimit.getInFlight();
+        if (!concurrencyLimit.tryAcquire()) {
+            bulkhead.release();
+            throw reject(UpstreamRejectedException.Reason.CONCURRENCY_LIMIT, 1);
+        }
+        // ブレーカーは最後に判定する（HALF_OPEN の試行枠を他の理由で無駄にしないため）
+        if (!circuitBreaker.tryAcquire()) {
+            concurrencyLimit.release();
+            bulkhead.release();
+            throw reject(UpstreamRejectedException.Reason.CIRCUIT_OPEN, circuitBreaker.retryAfterSeconds());
+        }
+        return new Permit(inFlightAtStart);
+    }
+
+    private UpstreamRejectedException reject(UpstreamRejectedException.Reason reason, long retryAfterSeconds) {
+        rejections[reason.ordinal()].increment();
+        return new UpstreamRejectedException(serviceName, reason, retryAfterSeconds);
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public AdaptiveConcurrencyLimit getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public int getInFlight() {
+        return maxConcurrent - bulkhead.availablePermits();
+    }
+
+    public long getRejections(UpstreamRejectedException.Reason reason) {
+        return rejections[reason.ordinal()].sum();
+    }
+
+    /**
+     * 許可された呼び出し1件分
+     *
+     * 結果（{@link #onResponse} / {@link #onError}）は応答ヘッダー受信時点で記録し、
+     * 枠の返却（{@link #release}）はレスポンスの転送完了後に行う。どちらも2回目以降は無視する。
+     */
+    public final class Permit {
+
+        private final long startNanos = System.nanoTime();
+        private final int inFlightAtStart;
+        private final AtomicBoolean recorded = new AtomicBoolean();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * 上流の応答を記録（5xx は失敗、503/504 は過負荷として同時実行数の上限を下げる）
+         */
+        public void onResponse(int status) {
+            if (!recorded.compareAndSet(false, true)) {
+                return;
+            }
+            if (status >= 500) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            concurrencyLimit.onSample(System.nanoTime() - startNanos, inFlightAtStart, status == 503 || status == 504);
+        }
+
+        /**
+         * 接続エラー・タイムアウトを記録
+         */
+        public void onError() {
+            if (!recorded.compareAndSet(false, true)) {
+                return;
+            }
+            circuitBreaker.onFailure();
+            concurrencyLimit.onSample(System.nanoTime() - startNanos, inFlightAtStart, true);
+        }
+
+        public void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            // 結果が記録されずに終わった呼び出しは失敗として扱う（HALF_OPEN の試行枠を解放するため）
+            onError();
+            concurrencyLimit.release();
+            bulkhead.release();
+        }
+    }
+}
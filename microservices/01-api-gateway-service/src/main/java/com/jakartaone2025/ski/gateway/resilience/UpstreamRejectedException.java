@@ -0,0 +1,39 @@
+package com.jakartaone2025.ski.gateway.resilience;
+
+/**
+ * 上流を保護するために呼び出しを送らずに拒否した場合の例外（503 で応答する）
+ */
+public class UpstreamRejectedException extends RuntimeException {
+
+    /**
+     * 拒否理由（メトリクスのタグ値）
+     */
+    public enum Reason {
+        CIRCUIT_OPEN, BULKHEAD_FULL, CONCURRENCY_LIMIT, POOL_EXHAUSTED;
+
+        final String tag = name().toLowerCase().replace('_', '-');
+    }
+
+    private final String serviceName;
+    private final Reason reason;
+    private final long retryAfterSeconds;
+
+    public UpstreamRejectedException(String serviceName, Reason reason, long retryAfterSeconds) {
+        super(String.format("Request to %s rejected: %s", serviceName, reason.tag), null, false, false);
+        this.serviceName = serviceName;
+        this.reason = reason;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
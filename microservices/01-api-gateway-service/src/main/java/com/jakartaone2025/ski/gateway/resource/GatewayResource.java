@@ -7,10 +7,44 @@ import jakarta.ws.rs.*;
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.Entity;
 import jakarta.ws.rs.client.Invocation;
-import jakarta.ws.rs.client.WebTarget;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.CompletionCallback;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.*;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import com.jakartaone2025.ski.gateway.cache.CacheDirectives;
+import com.jakartaone2025.ski.gateway.cache.CachedResponse;
+import com.jakartaone2025.ski.gateway.cache.ResponseCache;
+import com.jakartaone2025.ski.gateway.client.UpstreamClientPool;
+import com.jakartaone2025.ski.gateway.compression.CompressionInterceptor;
+import com.jakartaone2025.ski.gateway.compression.ContentCoding;
+import com.jakartaone2025.ski.gateway.metrics.RequestTiming;
+import com.jakartaone2025.ski.gateway.proxy.ForwardedHeaders;
+import com.jakartaone2025.ski.gateway.proxy.HedgedRequests;
+import com.jakartaone2025.ski.gateway.proxy.RequestCoalescer;
+import com.jakartaone2025.ski.gateway.proxy.StreamingResponseBody;
+import com.jakartaone2025.ski.gateway.proxy.UpstreamInvoker;
+import com.jakartaone2025.ski.gateway.proxy.UpstreamRequest;
+import com.jakartaone2025.ski.gateway.resilience.LoadShedException;
+import com.jakartaone2025.ski.gateway.resilience.PriorityLanes;
+import com.jakartaone2025.ski.gateway.resilience.ResilienceRegistry;
+import com.jakartaone2025.ski.gateway.resilience.TrafficLane;
+import com.jakartaone2025.ski.gateway.resilience.UpstreamGuard;
+import com.jakartaone2025.ski.gateway.resilience.UpstreamRejectedException;
+import com.jakartaone2025.ski.gateway.routing.Route;
 import com.jakartaone2025.ski.gateway.routing.RoutingService;
-import java.util.Enumeration;
+import com.jakartaone2025.ski.gateway.routing.UpstreamInstance;
+import com.jakartaone2025.ski.gateway.streaming.StreamingConnections;
+import com.jakartaone2025.ski.gateway.streaming.StreamingSettings;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 /**
@@ -23,6 +57,13 @@ public class GatewayResource {
     private static final Logger logger = Logger.getLogger(GatewayResource.class.getName());
     
     private final RoutingService routingService;
+    private final ResponseCache responseCache;
+    private final RequestCoalescer requestCoalescer;
+    private final HedgedRequests hedgedRequests;
+    private final UpstreamInvoker upstreamInvoker;
+    private final ResilienceRegistry resilience;
+    private final PriorityLanes priorityLanes;
+    private final StreamingConnections streamingConnections;
     
     @Context
     private HttpServletRequest request;
@@ -33,161 +74,625 @@ public class GatewayResource {
     @Context
     private HttpHeaders headers;
     
+    private final long proxyTimeoutSeconds;
+    
     @Inject
-    public GatewayResource(RoutingService routingService) {
+    public GatewayResource(
+            RoutingService routingService,
+            ResponseCache responseCache,
+            RequestCoalescer requestCoalescer,
+            HedgedRequests hedgedRequests,
+            UpstreamInvoker upstreamInvoker,
+            ResilienceRegistry resilience,
+            PriorityLanes priorityLanes,
+            StreamingConnections streamingConnections,
+            @ConfigProperty(name = "gateway.proxy.timeout.seconds", defaultValue = "30") long proxyTimeoutSeconds) {
         this.routingService = routingService;
+        this.responseCache = responseCache;
+        this.requestCoalescer = requestCoalescer;
+        this.hedgedRequests = hedgedRequests;
+        this.upstreamInvoker = upstreamInvoker;
+        this.resilience = resilience;
+        this.priorityLanes = priorityLanes;
+        this.streamingConnections = streamingConnections;
+        this.proxyTimeoutSeconds = proxyTimeoutSeconds;
     }
     
     @GET
     @Path("{path: .*}")
-    public Response proxyGet(@PathParam("path") String path) {
-        return proxyRequest("GET", path, null);
+    public void proxyGet(@PathParam("path") String path, @Suspended AsyncResponse asyncResponse) {
+        proxyRequest("GET", path, null, asyncResponse);
     }
     
     @POST
     @Path("{path: .*}")
-    public Response proxyPost(@PathParam("path") String path, String body) {
-        return proxyRequest("POST", path, body);
+    public void proxyPost(@PathParam("path") String path, InputStream body, @Suspended AsyncResponse asyncResponse) {
+        proxyRequest("POST", path, body, asyncResponse);
     }
     
     @PUT
     @Path("{path: .*}")
-    public Response proxyPut(@PathParam("path") String path, String body) {
-        return proxyRequest("PUT", path, body);
+    public void proxyPut(@PathParam("path") String path, InputStream body, @Suspended AsyncResponse asyncResponse) {
+        proxyRequest("PUT", path, body, asyncResponse);
     }
     
     @DELETE
     @Path("{path: .*}")
-    public Response proxyDelete(@PathParam("path") String path) {
-        return proxyRequest("DELETE", path, null);
+    public void proxyDelete(@PathParam("path") String path, @Suspended AsyncResponse asyncResponse) {
+        proxyRequest("DELETE", path, null, asyncResponse);
     }
     
     @PATCH
     @Path("{path: .*}")
-    public Response proxyPatch(@PathParam("path") String path, String body) {
-        return proxyRequest("PATCH", path, body);
+    public void proxyPatch(@PathParam("path") String path, InputStream body, @Suspended AsyncResponse asyncResponse) {
+        proxyRequest("PATCH", path, body, asyncResponse);
     }
     
-    private Response proxyRequest(String method, String path, String body) {
+    /**
+     * リクエストを上流サービスへ非同期に転送する
+     * 
+     * リクエストボディ・レスポンスボディともにストリーミングで中継し、
+     * レーンの空き待ち・上流の応答待ちの間はリクエストスレッドを解放する。
+     */
+    private void proxyRequest(String method, String path, InputStream body, AsyncResponse asyncResponse) {
         try {
             // パスの正規化
-            String normalizedPath = java.nio.file.Paths.get("/", path).toString().replace('\\', '/');
+            String normalizedPath = RoutingService.normalizePath(path);
             
-            logger.info(String.format("Proxying %s request to path: %s", method, normalizedPath));
+            logger.fine(String.format("Proxying %s request to path: %s", method, normalizedPath));
             
-            // サービスURLを解決
-            String serviceUrl = routingService.resolveServiceUrl(normalizedPath);
+            // ルートを解決
+            Route route = routingService.resolveRoute(normalizedPath);
+            RequestTiming timing = RequestTiming.from(request.getAttribute(RequestTiming.PROPERTY));
+            timing.route(route.name(), route.service());
             
-            // サービスのヘルス状態を確認
-            if (!routingService.isServiceHealthy(serviceUrl)) {
-                logger.warning(String.format("Service %s is unhealthy", serviceUrl));
-                return Response.status(Response.Status.SERVICE_UNAVAILABLE)
-                    .entity("{\"error\": \"Service Unavailable\", \"message\": \"The requested service is currently unavailable\"}")
-                    .build();
+            // ルートのレーンの実行枠を取得（空きがなければリクエストスレッドを返して待ち、過負荷時は優先度の低いレーンから遮断）
+            priorityLanes.admit(route.lane(),
+                slot -> forward(method, path, normalizedPath, route, timing, slot, body, asyncResponse),
+                shed -> resumeFailed(path, shed, asyncResponse));
+        } catch (Exception e) {
+            resumeFailed(path, e, asyncResponse);
+        }
+    }
+    
+    /**
+     * レーンの実行枠を取得したリクエストを転送する（枠はレスポンスの送信完了（ストリーミングの場合は転送完了）まで保持する）
+     */
+    private void forward(String method, String path, String normalizedPath, Route route, RequestTiming timing,
+                         TrafficLane.Slot slot, InputStream body, AsyncResponse asyncResponse) {
+        try {
+            asyncResponse.register((CompletionCallback) error -> slot.release());
+            if (asyncResponse.isDone()) {
+                // 枠を待っている間に応答済み（タイムアウトなど）
+                slot.release();
+                return;
             }
+            timing.admitted();
             
-            // HTTPクライアントでリクエストを転送
-            Client client = routingService.getHttpClient();
-            WebTarget target = client.target(serviceUrl).path(normalizedPath);
+            // ロードバランサーで転送先のインスタンスを選ぶ
+            UpstreamInstance instance = routingService.chooseInstance(route.service());
+            String serviceUrl = instance.getUrl();
+            String upstreamPath = route.rewrite(normalizedPath);
+            asyncResponse.setTimeoutHandler(timedOut -> {
+                logger.warning(String.format("Upstream request timed out: %s %s", method, path));
+                routingService.reportFailure(serviceUrl);
+                timedOut.resume(Response.status(Response.Status.GATEWAY_TIMEOUT)
+                    .entity("{\"error\": \"Gateway Timeout\", \"message\": \"The upstream service did not respond in time\"}")
+                    .build());
+            });
+            asyncResponse.setTimeout(route.effectiveTimeoutSeconds(proxyTimeoutSeconds), TimeUnit.SECONDS);
             
-            // クエリパラメータを追加
-            MultivaluedMap<String, String> queryParams = uriInfo.getQueryParameters();
-            for (var entry : queryParams.entrySet()) {
-                String key = entry.getKey();
-                for (String value : entry.getValue()) {
-                    target = target.queryParam(key, value);
-                }
+            UpstreamRequest upstreamRequest = upstreamRequest(serviceUrl, upstreamPath).withTiming(timing);
+            boolean coalesce = "GET".equals(method) && route.coalesce() && !acceptsEventStream();
+            boolean hedge = "GET".equals(method) && route.hedge() && !acceptsEventStream();
+            
+            // SSE は長時間接続として専用のプールで中継
+            if ("GET".equals(method) && acceptsEventStream()) {
+                proxyEventStream(route, instance, upstreamRequest, path, slot, asyncResponse);
+                return;
             }
             
-            // リクエストビルダーを作成
-            Invocation.Builder requestBuilder = target.request();
+            // キャッシュ可能ルートの GET はレスポンスキャッシュを経由
+            if ("GET".equals(method) && route.cacheable() && responseCache.isEnabled()) {
+                proxyCacheable(route, upstreamRequest, normalizedPath, coalesce, hedge, asyncResponse);
+                return;
+            }
             
-            // ヘッダーを転送（一部除外）
-            copyHeaders(requestBuilder);
+            // サービスのヘルス状態を確認
+            if (rejectIfUnhealthy(serviceUrl, asyncResponse)) {
+                return;
+            }
             
-            // リクエストを実行
-            Response response;
-            if (body != null && !body.isEmpty()) {
-                String contentType = headers.getHeaderString("Content-Type");
-                if (contentType == null) {
-                    contentType = MediaType.APPLICATION_JSON;
-                }
-                response = requestBuilder.method(method, Entity.entity(body, contentType));
-            } else {
-                response = requestBuilder.method(method);
+            // 同一内容の同時 GET のまとめ・遅い GET のヘッジはレスポンスを読み切ってから返す
+            if (coalesce || hedge) {
+                proxyBuffered(route, upstreamRequest, normalizedPath, coalesce, hedge, asyncResponse);
+                return;
             }
             
-            // レスポンスを返す
-            return Response.status(response.getStatus())
-                .entity(response.readEntity(String.class))
-                .replaceAll(copyResponseHeaders(response))
-                .build();
+            // サービス毎のバルクヘッド・同時実行数制限・サーキットブレーカーを通過した場合のみ上流へ送る
+            UpstreamGuard.Permit permit = resilience.acquire(route.service());
+            
+            // サービス専用のコネクションプールからクライアントを借用（空きがなければリクエストスレッドを返して待つ）
+            // 借用後はリクエストコンテキストを参照できないため、転送するボディは先に組み立てる
+            UpstreamClientPool pool = routingService.getClientPool(serviceUrl);
+            Entity<InputStream> entity = requestEntity(body);
+            acquireLease(pool, permit).whenComplete((lease, checkoutError) -> {
+                if (checkoutError != null) {
+                    asyncResponse.resume(errorResponse(checkoutError));
+                    return;
+                }
+                UpstreamInstance.Call call = instance.begin();
+                Runnable release = () -> {
+                    call.end();
+                    lease.close();
+                    permit.release();
+                };
+                
+                CompletionStage<Response> upstream;
+                try {
+                    upstream = invokeUpstream(lease.client(), method, upstreamRequest, entity);
+                } catch (RuntimeException e) {
+                    release.run();
+                    logger.severe(String.format("Error proxying request to %s: %s", path, e.getMessage()));
+                    asyncResponse.resume(internalServerError());
+                    return;
+                }
                 
-        } catch (IllegalArgumentException e) {
+                upstream.whenComplete((response, error) -> {
+                    if (error != null) {
+                        permit.onError();
+                        release.run();
+                        upstreamInvoker.reportError(pool, serviceUrl, path, error);
+                        asyncResponse.resume(internalServerError());
+                        return;
+                    }
+                    
+                    upstreamRequest.onResponseHeaders();
+                    permit.onResponse(response.getStatus());
+                    call.onResponse(response.getStatus() >= 500);
+                    upstreamInvoker.reportStatus(serviceUrl, response.getStatus());
+                    resumeStreaming(asyncResponse, response, release);
+                });
+            });
+        
+        } catch (Exception e) {
+            resumeFailed(path, e, asyncResponse);
+        }
+    }
+    
+    /**
+     * 転送前の失敗を応答に変換する
+     */
+    private void resumeFailed(String path, Exception e, AsyncResponse asyncResponse) {
+        if (e instanceof UpstreamRejectedException rejected) {
+            asyncResponse.resume(upstreamRejected(rejected));
+        } else if (e instanceof LoadShedException shed) {
+            asyncResponse.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, shed.getRetryAfterSeconds())
+                .entity("{\"error\": \"Service Unavailable\", \"message\": \"The gateway is overloaded, please retry later\"}")
+                .build());
+        } else if (e instanceof IllegalArgumentException) {
             logger.warning("Unknown service path: " + path);
-            return Response.status(Response.Status.NOT_FOUND)
+            asyncResponse.resume(Response.status(Response.Status.NOT_FOUND)
                 .entity("{\"error\": \"Not Found\", \"message\": \"The requested resource was not found\"}")
-                .build();
-        } catch (Exception e) {
+                .build());
+        } else {
             logger.severe(String.format("Error proxying request to %s: %s", path, e.getMessage()));
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                .entity("{\"error\": \"Internal Server Error\", \"message\": \"An unexpected error occurred\"}")
-                .build();
+            asyncResponse.resume(internalServerError());
         }
     }
     
-    private void copyHeaders(Invocation.Builder requestBuilder) {
-        // 転送するヘッダー
-        String[] headersToForward = {
-            "Authorization", "Content-Type", "Accept", "Accept-Language",
-            "User-Agent", "X-Forwarded-For", "X-Real-IP"
-        };
+    /**
+     * キャッシュ可能ルートの GET を処理する
+     * 
+     * 鮮度内のエントリはそのまま返し、stale-while-revalidate の範囲内なら古い内容を返しつつ
+     * バックグラウンドで再検証する。それ以外は If-None-Match 付きで上流に問い合わせる。
+     */
+    private void proxyCacheable(Route route, UpstreamRequest upstreamRequest, String normalizedPath, boolean coalesce,
+                                boolean hedge, AsyncResponse asyncResponse) {
+        String baseKey = ResponseCache.baseKey("GET", normalizedPath, uriInfo.getQueryParameters(false));
+        // 非同期コールバックからはリクエストコンテキストを参照できないため、ヘッダーを退避しておく
+        Function<String, String> requestHeader = snapshotRequestHeaders();
+        String ifNoneMatch = headers.getHeaderString(HttpHeaders.IF_NONE_MATCH);
+        boolean acceptsGzip = acceptsGzip();
+        String key = responseCache.variantKey(baseKey, requestHeader);
+        String serviceUrl = upstreamRequest.getServiceUrl();
+        
+        CachedResponse cached = responseCache.get(key);
+        long now = System.currentTimeMillis();
+        if (cached != null && cached.isFresh(now)) {
+            responseCache.record(route.name(), ResponseCache.Outcome.HIT);
+            asyncResponse.resume(fromCache(cached, ifNoneMatch, "HIT", acceptsGzip));
+            return;
+        }
+        if (cached != null && cached.isServableStale(now)) {
+            responseCache.record(route.name(), ResponseCache.Outcome.STALE);
+            if (routingService.isServiceHealthy(serviceUrl) && cached.tryStartRevalidation()) {
+                revalidateInBackground(upstreamRequest, key, baseKey, requestHeader, cached, normalizedPath);
+            }
+            asyncResponse.resume(fromCache(cached, ifNoneMatch, "STALE", acceptsGzip));
+            return;
+        }
         
-        for (String headerName : headersToForward) {
-            String headerValue = headers.getHeaderString(headerName);
-            if (headerValue != null) {
-                requestBuilder.header(headerName, headerValue);
+        if (rejectIfUnhealthy(serviceUrl, asyncResponse)) {
+            return;
+        }
+        
+        Function<UpstreamRequest, CompletionStage<CacheFill>> send =
+            request -> fetchForCache(request, cached, key, baseKey, requestHeader, normalizedPath);
+        Supplier<CompletionStage<CacheFill>> fetch = hedge
+            ? () -> hedged(route, upstreamRequest, send)
+            : () -> send.apply(upstreamRequest);
+        // 認証付きのリクエストは共有可能な応答とは限らないため、利用者毎にまとめる
+        String authorization = requestHeader.apply(HttpHeaders.AUTHORIZATION);
+        String coalesceKey = "cache:" + key + (authorization == null ? "" : '\n' + authorization);
+        CompletionStage<CacheFill> fill = coalesce ? requestCoalescer.execute(coalesceKey, fetch) : fetch.get();
+        
+        fill.whenComplete((result, error) -> {
+            if (error != null) {
+                asyncResponse.resume(errorResponse(error));
+                return;
             }
+            responseCache.record(route.name(), result.outcome());
+            asyncResponse.resume(fromCache(result.entry(), ifNoneMatch, result.outcome().name(), acceptsGzip));
+        });
+    }
+    
+    /**
+     * 期限切れエントリをバックグラウンドで再検証（クライアントへの応答は待たない）
+     */
+    private void revalidateInBackground(UpstreamRequest upstreamRequest, String key, String baseKey,
+                                        Function<String, String> requestHeader, CachedResponse cached, String path) {
+        try {
+            fetchForCache(upstreamRequest, cached, key, baseKey, requestHeader, path)
+                .whenComplete((result, error) -> cached.finishRevalidation());
+        } catch (RuntimeException e) {
+            cached.finishRevalidation();
+            logger.warning(String.format("Background revalidation failed for %s: %s", path, e.getMessage()));
         }
+    }
+    
+    /**
+     * 上流に（可能なら If-None-Match 付きで）問い合わせ、結果をキャッシュに反映する
+     * 
+     * 304 の場合は既存エントリの鮮度を更新し、キャッシュ対象外のレスポンスは保存せずに返す。
+     * Authorization 付きのリクエストは、上流が public / s-maxage で共有を許可した場合のみキャッシュに反映する。
+     */
+    private CompletionStage<CacheFill> fetchForCache(UpstreamRequest upstreamRequest, CachedResponse cached, String key,
+                                                     String baseKey, Function<String, String> requestHeader, String path) {
+        UpstreamRequest conditional = cached != null && cached.getEtag() != null
+            ? upstreamRequest.withHeader(HttpHeaders.IF_NONE_MATCH, cached.getEtag())
+            : upstreamRequest;
         
-        // カスタムヘッダー（X-で始まるもの）も転送
-        for (String headerName : headers.getRequestHeaders().keySet()) {
-            if (headerName.startsWith("X-") && !headerName.equals("X-Forwarded-For") && !headerName.equals("X-Real-IP")) {
-                String headerValue = headers.getHeaderString(headerName);
-                if (headerValue != null) {
-                    requestBuilder.header(headerName, headerValue);
+        boolean authorized = requestHeader.apply(HttpHeaders.AUTHORIZATION) != null;
+        return upstreamInvoker.get(conditional, path, response -> {
+            CacheDirectives directives = CacheDirectives.parse(response.getHeaderString(HttpHeaders.CACHE_CONTROL));
+            if (response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode() && cached != null) {
+                if (authorized && !directives.allowsSharingAuthorized()) {
+                    return new CacheFill(cached, ResponseCache.Outcome.REVALIDATED);
                 }
+                return new CacheFill(responseCache.refresh(key, cached, directives), ResponseCache.Outcome.REVALIDATED);
+            }
+            
+            MultivaluedMap<String, Object> responseHeaders = copyResponseHeaders(response);
+            byte[] body = readBody(response);
+            if (!responseCache.isStorable(response.getStatus(), directives, responseHeaders, authorized)) {
+                return new CacheFill(CachedResponse.uncached(response.getStatus(), responseHeaders, body),
+                    ResponseCache.Outcome.BYPASS);
             }
+            CachedResponse entry = responseCache.store(baseKey, requestHeader, response.getStatus(),
+                responseHeaders, body, directives);
+            return new CacheFill(entry, ResponseCache.Outcome.MISS);
+        });
+    }
+    
+    /**
+     * Server-Sent Events を中継する
+     * 
+     * 上流への接続はサービス毎の長時間接続専用プールから取り、その読み込みタイムアウトを無通信タイムアウトとする。
+     * 応答ヘッダーが届いた時点でバルクヘッドとレーンを解放し、以降は上流毎の接続数の上限のみで制限する。
+     */
+    private void proxyEventStream(Route route, UpstreamInstance instance, UpstreamRequest upstreamRequest, String path,
+                                  TrafficLane.Slot slot, AsyncResponse asyncResponse) {
+        String serviceUrl = instance.getUrl();
+        if (rejectIfUnhealthy(serviceUrl, asyncResponse)) {
+            return;
         }
         
-        // 認証情報をリクエストプロパティから取得して転送
-        String userId = (String) request.getAttribute("auth.userId");
-        String username = (String) request.getAttribute("auth.username");
+        StreamingSettings settings = streamingConnections.getSettings();
+        StreamingConnections.Connection connection =
+            streamingConnections.open(StreamingConnections.Kind.EVENT_STREAM, route.service());
+        UpstreamClientPool pool = routingService.getStreamClientPool(serviceUrl,
+            settings.maxStreamsPerUpstream(), settings.eventStreamIdleTimeoutMillis());
+        UpstreamGuard.Permit permit;
+        try {
+            permit = resilience.acquire(route.service());
+        } catch (RuntimeException e) {
+            connection.close();
+            throw e;
+        }
         
-        if (userId != null) {
-            requestBuilder.header("X-User-ID", userId);
+        acquireLease(pool, permit).whenComplete((lease, checkoutError) -> {
+            if (checkoutError != null) {
+                connection.close();
+                asyncResponse.resume(errorResponse(checkoutError));
+                return;
+            }
+            UpstreamInstance.Call call = instance.begin();
+            Runnable release = () -> {
+                call.end();
+                lease.close();
+                connection.close();
+            };
+            
+            CompletionStage<Response> upstream;
+            try {
+                upstream = invokeUpstream(lease.client(), "GET", upstreamRequest, null);
+            } catch (RuntimeException e) {
+                permit.release();
+                release.run();
+                logger.severe(String.format("Error proxying event stream to %s: %s", path, e.getMessage()));
+                asyncResponse.resume(internalServerError());
+                return;
+            }
+            
+            upstream.whenComplete((response, error) -> {
+                slot.release();
+                if (error != null) {
+                    permit.onError();
+                    permit.release();
+                    release.run();
+                    upstreamInvoker.reportError(pool, serviceUrl, path, error);
+                    asyncResponse.resume(internalServerError());
+                    return;
+                }
+                
+                upstreamRequest.onResponseHeaders();
+                permit.onResponse(response.getStatus());
+                permit.release();
+                call.onResponse(response.getStatus() >= 500);
+                upstreamInvoker.reportStatus(serviceUrl, response.getStatus());
+                resumeStreaming(asyncResponse, response, release);
+            });
+        });
+    }
+    
+    /**
+     * GET をバッファリングして中継する
+     * 
+     * coalesce の場合は同一内容の同時 GET をまとめて全員に同じレスポンスを返し、
+     * hedge の場合は遅い応答に対して別インスタンスへ重複リクエストを送る。
+     */
+    private void proxyBuffered(Route route, UpstreamRequest upstreamRequest, String normalizedPath, boolean coalesce,
+                               boolean hedge, AsyncResponse asyncResponse) {
+        Function<UpstreamRequest, CompletionStage<CachedResponse>> send = request -> upstreamInvoker.get(request, normalizedPath,
+            response -> CachedResponse.uncached(response.getStatus(), copyResponseHeaders(response), readBody(response)));
+        Supplier<CompletionStage<CachedResponse>> call = hedge
+            ? () -> hedged(route, upstreamRequest, send)
+            : () -> send.apply(upstreamRequest);
+        
+        boolean acceptsGzip = acceptsGzip();
+        CompletionStage<CachedResponse> result;
+        if (coalesce) {
+            // 応答内容に影響するヘッダーもキーに含める（利用者毎に異なる応答を共有しないため）
+            String key = "proxy:" + ResponseCache.baseKey("GET", normalizedPath, uriInfo.getQueryParameters(false))
+                + '\n' + headers.getHeaderString(HttpHeaders.AUTHORIZATION)
+                + '\n' + headers.getHeaderString(HttpHeaders.ACCEPT)
+                + '\n' + headers.getHeaderString(HttpHeaders.ACCEPT_LANGUAGE);
+            result = requestCoalescer.execute(key, call);
+        } else {
+            result = call.get();
         }
-        if (username != null) {
-            requestBuilder.header("X-Username", username);
+        
+        result.whenComplete((shared, error) -> {
+            if (error != null) {
+                asyncResponse.resume(errorResponse(error));
+                return;
+            }
+            asyncResponse.resume(fromCache(shared, null, null, acceptsGzip));
+        });
+    }
+    
+    /**
+     * ヘッジ・リトライ付きで送信する（2 回目の試行は別のインスタンスへ送る）
+     */
+    private <T> CompletionStage<T> hedged(Route route, UpstreamRequest upstreamRequest,
+                                          Function<UpstreamRequest, CompletionStage<T>> send) {
+        return hedgedRequests.execute(route.name(), route.service(), attempt -> attempt == 0
+            ? send.apply(upstreamRequest)
+            : send.apply(upstreamRequest.withServiceUrl(
+                routingService.chooseAlternative(route.service(), upstreamRequest.getServiceUrl()).getUrl())));
+    }
+    
+    /**
+     * プールからクライアントを借用する（借用できなかった場合は上流保護の枠を返却する）
+     */
+    private CompletionStage<UpstreamClientPool.Lease> acquireLease(UpstreamClientPool pool, UpstreamGuard.Permit permit) {
+        return pool.acquire().whenComplete((lease, error) -> {
+            if (error != null) {
+                permit.release();
+            }
+        });
+    }
+    
+    private byte[] readBody(Response response) {
+        return response.hasEntity() ? response.readEntity(byte[].class) : new byte[0];
+    }
+    
+    /**
+     * バッファ済みレスポンスを返す（圧縮済みのボディは gzip を受け付けるクライアントにはそのまま返す）
+     */
+    private Response fromCache(CachedResponse cached, String ifNoneMatch, String cacheStatus, boolean acceptsGzip) {
+        long now = System.currentTimeMillis();
+        boolean gzipped = cached.isGzipped() && acceptsGzip;
+        String etag = gzipped ? ContentCoding.weakEtag(cached.getEtag()) : cached.getEtag();
+        Response.ResponseBuilder builder;
+        if (cached.matches(ifNoneMatch)) {
+            builder = Response.notModified()
+                .header(HttpHeaders.ETAG, etag)
+                .header(HttpHeaders.CACHE_CONTROL, cached.getHeaders().getFirst(HttpHeaders.CACHE_CONTROL));
+        } else {
+            MultivaluedMap<String, Object> responseHeaders = new MultivaluedHashMap<>(cached.getHeaders());
+            if (gzipped) {
+                responseHeaders.putSingle(HttpHeaders.CONTENT_ENCODING, cached.getContentEncoding());
+                if (etag != null) {
+                    responseHeaders.putSingle(HttpHeaders.ETAG, etag);
+                }
+            }
+            if (cached.isGzipped()) {
+                CompressionInterceptor.addVaryAcceptEncoding(responseHeaders);
+            }
+            builder = Response.status(cached.getStatus())
+                .replaceAll(responseHeaders)
+                .entity(cached.bodyFor(acceptsGzip));
+        }
+        if (cacheStatus != null) {
+            builder.header("Age", cached.ageSeconds(now)).header("X-Cache", cacheStatus);
         }
+        return builder.build();
     }
     
-    private MultivaluedMap<String, Object> copyResponseHeaders(Response response) {
-        MultivaluedMap<String, Object> responseHeaders = new MultivaluedHashMap<>();
-        
-        // 転送するレスポンスヘッダー
-        String[] headersToForward = {
-            "Content-Type", "Content-Length", "Cache-Control", "ETag",
-            "Last-Modified", "Location", "Set-Cookie"
-        };
+    private Function<String, String> snapshotRequestHeaders() {
+        Map<String, String> snapshot = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : headers.getRequestHeaders().entrySet()) {
+            snapshot.put(entry.getKey().toLowerCase(), String.join(",", entry.getValue()));
+        }
+        return name -> snapshot.get(name.toLowerCase());
+    }
+    
+    private boolean acceptsGzip() {
+        return ContentCoding.acceptsGzip(headers.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+    }
+    
+    private boolean acceptsEventStream() {
+        String accept = headers.getHeaderString(HttpHeaders.ACCEPT);
+        return accept != null && accept.contains(MediaType.SERVER_SENT_EVENTS);
+    }
+    
+    private boolean rejectIfUnhealthy(String serviceUrl, AsyncResponse asyncResponse) {
+        if (routingService.isServiceHealthy(serviceUrl)) {
+            return false;
+        }
+        logger.warning(String.format("Service %s is unhealthy", serviceUrl));
+        asyncResponse.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+            .entity("{\"error\": \"Service Unavailable\", \"message\": \"The requested service is currently unavailable\"}")
+            .build());
+        return true;
+    }
+    
+    /**
+     * レスポンスをストリーミングで返す（転送完了でリースと同時実行枠を返却）
+     */
+    private void resumeStreaming(AsyncResponse asyncResponse, Response response, Runnable release) {
+        if (!asyncResponse.resume(toStreamingResponse(response, release))) {
+            // タイムアウト等で既に応答済みの場合は上流接続を解放
+            response.close();
+            release.run();
+        }
+    }
+    
+    /**
+     * 上流サービスへリクエストを非同期で送信
+     */
+    private CompletionStage<Response> invokeUpstream(Client client, String method, UpstreamRequest upstreamRequest,
+                                                     Entity<InputStream> entity) {
+        Invocation.Builder requestBuilder = upstreamRequest.build(client);
+        CompletionStage<Response> upstream = entity != null
+            ? requestBuilder.rx().method(method, entity)
+            : requestBuilder.rx().method(method);
+        upstreamRequest.onSent();
+        return upstream;
+    }
+    
+    /**
+     * 転送するリクエストボディ（ボディはストリームのまま転送する。ボディがなければ null）
+     */
+    private Entity<InputStream> requestEntity(InputStream body) {
+        if (body == null || !hasRequestBody()) {
+            return null;
+        }
+        String contentType = headers.getHeaderString("Content-Type");
+        if (contentType == null) {
+            contentType = MediaType.APPLICATION_JSON;
+        }
+        return Entity.entity(body, contentType);
+    }
+    
+    /**
+     * 上流サービスへのリクエストを組み立てる（クエリパラメータとヘッダーを転送）
+     */
+    private UpstreamRequest upstreamRequest(String serviceUrl, String upstreamPath) {
+        UriBuilder uri = UriBuilder.fromUri(serviceUrl).path(upstreamPath);
         
-        for (String headerName : headersToForward) {
-            Object headerValue = response.getHeaders().getFirst(headerName);
-            if (headerValue != null) {
-                responseHeaders.add(headerName, headerValue);
+        // クエリパラメータを追加
+        MultivaluedMap<String, String> queryParams = uriInfo.getQueryParameters();
+        for (var entry : queryParams.entrySet()) {
+            String key = entry.getKey();
+            for (String value : entry.getValue()) {
+                uri.queryParam(key, value);
             }
         }
         
-        return responseHeaders;
+        // ヘッダーを転送（一部除外）
+        return new UpstreamRequest(serviceUrl, uri.build(), copyHeaders());
+    }
+    
+    private boolean hasRequestBody() {
+        return request.getContentLengthLong() > 0 || headers.getHeaderString("Transfer-Encoding") != null;
+    }
+    
+    private Response toStreamingResponse(Response upstream, Runnable onComplete) {
+        Response.ResponseBuilder builder = Response.status(upstream.getStatus())
+            .replaceAll(copyResponseHeaders(upstream));
+        
+        if (upstream.hasEntity()) {
+            builder.entity(new StreamingResponseBody(upstream, onComplete));
+        } else {
+            upstream.close();
+            onComplete.run();
+        }
+        
+        return builder.build();
+    }
+    
+    /**
+     * 非同期処理の失敗を応答に変換（上流保護による拒否は 503、それ以外は 500）
+     */
+    private Response errorResponse(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof UpstreamRejectedException rejected) {
+            return upstreamRejected(rejected);
+        }
+        return internalServerError();
+    }
+    
+    private Response upstreamRejected(UpstreamRejectedException e) {
+        logger.warning(e.getMessage());
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, e.getRetryAfterSeconds())
+            .entity("{\"error\": \"Service Unavailable\", \"message\": \"The requested service is temporarily overloaded\"}")
+            .build();
+    }
+    
+    private Response internalServerError() {
+        return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+            .entity("{\"error\": \"Internal Server Error\", \"message\": \"An unexpected error occurred\"}")
+            .build();
+    }
+    
+    private MultivaluedMap<String, Object> copyHeaders() {
+        // 認証情報（AuthenticationFilter で検証済みのトークンのクレーム）も転送
+        return ForwardedHeaders.request(headers,
+            (String) request.getAttribute("auth.userId"), (String) request.getAttribute("auth.username"));
+    }
+    
+    private MultivaluedMap<String, Object> copyResponseHeaders(Response response) {
+        return ForwardedHeaders.response(response.getHeaders());
+    }
+    
+    /**
+     * キャッシュ経由で上流に問い合わせた結果
+     */
+    private record CacheFill(CachedResponse entry, ResponseCache.Outcome outcome) {
     }
 }
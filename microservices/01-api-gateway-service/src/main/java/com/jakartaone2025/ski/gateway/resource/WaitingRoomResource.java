@@ -0,0 +1,60 @@
+package com.jakartaone2025.ski.gateway.resource;
+
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import com.jakartaone2025.ski.gateway.filter.WaitingRoom;
+import com.jakartaone2025.ski.gateway.filter.WaitingRoomFilter;
+
+/**
+ * 待合室の順番・入場までの目安時間を返すエンドポイント
+ *
+ * 整理券（X-Waiting-Room-Token）を提示して問い合わせ、順番が来ていれば入場券を返す。
+ * 券はクライアントに紐付いているため、整理券を受け取った時と同じ Authorization を付けて呼び出すこと。
+ */
+@Path("/waiting-room")
+@RequestScoped
+public class WaitingRoomResource {
+    
+    @Inject
+    private WaitingRoom waitingRoom;
+    
+    @Context
+    private HttpServletRequest request;
+    
+    @GET
+    @Path("/status")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response status(@HeaderParam(WaitingRoomFilter.TOKEN_HEADER) String token) {
+        if (!waitingRoom.isEnabled()) {
+            return Response.ok("{\"enabled\": false, \"admitted\": true}").build();
+        }
+        
+        WaitingRoom.Admission admission = waitingRoom.check(token, WaitingRoomFilter.clientIdOf(request));
+        if (admission == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity("{\"error\": \"Bad Request\", \"message\": \"Missing, expired or invalid waiting room ticket\"}")
+                .build();
+        }
+        
+        Response.ResponseBuilder builder = Response.ok(String.format(
+            "{\"enabled\": true, \"admitted\": %b, \"position\": %d, \"etaSeconds\": %d}",
+            admission.admitted(), admission.position(), admission.etaSeconds()));
+        if (admission.token() != null) {
+            builder.header(WaitingRoomFilter.TOKEN_HEADER, admission.token());
+        }
+        if (!admission.admitted()) {
+            builder.header(WaitingRoomFilter.POSITION_HEADER, admission.position())
+                .header(HttpHeaders.RETRY_AFTER, Math.max(1, Math.min(30, admission.etaSeconds())));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,111 @@
+package com.jakartaone2025.ski.gateway.routing;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * サービスのインスタンスから転送先を1つ選ぶ負荷分散アルゴリズム
+ *
+ * 利用可能なインスタンスがない場合も null は返さず、いずれかのインスタンスを返す
+ * （呼び出し側のヘルスチェックで 503 とする）。
+ */
+public interface LoadBalancer {
+
+    /**
+     * @param instances サービスの全インスタンス（1件以上）
+     * @param available ヘルスチェック・外れ値検出の結果、利用可能なインスタンス
+     */
+    UpstreamInstance choose(UpstreamInstance[] instances, Predicate<UpstreamInstance> available);
+
+    /**
+     * 設定名（services.&lt;name&gt;.balancer）からアルゴリズムを作成
+     */
+    static LoadBalancer create(String name) {
+        return switch (name) {
+            case "round-robin" -> new RoundRobin();
+            case "least-outstanding" -> new LeastOutstanding();
+            case "p2c-ewma" -> new PowerOfTwoChoices();
+            default -> throw new IllegalArgumentException("Unknown load balancer: " + name);
+        };
+    }
+
+    /**
+     * ラウンドロビン（利用できないインスタンスは飛ばす）
+     */
+    final class RoundRobin implements LoadBalancer {
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        @Override
+        public UpstreamInstance choose(UpstreamInstance[] instances, Predicate<UpstreamInstance> available) {
+            int start = Math.floorMod(next.getAndIncrement(), instances.length);
+            for (int i = 0; i < instances.length; i++) {
+                UpstreamInstance candidate = instances[(start + i) % instances.length];
+                if (available.test(candidate)) {
+                    return candidate;
+                }
+            }
+            return instances[start];
+        }
+    }
+
+    /**
+     * 実行中リクエストが最も少ないインスタンス（同数の場合は順番に分散）
+     */
+    final class LeastOutstanding implements LoadBalancer {
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        @Override
+        public UpstreamInstance choose(UpstreamInstance[] instances, Predicate<UpstreamInstance> available) {
+            int start = Math.floorMod(next.getAndIncrement(), instances.length);
+            UpstreamInstance best = null;
+            for (int i = 0; i < instances.length; i++) {
+                UpstreamInstance candidate = instances[(start + i) % instances.length];
+                if (available.test(candidate) && (best == null || candidate.getOutstanding() < best.getOutstanding())) {
+                    best = candidate;
+                }
+            }
+            return best != null ? best : instances[start];
+        }
+    }
+
+    /**
+     * ランダムに選んだ2つのうち、EWMA 応答時間 × 実行中件数が小さい方（power of two choices）
+     *
+     * 全インスタンスを走査せずに負荷の偏りを抑えられ、遅くなったインスタンスへの流量は自然に減る。
+     */
+    final class PowerOfTwoChoices implements LoadBalancer {
+
+        private final RoundRobin fallback = new RoundRobin();
+
+        @Override
+        public UpstreamInstance choose(UpstreamInstance[] instances, Predicate<UpstreamInstance> available) {
+            if (instances.length == 1) {
+                return instances[0];
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(instances.length);
+            int second = random.nextInt(instances.length - 1);
+            if (second >= first) {
+                second++;
+            }
+            UpstreamInstance a = instances[first];
+            UpstreamInstance b = instances[second];
+            boolean aAvailable = available.test(a);
+            boolean bAvailable = available.test(b);
+            if (aAvailable && bAvailable) {
+                return a.load() <= b.load() ? a : b;
+            }
+            if (aAvailable) {
+                return a;
+            }
+            if (bAvailable) {
+                return b;
+            }
+            // 2つとも利用できない場合は利用可能なものを順番に探す
+            return fallback.choose(instances, available);
+        }
+    }
+}
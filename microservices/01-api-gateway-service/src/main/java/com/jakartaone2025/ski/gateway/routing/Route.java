@@ -0,0 +1,47 @@
+package com.jakartaone2025.ski.gateway.routing;
+
+/**
+ * ルート定義（パスプレフィックス1つ分）
+ *
+ * 同じ名前のルートが複数のプレフィックスを持つ場合は、プレフィックス毎に1インスタンスとなる。
+ *
+ * @param name ルート名（{@code gateway.routes.<name>.*}）
+ * @param prefix マッチ対象のパスプレフィックス
+ * @param service 転送先サービス名（{@code services.<service>.url}）
+ * @param rewritePrefix 転送時にプレフィックスを置き換えるパス（null の場合は書き換えなし）
+ * @param timeoutSeconds ルート固有のタイムアウト秒数（0 以下の場合はゲートウェイ既定値）
+ * @param rateClass レート制限クラス（{@code gateway.ratelimit.<rateClass>.requests}）
+ * @param cacheable レスポンスをキャッシュ可能かどうか
+ * @param coalesce 同一内容の同時 GET を1回の上流呼び出しにまとめるかどうか
+ * @param hedge 遅い GET に重複リクエストを送る（ヘッジ）かどうか
+ * @param lane 実行レーン（{@code gateway.lanes.<lane>.*}。過負荷時は優先度の低いレーンから流量を絞る）
+ */
+public record Route(
+        String name,
+        String prefix,
+        String service,
+        String rewritePrefix,
+        long timeoutSeconds,
+        String rateClass,
+        boolean cacheable,
+        boolean coalesce,
+        boolean hedge,
+        String lane) {
+
+    /**
+     * 上流サービスへ転送する際のパスを取得
+     */
+    public String rewrite(String path) {
+        if (rewritePrefix == null) {
+            return path;
+        }
+        return rewritePrefix + path.substring(prefix.length());
+    }
+
+    /**
+     * ルート固有のタイムアウトがあればそれを、なければ既定値を返す
+     */
+    public long effectiveTimeoutSeconds(long defaultTimeoutSeconds) {
+        return timeoutSeconds > 0 ? timeoutSeconds : defaultTimeoutSeconds;
+    }
+}
@@ -0,0 +1,182 @@
+package com.jakartaone2025.ski.gateway.routing;
+
+import org.eclipse.microprofile.config.Config;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 起動時にコンパイルされるルートテーブル
+ *
+ * パスプレフィックスを基数木（圧縮トライ木）に格納し、最長一致でルートを検索する。
+ * 検索コストはルート数に依存せずパス長に比例し、検索時にオブジェクトを生成しない。
+ */
+public final class RouteTable {
+
+    private static final String PREFIX = "gateway.routes";
+
+    private final Node root;
+    private final List<Route> routes;
+
+    private RouteTable(Node root, List<Route> routes) {
+        this.root = root;
+        this.routes = routes;
+    }
+
+    /**
+     * ルート一覧からテーブルをコンパイル
+     */
+    public static RouteTable compile(List<Route> routes) {
+        MutableNode root = new MutableNode();
+        for (Route route : routes) {
+            MutableNode node = root;
+            for (int i = 0; i < route.prefix().length(); i++) {
+                node = node.children.computeIfAbsent(route.prefix().charAt(i), c -> new MutableNode());
+            }
+            if (node.route != null) {
+                throw new IllegalStateException(String.format("Duplicate route prefix %s (%s, %s)",
+                    route.prefix(), node.route.name(), route.name()));
+            }
+            node.route = route;
+        }
+        return new RouteTable(root.freeze(), Collections.unmodifiableList(new ArrayList<>(routes)));
+    }
+
+    /**
+     * MicroProfile Config からルートを読み込んでコンパイル
+     *
+     * <pre>
+     * gateway.routes=catalog,auth
+     * gateway.routes.catalog.prefixes=/api/v1/products,/api/v1/categories
+     * gateway.routes.catalog.service=product
+     * gateway.routes.catalog.rewrite=/v2/products      (任意)
+     * gateway.routes.catalog.timeout.seconds=10         (任意)
+     * gateway.routes.catalog.rate-class=default         (任意)
+     * gateway.routes.catalog.cacheable=true             (任意)
+     * gateway.routes.catalog.coalesce=true              (任意)
+     * gateway.routes.catalog.hedge=true                 (任意)
+     * gateway.routes.catalog.lane=browse               (任意)
+     * </pre>
+     */
+    public static RouteTable fromConfig(Config config) {
+        List<Route> routes = new ArrayList<>();
+        for (String name : config.getValues(PREFIX, String.class)) {
+            String key = PREFIX + "." + name.trim();
+            String service = config.getValue(key + ".service", String.class);
+            String rewrite = config.getOptionalValue(key + ".rewrite", String.class).orElse(null);
+            long timeoutSeconds = config.getOptionalValue(key + ".timeout.seconds", Long.class).orElse(0L);
+            String rateClass = config.getOptionalValue(key + ".rate-class", String.class).orElse("default");
+            boolean cacheable = config.getOptionalValue(key + ".cacheable", Boolean.class).orElse(false);
+            boolean coalesce = config.getOptionalValue(key + ".coalesce", Boolean.class).orElse(false);
+            boolean hedge = config.getOptionalValue(key + ".hedge", Boolean.class).orElse(false);
+            String lane = config.getOptionalValue(key + ".lane", String.class).orElse("standard");
+
+            for (String prefix : config.getValues(key + ".prefixes", String.class)) {
+                routes.add(new Route(name.trim(), prefix.trim(), service, rewrite, timeoutSeconds, rateClass, cacheable, coalesce, hedge, lane));
+            }
+        }
+        return compile(routes);
+    }
+
+    /**
+     * パスに最長一致するルートを検索（該当なしの場合は null）
+     */
+    public Route lookup(String path) {
+        Node node = root;
+        Route match = root.route;
+        int position = 0;
+        int length = path.length();
+        while (position < length) {
+            Node child = node.child(path.charAt(position));
+            if (child == null || !child.matchesLabel(path, position)) {
+                break;
+            }
+            position += child.label.length;
+            node = child;
+            if (node.route != null) {
+                match = node.route;
+            }
+        }
+        return match;
+    }
+
+    public List<Route> getRoutes() {
+        return routes;
+    }
+
+    /**
+     * 検索用の不変ノード（基数木）
+     *
+     * 分岐もルートも持たない連続ノードは1本のラベルに圧縮し、
+     * 子ノードは先頭文字をインデックスとする配列で O(1) 参照する。
+     */
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private final char[] label;
+        private final Route route;
+        private final char base;
+        private final Node[] children;
+
+        private Node(char[] label, Route route, char base, Node[] children) {
+            this.label = label;
+            this.route = route;
+            this.base = base;
+            this.children = children;
+        }
+
+        Node child(char c) {
+            int index = c - base;
+            return index >= 0 && index < children.length ? children[index] : null;
+        }
+
+        boolean matchesLabel(String path, int position) {
+            if (path.length() - position < label.length) {
+                return false;
+            }
+            // 先頭文字は child() の時点で一致済み
+            for (int i = 1; i < label.length; i++) {
+                if (path.charAt(position + i) != label[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * コンパイル時のみ使用する可変ノード（1文字1ノードのトライ木）
+     */
+    private static final class MutableNode {
+        private final TreeMap<Character, MutableNode> children = new TreeMap<>();
+        private Route route;
+
+        Node freeze() {
+            return freeze(new StringBuilder());
+        }
+
+        private Node freeze(StringBuilder label) {
+            // ルートを持たない一本道は後続ノードとラベルを連結して圧縮
+            MutableNode node = this;
+            while (node.route == null && node.children.size() == 1 && label.length() > 0) {
+                Map.Entry<Character, MutableNode> only = node.children.firstEntry();
+                label.append(only.getKey().charValue());
+                node = only.getValue();
+            }
+
+            if (node.children.isEmpty()) {
+                return new Node(label.toString().toCharArray(), node.route, (char) 0, Node.NO_CHILDREN);
+            }
+
+            char base = node.children.firstKey();
+            Node[] table = new Node[node.children.lastKey() - base + 1];
+            for (Map.Entry<Character, MutableNode> entry : node.children.entrySet()) {
+                StringBuilder childLabel = new StringBuilder().append(entry.getKey().charValue());
+                table[entry.getKey() - base] = entry.getValue().freeze(childLabel);
+            }
+            return new Node(label.toString().toCharArray(), node.route, base, table);
+        }
+    }
+}
@@ -2,176 +2,237 @@ package com.jakartaone2025.ski.gateway.routing;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import jakarta.ws.rs.client.Client;
-import jakarta.ws.rs.client.ClientBuilder;
-import jakarta.ws.rs.client.WebTarget;
-import jakarta.ws.rs.core.Response;
-import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.config.Config;
+import com.jakartaone2025.ski.gateway.client.UpstreamClientPool;
+import com.jakartaone2025.ski.gateway.client.UpstreamClientRegistry;
+import com.jakartaone2025.ski.gateway.health.UpstreamHealthMonitor;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import java.util.logging.Logger;
 
 /**
  * Service Discovery and Routing Service
+ * 
+ * services.&lt;name&gt;.url にはカンマ区切りで複数のインスタンスを指定でき、
+ * services.&lt;name&gt;.balancer（既定は gateway.balancer.default）のアルゴリズムで転送先を選ぶ。
+ * ヘルス状態・外れ値検出はインスタンス毎に管理する。
  */
 @ApplicationScoped
 public class RoutingService {
     
     private static final Logger logger = Logger.getLogger(RoutingService.class.getName());
     
-    private final String userServiceUrl;
-    private final String productServiceUrl;
-    private final String authServiceUrl;
-    private final String inventoryServiceUrl;
-    private final String orderServiceUrl;
-    private final String paymentServiceUrl;
-    private final String cartServiceUrl;
-    private final String couponServiceUrl;
-    private final String pointServiceUrl;
-    private final String aiServiceUrl;
-    
-    private final Client httpClient;
-    private final Map<String, ServiceHealthStatus> serviceHealthMap = new ConcurrentHashMap<>();
+    private final RouteTable routeTable;
+    private final UpstreamClientRegistry clientRegistry;
+    private final Map<String, ServiceInstances> servicesByName = new LinkedHashMap<>();
+    private final Map<String, UpstreamInstance> instancesByUrl = new LinkedHashMap<>();
+    private final UpstreamHealthMonitor healthMonitor;
+    private final Predicate<UpstreamInstance> available;
     
     @Inject
-    public RoutingService(
-            @ConfigProperty(name = "services.user.url", defaultValue = "http://localhost:8081") String userServiceUrl,
-            @ConfigProperty(name = "services.product.url", defaultValue = "http://localhost:8083") String productServiceUrl,
-            @ConfigProperty(name = "services.auth.url", defaultValue = "http://localhost:8084") String authServiceUrl,
-            @ConfigProperty(name = "services.inventory.url", defaultValue = "http://localhost:8085") String inventoryServiceUrl,
-            @ConfigProperty(name = "services.order.url", defaultValue = "http://localhost:8086") String orderServiceUrl,
-            @ConfigProperty(name = "services.payment.url", defaultValue = "http://localhost:8087") String paymentServiceUrl,
-            @ConfigProperty(name = "services.cart.url", defaultValue = "http://localhost:8088") String cartServiceUrl,
-            @ConfigProperty(name = "services.coupon.url", defaultValue = "http://localhost:8089") String couponServiceUrl,
-            @ConfigProperty(name = "services.point.url", defaultValue = "http://localhost:8090") String pointServiceUrl,
-            @ConfigProperty(name = "services.ai.url", defaultValue = "http://localhost:8091") String aiServiceUrl) {
+    public RoutingService(Config config, UpstreamClientRegistry clientRegistry, UpstreamHealthMonitor healthMonitor) {
+        this.clientRegistry = clientRegistry;
+        this.healthMonitor = healthMonitor;
+        this.available = instance -> healthMonitor.isAvailable(instance.getUrl());
+        
+        // 設定からルートテーブルをコンパイル
+        this.routeTable = RouteTable.fromConfig(config);
         
-        this.userServiceUrl = userServiceUrl;
-        this.productServiceUrl = productServiceUrl;
-        this.authServiceUrl = authServiceUrl;
-        this.inventoryServiceUrl = inventoryServiceUrl;
-        this.orderServiceUrl = orderServiceUrl;
-        this.paymentServiceUrl = paymentServiceUrl;
-        this.cartServiceUrl = cartServiceUrl;
-        this.couponServiceUrl = couponServiceUrl;
-        this.pointServiceUrl = pointServiceUrl;
-        this.aiServiceUrl = aiServiceUrl;
+        // ルートが参照するサービスのインスタンスを解決（services.<name>.url / services.<name>.balancer）
+        String defaultBalancer = config.getOptionalValue("gateway.balancer.default", String.class).orElse("round-robin");
+        for (Route route : routeTable.getRoutes()) {
+            servicesByName.computeIfAbsent(route.service(), name -> {
+                List<UpstreamInstance> instances = new ArrayList<>();
+                for (String url : config.getValue("services." + name + ".url", String[].class)) {
+                    if (!url.isBlank()) {
+                        instances.add(new UpstreamInstance(name, url.trim()));
+                    }
+                }
+                if (instances.isEmpty()) {
+                    throw new IllegalArgumentException("No instances configured for service: " + name);
+                }
+                String balancer = config.getOptionalValue("services." + name + ".balancer", String.class)
+                    .orElse(defaultBalancer);
+                return new ServiceInstances(instances.toArray(UpstreamInstance[]::new), LoadBalancer.create(balancer));
+            });
+        }
+        servicesByName.values().forEach(service -> {
+            for (UpstreamInstance instance : service.instances()) {
+                instancesByUrl.put(instance.getUrl(), instance);
+            }
+        });
         
-        this.httpClient = ClientBuilder.newClient();
+        logger.info(String.format("Compiled %d route prefixes for %d services (%d instances)",
+            routeTable.getRoutes().size(), servicesByName.size(), instancesByUrl.size()));
         
-        // 初期ヘルスチェック
-        initializeServiceHealth();
+        // ヘルス監視に登録（チェック自体はバックグラウンドで実行され、起動をブロックしない）
+        instancesByUrl.values().forEach(instance -> healthMonitor.register(instance.getUrl()));
+    }
+    
+    /**
+     * リクエストパスを正規化（先頭の / を補い、連続する / をまとめる）
+     */
+    public static String normalizePath(String path) {
+        return Paths.get("/", path).toString().replace('\\', '/');
+    }
+    
+    /**
+     * パスに一致するルートを検索（該当なしの場合は null）
+     */
+    public Route findRoute(String path) {
+        return routeTable.lookup(path);
+    }
+    
+    /**
+     * ルーティング対象の全ルートを取得
+     */
+    public List<Route> getRoutes() {
+        return routeTable.getRoutes();
+    }
+    
+    /**
+     * パスに一致するルートを取得
+     */
+    public Route resolveRoute(String path) {
+        Route route = routeTable.lookup(path);
+        if (route == null) {
+            throw new IllegalArgumentException("Unknown service path: " + path);
+        }
+        return route;
     }
     
     /**
      * パスに基づいてサービスURLを取得
      */
     public String resolveServiceUrl(String path) {
-        if (path.startsWith("/users")) {
-            return userServiceUrl;
-        } else if (path.startsWith("/api/v1/products") || path.startsWith("/api/v1/categories") || path.startsWith("/products") || path.startsWith("/categories")) {
-            return productServiceUrl;
-        } else if (path.startsWith("/auth")) {
-            return authServiceUrl;
-        } else if (path.startsWith("/inventory")) {
-            return inventoryServiceUrl;
-        } else if (path.startsWith("/orders")) {
-            return orderServiceUrl;
-        } else if (path.startsWith("/payments")) {
-            return paymentServiceUrl;
-        } else if (path.startsWith("/cart")) {
-            return cartServiceUrl;
-        } else if (path.startsWith("/coupons") || path.startsWith("/discounts")) {
-            return couponServiceUrl;
-        } else if (path.startsWith("/points") || path.startsWith("/loyalty")) {
-            return pointServiceUrl;
-        } else if (path.startsWith("/ai") || path.startsWith("/support")) {
-            return aiServiceUrl;
-        }
-        
-        throw new IllegalArgumentException("Unknown service path: " + path);
+        return getServiceUrl(resolveRoute(path).service());
     }
     
     /**
-     * サービスのヘルス状態を確認
+     * サービス名に対応するURLを取得（ロードバランサーが選んだインスタンス）
      */
-    public boolean isServiceHealthy(String serviceUrl) {
-        ServiceHealthStatus status = serviceHealthMap.get(serviceUrl);
-        if (status == null) {
-            return checkServiceHealth(serviceUrl);
-        }
-        
-        // キャッシュされた結果が古い場合は再チェック
-        long now = System.currentTimeMillis();
-        if (now - status.lastChecked > 30000) { // 30秒
-            return checkServiceHealth(serviceUrl);
+    public String getServiceUrl(String serviceName) {
+        return chooseInstance(serviceName).getUrl();
+    }
+    
+    /**
+     * サービスのインスタンスから転送先を選ぶ（利用可能なインスタンスがない場合もいずれかを返す）
+     */
+    public UpstreamInstance chooseInstance(String serviceName) {
+        ServiceInstances service = servicesByName.get(serviceName);
+        if (service == null) {
+            throw new IllegalArgumentException("Unknown service: " + serviceName);
         }
-        
-        return status.isHealthy;
-    }
-    
-    /**
-     * サービスのヘルスチェックを実行
-     */
-    private boolean checkServiceHealth(String serviceUrl) {
-        try {
-            WebTarget target = httpClient.target(serviceUrl).path("health");
-            Response response = target.request().get();
-            
-            boolean isHealthy = response.getStatus() == 200;
-            serviceHealthMap.put(serviceUrl, new ServiceHealthStatus(isHealthy, System.currentTimeMillis()));
-            
-            logger.fine(String.format("Health check for %s: %s", serviceUrl, isHealthy ? "HEALTHY" : "UNHEALTHY"));
-            return isHealthy;
-            
-        } catch (Exception e) {
-            logger.warning(String.format("Health check failed for %s: %s", serviceUrl, e.getMessage()));
-            serviceHealthMap.put(serviceUrl, new ServiceHealthStatus(false, System.currentTimeMillis()));
-            return false;
+        UpstreamInstance[] instances = service.instances();
+        if (instances.length == 1) {
+            return instances[0];
         }
+        return service.balancer().choose(instances, available);
     }
     
     /**
-     * 初期化時にすべてのサービスのヘルス状態を確認
+     * 指定したインスタンス以外から転送先を選ぶ（ヘッジ・リトライ用。他に利用可能なものがなければ同じインスタンス）
      */
-    private void initializeServiceHealth() {
-        String[] services = {
-            userServiceUrl, productServiceUrl, authServiceUrl, inventoryServiceUrl,
-            orderServiceUrl, paymentServiceUrl, cartServiceUrl, couponServiceUrl,
-            pointServiceUrl, aiServiceUrl
-        };
-        
-        for (String serviceUrl : services) {
-            checkServiceHealth(serviceUrl);
+    public UpstreamInstance chooseAlternative(String serviceName, String avoidUrl) {
+        ServiceInstances service = servicesByName.get(serviceName);
+        if (service == null) {
+            throw new IllegalArgumentException("Unknown service: " + serviceName);
+        }
+        UpstreamInstance[] instances = service.instances();
+        if (instances.length == 1) {
+            return instances[0];
         }
+        UpstreamInstance chosen = service.balancer().choose(instances,
+            instance -> !instance.getUrl().equals(avoidUrl) && available.test(instance));
+        return available.test(chosen) ? chosen : getInstance(avoidUrl);
     }
     
     /**
-     * サービスヘルス状態
+     * インスタンスのURLに対応するインスタンスを取得
      */
-    private static class ServiceHealthStatus {
-        final boolean isHealthy;
-        final long lastChecked;
-        
-        ServiceHealthStatus(boolean isHealthy, long lastChecked) {
-            this.isHealthy = isHealthy;
-            this.lastChecked = lastChecked;
+    public UpstreamInstance getInstance(String serviceUrl) {
+        UpstreamInstance instance = instancesByUrl.get(serviceUrl);
+        if (instance == null) {
+            throw new IllegalArgumentException("Unknown service url: " + serviceUrl);
         }
+        return instance;
     }
     
     /**
-     * HTTPクライアントを取得
+     * インスタンスのヘルス状態を確認（バックグラウンドチェックとパッシブ検知の結果を参照するのみ）
      */
-    public Client getHttpClient() {
-        return httpClient;
+    public boolean isServiceHealthy(String serviceUrl) {
+        return healthMonitor.isAvailable(serviceUrl);
     }
     
     /**
-     * リソースをクリーンアップ
+     * サービスに利用可能なインスタンスが1つ以上あるか
      */
-    public void destroy() {
-        if (httpClient != null) {
-            httpClient.close();
+    public boolean isServiceAvailable(String serviceName) {
+        ServiceInstances service = servicesByName.get(serviceName);
+        if (service == null) {
+            return false;
+        }
+        for (UpstreamInstance instance : service.instances()) {
+            if (available.test(instance)) {
+                return true;
+            }
         }
+        return false;
+    }
+    
+    /**
+     * 上流へのリクエスト成功を記録
+     */
+    public void reportSuccess(String serviceUrl) {
+        healthMonitor.recordSuccess(serviceUrl);
+    }
+    
+    /**
+     * 上流へのリクエスト失敗（5xx / タイムアウト / 接続エラー）を記録
+     */
+    public void reportFailure(String serviceUrl) {
+        healthMonitor.recordFailure(serviceUrl);
+    }
+    
+    /**
+     * ルーティング対象のサービス名とインスタンスの一覧を取得
+     */
+    public Map<String, List<UpstreamInstance>> getServiceInstances() {
+        Map<String, List<UpstreamInstance>> instances = new LinkedHashMap<>();
+        servicesByName.forEach((name, service) -> instances.put(name, List.of(service.instances())));
+        return Collections.unmodifiableMap(instances);
+    }
+    
+    /**
+     * インスタンスのURLに対応するサービス名を取得
+     */
+    public String getServiceName(String serviceUrl) {
+        return getInstance(serviceUrl).getServiceName();
+    }
+    
+    /**
+     * サービス専用のHTTPクライアントプールを取得
+     */
+    public UpstreamClientPool getClientPool(String serviceUrl) {
+        return clientRegistry.pool(getServiceName(serviceUrl));
+    }
+    
+    /**
+     * サービスの長時間接続（SSE 等）専用のHTTPクライアントプールを取得
+     */
+    public UpstreamClientPool getStreamClientPool(String serviceUrl, int maxStreams, long idleTimeoutMillis) {
+        return clientRegistry.streamPool(getServiceName(serviceUrl), maxStreams, idleTimeoutMillis);
+    }
+    
+    /**
+     * サービス1つ分のインスタンスと負荷分散アルゴリズム
+     */
+    private record ServiceInstances(UpstreamInstance[] instances, LoadBalancer balancer) {
     }
 }
@@ -0,0 +1,102 @@
+package com.jakartaone2025.ski.gateway.routing;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * サービスを構成するインスタンス1つ分（URL と負荷分散用の統計）
+ *
+ * 実行中リクエスト数と応答時間の EWMA（時間減衰）を保持する。
+ * EWMA は複数スレッドから同期せずに更新するため近似値だが、負荷分散の判断には十分な精度がある。
+ */
+public final class UpstreamInstance {
+
+    // EWMA の減衰時定数（古いサンプルの重みが 1/e になるまでの時間）
+    private static final long DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+    // 失敗した呼び出しは最低でもこの応答時間として扱う（即座に失敗するインスタンスを選び続けないため）
+    private static final long FAILURE_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final String serviceName;
+    private final String url;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private volatile double ewmaNanos;
+    private volatile long lastSampleNanos = System.nanoTime();
+
+    public UpstreamInstance(String serviceName, String url) {
+        this.serviceName = serviceName;
+        this.url = url;
+    }
+
+    /**
+     * 呼び出しを開始する（終了時に必ず {@link Call#end()} すること）
+     */
+    public Call begin() {
+        outstanding.incrementAndGet();
+        return new Call();
+    }
+
+    void recordLatency(long latencyNanos, boolean failed) {
+        long sample = failed ? Math.max(latencyNanos, FAILURE_PENALTY_NANOS) : latencyNanos;
+        long now = System.nanoTime();
+        double previous = ewmaNanos;
+        if (previous == 0) {
+            ewmaNanos = sample;
+        } else {
+            double weight = Math.exp(-(double) Math.max(0, now - lastSampleNanos) / DECAY_NANOS);
+            ewmaNanos = previous * weight + sample * (1 - weight);
+        }
+        lastSampleNanos = now;
+    }
+
+    /**
+     * 負荷の指標（EWMA 応答時間 ×（実行中 + 1））。小さいほど空いている
+     */
+    double load() {
+        return ewmaNanos * (outstanding.get() + 1);
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public double getEwmaMillis() {
+        return ewmaNanos / 1_000_000.0;
+    }
+
+    /**
+     * インスタンスへの呼び出し1件分
+     *
+     * 応答時間は応答ヘッダー受信時点で記録し、実行中件数はレスポンスの転送完了後に減らす。
+     */
+    public final class Call {
+
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean recorded = new AtomicBoolean();
+        private final AtomicBoolean ended = new AtomicBoolean();
+
+        private Call() {
+        }
+
+        public void onResponse(boolean failed) {
+            if (recorded.compareAndSet(false, true)) {
+                recordLatency(System.nanoTime() - startNanos, failed);
+            }
+        }
+
+        public void end() {
+            if (ended.compareAndSet(false, true)) {
+                onResponse(true);
+                outstanding.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.jakartaone2025.ski.gateway.streaming;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import com.jakartaone2025.ski.gateway.resilience.UpstreamRejectedException;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * 上流サービス毎の長時間接続（WebSocket / SSE）数を数え、上限を超えた接続を拒否する
+ *
+ * 長時間接続は通常リクエスト用のバルクヘッドやレーンを占有しない代わりに、ここで接続数を制限する。
+ */
+@ApplicationScoped
+public class StreamingConnections {
+
+    private static final Logger logger = Logger.getLogger(StreamingConnections.class.getName());
+
+    /**
+     * 接続の種類（メトリクスのタグ値）
+     */
+    public enum Kind {
+        WEBSOCKET("websocket"), EVENT_STREAM("sse");
+
+        final String tag;
+
+        Kind(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    @Inject
+    private Config config;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    private StreamingSettings settings;
+    private final Map<String, Upstream> upstreams = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        settings = StreamingSettings.from(config);
+    }
+
+    public StreamingSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * 接続を開始する（終了時に必ず {@link Connection#close()} すること）
+     *
+     * @throws UpstreamRejectedException 上流サービスへの接続数が上限に達している場合
+     */
+    public Connection open(Kind kind, String serviceName) {
+        Upstream upstream = upstreams.computeIfAbsent(serviceName, this::createUpstream);
+        if (upstream.total.incrementAndGet() > settings.maxStreamsPerUpstream()) {
+            upstream.total.decrementAndGet();
+            upstream.rejected.increment();
+            logger.warning(String.format("Rejected %s connection to %s: %d connections open",
+                kind.tag, serviceName, settings.maxStreamsPerUpstream()));
+            throw new UpstreamRejectedException(serviceName, UpstreamRejectedException.Reason.BULKHEAD_FULL, 1);
+        }
+        upstream.active[kind.ordinal()].incrementAndGet();
+        return new Connection(upstream, kind);
+    }
+
+    /**
+     * 上流サービスへの接続中の数
+     */
+    public int getActive(String serviceName, Kind kind) {
+        Upstream upstream = upstreams.get(serviceName);
+        return upstream == null ? 0 : upstream.active[kind.ordinal()].get();
+    }
+
+    private Upstream createUpstream(String serviceName) {
+        Upstream upstream = new Upstream();
+        if (metricRegistry != null) {
+            Tag tag = new Tag("upstream", serviceName);
+            for (Kind kind : Kind.values()) {
+                metricRegistry.gauge("gateway.streams.active", upstream.active[kind.ordinal()], AtomicInteger::get,
+                    tag, new Tag("kind", kind.tag));
+            }
+            metricRegistry.gauge("gateway.streams.rejected", upstream.rejected, LongAdder::sum, tag);
+        }
+        return upstream;
+    }
+
+    void configure(StreamingSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * 上流サービス1つ分の接続数
+     */
+    private static final class Upstream {
+
+        private final AtomicInteger total = new AtomicInteger();
+        private final AtomicInteger[] active = new AtomicInteger[Kind.values().length];
+        private final LongAdder rejected = new LongAdder();
+
+        private Upstream() {
+            for (int i = 0; i < active.length; i++) {
+                active[i] = new AtomicInteger();
+            }
+        }
+    }
+
+    /**
+     * 接続1つ分（close は何度呼んでもよい）
+     */
+    public static final class Connection implements AutoCloseable {
+
+        private final Upstream upstream;
+        private final Kind kind;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Connection(Upstream upstream, Kind kind) {
+            this.upstream = upstream;
+            this.kind = kind;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                upstream.active[kind.ordinal()].decrementAndGet();
+                upstream.total.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.jakartaone2025.ski.gateway.streaming;
+
+import org.eclipse.microprofile.config.Config;
+
+/**
+ * 長時間接続（WebSocket / Server-Sent Events）の中継設定（{@code gateway.streaming.*}）
+ *
+ * @param webSocketEnabled WebSocket の中継エンドポイント（/ws/...）を公開するか
+ * @param maxStreamsPerUpstream 上流サービス毎の同時接続数の上限（超えた接続は 503 / 1013 で拒否）
+ * @param eventStreamIdleTimeoutMillis SSE で上流から何も届かない状態が続いた場合に切断するまでの時間
+ * @param webSocketIdleTimeoutMillis WebSocket でどちらからもフレームが届かない状態が続いた場合に切断するまでの時間
+ */
+public record StreamingSettings(
+        boolean webSocketEnabled,
+        int maxStreamsPerUpstream,
+        long eventStreamIdleTimeoutMillis,
+        long webSocketIdleTimeoutMillis) {
+
+    private static final String PREFIX = "gateway.streaming.";
+
+    /**
+     * 設定から読み込む
+     */
+    public static StreamingSettings from(Config config) {
+        return new StreamingSettings(
+            config.getOptionalValue(PREFIX + "websocket.enabled", Boolean.class).orElse(true),
+            config.getOptionalValue(PREFIX + "max-per-upstream", Integer.class).orElse(1000),
+            config.getOptionalValue(PREFIX + "sse.idle-timeout.ms", Long.class).orElse(120000L),
+            config.getOptionalValue(PREFIX + "websocket.idle-timeout.ms", Long.class).orElse(300000L)
+        );
+    }
+}
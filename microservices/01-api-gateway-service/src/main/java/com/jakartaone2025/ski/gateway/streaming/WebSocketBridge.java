@@ -0,0 +1,122 @@
+package com.jakartaone2025.ski.gateway.streaming;
+
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.Session;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * クライアントと上流の WebSocket セッションをつなぐ
+ *
+ * フレームは断片のまま同期送信で転送するため、メッセージ全体をバッファしない。
+ * 受信側の送信がブロックすれば送信元からの読み込みも止まり、遅い側に合わせてバックプレッシャーがかかる。
+ * どちらかが閉じた（またはエラーになった）場合は、もう一方も同じ理由で閉じる。
+ */
+final class WebSocketBridge {
+
+    private static final Logger logger = Logger.getLogger(WebSocketBridge.class.getName());
+
+    private final Session client;
+    private final StreamingConnections.Connection connection;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile Session upstream;
+
+    WebSocketBridge(Session client, StreamingConnections.Connection connection) {
+        this.client = client;
+        this.connection = connection;
+    }
+
+    /**
+     * 上流への接続完了（接続中にクライアントが切断していた場合は上流も閉じる）
+     */
+    void connected(Session upstreamSession) {
+        upstream = upstreamSession;
+        if (closed.get()) {
+            closeQuietly(upstreamSession, new CloseReason(CloseReason.CloseCodes.GOING_AWAY, "Client disconnected"));
+        }
+    }
+
+    void toUpstreamText(String part, boolean last) {
+        forwardText(upstream, part, last);
+    }
+
+    void toUpstreamBinary(ByteBuffer part, boolean last) {
+        forwardBinary(upstream, part, last);
+    }
+
+    void toClientText(String part, boolean last) {
+        forwardText(client, part, last);
+    }
+
+    void toClientBinary(ByteBuffer part, boolean last) {
+        forwardBinary(client, part, last);
+    }
+
+    private void forwardText(Session target, String part, boolean last) {
+        if (target == null || closed.get()) {
+            return;
+        }
+        try {
+            target.getBasicRemote().sendText(part, last);
+        } catch (IOException | IllegalStateException e) {
+            logger.fine(String.format("Failed to forward WebSocket frame: %s", e.getMessage()));
+            close(new CloseReason(CloseReason.CloseCodes.UNEXPECTED_CONDITION, "Peer unavailable"));
+        }
+    }
+
+    private void forwardBinary(Session target, ByteBuffer part, boolean last) {
+        if (target == null || closed.get()) {
+            return;
+        }
+        try {
+            target.getBasicRemote().sendBinary(part, last);
+        } catch (IOException | IllegalStateException e) {
+            logger.fine(String.format("Failed to forward WebSocket frame: %s", e.getMessage()));
+            close(new CloseReason(CloseReason.CloseCodes.UNEXPECTED_CONDITION, "Peer unavailable"));
+        }
+    }
+
+    /**
+     * 両方のセッションを閉じて接続数を戻す（最初の1回のみ有効）
+     */
+    void close(CloseReason reason) {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        connection.close();
+        CloseReason forwarded = forwardable(reason);
+        closeQuietly(client, forwarded);
+        closeQuietly(upstream, forwarded);
+    }
+
+    /**
+     * 相手に送れる終了理由に変換（1005 / 1006 / 1015 はフレームで送れない予約コード）
+     */
+    static CloseReason forwardable(CloseReason reason) {
+        if (reason == null) {
+            return new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, null);
+        }
+        int code = reason.getCloseCode().getCode();
+        if (code == CloseReason.CloseCodes.NO_STATUS_CODE.getCode()) {
+            return new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, reason.getReasonPhrase());
+        }
+        if (code == CloseReason.CloseCodes.CLOSED_ABNORMALLY.getCode()
+                || code == CloseReason.CloseCodes.TLS_HANDSHAKE_FAILURE.getCode()) {
+            return new CloseReason(CloseReason.CloseCodes.GOING_AWAY, reason.getReasonPhrase());
+        }
+        return reason;
+    }
+
+    private static void closeQuietly(Session session, CloseReason reason) {
+        if (session == null || !session.isOpen()) {
+            return;
+        }
+        try {
+            session.close(reason);
+        } catch (IOException | IllegalStateException e) {
+            logger.fine(String.format("Failed to close WebSocket session: %s", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.jakartaone2025.ski.gateway.streaming;
+
+import jakarta.websocket.Endpoint;
+import jakarta.websocket.server.ServerApplicationConfig;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.eclipse.microprofile.config.ConfigProvider;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * WebSocket 中継エンドポイントの登録
+ *
+ * パステンプレートは複数セグメントにマッチできないため、/ws/{p1} 〜 /ws/{p1}/.../{p8} を登録する。
+ */
+public class WebSocketProxyConfig implements ServerApplicationConfig {
+
+    static final int MAX_PATH_SEGMENTS = 8;
+
+    @Override
+    public Set<ServerEndpointConfig> getEndpointConfigs(Set<Class<? extends Endpoint>> endpointClasses) {
+        Set<ServerEndpointConfig> configs = new HashSet<>();
+        if (!StreamingSettings.from(ConfigProvider.getConfig()).webSocketEnabled()) {
+            return configs;
+        }
+        StringBuilder path = new StringBuilder(WebSocketProxyEndpoint.PATH_PREFIX);
+        for (int i = 1; i <= MAX_PATH_SEGMENTS; i++) {
+            path.append("/{p").append(i).append('}');
+            configs.add(ServerEndpointConfig.Builder.create(WebSocketProxyEndpoint.class, path.toString())
+                .configurator(new WebSocketProxyEndpoint.HandshakeConfigurator())
+                .build());
+        }
+        return configs;
+    }
+
+    @Override
+    public Set<Class<?>> getAnnotatedEndpointClasses(Set<Class<?>> scanned) {
+        return scanned;
+    }
+}
@@ -0,0 +1,261 @@
+package com.jakartaone2025.ski.gateway.streaming;
+
+import jakarta.enterprise.context.Dependent;
+import jakarta.enterprise.inject.spi.CDI;
+import jakarta.inject.Inject;
+import jakarta.websocket.ClientEndpointConfig;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.ContainerProvider;
+import jakarta.websocket.DeploymentException;
+import jakarta.websocket.Endpoint;
+import jakarta.websocket.EndpointConfig;
+import jakarta.websocket.HandshakeResponse;
+import jakarta.websocket.MessageHandler;
+import jakarta.websocket.Session;
+import jakarta.websocket.server.HandshakeRequest;
+import jakarta.websocket.server.ServerEndpointConfig;
+import com.jakartaone2025.ski.gateway.filter.HandshakeGuard;
+import com.jakartaone2025.ski.gateway.resilience.UpstreamRejectedException;
+import com.jakartaone2025.ski.gateway.routing.Route;
+import com.jakartaone2025.ski.gateway.routing.RoutingService;
+import com.jakartaone2025.ski.gateway.routing.UpstreamInstance;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * WebSocket 中継エンドポイント（/ws/&lt;ルートのパス&gt; を上流サービスの ws://&lt;インスタンス&gt;/&lt;パス&gt; へ中継）
+ *
+ * ハンドシェイク時に HTTP と同じ認証・レート制限を行い、ルート定義に従って転送先を決める。
+ * 接続は1つにつき1インスタンス（@Dependent）で、クライアント側・上流側ともに無通信タイムアウトを設定する。
+ */
+@Dependent
+public class WebSocketProxyEndpoint extends Endpoint {
+
+    private static final Logger logger = Logger.getLogger(WebSocketProxyEndpoint.class.getName());
+
+    static final String PATH_PREFIX = "/ws";
+
+    private static final String AUTHORIZATION_PROPERTY = "ws.authorization";
+    private static final String FORWARDED_FOR_PROPERTY = "ws.forwardedFor";
+    private static final String ACCESS_TOKEN_PARAMETER = "access_token";
+
+    @Inject
+    private RoutingService routingService;
+
+    @Inject
+    private HandshakeGuard handshakeGuard;
+
+    @Inject
+    private StreamingConnections streamingConnections;
+
+    private WebSocketBridge bridge;
+
+    @Override
+    public void onOpen(Session client, EndpointConfig config) {
+        String path = proxiedPath(client.getPathParameters());
+        Route route = routingService.findRoute(path);
+        if (route == null) {
+            logger.warning("Unknown WebSocket path: " + path);
+            closeQuietly(client, CloseReason.CloseCodes.CANNOT_ACCEPT, "Not Found");
+            return;
+        }
+
+        String forwardedFor = (String) client.getUserProperties().get(FORWARDED_FOR_PROPERTY);
+        HandshakeGuard.Result admission = handshakeGuard.check(path, bearerToken(client), forwardedFor);
+        if (admission.outcome() == HandshakeGuard.Outcome.RATE_LIMITED) {
+            closeQuietly(client, CloseReason.CloseCodes.TRY_AGAIN_LATER, "Rate limit exceeded");
+            return;
+        }
+        if (admission.outcome() == HandshakeGuard.Outcome.UNAUTHORIZED) {
+            closeQuietly(client, CloseReason.CloseCodes.VIOLATED_POLICY, "Unauthorized");
+            return;
+        }
+
+        StreamingConnections.Connection connection;
+        try {
+            connection = streamingConnections.open(StreamingConnections.Kind.WEBSOCKET, route.service());
+        } catch (UpstreamRejectedException e) {
+            closeQuietly(client, CloseReason.CloseCodes.TRY_AGAIN_LATER, "Service Unavailable");
+            return;
+        }
+
+        UpstreamInstance instance = routingService.chooseInstance(route.service());
+        WebSocketBridge opened = new WebSocketBridge(client, connection);
+        bridge = opened;
+        long idleTimeoutMillis = streamingConnections.getSettings().webSocketIdleTimeoutMillis();
+        client.setMaxIdleTimeout(idleTimeoutMillis);
+
+        // ロードバランサーにはハンドシェイクだけを 1 回の呼び出しとして記録する
+        // （接続中のセッションは StreamingConnections の接続数で管理する）
+        UpstreamInstance.Call call = instance.begin();
+        Session upstream;
+        try {
+            URI uri = upstreamUri(instance.getUrl(), route.rewrite(path), client.getQueryString());
+            upstream = ContainerProvider.getWebSocketContainer()
+                .connectToServer(new UpstreamEndpoint(opened), upstreamConfig(admission, forwardedFor), uri);
+            call.onResponse(false);
+            call.end();
+            routingService.reportSuccess(instance.getUrl());
+        } catch (DeploymentException | IOException | RuntimeException e) {
+            logger.severe(String.format("Error connecting WebSocket to %s: %s", path, e.getMessage()));
+            call.onResponse(true);
+            call.end();
+            routingService.reportFailure(instance.getUrl());
+            opened.close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "Upstream unavailable"));
+            return;
+        }
+        upstream.setMaxIdleTimeout(idleTimeoutMillis);
+        opened.connected(upstream);
+
+        client.addMessageHandler(String.class, (MessageHandler.Partial<String>) opened::toUpstreamText);
+        client.addMessageHandler(ByteBuffer.class, (MessageHandler.Partial<ByteBuffer>) opened::toUpstreamBinary);
+        logger.fine(String.format("WebSocket %s connected to %s", path, instance.getUrl()));
+    }
+
+    @Override
+    public void onClose(Session session, CloseReason closeReason) {
+        if (bridge != null) {
+            bridge.close(closeReason);
+        }
+    }
+
+    @Override
+    public void onError(Session session, Throwable error) {
+        logger.warning(String.format("WebSocket error: %s", error.getMessage()));
+        if (bridge != null) {
+            bridge.close(new CloseReason(CloseReason.CloseCodes.UNEXPECTED_CONDITION, "Proxy error"));
+        }
+    }
+
+    /**
+     * パスパラメータ（/ws/{p1}/{p2}/...）から中継先のパスを組み立てる
+     */
+    static String proxiedPath(Map<String, String> pathParameters) {
+        StringBuilder path = new StringBuilder();
+        for (int i = 1; pathParameters.containsKey("p" + i); i++) {
+            path.append('/').append(pathParameters.get("p" + i));
+        }
+        return path.length() == 0 ? "/" : path.toString();
+    }
+
+    /**
+     * 上流の WebSocket URI（http → ws、https → wss。トークンのクエリパラメータは転送しない）
+     */
+    static URI upstreamUri(String serviceUrl, String path, String queryString) {
+        String base = serviceUrl.startsWith("https://") ? "wss://" + serviceUrl.substring(8)
+            : serviceUrl.startsWith("http://") ? "ws://" + serviceUrl.substring(7)
+            : serviceUrl;
+        if (base.endsWith("/")) {
+            base = base.substring(0, base.length() - 1);
+        }
+        List<String> forwarded = new ArrayList<>();
+        if (queryString != null && !queryString.isEmpty()) {
+            for (String pair : queryString.split("&")) {
+                if (!pair.isEmpty() && !pair.startsWith(ACCESS_TOKEN_PARAMETER + "=")) {
+                    forwarded.add(pair);
+                }
+            }
+        }
+        return URI.create(base + path + (forwarded.isEmpty() ? "" : "?" + String.join("&", forwarded)));
+    }
+
+    /**
+     * Authorization ヘッダー、なければ access_token クエリパラメータ（ブラウザの WebSocket API はヘッダーを付けられないため）
+     */
+    private static String bearerToken(Session client) {
+        String authorization = (String) client.getUserProperties().get(AUTHORIZATION_PROPERTY);
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            return authorization.substring(7);
+        }
+        List<String> accessToken = client.getRequestParameterMap().get(ACCESS_TOKEN_PARAMETER);
+        return accessToken == null || accessToken.isEmpty() ? null : accessToken.get(0);
+    }
+
+    /**
+     * 上流へのハンドシェイクに付けるヘッダー（HTTP の中継と同じく検証済みのユーザー情報を転送）
+     */
+    private static ClientEndpointConfig upstreamConfig(HandshakeGuard.Result admission, String forwardedFor) {
+        return ClientEndpointConfig.Builder.create()
+            .configurator(new ClientEndpointConfig.Configurator() {
+                @Override
+                public void beforeRequest(Map<String, List<String>> headers) {
+                    headers.put("X-User-ID", List.of(admission.token().subject()));
+                    headers.put("X-Username", List.of(admission.token().username()));
+                    if (forwardedFor != null) {
+                        headers.put("X-Forwarded-For", List.of(forwardedFor));
+                    }
+                }
+            })
+            .build();
+    }
+
+    private static void closeQuietly(Session session, CloseReason.CloseCode code, String reason) {
+        try {
+            session.close(new CloseReason(code, reason));
+        } catch (IOException e) {
+            logger.fine(String.format("Failed to close WebSocket session: %s", e.getMessage()));
+        }
+    }
+
+    /**
+     * 上流側のセッション（受信したフレームをクライアントへ転送）
+     */
+    private static final class UpstreamEndpoint extends Endpoint {
+
+        private final WebSocketBridge bridge;
+
+        private UpstreamEndpoint(WebSocketBridge bridge) {
+            this.bridge = bridge;
+        }
+
+        @Override
+        public void onOpen(Session upstream, EndpointConfig config) {
+            upstream.addMessageHandler(String.class, (MessageHandler.Partial<String>) bridge::toClientText);
+            upstream.addMessageHandler(ByteBuffer.class, (MessageHandler.Partial<ByteBuffer>) bridge::toClientBinary);
+        }
+
+        @Override
+        public void onClose(Session upstream, CloseReason closeReason) {
+            bridge.close(closeReason);
+        }
+
+        @Override
+        public void onError(Session upstream, Throwable error) {
+            logger.warning(String.format("Upstream WebSocket error: %s", error.getMessage()));
+            bridge.close(new CloseReason(CloseReason.CloseCodes.UNEXPECTED_CONDITION, "Upstream error"));
+        }
+    }
+
+    /**
+     * ハンドシェイク要求から認証に使うヘッダーを取り出し、エンドポイントを CDI から取得する
+     */
+    static final class HandshakeConfigurator extends ServerEndpointConfig.Configurator {
+
+        @Override
+        public void modifyHandshake(ServerEndpointConfig config, HandshakeRequest request, HandshakeResponse response) {
+            config.getUserProperties().put(AUTHORIZATION_PROPERTY, firstHeader(request, "Authorization"));
+            String forwardedFor = firstHeader(request, "X-Forwarded-For");
+            config.getUserProperties().put(FORWARDED_FOR_PROPERTY,
+                forwardedFor == null ? null : forwardedFor.split(",")[0].trim());
+        }
+
+        @Override
+        public <T> T getEndpointInstance(Class<T> endpointClass) {
+            return CDI.current().select(endpointClass).get();
+        }
+
+        private static String firstHeader(HandshakeRequest request, String name) {
+            for (Map.Entry<String, List<String>> header : request.getHeaders().entrySet()) {
+                if (header.getKey().equalsIgnoreCase(name) && !header.getValue().isEmpty()) {
+                    return header.getValue().get(0);
+                }
+            }
+            return null;
+        }
+    }
+}
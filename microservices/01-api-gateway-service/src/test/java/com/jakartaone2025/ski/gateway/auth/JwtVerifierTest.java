@@ -0,0 +1,106 @@
+package com.jakartaone2025.ski.gateway.auth;
+
+import org.junit.jupiter.api.Test;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * JwtVerifier / VerifiedTokenCache のテスト
+ */
+class JwtVerifierTest {
+
+    private static final String ISSUER = "https://ski-equipment-shop.com";
+    private static final String AUDIENCE = "ski-equipment-shop";
+    private static final long NOW = 1_700_000_000L;
+
+    private final KeyPair keyPair = generateKeyPair();
+    private final JwtVerifier verifier = new JwtVerifier(keyPair.getPublic(), ISSUER, AUDIENCE, 30);
+
+    @Test
+    void extractsClaimsFromValidToken() throws Exception {
+        String token = sign(keyPair.getPrivate(), claims(AUDIENCE, NOW + 600));
+
+        VerifiedToken verified = verifier.verify(token, NOW);
+
+        assertEquals("user-1", verified.subject());
+        assertEquals("alice", verified.username());
+        assertEquals(Set.of("USER", "ADMIN"), verified.roles());
+    }
+
+    @Test
+    void rejectsBadSignatureExpiryAndAudience() throws Exception {
+        String forged = sign(generateKeyPair().getPrivate(), claims(AUDIENCE, NOW + 600));
+        assertThrows(InvalidTokenException.class, () -> verifier.verify(forged, NOW));
+
+        // 許容するずれ（30秒）を超えて期限切れ
+        String expired = sign(keyPair.getPrivate(), claims(AUDIENCE, NOW - 31));
+        assertThrows(InvalidTokenException.class, () -> verifier.verify(expired, NOW));
+
+        String otherAudience = sign(keyPair.getPrivate(), claims("other-service", NOW + 600));
+        assertThrows(InvalidTokenException.class, () -> verifier.verify(otherAudience, NOW));
+
+        assertThrows(InvalidTokenException.class, () -> verifier.verify("not.a-jwt", NOW));
+    }
+
+    @Test
+    void cacheVerifiesOncePerTokenLifetime() throws Exception {
+        AtomicLong now = new AtomicLong(NOW);
+        AtomicInteger verifications = new AtomicInteger();
+        VerifiedTokenCache cache = new VerifiedTokenCache(2, now::get);
+        String token = sign(keyPair.getPrivate(), claims(AUDIENCE, NOW + 60));
+
+        VerifiedToken first = cache.get(token, t -> {
+            verifications.incrementAndGet();
+            return verifier.verify(t, now.get());
+        });
+        VerifiedToken second = cache.get(token, t -> {
+            verifications.incrementAndGet();
+            return verifier.verify(t, now.get());
+        });
+        assertSame(first, second);
+        assertEquals(1, verifications.get());
+
+        // 有効期限（+ 許容するずれ）を過ぎると削除され、再検証で拒否される
+        now.set(NOW + 91);
+        assertEquals(1, cache.evictExpired());
+        assertThrows(InvalidTokenException.class, () -> cache.get(token, t -> verifier.verify(t, now.get())));
+        assertEquals(0, cache.size());
+    }
+
+    private static String claims(String audience, long exp) {
+        return String.format("{\"iss\":\"%s\",\"sub\":\"user-1\",\"aud\":[\"%s\"],\"preferred_username\":\"alice\","
+            + "\"groups\":[\"USER\",\"ADMIN\"],\"iat\":%d,\"exp\":%d}", ISSUER, audience, exp - 3600, exp);
+    }
+
+    private static String sign(PrivateKey privateKey, String claimsJson) throws GeneralSecurityException {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String signingInput = encoder.encodeToString("{\"alg\":\"RS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8))
+            + "." + encoder.encodeToString(claimsJson.getBytes(StandardCharsets.UTF_8));
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(privateKey);
+        signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + "." + encoder.encodeToString(signature.sign());
+    }
+
+    private static KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.jakartaone2025.ski.gateway.benchmark;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigValue;
+import org.eclipse.microprofile.config.spi.ConfigSource;
+import org.eclipse.microprofile.config.spi.Converter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * ベンチマーク用の Config（META-INF/microprofile-config.properties をそのまま読む）
+ *
+ * コンテナなしで RoutingService 等の本物の Bean を組み立てるために使う。
+ * 文字列・数値・真偽値と、カンマ区切りの配列だけを扱う。
+ */
+public final class PropertiesConfig implements Config {
+
+    private final Properties properties = new Properties();
+
+    private PropertiesConfig() {
+    }
+
+    /**
+     * ゲートウェイの設定ファイルを読み込む
+     */
+    public static PropertiesConfig load() {
+        PropertiesConfig config = new PropertiesConfig();
+        try (InputStream in = PropertiesConfig.class.getClassLoader()
+                .getResourceAsStream("META-INF/microprofile-config.properties")) {
+            if (in == null) {
+                throw new IllegalStateException("META-INF/microprofile-config.properties not found");
+            }
+            config.properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return config;
+    }
+
+    /**
+     * 設定を上書き（スタブの上流 URL を差し込む場合など）
+     */
+    public PropertiesConfig with(String name, String value) {
+        properties.setProperty(name, value);
+        return this;
+    }
+
+    @Override
+    public <T> T getValue(String propertyName, Class<T> propertyType) {
+        return getOptionalValue(propertyName, propertyType)
+            .orElseThrow(() -> new NoSuchElementException("Missing config property: " + propertyName));
+    }
+
+    @Override
+    public <T> Optional<T> getOptionalValue(String propertyName, Class<T> propertyType) {
+        String raw = properties.getProperty(propertyName);
+        if (raw == null || raw.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.of(convert(raw.trim(), propertyType));
+    }
+
+    @Override
+    public ConfigValue getConfigValue(String propertyName) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Iterable<String> getPropertyNames() {
+        return properties.stringPropertyNames();
+    }
+
+    @Override
+    public Iterable<ConfigSource> getConfigSources() {
+        return List.of();
+    }
+
+    @Override
+    public <T> Optional<Converter<T>> getConverter(Class<T> forType) {
+        return Optional.empty();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) {
+        throw new IllegalArgumentException("Cannot unwrap to " + type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T convert(String raw, Class<T> type) {
+        if (type.isArray()) {
+            String[] parts = raw.split(",");
+            Object array = Array.newInstance(type.getComponentType(), parts.length);
+            for (int i = 0; i < parts.length; i++) {
+                Array.set(array, i, convert(parts[i].trim(), type.getComponentType()));
+            }
+            return (T) array;
+        }
+        Object value;
+        if (type == String.class) {
+            value = raw;
+        } else if (type == Integer.class || type == int.class) {
+            value = Integer.valueOf(raw);
+        } else if (type == Long.class || type == long.class) {
+            value = Long.valueOf(raw);
+        } else if (type == Boolean.class || type == boolean.class) {
+            value = Boolean.valueOf(raw);
+        } else if (type == Double.class || type == double.class) {
+            value = Double.valueOf(raw);
+        } else {
+            throw new IllegalArgumentException("Unsupported config type: " + type);
+        }
+        return (T) value;
+    }
+}
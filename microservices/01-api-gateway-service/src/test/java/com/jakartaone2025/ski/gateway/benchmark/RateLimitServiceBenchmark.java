@@ -0,0 +1,80 @@
+package com.jakartaone2025.ski.gateway.benchmark;
+
+import com.jakartaone2025.ski.gateway.client.UpstreamClientRegistry;
+import com.jakartaone2025.ski.gateway.filter.InMemoryRateLimitService;
+import com.jakartaone2025.ski.gateway.health.UpstreamHealthMonitor;
+import com.jakartaone2025.ski.gateway.routing.RoutingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RateLimitingFilter が 1 リクエスト毎に行うレート制限判定のベンチマーク
+ *
+ * 設定ファイルのルート・レートクラスから組み立てた InMemoryRateLimitService に対し、
+ * フィルタと同じく isRequestAllowed と getRemaining（X-RateLimit-Remaining 用）を呼ぶ。
+ * 実行例: mvn -Pbenchmark test-compile exec:exec -Djmh.args="RateLimitServiceBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class RateLimitServiceBenchmark {
+
+    /** 異なるクライアントIDの数 */
+    @Param({"1000", "100000"})
+    public int clients;
+
+    private static final String[] PATHS = {
+        "/api/v1/products/7f1c3e2a-0000-4000-8000-000000000001",
+        "/cart/items",
+        "/orders/42",
+        "/auth/login",
+        "/support/chat/sessions/42"
+    };
+
+    private String[] clientIds;
+    private InMemoryRateLimitService rateLimitService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 上限に達して拒否ばかりにならないよう、計測中は十分大きな上限にする
+        int limit = Integer.MAX_VALUE / 2;
+        PropertiesConfig config = PropertiesConfig.load().with("gateway.ratelimit.auth.requests", String.valueOf(limit));
+        RoutingService routingService = new RoutingService(config, new UpstreamClientRegistry(), new UpstreamHealthMonitor());
+        rateLimitService = new InMemoryRateLimitService(routingService, config, limit, 60, clients * 2, 4096);
+
+        clientIds = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            clientIds[i] = "ip:10." + (i >>> 16) + "." + ((i >>> 8) & 0xff) + "." + (i & 0xff);
+            clientIds[i].hashCode();
+            rateLimitService.isRequestAllowed(clientIds[i], PATHS[i % PATHS.length]);
+        }
+    }
+
+    @Benchmark
+    public int allowAndRemaining() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String clientId = clientIds[random.nextInt(clientIds.length)];
+        String path = PATHS[random.nextInt(PATHS.length)];
+        if (!rateLimitService.isRequestAllowed(clientId, path)) {
+            return -1;
+        }
+        return rateLimitService.getRemaining(clientId, path);
+    }
+}
@@ -0,0 +1,67 @@
+package com.jakartaone2025.ski.gateway.benchmark;
+
+import com.jakartaone2025.ski.gateway.filter.SlidingWindowRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * レート制限エンジンのベンチマーク（多数の異なるクライアントID）
+ *
+ * 定常状態でのアロケーションは -prof gc の gc.alloc.rate.norm で確認する。
+ * 実行例: mvn -Pbenchmark test-compile exec:exec -Djmh.args="RateLimiterBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    /** 異なるクライアントIDの数 */
+    @Param({"1000000"})
+    public int clients;
+
+    /** 追跡上限（クライアント数より小さい場合は残りがオーバーフロー領域に入る） */
+    @Param({"1000000", "100000"})
+    public int maxClients;
+
+    private String[] clientIds;
+    private SlidingWindowRateLimiter limiter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        clientIds = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            clientIds[i] = "ip:10." + (i >>> 16) + "." + ((i >>> 8) & 0xff) + "." + (i & 0xff);
+            // String#hashCode をキャッシュさせておく（リクエストヘッダ由来の文字列と同じ条件）
+            clientIds[i].hashCode();
+        }
+        limiter = new SlidingWindowRateLimiter(60_000, 2, maxClients, 4096);
+
+        // 全クライアントを一巡させて定常状態にする
+        for (String clientId : clientIds) {
+            limiter.tryAcquire(clientId, 0, 100);
+        }
+    }
+
+    @Benchmark
+    public boolean tryAcquire() {
+        String clientId = clientIds[ThreadLocalRandom.current().nextInt(clients)];
+        return limiter.tryAcquire(clientId, 0, 100);
+    }
+}
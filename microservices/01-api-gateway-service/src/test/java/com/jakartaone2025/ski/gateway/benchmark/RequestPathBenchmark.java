@@ -0,0 +1,64 @@
+package com.jakartaone2025.ski.gateway.benchmark;
+
+import com.jakartaone2025.ski.gateway.client.UpstreamClientRegistry;
+import com.jakartaone2025.ski.gateway.health.UpstreamHealthMonitor;
+import com.jakartaone2025.ski.gateway.routing.Route;
+import com.jakartaone2025.ski.gateway.routing.RoutingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GatewayResource がリクエスト毎に行うパス正規化とルート解決のベンチマーク
+ *
+ * RouteLookupBenchmark はルートテーブル単体、こちらは設定ファイルから組み立てた RoutingService を通す。
+ * 実行例: mvn -Pbenchmark test-compile exec:exec -Djmh.args="RequestPathBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestPathBenchmark {
+
+    @Param({
+        "api/v1/products/7f1c3e2a-0000-4000-8000-000000000001",
+        "cart/./items//42",
+        "support/chat/../chat/sessions/42"
+    })
+    public String path;
+
+    private RoutingService routingService;
+    private String normalizedPath;
+
+    @Setup
+    public void setUp() {
+        routingService = new RoutingService(PropertiesConfig.load(), new UpstreamClientRegistry(), new UpstreamHealthMonitor());
+        normalizedPath = RoutingService.normalizePath(path);
+    }
+
+    @Benchmark
+    public String normalize() {
+        return RoutingService.normalizePath(path);
+    }
+
+    @Benchmark
+    public Route resolveRoute() {
+        return routingService.resolveRoute(normalizedPath);
+    }
+
+    @Benchmark
+    public Route normalizeAndResolve() {
+        return routingService.resolveRoute(RoutingService.normalizePath(path));
+    }
+}
@@ -0,0 +1,113 @@
+package com.jakartaone2025.ski.gateway.benchmark;
+
+import com.jakartaone2025.ski.gateway.routing.Route;
+import com.jakartaone2025.ski.gateway.routing.RouteTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ルート解決のベンチマーク（旧 if/else チェーン vs コンパイル済みトライ木）
+ *
+ * 実行例: mvn -Pbenchmark test-compile exec:exec -Djmh.args="RouteLookupBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteLookupBenchmark {
+
+    @Param({
+        "/users/123",
+        "/api/v1/products/7f1c3e2a-0000-4000-8000-000000000001",
+        "/support/chat/sessions/42"
+    })
+    public String path;
+
+    /** トライ木の検索コストがルート数に依存しないことを確認するための追加ルート数 */
+    @Param({"0", "200"})
+    public int extraRoutes;
+
+    private RouteTable routeTable;
+
+    @Setup
+    public void setUp() {
+        List<Route> routes = new ArrayList<>(List.of(
+            route("users", "/users", "user"),
+            route("catalog", "/api/v1/products", "product"),
+            route("catalog", "/api/v1/categories", "product"),
+            route("catalog", "/products", "product"),
+            route("catalog", "/categories", "product"),
+            route("auth", "/auth", "auth"),
+            route("inventory", "/inventory", "inventory"),
+            route("orders", "/orders", "order"),
+            route("payments", "/payments", "payment"),
+            route("cart", "/cart", "cart"),
+            route("coupons", "/coupons", "coupon"),
+            route("coupons", "/discounts", "coupon"),
+            route("points", "/points", "point"),
+            route("points", "/loyalty", "point"),
+            route("ai", "/ai", "ai"),
+            route("ai", "/support", "ai")
+        ));
+        for (int i = 0; i < extraRoutes; i++) {
+            routes.add(route("bff" + i, "/bff/v" + i + "/page", "frontend"));
+        }
+        routeTable = RouteTable.compile(routes);
+    }
+
+    @Benchmark
+    public String legacyChain() {
+        return legacyResolve(path);
+    }
+
+    @Benchmark
+    public String compiledTrie() {
+        return routeTable.lookup(path).service();
+    }
+
+    private static Route route(String name, String prefix, String service) {
+        return new Route(name, prefix, service, null, 0, "default", false, false, false, "standard");
+    }
+
+    /**
+     * 旧 RoutingService.resolveServiceUrl と同じ判定順序のチェーン
+     */
+    private static String legacyResolve(String path) {
+        if (path.startsWith("/users")) {
+            return "user";
+        } else if (path.startsWith("/api/v1/products") || path.startsWith("/api/v1/categories") || path.startsWith("/products") || path.startsWith("/categories")) {
+            return "product";
+        } else if (path.startsWith("/auth")) {
+            return "auth";
+        } else if (path.startsWith("/inventory")) {
+            return "inventory";
+        } else if (path.startsWith("/orders")) {
+            return "order";
+        } else if (path.startsWith("/payments")) {
+            return "payment";
+        } else if (path.startsWith("/cart")) {
+            return "cart";
+        } else if (path.startsWith("/coupons") || path.startsWith("/discounts")) {
+            return "coupon";
+        } else if (path.startsWith("/points") || path.startsWith("/loyalty")) {
+            return "point";
+        } else if (path.startsWith("/ai") || path.startsWith("/support")) {
+            return "ai";
+        }
+        throw new IllegalArgumentException("Unknown service path: " + path);
+    }
+}
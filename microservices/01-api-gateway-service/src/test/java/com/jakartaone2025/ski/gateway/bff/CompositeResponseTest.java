@@ -0,0 +1,64 @@
+package com.jakartaone2025.ski.gateway.bff;
+
+import org.junit.jupiter.api.Test;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CompositeResponse のテスト
+ */
+class CompositeResponseTest {
+
+    @Test
+    void combinesAllPartsInOrder() throws Exception {
+        CompositeResponse.Result result = new CompositeResponse()
+            .required("product", CompletableFuture.completedFuture("{\"id\":\"p1\"}"), 1000)
+            .optional("cart", CompletableFuture.completedFuture("{\"items\":[]}"), 1000)
+            .optional("loyalty", CompletableFuture.completedFuture(null), 1000)
+            .assemble().toCompletableFuture().get(1, TimeUnit.SECONDS);
+
+        assertFalse(result.partial());
+        assertEquals("{\"product\":{\"id\":\"p1\"},\"cart\":{\"items\":[]},\"loyalty\":null,\"partial\":false,\"errors\":{}}",
+            result.body());
+    }
+
+    @Test
+    void degradesFailedAndSlowOptionalParts() throws Exception {
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        long start = System.nanoTime();
+        CompositeResponse.Result result = new CompositeResponse()
+            .required("product", CompletableFuture.completedFuture("{\"id\":\"p1\"}"), 1000)
+            .optional("cart", CompletableFuture.failedFuture(new UpstreamStatusException("cart", 500)), 1000)
+            .optional("recommendations", slow, 50)
+            .assemble().toCompletableFuture().get(1, TimeUnit.SECONDS);
+
+        // 遅いパートはそのパートのタイムアウトで打ち切られる
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(900));
+        assertTrue(result.partial());
+        assertEquals(Map.of("cart", "status-500", "recommendations", "timeout"), result.errors());
+        assertTrue(result.body().startsWith("{\"product\":{\"id\":\"p1\"},\"cart\":null,\"recommendations\":null,\"partial\":true"));
+        // タイムアウトは元の呼び出しには影響しない
+        assertFalse(slow.isDone());
+    }
+
+    @Test
+    void failsWithoutWaitingWhenRequiredPartFails() {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<CompositeResponse.Result> result = new CompositeResponse()
+            .required("product", CompletableFuture.failedFuture(new UpstreamStatusException("product", 404)), 1000)
+            .optional("cart", pending, 5000)
+            .assemble().toCompletableFuture();
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(UpstreamStatusException.class, error.getCause());
+        assertEquals(404, ((UpstreamStatusException) error.getCause()).getStatus());
+    }
+}
@@ -0,0 +1,148 @@
+package com.jakartaone2025.ski.gateway.cache;
+
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import com.jakartaone2025.ski.gateway.compression.CompressionSettings;
+import org.junit.jupiter.api.Test;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ResponseCache のテスト
+ */
+class ResponseCacheTest {
+
+    private final ResponseCache cache = new ResponseCache();
+
+    @Test
+    void normalizesQueryOrderInKey() {
+        MultivaluedMap<String, String> first = new MultivaluedHashMap<>();
+        first.add("page", "2");
+        first.add("category", "ski");
+        MultivaluedMap<String, String> second = new MultivaluedHashMap<>();
+        second.add("category", "ski");
+        second.add("page", "2");
+
+        assertEquals(ResponseCache.baseKey("GET", "/api/v1/products", first),
+            ResponseCache.baseKey("GET", "/api/v1/products", second));
+    }
+
+    @Test
+    void parsesCacheControlForSharedCache() {
+        CacheDirectives directives = CacheDirectives.parse("public, max-age=60, s-maxage=120, stale-while-revalidate=30");
+        assertEquals(120, directives.freshnessSeconds(10));
+        assertEquals(30, directives.staleSeconds(0));
+
+        assertEquals(0, CacheDirectives.parse("no-cache").freshnessSeconds(10));
+        assertTrue(CacheDirectives.parse("private, max-age=60").privateResponse());
+        assertEquals(10, CacheDirectives.parse(null).freshnessSeconds(10));
+    }
+
+    @Test
+    void rejectsPrivateAndCookieResponses() {
+        cache.configure(1024 * 1024, 1024, 30, 30);
+        assertFalse(cache.isStorable(200, CacheDirectives.parse("private"), headers()));
+        assertFalse(cache.isStorable(200, CacheDirectives.NONE, headers("Set-Cookie", "session=1")));
+        assertFalse(cache.isStorable(200, CacheDirectives.NONE, headers("Vary", "*")));
+        assertFalse(cache.isStorable(500, CacheDirectives.NONE, headers()));
+        assertTrue(cache.isStorable(200, CacheDirectives.parse("max-age=60"), headers()));
+    }
+
+    @Test
+    void storesAuthorizedResponsesOnlyWhenExplicitlyShared() {
+        cache.configure(1024 * 1024, 1024, 30, 30);
+        assertFalse(cache.isStorable(200, CacheDirectives.NONE, headers(), true));
+        assertFalse(cache.isStorable(200, CacheDirectives.parse("max-age=60"), headers(), true));
+        assertTrue(cache.isStorable(200, CacheDirectives.parse("public, max-age=60"), headers(), true));
+        assertTrue(cache.isStorable(200, CacheDirectives.parse("s-maxage=60"), headers(), true));
+        assertFalse(cache.isStorable(200, CacheDirectives.parse("public, no-store"), headers(), true));
+    }
+
+    @Test
+    void storesVariantsPerVaryHeader() {
+        cache.configure(1024 * 1024, 1024, 30, 30);
+        String baseKey = ResponseCache.baseKey("GET", "/api/v1/categories", null);
+        Function<String, String> japanese = header(Map.of("accept-language", "ja"));
+        Function<String, String> english = header(Map.of("accept-language", "en"));
+
+        CachedResponse ja = cache.store(baseKey, japanese, 200, headers("Vary", "Accept-Language"),
+            "カテゴリ".getBytes(), CacheDirectives.NONE);
+
+        assertSame(ja, cache.get(cache.variantKey(baseKey, japanese)));
+        assertNull(cache.get(cache.variantKey(baseKey, english)));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntriesOverByteLimit() {
+        cache.configure(1500, 1024, 30, 30);
+        Function<String, String> noHeaders = name -> null;
+        byte[] body = new byte[400];
+
+        cache.store("GET /a", noHeaders, 200, headers(), body, CacheDirectives.NONE);
+        cache.store("GET /b", noHeaders, 200, headers(), body, CacheDirectives.NONE);
+        assertNotNull(cache.get("GET /a"));
+        cache.store("GET /c", noHeaders, 200, headers(), body, CacheDirectives.NONE);
+
+        // /a は直前に参照されたため /b が破棄される
+        assertNotNull(cache.get("GET /a"));
+        assertNull(cache.get("GET /b"));
+        assertNotNull(cache.get("GET /c"));
+        assertTrue(cache.getCurrentBytes() <= 1500);
+    }
+
+    @Test
+    void servesStaleWithinRevalidationWindow() {
+        cache.configure(1024 * 1024, 1024, 30, 30);
+        CachedResponse entry = cache.store("GET /a", name -> null, 200, headers("ETag", "\"v1\""),
+            new byte[10], CacheDirectives.parse("max-age=0, stale-while-revalidate=60"));
+        long now = System.currentTimeMillis();
+
+        assertFalse(entry.isFresh(now));
+        assertTrue(entry.isServableStale(now));
+        assertTrue(entry.tryStartRevalidation());
+        assertFalse(entry.tryStartRevalidation());
+        assertTrue(entry.matches("W/\"v1\""));
+    }
+
+    @Test
+    void storesCompressibleBodiesPrecompressed() {
+        cache.configure(1024 * 1024, 64 * 1024, 30, 30, new CompressionSettings(true, 256, 5));
+        byte[] json = "{\"name\": \"ski\"}, ".repeat(200).getBytes(StandardCharsets.UTF_8);
+        CachedResponse entry = cache.store("GET /products", name -> null, 200,
+            headers("Content-Type", "application/json", "Content-Length", String.valueOf(json.length)),
+            json, CacheDirectives.NONE);
+
+        assertTrue(entry.isGzipped());
+        assertTrue(entry.getBody().length < json.length);
+        assertFalse(entry.getHeaders().containsKey("Content-Length"));
+        assertArrayEquals(json, entry.bodyFor(false));
+        assertSame(entry.getBody(), entry.bodyFor(true));
+
+        // 小さいボディや画像は圧縮しない
+        assertFalse(cache.store("GET /small", name -> null, 200, headers("Content-Type", "application/json"),
+            new byte[100], CacheDirectives.NONE).isGzipped());
+        assertFalse(cache.store("GET /image", name -> null, 200, headers("Content-Type", "image/png"),
+            json, CacheDirectives.NONE).isGzipped());
+    }
+
+    private static MultivaluedMap<String, Object> headers(String... nameValues) {
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        for (int i = 0; i < nameValues.length; i += 2) {
+            headers.add(nameValues[i], nameValues[i + 1]);
+        }
+        return headers;
+    }
+
+    private static Function<String, String> header(Map<String, String> values) {
+        return values::get;
+    }
+}
@@ -0,0 +1,105 @@
+package com.jakartaone2025.ski.gateway.client;
+
+import com.jakartaone2025.ski.gateway.resilience.UpstreamRejectedException;
+import org.jboss.resteasy.client.jaxrs.ResteasyClient;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpAsyncClient4Engine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * UpstreamClientPool（同時借用数の上限とアイドル破棄）のテスト
+ */
+class UpstreamClientPoolTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private UpstreamClientPool pool(int maxConnections, boolean asyncEngine) {
+        return new UpstreamClientPool("catalog",
+            new UpstreamClientSettings(maxConnections, 100, 1000, 20, 60, 0, asyncEngine), scheduler);
+    }
+
+    @Test
+    void acquireIsRejectedOnceMaxConnectionsAreLeased() throws Exception {
+        UpstreamClientPool pool = pool(2, false);
+        UpstreamClientPool.Lease first = pool.acquire().join();
+        UpstreamClientPool.Lease second = pool.acquire().join();
+        assertEquals(2, pool.getInFlight());
+        assertEquals(1.0, pool.getSaturation());
+
+        // 空きがなければ checkout-timeout 待った後に拒否される
+        UpstreamRejectedException rejected = rejection(pool.acquire());
+        assertEquals(UpstreamRejectedException.Reason.POOL_EXHAUSTED, rejected.getReason());
+        assertEquals(1, pool.getCheckoutTimeouts());
+
+        // 返却すれば再び借用でき、二重に返却しても枠は増えない
+        first.close();
+        first.close();
+        UpstreamClientPool.Lease third = pool.acquire().join();
+        assertEquals(2, pool.getInFlight());
+        rejection(pool.acquire());
+
+        second.close();
+        third.close();
+        assertEquals(0, pool.getInFlight());
+        assertEquals(3, pool.getTotalLeases());
+    }
+
+    @Test
+    void waitingCheckoutCompletesWhenLeaseIsReturned() throws Exception {
+        UpstreamClientPool pool = pool(1, false);
+        UpstreamClientPool.Lease held = pool.acquire().join();
+
+        // 待っている間はスレッドを使わず、返却された枠がそのまま渡される
+        CompletableFuture<UpstreamClientPool.Lease> waiting = pool.acquire();
+        assertFalse(waiting.isDone());
+        held.close();
+        waiting.get(1, TimeUnit.SECONDS).close();
+        assertEquals(0, pool.getInFlight());
+        assertEquals(0, pool.getCheckoutTimeouts());
+    }
+
+    @Test
+    void asyncEngineIsBuiltFromPoolSettings() {
+        UpstreamClientPool pool = pool(1, true);
+        UpstreamClientPool.Lease lease = pool.acquire().join();
+        try {
+            ResteasyClient client = (ResteasyClient) lease.client();
+            assertInstanceOf(ApacheHttpAsyncClient4Engine.class, client.httpEngine());
+            assertTrue(pool.isOpen());
+        } finally {
+            lease.close();
+            pool.close();
+        }
+    }
+
+    @Test
+    void idlePoolWithoutClientIsNotEvicted() {
+        UpstreamClientPool pool = pool(1, false);
+        pool.acquire().join().close();
+
+        // クライアントを使っていなければ破棄するものはない
+        assertFalse(pool.isOpen());
+        assertFalse(pool.evictIfIdle(System.currentTimeMillis() + 1000));
+    }
+
+    private static UpstreamRejectedException rejection(CompletableFuture<UpstreamClientPool.Lease> checkout) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> checkout.get(1, TimeUnit.SECONDS));
+        return assertInstanceOf(UpstreamRejectedException.class, e.getCause());
+    }
+}
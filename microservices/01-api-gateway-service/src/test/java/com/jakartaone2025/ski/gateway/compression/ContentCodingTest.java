@@ -0,0 +1,47 @@
+package com.jakartaone2025.ski.gateway.compression;
+
+import org.junit.jupiter.api.Test;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ContentCoding / CompressionSettings のテスト
+ */
+class ContentCodingTest {
+
+    @Test
+    void negotiatesGzipFromAcceptEncoding() {
+        assertTrue(ContentCoding.acceptsGzip("gzip, deflate, br"));
+        assertTrue(ContentCoding.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(ContentCoding.acceptsGzip("*"));
+        assertFalse(ContentCoding.acceptsGzip("gzip;q=0, *"));
+        assertFalse(ContentCoding.acceptsGzip("identity"));
+        assertFalse(ContentCoding.acceptsGzip(null));
+    }
+
+    @Test
+    void compressesOnlyTextualBodiesAboveThreshold() {
+        CompressionSettings settings = new CompressionSettings(true, 1024, 5);
+        assertTrue(settings.shouldCompress(4096, "application/json; charset=UTF-8"));
+        assertTrue(settings.shouldCompress(-1, "application/problem+json"));
+        assertFalse(settings.shouldCompress(512, "application/json"));
+        assertFalse(settings.shouldCompress(4096, "image/jpeg"));
+        assertFalse(settings.shouldCompress(-1, "text/event-stream"));
+        assertFalse(CompressionSettings.DISABLED.shouldCompress(4096, "text/html"));
+    }
+
+    @Test
+    void roundTripsAndWeakensEtag() {
+        byte[] body = "{\"items\": []}".repeat(100).getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = ContentCoding.gzip(body, 5);
+        assertTrue(compressed.length < body.length);
+        assertArrayEquals(body, ContentCoding.gunzip(compressed));
+
+        assertEquals("W/\"v1\"", ContentCoding.weakEtag("\"v1\""));
+        assertEquals("W/\"v1\"", ContentCoding.weakEtag("W/\"v1\""));
+    }
+}
@@ -0,0 +1,96 @@
+package com.jakartaone2025.ski.gateway.filter;
+
+import org.junit.jupiter.api.Test;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LeasedQuotaLimiter のテスト（Redis の代わりにプロセス内のストアを使用）
+ */
+class LeasedQuotaLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(60_000);
+    private final InProcessQuotaStore store = new InProcessQuotaStore();
+
+    @Test
+    void leasesQuotaInBatches() {
+        LeasedQuotaLimiter node = node();
+        for (int i = 0; i < 25; i++) {
+            assertTrue(node.tryAcquire("ip:1", 0, "default", 100));
+        }
+        // 10件ずつリースするため、ストアへの問い合わせは3回のみ
+        assertEquals(3, node.getStoreCalls());
+    }
+
+    @Test
+    void enforcesLimitAcrossNodes() {
+        LeasedQuotaLimiter first = node();
+        LeasedQuotaLimiter second = node();
+        int allowed = 0;
+        for (int i = 0; i < 30; i++) {
+            if (first.tryAcquire("ip:1", 0, "default", 25)) {
+                allowed++;
+            }
+            if (second.tryAcquire("ip:1", 0, "default", 25)) {
+                allowed++;
+            }
+        }
+        assertEquals(25, allowed);
+
+        // 使い切った後は次のウィンドウまでストアに問い合わせない
+        long calls = first.getStoreCalls();
+        assertFalse(first.tryAcquire("ip:1", 0, "default", 25));
+        assertEquals(calls, first.getStoreCalls());
+
+        now.addAndGet(60_000);
+        assertTrue(first.tryAcquire("ip:1", 0, "default", 25));
+    }
+
+    @Test
+    void fallsBackToLocalLimitingWhenStoreIsUnavailable() {
+        LeasedQuotaLimiter node = node();
+        store.available = false;
+        for (int i = 0; i < 5; i++) {
+            assertTrue(node.tryAcquire("ip:1", 0, "default", 5));
+        }
+        assertFalse(node.tryAcquire("ip:1", 0, "default", 5));
+        assertEquals(1, node.getStoreFailures());
+
+        // 再試行間隔の経過後はストアに戻る
+        store.available = true;
+        now.addAndGet(5_000);
+        assertTrue(node.tryAcquire("ip:1", 0, "default", 5));
+    }
+
+    private LeasedQuotaLimiter node() {
+        SlidingWindowRateLimiter fallback = new SlidingWindowRateLimiter(60_000, 1, 100, 16, now::get);
+        return new LeasedQuotaLimiter(store, fallback, 60_000, 1, 10, 100, 5_000, now::get);
+    }
+
+    /**
+     * Lua スクリプトと同じ規則でクォータを確保するプロセス内ストア
+     */
+    private static class InProcessQuotaStore implements QuotaStore {
+        private final Map<String, Long> used = new HashMap<>();
+        volatile boolean available = true;
+
+        @Override
+        public synchronized Grant acquire(String key, int requested, int limit, long ttlMillis) {
+            if (!available) {
+                throw new IllegalStateException("Connection refused");
+            }
+            long current = used.getOrDefault(key, 0L);
+            int grant = (int) Math.min(requested, limit - current);
+            if (grant <= 0) {
+                return new Grant(0, current);
+            }
+            used.put(key, current + grant);
+            return new Grant(grant, current + grant);
+        }
+    }
+}
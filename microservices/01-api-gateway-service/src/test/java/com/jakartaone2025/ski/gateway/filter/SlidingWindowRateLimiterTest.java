@@ -0,0 +1,93 @@
+package com.jakartaone2025.ski.gateway.filter;
+
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SlidingWindowRateLimiter のテスト
+ */
+class SlidingWindowRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(60_000);
+    private final SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(60_000, 2, 10, 16, now::get);
+
+    @Test
+    void rejectsRequestsOverLimitWithinWindow() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("ip:1", 0, 3));
+        }
+        assertFalse(limiter.tryAcquire("ip:1", 0, 3));
+        assertEquals(0, limiter.remaining("ip:1", 0, 3));
+
+        // 別クライアント・別レートクラスは独立
+        assertTrue(limiter.tryAcquire("ip:2", 0, 3));
+        assertTrue(limiter.tryAcquire("ip:1", 1, 3));
+    }
+
+    @Test
+    void weightsPreviousWindowByRemainingFraction() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire("ip:1", 0, 10));
+        }
+
+        // 次のウィンドウの半分経過時点: 直前の10件が5件分として数えられる
+        now.set(150_000);
+        assertEquals(5, limiter.remaining("ip:1", 0, 10));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("ip:1", 0, 10));
+        }
+        assertFalse(limiter.tryAcquire("ip:1", 0, 10));
+
+        // 2ウィンドウ以上空けば完全にリセット
+        now.addAndGet(120_000);
+        assertEquals(10, limiter.remaining("ip:1", 0, 10));
+    }
+
+    @Test
+    void boundsTrackedClientsAndEvictsIdleOnes() {
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire("ip:" + i, 0, 100);
+        }
+        assertEquals(10, limiter.getTrackedClients());
+        assertEquals(40, limiter.getOverflowCount());
+
+        now.addAndGet(120_000);
+        assertEquals(10, limiter.evictIdle());
+        assertEquals(0, limiter.getTrackedClients());
+    }
+
+    @Test
+    void reclaimsIdleClientsWhenCapIsReached() {
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire("ip:" + i, 0, 100);
+        }
+
+        // 上限に達していても、アイドルなクライアントを削除して新規クライアントを追跡する
+        now.addAndGet(120_000);
+        assertTrue(limiter.tryAcquire("ip:100", 0, 100));
+        assertEquals(1, limiter.getTrackedClients());
+        assertEquals(0, limiter.getOverflowCount());
+    }
+
+    @Test
+    void overflowClientsDoNotConsumeEachOthersLimit() {
+        // 追跡しない（全員が1つの共有スロットに入る）
+        SlidingWindowRateLimiter shared = new SlidingWindowRateLimiter(60_000, 1, 0, 1, now::get);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(shared.tryAcquire("ip:1", 0, 3));
+        }
+        assertFalse(shared.tryAcquire("ip:1", 0, 3));
+
+        // 同じスロットの別クライアントは自分の上限分だけ使える
+        assertEquals(3, shared.remaining("ip:2", 0, 3));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(shared.tryAcquire("ip:2", 0, 3));
+        }
+        assertFalse(shared.tryAcquire("ip:2", 0, 3));
+        assertEquals(0, shared.getTrackedClients());
+    }
+}
@@ -0,0 +1,89 @@
+package com.jakartaone2025.ski.gateway.filter;
+
+import org.junit.jupiter.api.Test;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * WaitingRoom のテスト
+ */
+class WaitingRoomTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicLong millis = new AtomicLong(1_700_000_000_000L);
+    private final WaitingRoom waitingRoom = new WaitingRoom();
+
+    WaitingRoomTest() {
+        // 毎分 60 人（1 秒に 1 人）、空いている時は 2 人まで即時入場
+        waitingRoom.configure(Set.of("cart"), 60, 2, 15, 120, "secret".getBytes(StandardCharsets.UTF_8),
+            nanos::get, millis::get);
+    }
+
+    @Test
+    void admitsBurstThenQueuesWithPositionAndEta() {
+        WaitingRoom.Admission first = waitingRoom.admit(null, "user:a");
+        assertTrue(first.admitted());
+        assertTrue(first.token().startsWith("p."));
+        assertTrue(waitingRoom.admit(null, "user:b").admitted());
+
+        WaitingRoom.Admission third = waitingRoom.admit(null, "user:c");
+        WaitingRoom.Admission fourth = waitingRoom.admit(null, "user:d");
+        assertFalse(third.admitted());
+        assertEquals(1, third.position());
+        assertEquals(2, fourth.position());
+        assertEquals(2, fourth.etaSeconds());
+        assertEquals(2, waitingRoom.getWaiting());
+
+        // 入場券があれば待たずに通過し、新しい券は発行しない
+        WaitingRoom.Admission again = waitingRoom.admit(first.token(), "user:a");
+        assertTrue(again.admitted());
+        assertNull(again.token());
+    }
+
+    @Test
+    void ticketIsExchangedForPassWhenItsTurnComes() {
+        waitingRoom.admit(null, "user:a");
+        waitingRoom.admit(null, "user:b");
+        String ticket = waitingRoom.admit(null, "user:c").token();
+        waitingRoom.admit(null, "user:d");
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(1, waitingRoom.check(ticket, "user:c").position());
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        WaitingRoom.Admission admitted = waitingRoom.admit(ticket, "user:c");
+        assertTrue(admitted.admitted());
+        assertTrue(admitted.token().startsWith("p."));
+        assertTrue(waitingRoom.check(admitted.token(), "user:c").admitted());
+        assertEquals(1, waitingRoom.getWaiting());
+    }
+
+    @Test
+    void rejectsForeignTamperedAndExpiredTokens() {
+        String pass = waitingRoom.admit(null, "user:a").token();
+        waitingRoom.admit(null, "user:b");
+        String ticket = waitingRoom.admit(null, "user:c").token();
+
+        // 別のクライアントの券・改ざんした券は無効（新しい整理券が発行される）
+        assertNull(waitingRoom.check(pass, "user:x"));
+        String[] parts = ticket.split("\\.");
+        String forged = parts[0] + ".0." + parts[2] + "." + parts[3];
+        assertNull(waitingRoom.check(forged, "user:c"));
+        WaitingRoom.Admission reissued = waitingRoom.admit(forged, "user:c");
+        assertFalse(reissued.admitted());
+        assertNotNull(reissued.token());
+        assertEquals(2, reissued.position());
+
+        // 入場券は有効期限（15 分）を過ぎると無効
+        millis.addAndGet(TimeUnit.MINUTES.toMillis(16));
+        assertNull(waitingRoom.check(pass, "user:a"));
+    }
+}
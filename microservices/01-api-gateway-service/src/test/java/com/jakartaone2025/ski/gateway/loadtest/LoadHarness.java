@@ -0,0 +1,177 @@
+package com.jakartaone2025.ski.gateway.loadtest;
+
+import com.jakartaone2025.ski.gateway.resilience.LatencyHistogram;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ゲートウェイの負荷試験ハーネス
+ *
+ * スタブ上流（{@link StubUpstream}）を起動し、一定の同時実行数でリクエストを送り続けて
+ * スループットとレイテンシのパーセンタイルを表示する（クローズドループ）。
+ * ゲートウェイはスタブを向くよう services.&lt;name&gt;.url を上書きして別途起動しておく
+ * （起動時に上書き用の -D オプションを表示し、target が応答するまで待つ）。
+ * target を省略するとスタブへ直接送り、ゲートウェイなしの基準値を測る。
+ *
+ * 実行例:
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="stubs=product:18083 latency.ms=5 payload.bytes=2048
+ *     target=http://localhost:8080/api/products/1 concurrency=64 duration.seconds=30"
+ */
+public final class LoadHarness {
+
+    private final HttpClient client;
+    private final URI target;
+    private final int concurrency;
+
+    public LoadHarness(URI target, int concurrency) {
+        this.target = target;
+        this.concurrency = concurrency;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    }
+
+    /**
+     * 計測結果
+     */
+    public record Result(long requests, long errors, double elapsedSeconds, LatencyHistogram latencies) {
+
+        public double throughput() {
+            return requests / elapsedSeconds;
+        }
+
+        public double percentileMillis(double quantile) {
+            return latencies.percentileNanos(quantile) / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "requests=%d errors=%d throughput=%.1f req/s p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms",
+                requests, errors, throughput(), percentileMillis(0.50), percentileMillis(0.90),
+                percentileMillis(0.99), percentileMillis(0.999));
+        }
+    }
+
+    /**
+     * 指定時間だけ負荷をかけて計測（2xx 以外の応答と例外はエラーとして数え、レイテンシには含めない）
+     */
+    public Result run(Duration duration) throws InterruptedException {
+        // ヒストグラムのウィンドウを計測時間より長くして、全サンプルを集計対象にする
+        LatencyHistogram latencies = new LatencyHistogram(duration.toMillis() * 2 + 1000, System::nanoTime);
+        LongAdder requests = new LongAdder();
+        LongAdder errors = new LongAdder();
+        HttpRequest request = HttpRequest.newBuilder(target)
+            .timeout(Duration.ofSeconds(30))
+            .header("Accept", "application/json")
+            .GET()
+            .build();
+
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(() -> {
+                while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() / 100 == 2) {
+                            latencies.record(System.nanoTime() - sent);
+                            requests.increment();
+                        } else {
+                            errors.increment();
+                        }
+                    } catch (IOException e) {
+                        errors.increment();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(duration.toMillis() + 60_000, TimeUnit.MILLISECONDS)) {
+            workers.shutdownNow();
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        return new Result(requests.sum(), errors.sum(), elapsedSeconds, latencies);
+    }
+
+    /**
+     * target が 2xx を返すまで待つ（ゲートウェイの起動待ち）
+     */
+    public boolean awaitReady(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        HttpRequest request = HttpRequest.newBuilder(target).timeout(Duration.ofSeconds(5)).GET().build();
+        while (System.nanoTime() < deadline) {
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() / 100 == 2) {
+                    return true;
+                }
+            } catch (IOException e) {
+                // 起動前
+            }
+            Thread.sleep(1000);
+        }
+        return false;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value: " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        long latencyMillis = Long.parseLong(options.getOrDefault("latency.ms", "5"));
+        int payloadBytes = Integer.parseInt(options.getOrDefault("payload.bytes", "2048"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup.seconds", "10")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration.seconds", "30")));
+        Duration readyTimeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("ready.seconds", "300")));
+
+        // stubs=<service>:<port>,... （ポート固定でゲートウェイの設定から参照できるようにする）
+        List<StubUpstream> stubs = new ArrayList<>();
+        try {
+            for (String stub : options.getOrDefault("stubs", "product:18083").split(",")) {
+                String[] parts = stub.trim().split(":");
+                StubUpstream upstream = StubUpstream.start(Integer.parseInt(parts[1]), latencyMillis, payloadBytes);
+                stubs.add(upstream);
+                System.out.printf("stub %s -> %s (latency=%dms, payload=%dB)  -Dservices.%s.url=%s%n",
+                    parts[0], upstream.getUrl(), latencyMillis, payloadBytes, parts[0], upstream.getUrl());
+            }
+
+            URI target = URI.create(options.getOrDefault("target", stubs.get(0).getUrl() + "/api/v1/products"));
+            LoadHarness harness = new LoadHarness(target, concurrency);
+            System.out.printf("waiting for %s ...%n", target);
+            if (!harness.awaitReady(readyTimeout)) {
+                System.err.printf("target did not become ready within %ds%n", readyTimeout.toSeconds());
+                System.exit(1);
+            }
+
+            System.out.printf("warmup %ds, concurrency=%d%n", warmup.toSeconds(), concurrency);
+            harness.run(warmup);
+            System.out.printf("measuring %ds, concurrency=%d%n", duration.toSeconds(), concurrency);
+            System.out.println(harness.run(duration));
+        } finally {
+            stubs.forEach(StubUpstream::close);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.jakartaone2025.ski.gateway.loadtest;
+
+import org.junit.jupiter.api.Test;
+import java.net.URI;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadHarnessTest {
+
+    @Test
+    void measuresThroughputAndLatencyAgainstStub() throws Exception {
+        try (StubUpstream stub = StubUpstream.start(0, 20, 512)) {
+            LoadHarness harness = new LoadHarness(URI.create(stub.getUrl() + "/api/v1/products"), 4);
+            assertTrue(harness.awaitReady(Duration.ofSeconds(5)));
+
+            LoadHarness.Result result = harness.run(Duration.ofMillis(500));
+
+            assertEquals(0, result.errors());
+            assertTrue(result.requests() > 0);
+            assertTrue(result.throughput() > 0);
+            // スタブの遅延（20ms）より速く応答することはない（ヒストグラムの誤差 12.5% を見込む）
+            assertTrue(result.percentileMillis(0.50) >= 17.5, result.toString());
+            assertTrue(result.percentileMillis(0.99) >= result.percentileMillis(0.50));
+        }
+    }
+
+    @Test
+    void healthCheckIsNotDelayed() throws Exception {
+        try (StubUpstream stub = StubUpstream.start(0, 5_000, 16)) {
+            LoadHarness harness = new LoadHarness(URI.create(stub.getUrl() + "/health"), 1);
+            assertTrue(harness.awaitReady(Duration.ofSeconds(2)));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.jakartaone2025.ski.gateway.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 負荷試験用の軽量なスタブ上流サービス（JDK 組み込みの HTTP サーバー）
+ *
+ * 任意のパスに対して、指定した遅延の後に指定サイズの JSON を 200 で返す。
+ * /health には遅延なしで応答するため、ゲートウェイのヘルスチェックでは常に UP になる。
+ */
+public final class StubUpstream implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyMillis;
+    private final byte[] payload;
+
+    private StubUpstream(HttpServer server, ExecutorService executor, long latencyMillis, byte[] payload) {
+        this.server = server;
+        this.executor = executor;
+        this.latencyMillis = latencyMillis;
+        this.payload = payload;
+    }
+
+    /**
+     * スタブを起動
+     *
+     * @param port 待ち受けポート（0 なら空きポート）
+     * @param latencyMillis 応答までの遅延
+     * @param payloadBytes レスポンスボディのサイズ
+     */
+    public static StubUpstream start(int port, long latencyMillis, int payloadBytes) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        // 遅延中もスレッドを占有しないよう仮想スレッドで処理する
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        StubUpstream stub = new StubUpstream(server, executor, latencyMillis, payloadOf(payloadBytes));
+        server.createContext("/", stub::handle);
+        server.setExecutor(executor);
+        server.start();
+        return stub;
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try (InputStream body = exchange.getRequestBody()) {
+                body.transferTo(OutputStream.nullOutputStream());
+            }
+            if (latencyMillis > 0 && !exchange.getRequestURI().getPath().endsWith("/health")) {
+                try {
+                    Thread.sleep(latencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, payload.length);
+            exchange.getResponseBody().write(payload);
+        }
+    }
+
+    /**
+     * 指定サイズの JSON（{"data":"xxx..."}）
+     */
+    private static byte[] payloadOf(int payloadBytes) {
+        String prefix = "{\"data\":\"";
+        String suffix = "\"}";
+        int fill = Math.max(0, payloadBytes - prefix.length() - suffix.length());
+        char[] data = new char[fill];
+        Arrays.fill(data, 'x');
+        return (prefix + new String(data) + suffix).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
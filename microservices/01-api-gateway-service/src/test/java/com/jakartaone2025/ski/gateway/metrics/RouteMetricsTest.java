@@ -0,0 +1,78 @@
+package com.jakartaone2025.ski.gateway.metrics;
+
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RouteMetrics / RequestTiming のテスト
+ */
+class RouteMetricsTest {
+
+    private final RouteMetrics metrics = new RouteMetrics();
+
+    RouteMetricsTest() {
+        metrics.configure(60);
+    }
+
+    @Test
+    void splitsLatencyIntoQueueUpstreamAndTotal() throws InterruptedException {
+        RequestTiming timing = new RequestTiming(System.nanoTime());
+        timing.route("catalog", "product");
+        timing.admitted();
+        timing.upstreamSent();
+        Thread.sleep(20);
+        timing.firstByte();
+        // ヘッジ等で 2 回目の応答が届いても最初の応答を記録する
+        Thread.sleep(20);
+        timing.firstByte();
+        timing.status(200);
+        metrics.record(timing, true);
+
+        double queue = metrics.percentileMillis("catalog", "product", RouteMetrics.Phase.QUEUE, 0.99);
+        double upstream = metrics.percentileMillis("catalog", "product", RouteMetrics.Phase.UPSTREAM, 0.99);
+        double total = metrics.percentileMillis("catalog", "product", RouteMetrics.Phase.TOTAL, 0.99);
+        assertTrue(queue < 20, "queue=" + queue);
+        assertTrue(upstream >= 20 && upstream < total, "upstream=" + upstream);
+        assertTrue(total >= 40, "total=" + total);
+    }
+
+    @Test
+    void skipsPhasesThatDidNotHappen() {
+        // キャッシュヒット（上流を呼ばない）と SSE（応答完了までの時間を記録しない）
+        RequestTiming hit = new RequestTiming(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5));
+        hit.route("catalog", "product");
+        hit.admitted();
+        hit.status(200);
+        metrics.record(hit, false);
+
+        assertEquals(0, metrics.percentileMillis("catalog", "product", RouteMetrics.Phase.UPSTREAM, 0.99));
+        assertEquals(0, metrics.percentileMillis("catalog", "product", RouteMetrics.Phase.TOTAL, 0.99));
+        assertTrue(metrics.percentileMillis("catalog", "product", RouteMetrics.Phase.QUEUE, 0.99) >= 5);
+    }
+
+    @Test
+    void countsStatusCodesAndBytesPerRouteAndUpstream() {
+        for (int status : new int[] {200, 200, 503}) {
+            RequestTiming timing = new RequestTiming(System.nanoTime());
+            timing.route("orders", "order");
+            timing.status(status);
+            timing.addBytesIn(100);
+            timing.addBytesOut(1000);
+            assertTrue(timing.complete());
+            metrics.record(timing, true);
+        }
+        // ルートを決める前に拒否したリクエスト
+        RequestTiming limited = new RequestTiming(System.nanoTime());
+        limited.status(429);
+        metrics.record(limited, true);
+
+        assertEquals(2, metrics.getResponses("orders", "order", 200));
+        assertEquals(1, metrics.getResponses("orders", "order", 503));
+        assertEquals(300, metrics.getBytesIn("orders", "order"));
+        assertEquals(3000, metrics.getBytesOut("orders", "order"));
+        assertEquals(1, metrics.getResponses(RouteMetrics.UNMATCHED, RouteMetrics.UNMATCHED, 429));
+    }
+}
@@ -0,0 +1,90 @@
+package com.jakartaone2025.ski.gateway.proxy;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * HedgedRequests のテスト
+ */
+class HedgedRequestsTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final HedgedRequests hedgedRequests = new HedgedRequests();
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void sendsHedgeAfterDelayAndTakesFirstResponse() throws Exception {
+        hedgedRequests.configure(scheduler, 0.95, 20, 1000, 5, 0.5, 0);
+        warmUp("catalog");
+
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        AtomicInteger attempts = new AtomicInteger();
+        CompletionStage<String> result = hedgedRequests.execute("catalog", "product", attempt -> {
+            attempts.incrementAndGet();
+            return attempt == 0 ? slow : CompletableFuture.completedFuture("hedge");
+        });
+
+        assertEquals("hedge", result.toCompletableFuture().get(1, TimeUnit.SECONDS));
+        assertEquals(2, attempts.get());
+        // 遅れて返った最初の試行は無視される
+        slow.complete("primary");
+        assertEquals("hedge", result.toCompletableFuture().get());
+    }
+
+    @Test
+    void retriesFailedAttemptOnceWithinBudget() throws Exception {
+        hedgedRequests.configure(scheduler, 0.95, 20, 1000, 1000, 1.0, 0);
+
+        CompletionStage<String> result = hedgedRequests.execute("users", "user", attempt -> attempt == 0
+            ? CompletableFuture.failedFuture(new IOException("connection refused"))
+            : CompletableFuture.completedFuture("retried"));
+        assertEquals("retried", result.toCompletableFuture().get(1, TimeUnit.SECONDS));
+
+        // 2 回目も失敗した場合はそれ以上再送しない
+        AtomicInteger attempts = new AtomicInteger();
+        CompletionStage<String> failed = hedgedRequests.execute("users", "user", attempt -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.failedFuture(new IOException("connection refused"));
+        });
+        ExecutionException error = assertThrows(ExecutionException.class,
+            () -> failed.toCompletableFuture().get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, error.getCause());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void doesNotResendWhenBudgetIsExhausted() {
+        hedgedRequests.configure(scheduler, 0.95, 20, 1000, 1000, 0, 0);
+
+        AtomicInteger attempts = new AtomicInteger();
+        CompletionStage<String> result = hedgedRequests.execute("users", "user", attempt -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.failedFuture(new IOException("connection refused"));
+        });
+        assertThrows(ExecutionException.class, () -> result.toCompletableFuture().get(1, TimeUnit.SECONDS));
+        assertEquals(1, attempts.get());
+    }
+
+    private void warmUp(String route) throws Exception {
+        for (int i = 0; i < 5; i++) {
+            hedgedRequests.execute(route, "product", attempt -> CompletableFuture.completedFuture("ok"))
+                .toCompletableFuture().get();
+        }
+    }
+}
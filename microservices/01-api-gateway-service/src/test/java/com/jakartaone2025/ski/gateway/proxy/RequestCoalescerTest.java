@@ -0,0 +1,66 @@
+package com.jakartaone2025.ski.gateway.proxy;
+
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * RequestCoalescer のテスト
+ */
+class RequestCoalescerTest {
+
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+
+    @Test
+    void sharesSingleInFlightCall() throws Exception {
+        coalescer.configure(5_000);
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+
+        CompletionStage<String> leader = coalescer.execute("GET /products", () -> {
+            calls.incrementAndGet();
+            return upstream;
+        });
+        CompletionStage<String> follower = coalescer.execute("GET /products", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("own");
+        });
+
+        upstream.complete("shared");
+        assertEquals("shared", leader.toCompletableFuture().get());
+        assertEquals("shared", follower.toCompletableFuture().get());
+        assertEquals(1, calls.get());
+
+        // 完了後の同じキーは新しい呼び出しになる
+        CompletionStage<String> next = coalescer.execute("GET /products", () -> CompletableFuture.completedFuture("next"));
+        assertEquals("next", next.toCompletableFuture().get());
+    }
+
+    @Test
+    void followerCallsUpstreamItselfAfterMaxWait() throws Exception {
+        coalescer.configure(50);
+        coalescer.execute("GET /ai", CompletableFuture::new);
+
+        CompletionStage<String> follower = coalescer.execute("GET /ai", () -> CompletableFuture.completedFuture("own"));
+        assertEquals("own", follower.toCompletableFuture().get());
+    }
+
+    @Test
+    void sharesUpstreamFailure() {
+        coalescer.configure(5_000);
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        coalescer.execute("GET /products", () -> upstream);
+        CompletionStage<String> follower = coalescer.execute("GET /products",
+            () -> CompletableFuture.completedFuture("own"));
+
+        upstream.completeExceptionally(new IllegalStateException("upstream down"));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> follower.toCompletableFuture().get());
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+    }
+}
@@ -0,0 +1,100 @@
+package com.jakartaone2025.ski.gateway.resilience;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * PriorityLanes のテスト
+ */
+class PriorityLanesTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final TrafficLane critical = new TrafficLane("critical", 0, new LaneSettings(1, 1, 200, 1), scheduler);
+    private final TrafficLane browse = new TrafficLane("browse", 1, new LaneSettings(1, 1, 50, 2), scheduler);
+    private final PriorityLanes lanes = new PriorityLanes();
+
+    PriorityLanesTest() {
+        lanes.configure(List.of(critical, browse));
+    }
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void queuedRequestIsAdmittedWhenSlotIsReleased() throws Exception {
+        TrafficLane.Slot first = lanes.admit("critical").join();
+        // 待っている間はスレッドを使わず、枠が返却されるまで完了しない
+        CompletableFuture<TrafficLane.Slot> queued = lanes.admit("critical");
+        assertFalse(queued.isDone());
+        assertEquals(1, critical.getWaiting());
+
+        first.release();
+        // 二重に release しても枠は1つしか返らない
+        first.release();
+        queued.get(1, TimeUnit.SECONDS).release();
+        assertEquals(0, critical.getInFlight());
+        assertEquals(0, critical.getWaiting());
+        assertEquals(2, critical.getAdmitted());
+    }
+
+    @Test
+    void shedsWhenQueueIsFullOrSloIsExceeded() throws Exception {
+        TrafficLane.Slot held = lanes.admit("browse").join();
+        CompletableFuture<TrafficLane.Slot> waiter = lanes.admit("browse");
+
+        // 待ち行列（1件）が一杯なら待たずに遮断
+        LoadShedException full = shedBy(lanes.admit("browse"));
+        assertSame(LoadShedException.Reason.QUEUE_FULL, full.getReason());
+        assertEquals(2, full.getRetryAfterSeconds());
+        // 待っていたリクエストは SLO を超えた時点で遮断
+        assertSame(LoadShedException.Reason.QUEUE_TIMEOUT, shedBy(waiter).getReason());
+        assertEquals(0, browse.getWaiting());
+        assertTrue(browse.isCongested());
+
+        // 遮断した待ちには枠を渡さない
+        held.release();
+        assertEquals(0, browse.getInFlight());
+    }
+
+    @Test
+    void lowPriorityLaneIsShedWhileHigherLaneIsCongested() throws Exception {
+        TrafficLane.Slot held = lanes.admit("critical").join();
+        CompletableFuture<TrafficLane.Slot> queued = lanes.admit("critical");
+        shedBy(lanes.admit("critical"));
+        assertTrue(critical.isCongested());
+
+        // browse 自身の枠は空いているが、critical が混雑している間は譲る（待たずに呼び出したスレッドで通知）
+        List<Object> outcomes = new ArrayList<>();
+        lanes.admit("browse", outcomes::add, outcomes::add);
+        assertEquals(1, outcomes.size());
+        assertSame(LoadShedException.Reason.PRIORITY, ((LoadShedException) outcomes.get(0)).getReason());
+        assertEquals(0, browse.getInFlight());
+
+        // 優先度の高いレーンは低いレーンの混雑の影響を受けない。未定義のレーンは制限しない
+        held.release();
+        queued.get(1, TimeUnit.SECONDS).release();
+        lanes.admit("critical").join().release();
+        assertSame(TrafficLane.Slot.NONE, lanes.admit("unknown").join());
+    }
+
+    private static LoadShedException shedBy(CompletableFuture<TrafficLane.Slot> admission) throws Exception {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> admission.get(1, TimeUnit.SECONDS));
+        return assertInstanceOf(LoadShedException.class, e.getCause());
+    }
+}
@@ -0,0 +1,89 @@
+package com.jakartaone2025.ski.gateway.resilience;
+
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * UpstreamGuard（サーキットブレーカー・バルクヘッド・同時実行数制限）のテスト
+ */
+class UpstreamGuardTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private static ResilienceSettings settings(int maxConcurrent, int initialLimit) {
+        return new ResilienceSettings(50, 4, 10, 10_000, 2, maxConcurrent, initialLimit, 1, maxConcurrent);
+    }
+
+    @Test
+    void circuitOpensOnFailureRateAndClosesAfterSuccessfulProbes() {
+        CircuitBreaker breaker = new CircuitBreaker(settings(10, 10), now::get);
+
+        // 最小件数に達するまでは失敗率に関わらず閉じたまま
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(10, breaker.retryAfterSeconds());
+
+        // 遮断時間の経過後は試行枠の分だけ許可し、失敗すれば再び遮断
+        now.addAndGet(10_000);
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        now.addAndGet(10_000);
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.onSuccess();
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void bulkheadRejectsBeyondMaxConcurrentAndFreesOnRelease() {
+        UpstreamGuard guard = new UpstreamGuard("payment", settings(2, 2), now::get);
+
+        UpstreamGuard.Permit first = guard.acquire();
+        guard.acquire();
+        UpstreamRejectedException rejected = assertThrows(UpstreamRejectedException.class, guard::acquire);
+        assertEquals(UpstreamRejectedException.Reason.BULKHEAD_FULL, rejected.getReason());
+
+        first.onResponse(200);
+        first.release();
+        first.release();
+        assertEquals(1, guard.getInFlight());
+        guard.acquire();
+    }
+
+    @Test
+    void concurrencyLimitBacksOffOnDropsAndGrowsWhenLatencyIsStable() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 100);
+        long rtt = TimeUnit.MILLISECONDS.toNanos(10);
+
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(rtt, 20, false);
+        }
+        int grown = limit.getLimit();
+        assertTrue(grown > 20, "limit should grow while latency is stable: " + grown);
+
+        // 応答時間が大きく伸びたら上限を下げる
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(rtt * 10, grown, false);
+        }
+        int slowed = limit.getLimit();
+        assertTrue(slowed < grown, "limit should shrink on latency increase: " + slowed);
+
+        limit.onSample(rtt, slowed, true);
+        assertEquals((int) (slowed * 0.9), limit.getLimit(), 1);
+    }
+}
@@ -0,0 +1,66 @@
+package com.jakartaone2025.ski.gateway.routing;
+
+import org.junit.jupiter.api.Test;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LoadBalancer のテスト
+ */
+class LoadBalancerTest {
+
+    private final UpstreamInstance a = new UpstreamInstance("product", "http://product-a:8083");
+    private final UpstreamInstance b = new UpstreamInstance("product", "http://product-b:8083");
+    private final UpstreamInstance c = new UpstreamInstance("product", "http://product-c:8083");
+    private final UpstreamInstance[] instances = {a, b, c};
+
+    @Test
+    void roundRobinSkipsUnavailableInstances() {
+        LoadBalancer balancer = LoadBalancer.create("round-robin");
+        Predicate<UpstreamInstance> available = instance -> instance != b;
+
+        Map<UpstreamInstance, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 6; i++) {
+            counts.merge(balancer.choose(instances, available), 1, Integer::sum);
+        }
+        assertEquals(Set.of(a, c), counts.keySet());
+
+        // 全インスタンスが利用できない場合もいずれかを返す
+        assertTrue(Set.of(instances).contains(balancer.choose(instances, instance -> false)));
+    }
+
+    @Test
+    void leastOutstandingPrefersIdleInstance() {
+        LoadBalancer balancer = LoadBalancer.create("least-outstanding");
+        a.begin();
+        a.begin();
+        c.begin();
+
+        for (int i = 0; i < 3; i++) {
+            assertSame(b, balancer.choose(instances, instance -> true));
+        }
+    }
+
+    @Test
+    void powerOfTwoChoicesAvoidsSlowAndUnavailableInstances() {
+        LoadBalancer balancer = LoadBalancer.create("p2c-ewma");
+        a.recordLatency(500_000_000L, false);
+        b.recordLatency(5_000_000L, false);
+        c.recordLatency(5_000_000L, false);
+
+        // 遅いインスタンスは2つの候補に入っても選ばれない
+        for (int i = 0; i < 100; i++) {
+            assertNotSame(a, balancer.choose(instances, instance -> true));
+        }
+        for (int i = 0; i < 100; i++) {
+            assertSame(a, balancer.choose(instances, instance -> instance == a));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.jakartaone2025.ski.gateway.routing;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * RouteTable のテスト
+ */
+class RouteTableTest {
+
+    private final RouteTable routeTable = RouteTable.compile(List.of(
+        new Route("catalog", "/api/v1/products", "product", null, 0, "default", true, false, false, "standard"),
+        new Route("inventory", "/api/v1/inventory", "inventory", "/inventory", 5, "default", false, false, false, "standard"),
+        new Route("auth", "/auth", "auth", null, 0, "auth", false, false, false, "standard"),
+        new Route("ai", "/ai", "ai", null, 60, "default", false, false, false, "standard")
+    ));
+
+    @Test
+    void resolvesLongestMatchingPrefix() {
+        assertEquals("product", routeTable.lookup("/api/v1/products/123").service());
+        assertEquals("inventory", routeTable.lookup("/api/v1/inventory").service());
+        assertEquals("auth", routeTable.lookup("/auth/login").service());
+    }
+
+    @Test
+    void returnsNullForUnknownPath() {
+        assertNull(routeTable.lookup("/unknown"));
+        assertNull(routeTable.lookup("/api/v1"));
+        assertNull(routeTable.lookup(""));
+    }
+
+    @Test
+    void rewritesMatchedPrefix() {
+        Route route = routeTable.lookup("/api/v1/inventory/items/42");
+        assertEquals("/inventory/items/42", route.rewrite("/api/v1/inventory/items/42"));
+
+        Route catalog = routeTable.lookup("/api/v1/products");
+        assertEquals("/api/v1/products", catalog.rewrite("/api/v1/products"));
+    }
+
+    @Test
+    void appliesRouteTimeoutOverDefault() {
+        assertEquals(60, routeTable.lookup("/ai/chat").effectiveTimeoutSeconds(30));
+        assertEquals(30, routeTable.lookup("/auth/login").effectiveTimeoutSeconds(30));
+    }
+
+    @Test
+    void rejectsDuplicatePrefixes() {
+        assertThrows(IllegalStateException.class, () -> RouteTable.compile(List.of(
+            new Route("a", "/cart", "cart", null, 0, "default", false, false, false, "standard"),
+            new Route("b", "/cart", "order", null, 0, "default", false, false, false, "standard")
+        )));
+    }
+}
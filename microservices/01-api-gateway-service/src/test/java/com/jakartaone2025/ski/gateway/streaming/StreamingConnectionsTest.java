@@ -0,0 +1,66 @@
+package com.jakartaone2025.ski.gateway.streaming;
+
+import jakarta.websocket.CloseReason;
+import com.jakartaone2025.ski.gateway.resilience.UpstreamRejectedException;
+import org.junit.jupiter.api.Test;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * StreamingConnections / WebSocket 中継のテスト
+ */
+class StreamingConnectionsTest {
+
+    private final StreamingConnections connections = new StreamingConnections();
+
+    StreamingConnectionsTest() {
+        connections.configure(new StreamingSettings(true, 2, 1000, 1000));
+    }
+
+    @Test
+    void limitsConnectionsPerUpstreamAcrossKinds() {
+        StreamingConnections.Connection socket = connections.open(StreamingConnections.Kind.WEBSOCKET, "cart");
+        connections.open(StreamingConnections.Kind.EVENT_STREAM, "cart");
+        assertEquals(1, connections.getActive("cart", StreamingConnections.Kind.WEBSOCKET));
+        assertEquals(1, connections.getActive("cart", StreamingConnections.Kind.EVENT_STREAM));
+
+        UpstreamRejectedException rejected = assertThrows(UpstreamRejectedException.class,
+            () -> connections.open(StreamingConnections.Kind.WEBSOCKET, "cart"));
+        assertEquals(UpstreamRejectedException.Reason.BULKHEAD_FULL, rejected.getReason());
+        // 他の上流は別枠
+        connections.open(StreamingConnections.Kind.WEBSOCKET, "ai");
+
+        // close は何度呼んでも 1 回分だけ戻す
+        socket.close();
+        socket.close();
+        assertEquals(0, connections.getActive("cart", StreamingConnections.Kind.WEBSOCKET));
+        connections.open(StreamingConnections.Kind.WEBSOCKET, "cart");
+        assertThrows(UpstreamRejectedException.class,
+            () -> connections.open(StreamingConnections.Kind.EVENT_STREAM, "cart"));
+    }
+
+    @Test
+    void buildsUpstreamWebSocketUriFromRoutePath() {
+        assertEquals("/api/v1/carts/ws/c-1",
+            WebSocketProxyEndpoint.proxiedPath(Map.of("p1", "api", "p2", "v1", "p3", "carts", "p4", "ws", "p5", "c-1")));
+        assertEquals("ws://cart:8088/api/v1/carts/ws/c-1?lang=ja",
+            WebSocketProxyEndpoint.upstreamUri("http://cart:8088/", "/api/v1/carts/ws/c-1", "access_token=abc&lang=ja")
+                .toString());
+        assertEquals("wss://ai.example.com/ai/chat",
+            WebSocketProxyEndpoint.upstreamUri("https://ai.example.com", "/ai/chat", null).toString());
+    }
+
+    @Test
+    void forwardsOnlySendableCloseCodes() {
+        CloseReason normal = new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, "bye");
+        assertSame(normal, WebSocketBridge.forwardable(normal));
+        assertEquals(CloseReason.CloseCodes.GOING_AWAY, WebSocketBridge.forwardable(
+            new CloseReason(CloseReason.CloseCodes.CLOSED_ABNORMALLY, null)).getCloseCode());
+        assertEquals(CloseReason.CloseCodes.NORMAL_CLOSURE, WebSocketBridge.forwardable(
+            new CloseReason(CloseReason.CloseCodes.NO_STATUS_CODE, null)).getCloseCode());
+        assertEquals(CloseReason.CloseCodes.NORMAL_CLOSURE, WebSocketBridge.forwardable(null).getCloseCode());
+    }
+}
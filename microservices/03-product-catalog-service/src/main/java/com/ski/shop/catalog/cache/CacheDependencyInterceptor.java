@@ -0,0 +1,79 @@
+package com.ski.shop.catalog.cache;
+
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheKey;
+import io.quarkus.cache.CacheManager;
+import io.quarkus.cache.CacheResult;
+import io.quarkus.cache.CompositeCacheKey;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * キャッシュミスで値を計算したときに、エントリの依存先を記録する
+ *
+ * キャッシュのインターセプタより内側で動くため、キャッシュヒット時は呼ばれない。
+ * キーは Quarkus と同じ規則（@CacheKey の引数、なければ全引数）で求める。
+ */
+@TrackCacheDependencies
+@Interceptor
+@Priority(Interceptor.Priority.LIBRARY_BEFORE)
+public class CacheDependencyInterceptor {
+
+    @Inject
+    CacheManager cacheManager;
+
+    @Inject
+    CacheDependencyTracker tracker;
+
+    @AroundInvoke
+    Object track(InvocationContext context) throws Exception {
+        CacheResult cacheResult = context.getMethod().getAnnotation(CacheResult.class);
+        if (cacheResult == null) {
+            return context.proceed();
+        }
+        Optional<Cache> cache = cacheManager.getCache(cacheResult.cacheName());
+        if (cache.isEmpty()) {
+            return context.proceed();
+        }
+
+        CacheDependencyTracker.Computation computation = tracker.begin();
+        Object value;
+        try {
+            value = context.proceed();
+        } catch (Exception e) {
+            tracker.abort(computation);
+            throw e;
+        }
+        tracker.end(computation, cacheResult.cacheName(), cacheKey(cache.get(), context.getMethod(), context.getParameters()), value);
+        return value;
+    }
+
+    private static Object cacheKey(Cache cache, Method method, Object[] parameters) {
+        if (parameters == null || parameters.length == 0) {
+            return cache.getDefaultKey();
+        }
+        List<Object> keyElements = new ArrayList<>();
+        Annotation[][] annotations = method.getParameterAnnotations();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof CacheKey) {
+                    keyElements.add(parameters[i]);
+                }
+            }
+        }
+        if (keyElements.isEmpty()) {
+            keyElements = Arrays.asList(parameters);
+        }
+        return keyElements.size() == 1 ? keyElements.get(0) : new CompositeCacheKey(keyElements.toArray());
+    }
+}
@@ -0,0 +1,221 @@
+package com.ski.shop.catalog.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheManager;
+import io.quarkus.cache.CaffeineCache;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * キャッシュエントリとその依存先（{@link CacheTags}）の対応を保持し、タグ単位でエントリを破棄する
+ *
+ * 値の計算中に依存先が無効化された場合は、古いデータを読んだ可能性があるため記録せずに破棄する。
+ * 期限切れ・容量超過で消えたエントリは定期的に対応から取り除く。
+ */
+@ApplicationScoped
+public class CacheDependencyTracker {
+
+    // タグ → そのタグに依存するエントリ
+    private final ConcurrentHashMap<String, Set<Entry>> entriesByTag = new ConcurrentHashMap<>();
+    // エントリ → 依存するタグ
+    private final ConcurrentHashMap<Entry, Set<String>> tagsByEntry = new ConcurrentHashMap<>();
+    // タグ → 最後に無効化したときの通番（タグの種類は商品・カテゴリ・ブランド数までしか増えない）
+    private final ConcurrentHashMap<String, Long> invalidatedAt = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    // 計算中のエントリ（入れ子の計算の依存は外側にも引き継ぐ）
+    private final ThreadLocal<Deque<Computation>> computations = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Inject
+    CacheManager cacheManager;
+
+    @Inject
+    MeterRegistry registry;
+
+    private Counter evictions;
+
+    record Entry(String cacheName, Object key) {
+    }
+
+    /**
+     * 計算中のエントリ
+     */
+    static final class Computation {
+
+        private final long startedAt;
+        private final Set<String> tags = new HashSet<>();
+
+        private Computation(long startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("catalog.cache.dependencies.entries", tagsByEntry, Map::size)
+                .description("依存先を記録しているキャッシュエントリ数")
+                .register(registry);
+        evictions = Counter.builder("catalog.cache.dependencies.evictions")
+                .description("依存先の変更で破棄したキャッシュエントリ数")
+                .register(registry);
+    }
+
+    /**
+     * 計算中のエントリが依存するタグを追加
+     *
+     * 一覧の絞り込み条件のように、値からは分からない依存を登録するために使う。
+     */
+    public void dependOn(String... tags) {
+        Computation computation = computations.get().peek();
+        if (computation != null) {
+            Collections.addAll(computation.tags, tags);
+        }
+    }
+
+    /**
+     * タグに依存するエントリを破棄
+     *
+     * @return 破棄したエントリ数
+     */
+    public int invalidate(Collection<String> tags) {
+        long invalidation = sequence.incrementAndGet();
+        for (String tag : tags) {
+            invalidatedAt.merge(tag, invalidation, Math::max);
+        }
+
+        int evicted = 0;
+        for (String tag : tags) {
+            Set<Entry> entries = entriesByTag.remove(tag);
+            if (entries == null) {
+                continue;
+            }
+            for (Entry entry : entries) {
+                if (forget(entry)) {
+                    evict(entry);
+                    evicted++;
+                }
+            }
+        }
+        if (evictions != null) {
+            evictions.increment(evicted);
+        }
+        return evicted;
+    }
+
+    /**
+     * 依存先を記録しているエントリ数
+     */
+    public int size() {
+        return tagsByEntry.size();
+    }
+
+    Computation begin() {
+        Computation computation = new Computation(sequence.get());
+        computations.get().push(computation);
+        return computation;
+    }
+
+    void abort(Computation computation) {
+        pop(computation);
+    }
+
+    /**
+     * 計算を終え、値に含まれるタグと合わせてエントリの依存先を記録
+     */
+    void end(Computation computation, String cacheName, Object key, Object value) {
+        computation.tags.addAll(CacheTags.of(value));
+        Computation outer = pop(computation);
+        if (outer != null) {
+            outer.tags.addAll(computation.tags);
+        }
+        if (!computation.tags.isEmpty()) {
+            record(new Entry(cacheName, key), computation.tags, computation.startedAt);
+        }
+    }
+
+    /**
+     * 期限切れ・容量超過でキャッシュから消えたエントリを対応から取り除く
+     */
+    @Scheduled(every = "{app.cache.dependencies.prune-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void prune() {
+        for (Entry entry : tagsByEntry.keySet()) {
+            if (!isCached(entry)) {
+                forget(entry);
+            }
+        }
+    }
+
+    /**
+     * エントリをキャッシュから破棄
+     */
+    void evict(Entry entry) {
+        cacheManager.getCache(entry.cacheName())
+                .ifPresent(cache -> cache.invalidate(entry.key()).await().indefinitely());
+    }
+
+    boolean isCached(Entry entry) {
+        Optional<Cache> cache = cacheManager.getCache(entry.cacheName());
+        return cache.isPresent() && cache.get() instanceof CaffeineCache caffeine && caffeine.keySet().contains(entry.key());
+    }
+
+    private void record(Entry entry, Set<String> tags, long startedAt) {
+        forget(entry);
+        tagsByEntry.put(entry, tags);
+        for (String tag : tags) {
+            entriesByTag.compute(tag, (t, entries) -> {
+                Set<Entry> result = entries != null ? entries : ConcurrentHashMap.newKeySet();
+                result.add(entry);
+                return result;
+            });
+        }
+
+        // 記録の後に確認するため、並行する無効化はどちらか一方で必ずこのエントリを破棄する
+        for (String tag : tags) {
+            if (invalidatedAt.getOrDefault(tag, 0L) > startedAt) {
+                if (forget(entry)) {
+                    evict(entry);
+                }
+                return;
+            }
+        }
+    }
+
+    private boolean forget(Entry entry) {
+        Set<String> tags = tagsByEntry.remove(entry);
+        if (tags == null) {
+            return false;
+        }
+        for (String tag : tags) {
+            entriesByTag.computeIfPresent(tag, (t, entries) -> {
+                entries.remove(entry);
+                return entries.isEmpty() ? null : entries;
+            });
+        }
+        return true;
+    }
+
+    private Computation pop(Computation computation) {
+        Deque<Computation> stack = computations.get();
+        stack.remove(computation);
+        if (stack.isEmpty()) {
+            computations.remove();
+            return null;
+        }
+        return stack.peek();
+    }
+}
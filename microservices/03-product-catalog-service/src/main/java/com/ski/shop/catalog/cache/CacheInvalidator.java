@@ -0,0 +1,112 @@
+package com.ski.shop.catalog.cache;
+
+import com.ski.shop.catalog.domain.CacheInvalidation;
+import com.ski.shop.catalog.search.AfterCommit;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 商品・カテゴリの変更に応じてキャッシュを無効化する（このインスタンスと他のインスタンス）
+ *
+ * 無効化は変更と同じトランザクションで cache_invalidations に書き込み、コミット後に自分のキャッシュを破棄する。
+ * 他のインスタンスは poll-interval 毎に前回読んだ id より後の通知を読み、未適用のものを適用する。
+ * コミット順と採番順が前後しても取りこぼさないよう、飛ばした id は window の間読み直す（{@link InvalidationCursor}）。
+ * 書き込んだインスタンスの時計は使わないため、インスタンス間の時計のずれに影響されない。
+ * 他のインスタンスで変更された商品は、無効化の前に {@link RemoteProductChange} で通知してインメモリの索引を追従させる。
+ */
+@ApplicationScoped
+public class CacheInvalidator {
+
+    private static final Logger LOG = Logger.getLogger(CacheInvalidator.class);
+
+    // このインスタンスの識別子（自分の通知は読み飛ばす）
+    private final String origin = UUID.randomUUID().toString();
+    private final InvalidationCursor cursor = new InvalidationCursor();
+
+    @Inject
+    CacheDependencyTracker tracker;
+
+    @Inject
+    AfterCommit afterCommit;
+
+    @Inject
+    Event<RemoteProductChange> remoteProductChanges;
+
+    @ConfigProperty(name = "app.cache.invalidation.window", defaultValue = "30s")
+    Duration window;
+
+    @ConfigProperty(name = "app.cache.invalidation.retention", defaultValue = "10m")
+    Duration retention;
+
+    /**
+     * 現在のトランザクションのコミット後にタグに依存するエントリを無効化
+     */
+    public void invalidateAfterCommit(Set<String> tags) {
+        CacheInvalidation.record(origin, tags);
+        afterCommit.run(() -> tracker.invalidate(tags));
+    }
+
+    /**
+     * 他のインスタンスの通知を適用
+     */
+    @Scheduled(every = "{app.cache.invalidation.poll-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @Transactional
+    void poll() {
+        if (!cursor.isStarted()) {
+            cursor.start(CacheInvalidation.maxId());
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<CacheInvalidation> remote = new ArrayList<>();
+        // 自分の通知も読む（読まないと欠番と区別できない）
+        for (CacheInvalidation invalidation : CacheInvalidation.findAfter(cursor.highWater(), cursor.pendingGaps())) {
+            if (cursor.advance(invalidation.id, now) && !origin.equals(invalidation.origin)) {
+                remote.add(invalidation);
+            }
+        }
+        cursor.expireGaps(now, window.toMillis());
+        apply(remote);
+    }
+
+    /**
+     * 他のインスタンスの通知を適用する
+     *
+     * 自分の変更と同じく、先にインメモリの索引を更新してからキャッシュを無効化する。
+     * 逆順だと、その間に再計算されたエントリが古い索引の内容のまま記録されてしまう。
+     */
+    void apply(List<CacheInvalidation> invalidations) {
+        Set<UUID> changedProducts = new HashSet<>();
+        invalidations.forEach(invalidation -> changedProducts.addAll(CacheTags.productIds(invalidation.tagSet())));
+        if (!changedProducts.isEmpty()) {
+            remoteProductChanges.fire(new RemoteProductChange(changedProducts));
+        }
+        for (CacheInvalidation invalidation : invalidations) {
+            int evicted = tracker.invalidate(invalidation.tagSet());
+            LOG.debugf("Applied cache invalidation from %s (id=%s): %d entries evicted", invalidation.origin, invalidation.id, evicted);
+        }
+    }
+
+    /**
+     * 保持期間を過ぎた通知を削除
+     */
+    @Scheduled(every = "{app.cache.invalidation.retention}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @Transactional
+    void purge() {
+        long deleted = CacheInvalidation.deleteOlderThan(retention);
+        if (deleted > 0) {
+            LOG.infof("Purged %d cache invalidations", deleted);
+        }
+    }
+}
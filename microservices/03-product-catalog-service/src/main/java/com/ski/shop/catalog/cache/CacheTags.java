@@ -0,0 +1,117 @@
+package com.ski.shop.catalog.cache;
+
+import com.ski.shop.catalog.domain.Category;
+import com.ski.shop.catalog.domain.Product;
+import com.ski.shop.catalog.dto.CategoryResponse;
+import com.ski.shop.catalog.dto.CategorySummaryResponse;
+import com.ski.shop.catalog.dto.CategoryWithProductCountResponse;
+import com.ski.shop.catalog.dto.CategoryWithProductsResponse;
+import com.ski.shop.catalog.dto.ProductResponse;
+import com.ski.shop.catalog.dto.ProductSearchResponse;
+import com.ski.shop.catalog.dto.ProductSummaryResponse;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * キャッシュエントリの依存先を表すタグ
+ *
+ * category はカテゴリ自体の情報（名前・パス・親子）、category-products はカテゴリに属する商品の集合
+ * （一覧・商品数）への依存を表す。商品の追加・更新・削除では後者だけが変わる。
+ */
+public final class CacheTags {
+
+    /** 絞り込みのない商品一覧（全商品が対象） */
+    public static final String ALL_PRODUCTS = "products";
+
+    private static final String PRODUCT_PREFIX = "product:";
+
+    private CacheTags() {
+    }
+
+    public static String product(UUID productId) {
+        return PRODUCT_PREFIX + productId;
+    }
+
+    public static String category(UUID categoryId) {
+        return "category:" + categoryId;
+    }
+
+    public static String categoryProducts(UUID categoryId) {
+        return "category-products:" + categoryId;
+    }
+
+    public static String brandProducts(UUID brandId) {
+        return "brand-products:" + brandId;
+    }
+
+    /**
+     * タグに含まれる商品ID
+     */
+    public static Set<UUID> productIds(Collection<String> tags) {
+        Set<UUID> productIds = new HashSet<>();
+        for (String tag : tags) {
+            if (tag.startsWith(PRODUCT_PREFIX)) {
+                productIds.add(UUID.fromString(tag.substring(PRODUCT_PREFIX.length())));
+            }
+        }
+        return productIds;
+    }
+
+    /**
+     * 商品の追加・更新・削除で無効化するタグ
+     *
+     * 配下のカテゴリを含む一覧があるため、祖先カテゴリの商品集合も含める。
+     */
+    public static Set<String> ofProduct(Product product) {
+        Set<String> tags = new HashSet<>();
+        tags.add(product(product.id));
+        tags.add(ALL_PRODUCTS);
+        for (Category category = product.category; category != null; category = category.parent) {
+            tags.add(categoryProducts(category.id));
+        }
+        if (product.brand != null) {
+            tags.add(brandProducts(product.brand.id));
+        }
+        return tags;
+    }
+
+    /**
+     * キャッシュする値に含まれる商品・カテゴリのタグ
+     */
+    public static Set<String> of(Object value) {
+        Set<String> tags = new HashSet<>();
+        collect(value, tags);
+        return tags;
+    }
+
+    private static void collect(Object value, Set<String> tags) {
+        if (value instanceof Collection<?> values) {
+            values.forEach(element -> collect(element, tags));
+        } else if (value instanceof ProductResponse product) {
+            tags.add(product(product.id()));
+            collect(product.category(), tags);
+        } else if (value instanceof ProductSummaryResponse product) {
+            tags.add(product(product.getId()));
+            collect(product.getCategory(), tags);
+        } else if (value instanceof ProductSearchResponse response) {
+            collect(response.getProducts(), tags);
+        } else if (value instanceof CategorySummaryResponse category) {
+            tags.add(category(category.getId()));
+        } else if (value instanceof CategoryWithProductCountResponse category) {
+            tags.add(category(category.getId()));
+            tags.add(categoryProducts(category.getId()));
+        } else if (value instanceof CategoryWithProductsResponse category) {
+            tags.add(category(category.id));
+            tags.add(categoryProducts(category.id));
+            collect(category.products, tags);
+        } else if (value instanceof CategoryResponse category) {
+            tags.add(category(category.getId()));
+            tags.add(categoryProducts(category.getId()));
+            collect(category.getParent(), tags);
+            collect(category.getChildren(), tags);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.ski.shop.catalog.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * cache_invalidations の読み取り位置（id の最大値）と、まだ読めていない id（欠番）
+ *
+ * id は採番順でコミットされるとは限らないため、最大値より小さい欠番は後からコミットされる可能性がある。
+ * 欠番は一定時間（ロールバックで欠けたままのものを諦めるまで）読み直す。
+ * 時刻はこのインスタンスの時計だけで比較するため、書き込んだインスタンスとの時計のずれに影響されない。
+ */
+final class InvalidationCursor {
+
+    private long highWater = -1;
+    // 欠番 → 欠番に気付いた時刻（ミリ秒）
+    private final Map<Long, Long> gaps = new HashMap<>();
+
+    boolean isStarted() {
+        return highWater >= 0;
+    }
+
+    /**
+     * 読み取りを開始する（既存の通知は起動前のものなので適用しない）
+     */
+    void start(long maxId) {
+        highWater = Math.max(0, maxId);
+        gaps.clear();
+    }
+
+    long highWater() {
+        return highWater;
+    }
+
+    Set<Long> pendingGaps() {
+        return Set.copyOf(gaps.keySet());
+    }
+
+    /**
+     * 読んだ通知を記録し、未適用なら true（id の昇順に渡す）
+     */
+    boolean advance(long id, long now) {
+        if (id > highWater) {
+            for (long missing = highWater + 1; missing < id; missing++) {
+                gaps.put(missing, now);
+            }
+            highWater = id;
+            return true;
+        }
+        return gaps.remove(id) != null;
+    }
+
+    /**
+     * 一定時間埋まらなかった欠番を諦める
+     */
+    void expireGaps(long now, long timeoutMillis) {
+        gaps.values().removeIf(detectedAt -> now - detectedAt > timeoutMillis);
+    }
+}
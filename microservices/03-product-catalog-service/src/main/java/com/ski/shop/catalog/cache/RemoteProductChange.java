@@ -0,0 +1,14 @@
+package com.ski.shop.catalog.cache;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 他のインスタンスで商品が作成・更新・削除されたことの通知（CDI イベント）
+ *
+ * キャッシュ無効化の通知を適用したときに発行する。インメモリの索引はこれを受けて対象の商品を読み直す。
+ *
+ * @param productIds 変更された商品（削除済みを含む）
+ */
+public record RemoteProductChange(Set<UUID> productIds) {
+}
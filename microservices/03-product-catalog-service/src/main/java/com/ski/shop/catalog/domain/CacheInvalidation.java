@@ -0,0 +1,90 @@
+package com.ski.shop.catalog.domain;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SourceType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * キャッシュ無効化の通知エンティティ
+ *
+ * 変更と同じトランザクションで書き込み、他のインスタンスが定期的に読んで自分のキャッシュを無効化する。
+ */
+@Entity
+@Table(name = "cache_invalidations")
+public class CacheInvalidation extends PanacheEntityBase {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    public Long id;
+
+    @NotBlank
+    @Size(max = 36)
+    @Column(name = "origin", nullable = false, length = 36)
+    public String origin;
+
+    @NotBlank
+    @Size(max = 4000)
+    @Column(name = "tags", nullable = false, length = 4000)
+    public String tags;
+
+    // 保持期間の判定をインスタンス間で揃えるため、DB の時計で記録する
+    @CreationTimestamp(source = SourceType.DB)
+    @Column(name = "created_at", nullable = false, updatable = false)
+    public LocalDateTime createdAt;
+
+    /**
+     * 無効化するタグ
+     */
+    public Set<String> tagSet() {
+        return Set.of(tags.split(" "));
+    }
+
+    // 静的メソッド
+
+    /**
+     * 無効化を通知（現在のトランザクションで書き込む）
+     */
+    public static CacheInvalidation record(String origin, Collection<String> tags) {
+        CacheInvalidation invalidation = new CacheInvalidation();
+        invalidation.origin = origin;
+        invalidation.tags = String.join(" ", tags);
+        invalidation.persist();
+        return invalidation;
+    }
+
+    /**
+     * 指定 id より後の通知と、指定した id の通知を id 順に取得
+     */
+    public static List<CacheInvalidation> findAfter(long afterId, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return list("id > ?1 ORDER BY id", afterId);
+        }
+        return list("id > ?1 OR id IN ?2 ORDER BY id", afterId, ids);
+    }
+
+    /**
+     * 通知の id の最大値（通知がなければ 0）
+     */
+    public static long maxId() {
+        return getEntityManager().createQuery("SELECT COALESCE(MAX(i.id), 0) FROM CacheInvalidation i", Long.class)
+            .getSingleResult();
+    }
+
+    /**
+     * 保持期間を過ぎた通知を削除（作成日時と同じく DB の時計で判定）
+     */
+    public static long deleteOlderThan(Duration retention) {
+        LocalDateTime now = getEntityManager().createQuery("SELECT LOCAL DATETIME", LocalDateTime.class).getSingleResult();
+        return delete("createdAt < ?1", now.minus(retention));
+    }
+}
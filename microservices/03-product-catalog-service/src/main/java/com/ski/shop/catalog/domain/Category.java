@@ -9,7 +9,9 @@ import jakarta.validation.constraints.Size;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -178,6 +180,18 @@ public class Category extends PanacheEntityBase {
         return Product.count("category.id = ?1 AND isActive = true AND publishStatus = 'PUBLISHED'", this.id);
     }
 
+    /**
+     * カテゴリ毎のアクティブで公開済みの商品数を取得（商品がないカテゴリは含まない）
+     */
+    public static Map<UUID, Long> countProductsByCategory() {
+        Map<UUID, Long> counts = new HashMap<>();
+        getEntityManager().createQuery(
+            "SELECT p.category.id, COUNT(p) FROM Product p " +
+            "WHERE p.isActive = true AND p.publishStatus = 'PUBLISHED' GROUP BY p.category.id", Object[].class
+        ).getResultList().forEach(row -> counts.put((UUID) row[0], (Long) row[1]));
+        return counts;
+    }
+
     /**
      * 全カテゴリと商品数を取得
      */
@@ -207,21 +207,36 @@ public class Product extends PanacheEntityBase {
      * 現在の価格を取得（セール価格があればセール価格、なければベース価格）
      */
     public BigDecimal getCurrentPrice() {
-        return salePrice != null ? salePrice : basePrice;
+        return currentPrice(basePrice, salePrice);
     }
 
     /**
      * セール中かどうか
      */
     public boolean isOnSale() {
-        return salePrice != null && salePrice.compareTo(basePrice) < 0;
+        return isOnSale(basePrice, salePrice);
     }
 
     /**
      * 割引率を計算（パーセント）
      */
     public Integer getDiscountPercentage() {
-        if (!isOnSale()) {
+        return discountPercentage(basePrice, salePrice);
+    }
+
+    /**
+     * 現在の価格（エンティティを読み込まない射影からも使う）
+     */
+    public static BigDecimal currentPrice(BigDecimal basePrice, BigDecimal salePrice) {
+        return salePrice != null ? salePrice : basePrice;
+    }
+
+    public static boolean isOnSale(BigDecimal basePrice, BigDecimal salePrice) {
+        return salePrice != null && salePrice.compareTo(basePrice) < 0;
+    }
+
+    public static Integer discountPercentage(BigDecimal basePrice, BigDecimal salePrice) {
+        if (!isOnSale(basePrice, salePrice)) {
             return 0;
         }
         BigDecimal discount = basePrice.subtract(salePrice);
@@ -17,6 +17,7 @@ public class CategoryResponse {
     private String imageUrl;
     private boolean isActive;
     private long productCount;
+    private long totalProductCount;
     private CategorySummaryResponse parent;
     private List<CategorySummaryResponse> children;
     private LocalDateTime createdAt;
@@ -100,6 +101,9 @@ public class CategoryResponse {
     public long getProductCount() { return productCount; }
     public void setProductCount(long productCount) { this.productCount = productCount; }
 
+    public long getTotalProductCount() { return totalProductCount; }
+    public void setTotalProductCount(long totalProductCount) { this.totalProductCount = totalProductCount; }
+
     public CategorySummaryResponse getParent() { return parent; }
     public void setParent(CategorySummaryResponse parent) { this.parent = parent; }
 
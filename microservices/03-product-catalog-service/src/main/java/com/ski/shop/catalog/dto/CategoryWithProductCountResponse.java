@@ -15,6 +15,7 @@ public class CategoryWithProductCountResponse {
     private String imageUrl;
     private boolean isActive;
     private long productCount;
+    private long totalProductCount;
 
     public CategoryWithProductCountResponse() {}
 
@@ -59,4 +60,7 @@ public class CategoryWithProductCountResponse {
 
     public long getProductCount() { return productCount; }
     public void setProductCount(long productCount) { this.productCount = productCount; }
+
+    public long getTotalProductCount() { return totalProductCount; }
+    public void setTotalProductCount(long totalProductCount) { this.totalProductCount = totalProductCount; }
 }
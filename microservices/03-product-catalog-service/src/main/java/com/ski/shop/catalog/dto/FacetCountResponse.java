@@ -0,0 +1,27 @@
+package com.ski.shop.catalog.dto;
+
+/**
+ * ファセットの値と該当商品数のDTO
+ */
+public class FacetCountResponse {
+    private String value;
+    private String label;
+    private long count;
+
+    public FacetCountResponse() {}
+
+    public FacetCountResponse(String value, String label, long count) {
+        this.value = value;
+        this.label = label;
+        this.count = count;
+    }
+
+    public String getValue() { return value; }
+    public void setValue(String value) { this.value = value; }
+
+    public String getLabel() { return label; }
+    public void setLabel(String label) { this.label = label; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+}
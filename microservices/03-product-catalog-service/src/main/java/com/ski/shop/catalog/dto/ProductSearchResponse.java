@@ -0,0 +1,46 @@
+package com.ski.shop.catalog.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商品検索結果とファセット集計のレスポンスDTO
+ */
+public class ProductSearchResponse {
+    private List<ProductSummaryResponse> products;
+    private long totalCount;
+    private int page;
+    private int size;
+    private Map<String, List<FacetCountResponse>> facets;
+    private String nextCursor;
+
+    public ProductSearchResponse() {}
+
+    public ProductSearchResponse(List<ProductSummaryResponse> products, long totalCount, int page, int size,
+                                 Map<String, List<FacetCountResponse>> facets, String nextCursor) {
+        this.products = products;
+        this.totalCount = totalCount;
+        this.page = page;
+        this.size = size;
+        this.facets = facets;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ProductSummaryResponse> getProducts() { return products; }
+    public void setProducts(List<ProductSummaryResponse> products) { this.products = products; }
+
+    public long getTotalCount() { return totalCount; }
+    public void setTotalCount(long totalCount) { this.totalCount = totalCount; }
+
+    public int getPage() { return page; }
+    public void setPage(int page) { this.page = page; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public Map<String, List<FacetCountResponse>> getFacets() { return facets; }
+    public void setFacets(Map<String, List<FacetCountResponse>> facets) { this.facets = facets; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -4,6 +4,7 @@ import com.ski.shop.catalog.domain.DifficultyLevel;
 import com.ski.shop.catalog.domain.SkiType;
 import com.ski.shop.catalog.dto.ProductCreateRequest;
 import com.ski.shop.catalog.dto.ProductResponse;
+import com.ski.shop.catalog.dto.ProductSearchResponse;
 import com.ski.shop.catalog.dto.ProductSummaryResponse;
 import com.ski.shop.catalog.service.ProductService;
 import jakarta.inject.Inject;
@@ -74,8 +75,8 @@ public class ProductResource {
             @Parameter(description = "最高価格")
             @QueryParam("maxPrice") Double maxPrice,
             
-            @Parameter(description = "ソート順", schema = @Schema(enumeration = {"name_asc", "name_desc", "price_asc", "price_desc", "created_desc", "popularity"}))
-            @QueryParam("sort") @DefaultValue("created_desc") String sort,
+            @Parameter(description = "ソート順（未指定時はキーワード検索なら関連度順、それ以外は新着順）", schema = @Schema(enumeration = {"relevance", "name_asc", "name_desc", "price_asc", "price_desc", "created_desc", "popularity"}))
+            @QueryParam("sort") String sort,
             
             @Parameter(description = "ソートフィールド", schema = @Schema(enumeration = {"name", "price", "created", "popularity"}))
             @QueryParam("sortBy") String sortBy,
@@ -89,30 +90,67 @@ public class ProductResource {
             @Parameter(description = "1ページあたりの件数")
             @QueryParam("size") @DefaultValue("20") int size) {
 
-        // keywordとsearchKeywordのどちらかが指定されていれば使用
-        String effectiveKeyword = (keyword != null && !keyword.trim().isEmpty()) ? keyword : searchKeyword;
-        
-        // sortByとsortOrderからsort文字列を構築
-        String effectiveSort = sort;
-        if (sortBy != null && !sortBy.trim().isEmpty()) {
-            String order = (sortOrder != null && sortOrder.equalsIgnoreCase("asc")) ? "asc" : "desc";
-            effectiveSort = sortBy + "_" + order;
-        }
-        
-        // categoryIdsを解析してUUIDリストに変換
-        List<UUID> categoryIdList = new ArrayList<>();
-        if (categoryIds != null && !categoryIds.trim().isEmpty()) {
-            String[] idArray = categoryIds.split(",");
-            for (String id : idArray) {
-                try {
-                    categoryIdList.add(UUID.fromString(id.trim()));
-                } catch (IllegalArgumentException e) {
-                    // 無効なUUIDは無視
-                }
-            }
-        }
-        
-        return productService.searchProducts(effectiveKeyword, categoryId, categoryIdList, includeSubcategories, brandId, skiType, difficultyLevel, minPrice, maxPrice, effectiveSort, page, size);
+        return productService.searchProducts(effectiveKeyword(keyword, searchKeyword), categoryId, parseCategoryIds(categoryIds), includeSubcategories, brandId, skiType, difficultyLevel, minPrice, maxPrice, effectiveSort(sort, sortBy, sortOrder), page, size);
+    }
+
+    @GET
+    @Path("/search")
+    @Operation(summary = "商品検索（ファセット件数付き）", description = "検索条件に基づいて商品一覧と、ブランド・カテゴリ・スキータイプ・難易度・価格帯毎の件数を取得します")
+    @APIResponse(
+        responseCode = "200",
+        description = "商品一覧とファセット件数",
+        content = @Content(schema = @Schema(implementation = ProductSearchResponse.class))
+    )
+    public ProductSearchResponse searchProductsWithFacets(
+            @Parameter(description = "検索キーワード")
+            @QueryParam("q") String keyword,
+            
+            @Parameter(description = "検索キーワード（searchパラメータ）")
+            @QueryParam("search") String searchKeyword,
+            
+            @Parameter(description = "カテゴリID")
+            @QueryParam("categoryId") UUID categoryId,
+            
+            @Parameter(description = "カテゴリIDリスト（カンマ区切り）")
+            @QueryParam("categoryIds") String categoryIds,
+            
+            @Parameter(description = "サブカテゴリを含めるかどうか")
+            @QueryParam("includeSubcategories") @DefaultValue("false") boolean includeSubcategories,
+            
+            @Parameter(description = "ブランドID") 
+            @QueryParam("brandId") UUID brandId,
+            
+            @Parameter(description = "スキータイプ")
+            @QueryParam("skiType") SkiType skiType,
+            
+            @Parameter(description = "難易度レベル")
+            @QueryParam("difficultyLevel") DifficultyLevel difficultyLevel,
+            
+            @Parameter(description = "最低価格")
+            @QueryParam("minPrice") Double minPrice,
+            
+            @Parameter(description = "最高価格")
+            @QueryParam("maxPrice") Double maxPrice,
+            
+            @Parameter(description = "ソート順（未指定時はキーワード検索なら関連度順、それ以外は新着順）", schema = @Schema(enumeration = {"relevance", "name_asc", "name_desc", "price_asc", "price_desc", "created_desc", "popularity"}))
+            @QueryParam("sort") String sort,
+            
+            @Parameter(description = "ソートフィールド", schema = @Schema(enumeration = {"name", "price", "created", "popularity"}))
+            @QueryParam("sortBy") String sortBy,
+            
+            @Parameter(description = "ソート方向", schema = @Schema(enumeration = {"asc", "desc"}))
+            @QueryParam("sortOrder") String sortOrder,
+            
+            @Parameter(description = "ページ番号")
+            @QueryParam("page") @DefaultValue("0") int page,
+            
+            @Parameter(description = "1ページあたりの件数")
+            @QueryParam("size") @DefaultValue("20") int size,
+            
+            @Parameter(description = "前のレスポンスの nextCursor（指定時は page を無視して続きを取得）")
+            @QueryParam("cursor") String cursor) {
+
+        return productService.searchProductsWithFacets(effectiveKeyword(keyword, searchKeyword), categoryId, parseCategoryIds(categoryIds), includeSubcategories, brandId, skiType, difficultyLevel, minPrice, maxPrice, effectiveSort(sort, sortBy, sortOrder), page, size, cursor);
     }
 
     @GET
@@ -139,7 +177,9 @@ public class ProductResource {
     public ProductResponse getProduct(
             @Parameter(description = "商品ID", required = true)
             @PathParam("productId") UUID productId) {
-        return productService.getProduct(productId);
+        ProductResponse product = productService.getProduct(productId);
+        productService.recordView(product.id());
+        return product;
     }
 
     @GET
@@ -154,7 +194,9 @@ public class ProductResource {
     public ProductResponse getProductBySku(
             @Parameter(description = "商品SKU", required = true)
             @PathParam("sku") String sku) {
-        return productService.getProductBySku(sku);
+        ProductResponse product = productService.getProductBySku(sku);
+        productService.recordView(product.id());
+        return product;
     }
 
     @GET
@@ -230,4 +272,34 @@ public class ProductResource {
         productService.deleteProduct(productId);
         return Response.noContent().build();
     }
+
+    // keywordとsearchKeywordのどちらかが指定されていれば使用
+    private static String effectiveKeyword(String keyword, String searchKeyword) {
+        return (keyword != null && !keyword.trim().isEmpty()) ? keyword : searchKeyword;
+    }
+
+    // sortByとsortOrderからsort文字列を構築
+    private static String effectiveSort(String sort, String sortBy, String sortOrder) {
+        if (sortBy != null && !sortBy.trim().isEmpty()) {
+            String order = (sortOrder != null && sortOrder.equalsIgnoreCase("asc")) ? "asc" : "desc";
+            return sortBy + "_" + order;
+        }
+        return sort;
+    }
+
+    // categoryIdsを解析してUUIDリストに変換
+    private static List<UUID> parseCategoryIds(String categoryIds) {
+        List<UUID> categoryIdList = new ArrayList<>();
+        if (categoryIds != null && !categoryIds.trim().isEmpty()) {
+            String[] idArray = categoryIds.split(",");
+            for (String id : idArray) {
+                try {
+                    categoryIdList.add(UUID.fromString(id.trim()));
+                } catch (IllegalArgumentException e) {
+                    // 無効なUUIDは無視
+                }
+            }
+        }
+        return categoryIdList;
+    }
 }
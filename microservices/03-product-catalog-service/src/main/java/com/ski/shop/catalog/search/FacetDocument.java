@@ -0,0 +1,55 @@
+package com.ski.shop.catalog.search;
+
+import com.ski.shop.catalog.domain.Category;
+import com.ski.shop.catalog.domain.DifficultyLevel;
+import com.ski.shop.catalog.domain.Product;
+import com.ski.shop.catalog.domain.PublishStatus;
+import com.ski.shop.catalog.domain.SkiType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * ファセット検索の対象となる商品の属性（トランザクション内でエンティティから取り出したスナップショット）
+ *
+ * @param categoryPath 所属カテゴリとその祖先カテゴリ（所属カテゴリが先頭）
+ */
+public record FacetDocument(
+    UUID id,
+    boolean visible,
+    UUID brandId,
+    String brandName,
+    List<UUID> categoryPath,
+    String categoryName,
+    SkiType skiType,
+    DifficultyLevel difficultyLevel,
+    BigDecimal basePrice,
+    String name,
+    LocalDateTime createdAt,
+    long salesCount
+) {
+
+    public static FacetDocument of(Product product) {
+        List<UUID> categoryPath = new ArrayList<>();
+        for (Category category = product.category; category != null; category = category.parent) {
+            categoryPath.add(category.id);
+        }
+        return new FacetDocument(
+            product.id,
+            product.publishStatus == PublishStatus.PUBLISHED && product.isActive,
+            product.brand != null ? product.brand.id : null,
+            product.brand != null ? product.brand.name : null,
+            categoryPath,
+            product.category != null ? product.category.name : null,
+            product.skiType,
+            product.difficultyLevel,
+            product.basePrice,
+            product.name,
+            product.createdAt,
+            product.salesCount != null ? product.salesCount : 0L
+        );
+    }
+}
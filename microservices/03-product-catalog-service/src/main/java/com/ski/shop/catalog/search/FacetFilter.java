@@ -0,0 +1,23 @@
+package com.ski.shop.catalog.search;
+
+import com.ski.shop.catalog.domain.DifficultyLevel;
+import com.ski.shop.catalog.domain.SkiType;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 商品一覧の絞り込み条件（null・空の項目は条件なし）
+ *
+ * @param includeSubcategories カテゴリ指定時に配下のカテゴリの商品も含めるか
+ */
+public record FacetFilter(
+    List<UUID> categoryIds,
+    boolean includeSubcategories,
+    UUID brandId,
+    SkiType skiType,
+    DifficultyLevel difficultyLevel,
+    Double minPrice,
+    Double maxPrice
+) {
+}
@@ -0,0 +1,89 @@
+package com.ski.shop.catalog.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * キーワードに一致した全商品と関連度スコア（並び替え前）
+ *
+ * 件数・ファセットは全ヒットから数え、表示する上位だけを絞り込み後の商品から選ぶため、
+ * 絞り込みで上位のヒットが除かれても件数やページが欠けない。
+ */
+public final class KeywordHits {
+
+    private static final KeywordHits EMPTY = new KeywordHits(new UUID[0], new double[0]);
+
+    private final UUID[] ids;
+    private final double[] scores;
+
+    KeywordHits(UUID[] ids, double[] scores) {
+        this.ids = ids;
+        this.scores = scores;
+    }
+
+    static KeywordHits empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 関連度順の商品IDから作成（先頭ほど高いスコアにする）
+     */
+    public static KeywordHits ranked(List<UUID> ranked) {
+        UUID[] ids = ranked.toArray(UUID[]::new);
+        double[] scores = new double[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            scores[i] = ids.length - i;
+        }
+        return new KeywordHits(ids, scores);
+    }
+
+    /**
+     * ヒットした商品数
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * ヒットした全商品のID（順不同）
+     */
+    public List<UUID> ids() {
+        return Arrays.asList(ids);
+    }
+
+    /**
+     * filter に一致するヒットを関連度の高い順に最大 limit 件返す（同点はヒット順）
+     */
+    public List<UUID> top(Predicate<UUID> filter, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        Comparator<Integer> byRelevance = Comparator.<Integer>comparingDouble(i -> scores[i]).reversed()
+            .thenComparingInt(i -> i);
+        // 先頭が最も関連度の低いヒットになるヒープで上位 limit 件を保持する
+        PriorityQueue<Integer> top = new PriorityQueue<>(Math.min(limit, Math.max(1, ids.length)), byRelevance.reversed());
+        for (int i = 0; i < ids.length; i++) {
+            if (!filter.test(ids[i])) {
+                continue;
+            }
+            if (top.size() < limit) {
+                top.add(i);
+            } else if (byRelevance.compare(i, top.peek()) < 0) {
+                top.poll();
+                top.add(i);
+            }
+        }
+        List<Integer> order = new ArrayList<>(top);
+        order.sort(byRelevance);
+        List<UUID> result = new ArrayList<>(order.size());
+        for (int i : order) {
+            result.add(ids[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,99 @@
+package com.ski.shop.catalog.search;
+
+import jakarta.ws.rs.BadRequestException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 商品一覧のカーソル（直前のページ末尾の商品の並び替えキーと商品ID）
+ *
+ * クライアントには不透明な文字列として渡す。並び替えキーが同じ商品は商品IDの順で区別する。
+ * 関連度順では並び替えキーの代わりにヒット中の位置を持つ。
+ *
+ * @param sortBy 並び順（カーソルを発行した検索と同じ並び順でのみ使える）
+ */
+public record ProductCursor(String sortBy, String key, UUID id) {
+
+    static final String RELEVANCE = "relevance";
+
+    /**
+     * ページ末尾の商品からカーソルを作成
+     */
+    static ProductCursor after(String sortBy, FacetDocument last) {
+        String key = switch (sortBy) {
+            case "name_asc", "name_desc" -> last.name() != null ? last.name() : "";
+            case "price_asc", "price_desc" -> last.basePrice() != null ? last.basePrice().toPlainString() : "";
+            case "created_asc", "created_desc" -> last.createdAt() != null ? last.createdAt().toString() : "";
+            case "popularity" -> String.valueOf(last.salesCount());
+            default -> "";
+        };
+        return new ProductCursor(sortBy, key, last.id());
+    }
+
+    /**
+     * 関連度順のヒット中の位置からカーソルを作成
+     */
+    static ProductCursor atPosition(UUID id, int position) {
+        return new ProductCursor(RELEVANCE, String.valueOf(position), id);
+    }
+
+    public String encode() {
+        String raw = sortBy + "\n" + key + "\n" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 文字列からカーソルを復元（不正な値は 400）
+     */
+    public static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\n", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            ProductCursor cursor = new ProductCursor(parts[0], parts[1], UUID.fromString(parts[2]));
+            if (RELEVANCE.equals(cursor.sortBy())) {
+                cursor.nextPosition();
+            } else {
+                cursor.probe();
+            }
+            return cursor;
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor: " + token);
+        }
+    }
+
+    /**
+     * 並び替えの比較に使う、カーソル位置の商品に相当する文書
+     */
+    FacetDocument probe() {
+        String name = null;
+        BigDecimal basePrice = null;
+        LocalDateTime createdAt = null;
+        long salesCount = 0;
+        if (!key.isEmpty()) {
+            switch (sortBy) {
+                case "name_asc", "name_desc" -> name = key;
+                case "price_asc", "price_desc" -> basePrice = new BigDecimal(key);
+                case "created_asc", "created_desc" -> createdAt = LocalDateTime.parse(key);
+                case "popularity" -> salesCount = Long.parseLong(key);
+                default -> {
+                }
+            }
+        }
+        return new FacetDocument(id, true, null, null, List.of(), null, null, null, basePrice, name, createdAt, salesCount);
+    }
+
+    /**
+     * 関連度順での次の位置
+     */
+    int nextPosition() {
+        return key.isEmpty() ? 0 : Integer.parseInt(key) + 1;
+    }
+}
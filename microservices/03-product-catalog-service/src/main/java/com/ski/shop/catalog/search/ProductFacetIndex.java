@@ -0,0 +1,560 @@
+package com.ski.shop.catalog.search;
+
+import com.ski.shop.catalog.cache.RemoteProductChange;
+import com.ski.shop.catalog.domain.DifficultyLevel;
+import com.ski.shop.catalog.domain.Product;
+import com.ski.shop.catalog.domain.SkiType;
+import com.ski.shop.catalog.dto.FacetCountResponse;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.BadRequestException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * 商品のファセットインデックス（ファセット値毎の圧縮ビットマップ）
+ *
+ * ブランド・カテゴリ（所属／配下を含む）・スキータイプ・難易度・価格帯毎に {@link CompressedBitmap} を持ち、
+ * 絞り込みはビットマップの積集合、ファセット毎の件数は積集合の要素数で求める。
+ * 一覧の並び替えに使う項目も保持するため、データベースへは表示するページの商品だけを問い合わせればよい。
+ * 商品の作成・更新・削除はコミット後に差分で反映し、他のインスタンスでの変更は
+ * {@link RemoteProductChange} を受けて対象の商品を読み直す。
+ */
+@ApplicationScoped
+public class ProductFacetIndex {
+
+    private static final Logger LOG = Logger.getLogger(ProductFacetIndex.class);
+
+    private static final String LOAD_QUERY = "SELECT p FROM Product p LEFT JOIN FETCH p.category c LEFT JOIN FETCH c.parent LEFT JOIN FETCH p.brand";
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UUID, Integer> slotsById = new HashMap<>();
+    private final List<FacetDocument> documentsBySlot = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private double[] prices = new double[64];
+
+    // 公開中かつ有効な商品
+    private final CompressedBitmap visible = new CompressedBitmap();
+    private final Map<UUID, CompressedBitmap> brands = new HashMap<>();
+    private final Map<UUID, CompressedBitmap> categories = new HashMap<>();
+    // カテゴリ配下（子孫カテゴリを含む）の商品
+    private final Map<UUID, CompressedBitmap> categoryTrees = new HashMap<>();
+    private final Map<SkiType, CompressedBitmap> skiTypes = new EnumMap<>(SkiType.class);
+    private final Map<DifficultyLevel, CompressedBitmap> difficultyLevels = new EnumMap<>(DifficultyLevel.class);
+    // 価格帯（priceBoundaries[i-1] 以上 priceBoundaries[i] 未満）
+    private final long[] priceBoundaries;
+    private final CompressedBitmap[] priceBuckets;
+
+    // ファセット値の表示名
+    private final Map<UUID, String> brandNames = new HashMap<>();
+    private final Map<UUID, String> categoryNames = new HashMap<>();
+
+    @Inject
+    AfterCommit afterCommit;
+
+    @Inject
+    public ProductFacetIndex(
+            @ConfigProperty(name = "app.product.facets.price-boundaries", defaultValue = "10000,30000,50000,80000,120000") List<Long> priceBoundaries) {
+        this.priceBoundaries = priceBoundaries.stream().mapToLong(Long::longValue).sorted().toArray();
+        this.priceBuckets = new CompressedBitmap[this.priceBoundaries.length + 1];
+        for (int i = 0; i < priceBuckets.length; i++) {
+            priceBuckets[i] = new CompressedBitmap();
+        }
+    }
+
+    /**
+     * 絞り込み・並び替えの結果
+     *
+     * @param pageIds 指定ページの商品ID（表示順）
+     * @param totalCount 条件に一致する商品数
+     * @param facets ファセット毎の件数（件数を求めなかった場合は空）
+     * @param nextCursor 次のページのカーソル（カーソル指定の検索で続きがある場合のみ）
+     */
+    public record Result(List<UUID> pageIds, long totalCount, Map<String, List<FacetCountResponse>> facets,
+                         String nextCursor) {
+    }
+
+    /**
+     * 絞り込み条件毎のビットマップ（null は条件なし）と、全条件の積集合
+     */
+    private record Matches(CompressedBitmap keyword, CompressedBitmap category, CompressedBitmap brand,
+                           CompressedBitmap skiType, CompressedBitmap difficulty, CompressedBitmap price,
+                           CompressedBitmap all) {
+    }
+
+    /**
+     * 起動時に全商品を索引
+     */
+    @Transactional
+    void onStart(@Observes StartupEvent event) {
+        List<Product> products = Product.find(LOAD_QUERY).list();
+        products.forEach(product -> index(FacetDocument.of(product)));
+        LOG.infof("Indexed facets of %d products (%d visible)", size(), visibleCount());
+    }
+
+    /**
+     * 他のインスタンスで変更された商品を読み直して索引（見つからなければ削除済みとして索引から削除）
+     */
+    @Transactional
+    void onRemoteChange(@Observes RemoteProductChange change) {
+        Set<UUID> removed = new HashSet<>(change.productIds());
+        List<Product> products = Product.find(LOAD_QUERY + " WHERE p.id IN ?1", change.productIds()).list();
+        for (Product product : products) {
+            index(FacetDocument.of(product));
+            removed.remove(product.id);
+        }
+        removed.forEach(this::remove);
+    }
+
+    /**
+     * 現在のトランザクションがコミットされたら商品を索引（ロールバック時は何もしない）
+     */
+    public void indexAfterCommit(Product product) {
+        FacetDocument document = FacetDocument.of(product);
+        afterCommit.run(() -> index(document));
+    }
+
+    /**
+     * 現在のトランザクションがコミットされたら商品を索引から削除
+     */
+    public void removeAfterCommit(UUID productId) {
+        afterCommit.run(() -> remove(productId));
+    }
+
+    /**
+     * 商品を索引（既にあれば置き換え）
+     */
+    public void index(FacetDocument document) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(document.id());
+            int slot = allocateSlot(document);
+            if (document.visible()) {
+                visible.add(slot);
+            }
+            if (document.brandId() != null) {
+                brands.computeIfAbsent(document.brandId(), id -> new CompressedBitmap()).add(slot);
+                brandNames.put(document.brandId(), document.brandName());
+            }
+            if (!document.categoryPath().isEmpty()) {
+                UUID categoryId = document.categoryPath().get(0);
+                categories.computeIfAbsent(categoryId, id -> new CompressedBitmap()).add(slot);
+                categoryNames.put(categoryId, document.categoryName());
+                for (UUID ancestorId : document.categoryPath()) {
+                    categoryTrees.computeIfAbsent(ancestorId, id -> new CompressedBitmap()).add(slot);
+                }
+            }
+            if (document.skiType() != null) {
+                skiTypes.computeIfAbsent(document.skiType(), type -> new CompressedBitmap()).add(slot);
+            }
+            if (document.difficultyLevel() != null) {
+                difficultyLevels.computeIfAbsent(document.difficultyLevel(), level -> new CompressedBitmap()).add(slot);
+            }
+            double price = document.basePrice() != null ? document.basePrice().doubleValue() : 0;
+            prices[slot] = price;
+            priceBuckets[bucketOf(price)].add(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 商品を索引から削除
+     */
+    public void remove(UUID productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 公開中の商品を絞り込み、並び替えて指定ページの商品IDを返す
+     *
+     * @param hits キーワード検索の全ヒット。null ならキーワード条件なし
+     * @param sortBy 並び順。null または relevance でキーワード指定時は関連度順
+     * @param withFacets ファセット毎の件数も求めるか
+     */
+    public Result search(FacetFilter filter, KeywordHits hits, String sortBy, int page, int size, boolean withFacets) {
+        lock.readLock().lock();
+        try {
+            Matches matches = matches(filter, hits);
+            List<UUID> pageIds = isRelevance(sortBy, hits)
+                ? rankedPage(matches.all(), hits, page, size)
+                : sortedPage(matches.all(), sortBy, page, size);
+            return new Result(pageIds, matches.all().cardinality(), withFacets ? facets(matches) : Map.of(), null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 公開中の商品を絞り込み、カーソルの次から size 件の商品IDを返す（キーセット方式）
+     *
+     * 全件を並び替えず、カーソルより後ろの商品から上位 size 件だけを選ぶため、何ページ目でも処理量は変わらない。
+     *
+     * @param after 前のページのカーソル（null なら先頭から）
+     */
+    public Result searchAfter(FacetFilter filter, KeywordHits hits, String sortBy, ProductCursor after, int size,
+                              boolean withFacets) {
+        if (size <= 0) {
+            throw new BadRequestException("size must be positive");
+        }
+        String effectiveSort = isRelevance(sortBy, hits) ? ProductCursor.RELEVANCE
+            : sortBy != null ? sortBy : "created_desc";
+        if (after != null && !after.sortBy().equals(effectiveSort)) {
+            throw new BadRequestException("Cursor was issued for sort " + after.sortBy());
+        }
+        lock.readLock().lock();
+        try {
+            Matches matches = matches(filter, hits);
+            List<UUID> pageIds = new ArrayList<>(size);
+            String nextCursor = null;
+            if (ProductCursor.RELEVANCE.equals(effectiveSort)) {
+                // 絞り込み後のヒットを関連度順に、カーソルの位置の次から size + 1 件目まで選ぶ
+                int limit = saturatedLimit((after != null ? (long) after.nextPosition() : 0) + size + 1);
+                List<UUID> ranked = hits.top(id -> contains(matches.all(), id), limit);
+                int position = rankedPositionAfter(ranked, after);
+                if (ranked.size() == limit && position + size + 1 > limit) {
+                    // カーソルの商品の順位が下がっていた場合は、その位置から選び直す
+                    limit = saturatedLimit((long) position + size + 1);
+                    ranked = hits.top(id -> contains(matches.all(), id), limit);
+                }
+                int last = -1;
+                for (; position < ranked.size(); position++) {
+                    if (pageIds.size() == size) {
+                        nextCursor = ProductCursor.atPosition(pageIds.get(size - 1), last).encode();
+                        break;
+                    }
+                    pageIds.add(ranked.get(position));
+                    last = position;
+                }
+            } else {
+                List<FacetDocument> documents = topAfter(matches.all(), comparatorFor(effectiveSort),
+                    after != null ? after.probe() : null, size + 1);
+                if (documents.size() > size) {
+                    documents = documents.subList(0, size);
+                    nextCursor = ProductCursor.after(effectiveSort, documents.get(size - 1)).encode();
+                }
+                documents.forEach(document -> pageIds.add(document.id()));
+            }
+            return new Result(pageIds, matches.all().cardinality(), withFacets ? facets(matches) : Map.of(), nextCursor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 索引済みの商品数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 公開中かつ有効な商品数
+     */
+    public long visibleCount() {
+        lock.readLock().lock();
+        try {
+            return visible.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Matches matches(FacetFilter filter, KeywordHits hits) {
+        // キーワード条件は上位だけでなく全ヒットで絞り込む（件数・ファセットを欠かさないため）
+        CompressedBitmap keyword = hits != null ? bitmapOf(hits.ids()) : null;
+        CompressedBitmap category = categoryMatches(filter);
+        CompressedBitmap brand = filter.brandId() != null ? valueMatches(brands.get(filter.brandId())) : null;
+        CompressedBitmap skiType = filter.skiType() != null ? valueMatches(skiTypes.get(filter.skiType())) : null;
+        CompressedBitmap difficulty = filter.difficultyLevel() != null
+            ? valueMatches(difficultyLevels.get(filter.difficultyLevel())) : null;
+        CompressedBitmap price = priceMatches(filter.minPrice(), filter.maxPrice());
+        return new Matches(keyword, category, brand, skiType, difficulty, price,
+            intersect(visible, keyword, category, brand, skiType, difficulty, price));
+    }
+
+    /**
+     * ファセット毎の件数（各ファセットの件数は、そのファセット自身以外の条件で絞り込んだ集合から数える）
+     */
+    private Map<String, List<FacetCountResponse>> facets(Matches m) {
+        Map<String, List<FacetCountResponse>> facets = new LinkedHashMap<>();
+        facets.put("category", counts(intersect(visible, m.keyword(), m.brand(), m.skiType(), m.difficulty(), m.price()),
+            categories, categoryNames::get));
+        facets.put("brand", counts(intersect(visible, m.keyword(), m.category(), m.skiType(), m.difficulty(), m.price()),
+            brands, brandNames::get));
+        facets.put("skiType", counts(intersect(visible, m.keyword(), m.category(), m.brand(), m.difficulty(), m.price()),
+            skiTypes, SkiType::getDisplayName));
+        facets.put("difficultyLevel", counts(intersect(visible, m.keyword(), m.category(), m.brand(), m.skiType(), m.price()),
+            difficultyLevels, DifficultyLevel::getDisplayName));
+        facets.put("price", priceCounts(intersect(visible, m.keyword(), m.category(), m.brand(), m.skiType(), m.difficulty())));
+        return facets;
+    }
+
+    private static boolean isRelevance(String sortBy, KeywordHits hits) {
+        return hits != null && (sortBy == null || ProductCursor.RELEVANCE.equals(sortBy));
+    }
+
+    private static int saturatedLimit(long limit) {
+        return (int) Math.min(limit, Integer.MAX_VALUE);
+    }
+
+    private boolean contains(CompressedBitmap matches, UUID id) {
+        Integer slot = slotsById.get(id);
+        return slot != null && matches.contains(slot);
+    }
+
+    private static int rankedPositionAfter(List<UUID> ranked, ProductCursor after) {
+        if (after == null) {
+            return 0;
+        }
+        // 索引の更新で順位が動いた場合は、カーソルの商品の現在の位置から続ける
+        int index = ranked.indexOf(after.id());
+        return index >= 0 ? index + 1 : Math.min(after.nextPosition(), ranked.size());
+    }
+
+    /**
+     * probe より後ろ（probe が null なら先頭）の商品から、並び順で上位 limit 件を選ぶ
+     */
+    private List<FacetDocument> topAfter(CompressedBitmap matches, Comparator<FacetDocument> order,
+                                         FacetDocument probe, int limit) {
+        // 先頭が最も後ろの商品になるヒープで上位 limit 件を保持する
+        PriorityQueue<FacetDocument> top = new PriorityQueue<>(limit, order.reversed());
+        matches.forEach(slot -> {
+            FacetDocument document = documentsBySlot.get(slot);
+            if (probe != null && order.compare(document, probe) <= 0) {
+                return;
+            }
+            if (top.size() < limit) {
+                top.add(document);
+            } else if (order.compare(document, top.peek()) < 0) {
+                top.poll();
+                top.add(document);
+            }
+        });
+        List<FacetDocument> documents = new ArrayList<>(top);
+        documents.sort(order);
+        return documents;
+    }
+
+    private CompressedBitmap categoryMatches(FacetFilter filter) {
+        if (filter.categoryIds() == null || filter.categoryIds().isEmpty()) {
+            return null;
+        }
+        Map<UUID, CompressedBitmap> source = filter.includeSubcategories() ? categoryTrees : categories;
+        CompressedBitmap result = new CompressedBitmap();
+        for (UUID categoryId : filter.categoryIds()) {
+            CompressedBitmap bitmap = source.get(categoryId);
+            if (bitmap != null) {
+                result = CompressedBitmap.or(result, bitmap);
+            }
+        }
+        return result;
+    }
+
+    private static CompressedBitmap valueMatches(CompressedBitmap bitmap) {
+        return bitmap != null ? bitmap : new CompressedBitmap();
+    }
+
+    /**
+     * 価格条件（0 以下・null は条件なし）に一致する商品。範囲に完全に含まれる価格帯はビットマップをそのまま使う
+     */
+    private CompressedBitmap priceMatches(Double minPrice, Double maxPrice) {
+        double min = minPrice != null && minPrice > 0 ? minPrice : Double.NEGATIVE_INFINITY;
+        double max = maxPrice != null && maxPrice > 0 ? maxPrice : Double.POSITIVE_INFINITY;
+        if (min == Double.NEGATIVE_INFINITY && max == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        CompressedBitmap result = new CompressedBitmap();
+        for (int i = 0; i < priceBuckets.length; i++) {
+            double low = i == 0 ? Double.NEGATIVE_INFINITY : priceBoundaries[i - 1];
+            double high = i == priceBoundaries.length ? Double.POSITIVE_INFINITY : priceBoundaries[i];
+            if (high <= min || low > max) {
+                continue;
+            }
+            if (low >= min && high <= max) {
+                result = CompressedBitmap.or(result, priceBuckets[i]);
+            } else {
+                CompressedBitmap partial = result;
+                priceBuckets[i].forEach(slot -> {
+                    if (prices[slot] >= min && prices[slot] <= max) {
+                        partial.add(slot);
+                    }
+                });
+            }
+        }
+        return result;
+    }
+
+    private static CompressedBitmap intersect(CompressedBitmap base, CompressedBitmap... filters) {
+        CompressedBitmap result = base;
+        for (CompressedBitmap filter : filters) {
+            if (filter != null) {
+                result = CompressedBitmap.and(result, filter);
+            }
+        }
+        return result;
+    }
+
+    private CompressedBitmap bitmapOf(List<UUID> ids) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (UUID id : ids) {
+            Integer slot = slotsById.get(id);
+            if (slot != null) {
+                bitmap.add(slot);
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * 絞り込み後のヒットから関連度順で指定ページの商品を選ぶ（上位はページ末尾までしか並び替えない）
+     */
+    private List<UUID> rankedPage(CompressedBitmap matches, KeywordHits hits, int page, int size) {
+        long from = (long) page * size;
+        List<UUID> top = hits.top(id -> contains(matches, id), saturatedLimit(from + size));
+        return from >= top.size() ? List.of() : new ArrayList<>(top.subList((int) from, top.size()));
+    }
+
+    private List<UUID> sortedPage(CompressedBitmap matches, String sortBy, int page, int size) {
+        List<FacetDocument> documents = new ArrayList<>((int) matches.cardinality());
+        matches.forEach(slot -> documents.add(documentsBySlot.get(slot)));
+        documents.sort(comparatorFor(sortBy));
+        int from = (int) Math.min((long) page * size, documents.size());
+        int to = (int) Math.min((long) from + size, documents.size());
+        List<UUID> pageIds = new ArrayList<>(to - from);
+        for (FacetDocument document : documents.subList(from, to)) {
+            pageIds.add(document.id());
+        }
+        return pageIds;
+    }
+
+    private static Comparator<FacetDocument> comparatorFor(String sortBy) {
+        Comparator<FacetDocument> byName = Comparator.comparing(FacetDocument::name, Comparator.nullsLast(Comparator.naturalOrder()));
+        Comparator<FacetDocument> byPrice = Comparator.comparing(FacetDocument::basePrice, Comparator.nullsLast(Comparator.naturalOrder()));
+        Comparator<FacetDocument> byCreated = Comparator.comparing(FacetDocument::createdAt, Comparator.nullsLast(Comparator.naturalOrder()));
+        Comparator<FacetDocument> order = switch (sortBy != null ? sortBy : "created_desc") {
+            case "name_asc" -> byName;
+            case "name_desc" -> byName.reversed();
+            case "price_asc" -> byPrice;
+            case "price_desc" -> byPrice.reversed();
+            case "created_asc" -> byCreated;
+            case "popularity" -> Comparator.comparingLong(FacetDocument::salesCount).reversed();
+            default -> byCreated.reversed();
+        };
+        // 並び替えキーが同じ商品は商品IDで順序を固定する（カーソルの位置を一意にするため）
+        return order.thenComparing(FacetDocument::id);
+    }
+
+    private static <K> List<FacetCountResponse> counts(CompressedBitmap base, Map<K, CompressedBitmap> values,
+                                                      Function<K, String> label) {
+        List<FacetCountResponse> counts = new ArrayList<>();
+        for (Map.Entry<K, CompressedBitmap> entry : values.entrySet()) {
+            long count = CompressedBitmap.andCardinality(base, entry.getValue());
+            if (count > 0) {
+                counts.add(new FacetCountResponse(entry.getKey().toString(), label.apply(entry.getKey()), count));
+            }
+        }
+        counts.sort(Comparator.comparingLong(FacetCountResponse::getCount).reversed());
+        return counts;
+    }
+
+    private List<FacetCountResponse> priceCounts(CompressedBitmap base) {
+        List<FacetCountResponse> counts = new ArrayList<>();
+        for (int i = 0; i < priceBuckets.length; i++) {
+            long count = CompressedBitmap.andCardinality(base, priceBuckets[i]);
+            if (count > 0) {
+                String low = i == 0 ? "" : String.valueOf(priceBoundaries[i - 1]);
+                String high = i == priceBoundaries.length ? "" : String.valueOf(priceBoundaries[i]);
+                counts.add(new FacetCountResponse(low + "-" + high, low + "〜" + high, count));
+            }
+        }
+        return counts;
+    }
+
+    private int bucketOf(double price) {
+        int index = Arrays.binarySearch(priceBoundaries, (long) Math.floor(price));
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private void removeLocked(UUID productId) {
+        Integer slot = slotsById.remove(productId);
+        if (slot == null) {
+            return;
+        }
+        FacetDocument document = documentsBySlot.get(slot);
+        visible.remove(slot);
+        removeFrom(brands, document.brandId(), slot);
+        if (!document.categoryPath().isEmpty()) {
+            removeFrom(categories, document.categoryPath().get(0), slot);
+            for (UUID ancestorId : document.categoryPath()) {
+                removeFrom(categoryTrees, ancestorId, slot);
+            }
+        }
+        removeFrom(skiTypes, document.skiType(), slot);
+        removeFrom(difficultyLevels, document.difficultyLevel(), slot);
+        priceBuckets[bucketOf(prices[slot])].remove(slot);
+        prices[slot] = 0;
+        documentsBySlot.set(slot, null);
+        freeSlots.push(slot);
+    }
+
+    private static <K> void removeFrom(Map<K, CompressedBitmap> bitmaps, K key, int slot) {
+        if (key == null) {
+            return;
+        }
+        CompressedBitmap bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.remove(slot);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private int allocateSlot(FacetDocument document) {
+        int slot;
+        if (!freeSlots.isEmpty()) {
+            slot = freeSlots.pop();
+            documentsBySlot.set(slot, document);
+        } else {
+            slot = documentsBySlot.size();
+            documentsBySlot.add(document);
+            if (slot == prices.length) {
+                prices = Arrays.copyOf(prices, slot * 2);
+            }
+        }
+        slotsById.put(document.id(), slot);
+        return slot;
+    }
+}
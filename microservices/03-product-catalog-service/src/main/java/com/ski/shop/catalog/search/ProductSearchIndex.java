@@ -0,0 +1,300 @@
+package com.ski.shop.catalog.search;
+
+import com.ski.shop.catalog.cache.RemoteProductChange;
+import com.ski.shop.catalog.domain.Product;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 商品のインメモリ転置インデックス（BM25 によるスコアリング）
+ *
+ * 商品名・概要・ブランド・カテゴリ・タグ・追加仕様を {@link NgramTokenizer} で分割し、
+ * フィールド毎の重みを掛けた出現頻度で索引する。検索は全検索語を含む商品（AND）だけを対象とし、
+ * 最も短いポスティングリストから辿るため、処理量はカタログ全体ではなくヒット件数に比例する。
+ * 商品の作成・更新・削除はコミット後に差分で反映し、他のインスタンスでの変更は
+ * {@link RemoteProductChange} を受けて対象の商品を読み直す。
+ */
+@ApplicationScoped
+public class ProductSearchIndex {
+
+    private static final Logger LOG = Logger.getLogger(ProductSearchIndex.class);
+
+    // BM25 のパラメータ
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // フィールドの重み
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float BRAND_WEIGHT = 2.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float TAG_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    private static final float SPEC_WEIGHT = 1.0f;
+
+    private static final String LOAD_QUERY = "SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.tags LEFT JOIN FETCH p.additionalSpecs";
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // 語 → (文書番号 → 重み付き出現頻度)。前方一致のため辞書順に保持する
+    private final TreeMap<String, Map<Integer, Float>> postings = new TreeMap<>();
+    private final Map<UUID, Integer> slotsById = new HashMap<>();
+    private final List<UUID> idsBySlot = new ArrayList<>();
+    private final List<String[]> termsBySlot = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private float[] lengths = new float[64];
+    private double totalLength;
+
+    @Inject
+    AfterCommit afterCommit;
+
+    /**
+     * 起動時に全商品を索引
+     */
+    @Transactional
+    void onStart(@Observes StartupEvent event) {
+        List<Product> products = Product.find(LOAD_QUERY).list();
+        products.forEach(product -> index(SearchDocument.of(product)));
+        LOG.infof("Indexed %d products (%d terms)", size(), termCount());
+    }
+
+    /**
+     * 他のインスタンスで変更された商品を読み直して索引（見つからなければ削除済みとして索引から削除）
+     */
+    @Transactional
+    void onRemoteChange(@Observes RemoteProductChange change) {
+        Set<UUID> removed = new HashSet<>(change.productIds());
+        List<Product> products = Product.find(LOAD_QUERY + " WHERE p.id IN ?1", change.productIds()).list();
+        for (Product product : products) {
+            index(SearchDocument.of(product));
+            removed.remove(product.id);
+        }
+        removed.forEach(this::remove);
+    }
+
+    /**
+     * 現在のトランザクションがコミットされたら商品を索引（ロールバック時は何もしない）
+     */
+    public void indexAfterCommit(Product product) {
+        SearchDocument document = SearchDocument.of(product);
+        afterCommit.run(() -> index(document));
+    }
+
+    /**
+     * 現在のトランザクションがコミットされたら商品を索引から削除
+     */
+    public void removeAfterCommit(UUID productId) {
+        afterCommit.run(() -> remove(productId));
+    }
+
+    /**
+     * 商品を索引（既にあれば置き換え）
+     */
+    public void index(SearchDocument document) {
+        Map<String, Float> frequencies = new HashMap<>();
+        addField(frequencies, document.name(), NAME_WEIGHT);
+        addField(frequencies, document.shortDescription(), DESCRIPTION_WEIGHT);
+        addField(frequencies, document.brand(), BRAND_WEIGHT);
+        addField(frequencies, document.category(), CATEGORY_WEIGHT);
+        document.tags().forEach(tag -> addField(frequencies, tag, TAG_WEIGHT));
+        document.specs().forEach(spec -> addField(frequencies, spec, SPEC_WEIGHT));
+        float length = 0;
+        for (float frequency : frequencies.values()) {
+            length += frequency;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(document.id());
+            int slot = allocateSlot(document.id());
+            for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), term -> new HashMap<>()).put(slot, entry.getValue());
+            }
+            termsBySlot.set(slot, frequencies.keySet().toArray(String[]::new));
+            lengths[slot] = length;
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 商品を索引から削除
+     */
+    public void remove(UUID productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * キーワードを全て含む商品を関連度の高い順に返す
+     *
+     * @param limit 返す件数の上限
+     */
+    public List<UUID> search(String query, int limit) {
+        return match(query).top(id -> true, limit);
+    }
+
+    /**
+     * キーワードを全て含む全商品を関連度スコア付きで返す（件数で打ち切らない）
+     */
+    public KeywordHits match(String query) {
+        List<String> tokens = NgramTokenizer.queryTokens(query);
+        if (tokens.isEmpty()) {
+            return KeywordHits.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            int documents = slotsById.size();
+            if (documents == 0) {
+                return KeywordHits.empty();
+            }
+            double averageLength = totalLength / documents;
+
+            // 検索語毎のポスティング（英単語は前方一致で展開した語をまとめる）
+            List<Map<Integer, Float>> groups = new ArrayList<>();
+            for (String token : tokens.stream().distinct().toList()) {
+                Map<Integer, Float> group = lookup(token);
+                if (group.isEmpty()) {
+                    return KeywordHits.empty();
+                }
+                groups.add(group);
+            }
+            groups.sort(Comparator.comparingInt(Map::size));
+            double[] idf = new double[groups.size()];
+            for (int i = 0; i < idf.length; i++) {
+                int df = groups.get(i).size();
+                idf[i] = Math.log(1 + (documents - df + 0.5) / (df + 0.5));
+            }
+
+            // ヒットは最も短いポスティングの件数以下
+            UUID[] ids = new UUID[groups.get(0).size()];
+            double[] scores = new double[ids.length];
+            int hits = 0;
+            candidates:
+            for (Map.Entry<Integer, Float> candidate : groups.get(0).entrySet()) {
+                int slot = candidate.getKey();
+                double norm = K1 * (1 - B + B * lengths[slot] / averageLength);
+                double score = 0;
+                for (int i = 0; i < groups.size(); i++) {
+                    Float frequency = i == 0 ? candidate.getValue() : groups.get(i).get(slot);
+                    if (frequency == null) {
+                        continue candidates;
+                    }
+                    score += idf[i] * frequency * (K1 + 1) / (frequency + norm);
+                }
+                ids[hits] = idsBySlot.get(slot);
+                scores[hits++] = score;
+            }
+            return new KeywordHits(Arrays.copyOf(ids, hits), Arrays.copyOf(scores, hits));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 索引済みの商品数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 索引済みの語数
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Integer, Float> lookup(String token) {
+        if (!NgramTokenizer.isWord(token)) {
+            return postings.getOrDefault(token, Map.of());
+        }
+        SortedMap<String, Map<Integer, Float>> expansions = postings.subMap(token, token + Character.MAX_VALUE);
+        if (expansions.size() == 1) {
+            return expansions.values().iterator().next();
+        }
+        // 展開した語のうち最も頻度の高いものをその文書の頻度とする
+        // （一部の語で打ち切るとヒットが欠けて件数が変わるため、全ての語をまとめる）
+        Map<Integer, Float> merged = new HashMap<>();
+        for (Map<Integer, Float> posting : expansions.values()) {
+            posting.forEach((slot, frequency) -> merged.merge(slot, frequency, Math::max));
+        }
+        return merged;
+    }
+
+    private void removeLocked(UUID productId) {
+        Integer slot = slotsById.remove(productId);
+        if (slot == null) {
+            return;
+        }
+        for (String term : termsBySlot.get(slot)) {
+            Map<Integer, Float> posting = postings.get(term);
+            posting.remove(slot);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= lengths[slot];
+        lengths[slot] = 0;
+        idsBySlot.set(slot, null);
+        termsBySlot.set(slot, null);
+        freeSlots.push(slot);
+    }
+
+    private int allocateSlot(UUID productId) {
+        int slot;
+        if (!freeSlots.isEmpty()) {
+            slot = freeSlots.pop();
+            idsBySlot.set(slot, productId);
+        } else {
+            slot = idsBySlot.size();
+            idsBySlot.add(productId);
+            termsBySlot.add(null);
+            if (slot == lengths.length) {
+                lengths = Arrays.copyOf(lengths, slot * 2);
+            }
+        }
+        slotsById.put(productId, slot);
+        return slot;
+    }
+
+    private static void addField(Map<String, Float> frequencies, String text, float weight) {
+        for (String token : NgramTokenizer.indexTokens(text)) {
+            frequencies.merge(token, weight, Float::sum);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.ski.shop.catalog.search;
+
+import com.ski.shop.catalog.domain.Product;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 全文検索の対象となる商品のテキスト（トランザクション内でエンティティから取り出したスナップショット）
+ */
+public record SearchDocument(
+    UUID id,
+    String name,
+    String shortDescription,
+    String brand,
+    String category,
+    List<String> tags,
+    List<String> specs
+) {
+
+    public static SearchDocument of(Product product) {
+        return new SearchDocument(
+            product.id,
+            product.name,
+            product.shortDescription,
+            product.brand != null ? product.brand.name : null,
+            product.category != null ? product.category.name : null,
+            product.tags != null ? List.copyOf(product.tags) : List.of(),
+            product.additionalSpecs != null ? List.copyOf(product.additionalSpecs.values()) : List.of()
+        );
+    }
+}
@@ -1,6 +1,6 @@
 package com.ski.shop.catalog.service;
 
-import com.ski.shop.catalog.domain.Category;
+import com.ski.shop.catalog.cache.TrackCacheDependencies;
 import com.ski.shop.catalog.domain.Product;
 import com.ski.shop.catalog.dto.CategoryResponse;
 import com.ski.shop.catalog.dto.CategorySummaryResponse;
@@ -11,6 +11,7 @@ import com.ski.shop.catalog.dto.BrandSummaryResponse;
 import io.quarkus.cache.CacheResult;
 import io.quarkus.cache.CacheKey;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.NotFoundException;
 
 import java.math.BigDecimal;
@@ -23,56 +24,43 @@ import java.util.stream.Collectors;
  * カテゴリサービス
  */
 @ApplicationScoped
+@TrackCacheDependencies
 public class CategoryService {
 
+    @Inject
+    CategoryTreeIndex categoryTree;
+
     /**
      * 全カテゴリ一覧を商品数と共に取得
      */
-    @CacheResult(cacheName = "categories")
     public List<CategoryWithProductCountResponse> getAllCategoriesWithProductCount() {
-        List<Category> categories = Category.list("isActive = true ORDER BY sortOrder");
-        return categories.stream()
-                .map(category -> toCategoryWithProductCountResponse(category, category.getProductCount()))
-                .collect(Collectors.toList());
+        return toCategoryWithProductCountResponses(categoryTree.current().all());
     }
 
     /**
      * ルートカテゴリ一覧を商品数と共に取得
      */
-    @CacheResult(cacheName = "categories")
     public List<CategoryWithProductCountResponse> getRootCategoriesWithProductCount() {
-        List<Category> rootCategories = Category.findRootCategories();
-        return rootCategories.stream()
-                .map(category -> toCategoryWithProductCountResponse(category, category.getProductCount()))
-                .collect(Collectors.toList());
+        return toCategoryWithProductCountResponses(categoryTree.current().roots());
     }
 
     /**
      * 指定されたレベルのカテゴリ一覧を商品数と共に取得
      */
-    @CacheResult(cacheName = "categories")
     public List<CategoryWithProductCountResponse> getCategoriesByLevel(Integer level) {
-        List<Category> categories = Category.findByLevel(level);
-        return categories.stream()
-                .map(category -> toCategoryWithProductCountResponse(category, category.getProductCount()))
-                .collect(Collectors.toList());
+        return toCategoryWithProductCountResponses(categoryTree.current().byLevel(level));
     }
 
     /**
      * 指定された親カテゴリのサブカテゴリ一覧を商品数と共に取得
      */
-    @CacheResult(cacheName = "categories")
     public List<CategoryWithProductCountResponse> getSubCategories(UUID parentId) {
-        List<Category> subCategories = Category.findByParent(parentId);
-        return subCategories.stream()
-                .map(category -> toCategoryWithProductCountResponse(category, category.getProductCount()))
-                .collect(Collectors.toList());
+        return toCategoryWithProductCountResponses(categoryTree.current().children(parentId));
     }
 
     /**
      * メインカテゴリ（レベル0）一覧を取得
      */
-    @CacheResult(cacheName = "categories")
     public List<CategoryWithProductCountResponse> getMainCategories() {
         return getCategoriesByLevel(0);
     }
@@ -80,48 +68,39 @@ public class CategoryService {
     /**
      * 指定されたレベルのカテゴリ一覧を商品数と共に取得
      */
-    @CacheResult(cacheName = "categories")
-    public List<CategoryWithProductCountResponse> getCategoriesByLevelWithProductCount(@CacheKey Integer level) {
-        List<Category> categories = Category.findByLevel(level);
-        return categories.stream()
-                .map(category -> toCategoryWithProductCountResponse(category, category.getProductCount()))
-                .collect(Collectors.toList());
+    public List<CategoryWithProductCountResponse> getCategoriesByLevelWithProductCount(Integer level) {
+        return getCategoriesByLevel(level);
     }
 
     /**
      * 指定されたカテゴリの子カテゴリ一覧を商品数と共に取得
      */
-    @CacheResult(cacheName = "category-children")
-    public List<CategoryWithProductCountResponse> getChildCategoriesWithProductCount(@CacheKey UUID parentId) {
-        List<Category> children = Category.findByParent(parentId);
-        return children.stream()
-                .map(category -> toCategoryWithProductCountResponse(category, category.getProductCount()))
-                .collect(Collectors.toList());
+    public List<CategoryWithProductCountResponse> getChildCategoriesWithProductCount(UUID parentId) {
+        return getSubCategories(parentId);
     }
 
     /**
      * カテゴリ詳細を取得
      */
-    @CacheResult(cacheName = "category-details")
-    public CategoryResponse getCategory(@CacheKey UUID categoryId) {
-        Category category = Category.findById(categoryId);
-        if (category == null) {
-            throw new NotFoundException("Category not found: " + categoryId);
-        }
-        return toCategoryResponse(category);
+    public CategoryResponse getCategory(UUID categoryId) {
+        CategoryTree tree = categoryTree.current();
+        CategoryTree.Node category = tree.find(categoryId)
+                .orElseThrow(() -> new NotFoundException("Category not found: " + categoryId));
+        return toCategoryResponse(tree, category);
     }
 
     /**
      * パスでカテゴリを取得
      */
-    @CacheResult(cacheName = "category-details")
-    public CategoryResponse getCategoryByPath(@CacheKey String path) {
+    public CategoryResponse getCategoryByPath(String path) {
         if (path == null || path.trim().isEmpty()) {
             throw new IllegalArgumentException("Path cannot be null or empty");
         }
-        Category category = Category.findByPath(path)
+        CategoryTree tree = categoryTree.current();
+        CategoryTree.Node category = tree.findByPath(path)
+                .filter(CategoryTree.Node::active)
                 .orElseThrow(() -> new NotFoundException("Category not found: " + path));
-        return toCategoryResponse(category);
+        return toCategoryResponse(tree, category);
     }
 
     /**
@@ -129,10 +108,8 @@ public class CategoryService {
      */
     @CacheResult(cacheName = "categories")
     public CategoryWithProductsResponse getCategoryWithProducts(@CacheKey UUID categoryId, @CacheKey int limit) {
-        Category category = Category.findById(categoryId);
-        if (category == null) {
-            throw new NotFoundException("Category not found: " + categoryId);
-        }
+        CategoryTree.Node category = categoryTree.current().find(categoryId)
+                .orElseThrow(() -> new NotFoundException("Category not found: " + categoryId));
 
         // カテゴリに属する商品を取得（公開済み・アクティブなもののみ）
         List<Product> products = Product.find(
@@ -144,18 +121,7 @@ public class CategoryService {
                 .map(this::toProductSummaryResponse)
                 .collect(Collectors.toList());
 
-        return new CategoryWithProductsResponse(
-                category.id,
-                category.name,
-                category.description,
-                category.path,
-                category.level,
-                category.sortOrder,
-                category.imageUrl,
-                category.isActive,
-                category.getProductCount(),
-                productSummaries
-        );
+        return toCategoryWithProductsResponse(category, category.productCount(), productSummaries);
     }
 
     /**
@@ -163,81 +129,96 @@ public class CategoryService {
      */
     @CacheResult(cacheName = "categories")
     public List<CategoryWithProductsResponse> getSubCategoriesWithProducts(@CacheKey UUID parentId, @CacheKey int limit) {
-        List<Category> subCategories = Category.findByParent(parentId);
-        
+        List<CategoryTree.Node> subCategories = categoryTree.current().children(parentId);
+
         return subCategories.stream()
+                .filter(CategoryTree.Node::active)
                 .map(subCategory -> {
                     // 各サブカテゴリの商品を取得
                     List<Product> products = Product.find(
                         "category.id = ?1 AND publishStatus = 'PUBLISHED' AND isActive = true ORDER BY createdAt DESC",
-                        subCategory.id
+                        subCategory.id()
                     ).range(0, limit - 1).list();
 
                     List<ProductSummaryResponse> productSummaries = products.stream()
                             .map(this::toProductSummaryResponse)
                             .collect(Collectors.toList());
 
-                    return new CategoryWithProductsResponse(
-                            subCategory.id,
-                            subCategory.name,
-                            subCategory.description,
-                            subCategory.path,
-                            subCategory.level,
-                            subCategory.sortOrder,
-                            subCategory.imageUrl,
-                            subCategory.isActive,
-                            subCategory.getProductCount(),
-                            productSummaries
-                    );
+                    return toCategoryWithProductsResponse(subCategory, subCategory.productCount(), productSummaries);
                 })
                 .collect(Collectors.toList());
     }
 
     // プライベートメソッド
 
-    private CategoryWithProductCountResponse toCategoryWithProductCountResponse(Category category, Long productCount) {
-        return new CategoryWithProductCountResponse(
-                category.id,
-                category.name,
-                category.description,
-                category.path,
-                category.level,
-                category.sortOrder,
-                category.imageUrl,
-                category.isActive,
-                productCount != null ? productCount : 0L
+    private List<CategoryWithProductCountResponse> toCategoryWithProductCountResponses(List<CategoryTree.Node> categories) {
+        return categories.stream()
+                .filter(CategoryTree.Node::active)
+                .map(this::toCategoryWithProductCountResponse)
+                .collect(Collectors.toList());
+    }
+
+    private CategoryWithProductCountResponse toCategoryWithProductCountResponse(CategoryTree.Node category) {
+        CategoryWithProductCountResponse response = new CategoryWithProductCountResponse(
+                category.id(),
+                category.name(),
+                category.description(),
+                category.path(),
+                category.level(),
+                category.sortOrder(),
+                category.imageUrl(),
+                category.active(),
+                category.productCount()
         );
+        response.setTotalProductCount(category.totalProductCount());
+        return response;
     }
 
-    private CategoryResponse toCategoryResponse(Category category) {
+    private CategoryResponse toCategoryResponse(CategoryTree tree, CategoryTree.Node category) {
         CategorySummaryResponse parentResponse = null;
-        if (category.parent != null) {
-            parentResponse = new CategorySummaryResponse(
-                    category.parent.id,
-                    category.parent.name,
-                    category.parent.path
-            );
+        if (category.parentId() != null) {
+            parentResponse = tree.find(category.parentId())
+                    .map(parent -> new CategorySummaryResponse(parent.id(), parent.name(), parent.path()))
+                    .orElse(null);
         }
 
-        List<CategorySummaryResponse> childrenResponse = category.children.stream()
-                .filter(child -> child.isActive)
-                .map(child -> new CategorySummaryResponse(child.id, child.name, child.path))
+        List<CategorySummaryResponse> childrenResponse = tree.children(category.id()).stream()
+                .filter(CategoryTree.Node::active)
+                .map(child -> new CategorySummaryResponse(child.id(), child.name(), child.path()))
                 .collect(Collectors.toList());
 
-        return new CategoryResponse(
-                category.id,
-                category.name,
-                category.description,
-                category.path,
-                category.level,
-                category.sortOrder,
-                category.imageUrl,
-                category.isActive,
-                category.getProductCount(),
+        CategoryResponse response = new CategoryResponse(
+                category.id(),
+                category.name(),
+                category.description(),
+                category.path(),
+                category.level(),
+                category.sortOrder(),
+                category.imageUrl(),
+                category.active(),
+                category.productCount(),
                 parentResponse,
                 childrenResponse,
-                category.createdAt,
-                category.updatedAt
+                category.createdAt(),
+                category.updatedAt()
+        );
+        response.setTotalProductCount(category.totalProductCount());
+        return response;
+    }
+
+    private CategoryWithProductsResponse toCategoryWithProductsResponse(CategoryTree.Node category, Long productCount,
+                                                                        List<ProductSummaryResponse> products) {
+        return new CategoryWithProductsResponse(
+                category.id(),
+                category.name(),
+                category.description(),
+                category.path(),
+                category.level(),
+                category.sortOrder(),
+                category.imageUrl(),
+                category.active(),
+                productCount,
+                products
         );
     }
 
@@ -302,10 +283,8 @@ public class CategoryService {
      */
     @CacheResult(cacheName = "category-all-products")
     public CategoryWithProductsResponse getCategoryWithAllProducts(@CacheKey UUID categoryId, @CacheKey int limit) {
-        Category category = Category.findById(categoryId);
-        if (category == null) {
-            throw new NotFoundException("Category not found: " + categoryId);
-        }
+        CategoryTree.Node category = categoryTree.current().find(categoryId)
+                .orElseThrow(() -> new NotFoundException("Category not found: " + categoryId));
 
         // カテゴリ自体の商品とサブカテゴリの商品をまとめて取得
         List<Product> products = Product.find(
@@ -324,17 +303,6 @@ public class CategoryService {
                 .map(this::toProductSummaryResponse)
                 .collect(Collectors.toList());
 
-        return new CategoryWithProductsResponse(
-                category.id,
-                category.name,
-                category.description,
-                category.path,
-                category.level,
-                category.sortOrder,
-                category.imageUrl,
-                category.isActive,
-                (long) productSummaries.size(),
-                productSummaries
-        );
+        return toCategoryWithProductsResponse(category, (long) productSummaries.size(), productSummaries);
     }
 }
@@ -0,0 +1,222 @@
+package com.ski.shop.catalog.service;
+
+import com.ski.shop.catalog.domain.Category;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * カテゴリツリーの不変スナップショット
+ *
+ * 親子関係・パス・商品数（直下と配下の合計）を保持する。変更は新しいスナップショットを作って差し替えるため、
+ * 読み出し側は同期せずに一貫した内容を参照できる。
+ */
+public final class CategoryTree {
+
+    public static final CategoryTree EMPTY = new CategoryTree(Map.of());
+
+    // 表示順（並び順、同じならパス順）
+    private static final Comparator<Node> ORDER = Comparator.comparingInt(Node::sortOrder).thenComparing(Node::path);
+
+    private final Map<UUID, Node> nodes;
+    private final Map<String, Node> byPath;
+    private final List<Node> ordered;
+
+    /**
+     * カテゴリ
+     *
+     * @param childIds 子カテゴリID（非アクティブも含む、表示順）
+     * @param productCount 直下の公開中の商品数
+     * @param totalProductCount 配下のカテゴリを含む公開中の商品数
+     */
+    public record Node(
+        UUID id,
+        String name,
+        String description,
+        String path,
+        int level,
+        int sortOrder,
+        String imageUrl,
+        boolean active,
+        UUID parentId,
+        List<UUID> childIds,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        long productCount,
+        long totalProductCount
+    ) {
+
+        Node withChildIds(List<UUID> childIds) {
+            return new Node(id, name, description, path, level, sortOrder, imageUrl, active, parentId,
+                    childIds, createdAt, updatedAt, productCount, totalProductCount);
+        }
+
+        Node withProductCounts(long productCount, long totalProductCount) {
+            return new Node(id, name, description, path, level, sortOrder, imageUrl, active, parentId,
+                    childIds, createdAt, updatedAt, productCount, totalProductCount);
+        }
+    }
+
+    private CategoryTree(Map<UUID, Node> nodes) {
+        this.nodes = nodes;
+        Map<String, Node> byPath = new HashMap<>();
+        nodes.values().forEach(node -> byPath.put(node.path(), node));
+        this.byPath = byPath;
+        List<Node> ordered = new ArrayList<>(nodes.values());
+        ordered.sort(ORDER);
+        this.ordered = Collections.unmodifiableList(ordered);
+    }
+
+    /**
+     * カテゴリと直下の商品数からツリーを作成
+     */
+    public static CategoryTree of(Collection<Category> categories, Map<UUID, Long> productCounts) {
+        Map<UUID, Node> nodes = new HashMap<>();
+        Map<UUID, List<Node>> childrenByParent = new HashMap<>();
+        for (Category category : categories) {
+            UUID parentId = category.parent != null ? category.parent.id : null;
+            long productCount = productCounts.getOrDefault(category.id, 0L);
+            Node node = new Node(category.id, category.name, category.description, category.path,
+                    category.level != null ? category.level : 0, category.sortOrder != null ? category.sortOrder : 0,
+                    category.imageUrl, category.isActive, parentId, List.of(),
+                    category.createdAt, category.updatedAt, productCount, productCount);
+            nodes.put(node.id(), node);
+            if (parentId != null) {
+                childrenByParent.computeIfAbsent(parentId, id -> new ArrayList<>()).add(node);
+            }
+        }
+
+        childrenByParent.forEach((parentId, children) -> {
+            children.sort(ORDER);
+            nodes.computeIfPresent(parentId, (id, parent) -> parent.withChildIds(children.stream().map(Node::id).toList()));
+        });
+
+        Map<UUID, Long> totals = new HashMap<>();
+        nodes.keySet().forEach(id -> total(id, nodes, totals));
+        nodes.replaceAll((id, node) -> node.withProductCounts(node.productCount(), totals.get(id)));
+        return new CategoryTree(nodes);
+    }
+
+    /**
+     * 直下の商品数を増減したツリー（祖先カテゴリの合計も更新する）
+     */
+    public CategoryTree withProductCountDelta(UUID categoryId, long delta) {
+        Node node = nodes.get(categoryId);
+        if (node == null || delta == 0) {
+            return this;
+        }
+        Map<UUID, Node> patched = new HashMap<>(nodes);
+        for (Node current = node; current != null; current = parentOf(current)) {
+            long productCount = current == node ? Math.max(0, current.productCount() + delta) : current.productCount();
+            patched.put(current.id(), current.withProductCounts(productCount, Math.max(0, current.totalProductCount() + delta)));
+        }
+        return new CategoryTree(patched);
+    }
+
+    public Optional<Node> find(UUID categoryId) {
+        return Optional.ofNullable(nodes.get(categoryId));
+    }
+
+    public Optional<Node> findByPath(String path) {
+        return Optional.ofNullable(byPath.get(path));
+    }
+
+    /**
+     * 全カテゴリ（表示順）
+     */
+    public List<Node> all() {
+        return ordered;
+    }
+
+    /**
+     * ルートカテゴリ（表示順）
+     */
+    public List<Node> roots() {
+        return ordered.stream().filter(node -> node.parentId() == null).toList();
+    }
+
+    /**
+     * 指定レベルのカテゴリ（表示順）
+     */
+    public List<Node> byLevel(int level) {
+        return ordered.stream().filter(node -> node.level() == level).toList();
+    }
+
+    /**
+     * 子カテゴリ（表示順）
+     */
+    public List<Node> children(UUID categoryId) {
+        Node node = nodes.get(categoryId);
+        return node == null ? List.of() : node.childIds().stream().map(nodes::get).toList();
+    }
+
+    /**
+     * 祖先カテゴリ（ルートから順に）
+     */
+    public List<Node> ancestors(UUID categoryId) {
+        List<Node> ancestors = new ArrayList<>();
+        Node node = nodes.get(categoryId);
+        for (Node parent = parentOf(node); parent != null; parent = parentOf(parent)) {
+            ancestors.add(0, parent);
+        }
+        return ancestors;
+    }
+
+    /**
+     * 子孫カテゴリ（深さ優先、表示順）
+     */
+    public List<Node> descendants(UUID categoryId) {
+        List<Node> descendants = new ArrayList<>();
+        for (Node child : children(categoryId)) {
+            descendants.add(child);
+            descendants.addAll(descendants(child.id()));
+        }
+        return descendants;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * previous から追加・削除・変更されたカテゴリのID（商品数だけの変更も含む）
+     */
+    public Set<UUID> changedSince(CategoryTree previous) {
+        Set<UUID> changed = new HashSet<>();
+        nodes.forEach((id, node) -> {
+            if (!node.equals(previous.nodes.get(id))) {
+                changed.add(id);
+            }
+        });
+        previous.nodes.keySet().stream().filter(id -> !nodes.containsKey(id)).forEach(changed::add);
+        return changed;
+    }
+
+    private Node parentOf(Node node) {
+        return node != null && node.parentId() != null ? nodes.get(node.parentId()) : null;
+    }
+
+    private static long total(UUID id, Map<UUID, Node> nodes, Map<UUID, Long> totals) {
+        Long cached = totals.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        Node node = nodes.get(id);
+        long total = node.productCount();
+        for (UUID childId : node.childIds()) {
+            total += total(childId, nodes, totals);
+        }
+        totals.put(id, total);
+        return total;
+    }
+}
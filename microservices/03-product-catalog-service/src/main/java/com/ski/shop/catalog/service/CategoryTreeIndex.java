@@ -0,0 +1,154 @@
+package com.ski.shop.catalog.service;
+
+import com.ski.shop.catalog.cache.CacheDependencyTracker;
+import com.ski.shop.catalog.cache.CacheTags;
+import com.ski.shop.catalog.cache.RemoteProductChange;
+import com.ski.shop.catalog.domain.Category;
+import com.ski.shop.catalog.domain.Product;
+import com.ski.shop.catalog.domain.PublishStatus;
+import com.ski.shop.catalog.search.AfterCommit;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 現在のカテゴリツリーのスナップショットを保持する
+ *
+ * 起動時と refresh-interval 毎、他のインスタンスで商品が変更された時（キャッシュの無効化より前）に
+ * データベースから作り直し、このインスタンスでの商品の追加・削除はコミット後に商品数だけを差分で反映する。
+ * カテゴリ自体の変更は次の作り直しで反映される。
+ *
+ * 作り直しの読み込み中に差分が反映された場合、読み込んだ内容にその差分が含まれているか分からないため差し替えずに読み直す。
+ * 差し替えで内容が変わったカテゴリはこのインスタンスのキャッシュから除く。
+ */
+@ApplicationScoped
+public class CategoryTreeIndex {
+
+    private static final Logger LOG = Logger.getLogger(CategoryTreeIndex.class);
+
+    // 読み込み中に差分が反映され続けた場合に作り直しを諦めるまでの回数
+    private static final int MAX_REBUILD_ATTEMPTS = 3;
+
+    private final AtomicReference<CategoryTree> tree = new AtomicReference<>(CategoryTree.EMPTY);
+    // 差し替えと差分の反映を直列化する
+    private final Object lock = new Object();
+    // 反映した差分の数（lock で保護）
+    private long deltaVersion;
+
+    @Inject
+    AfterCommit afterCommit;
+
+    @Inject
+    CacheDependencyTracker cacheDependencies;
+
+    @Transactional
+    void onStart(@Observes StartupEvent event) {
+        rebuild();
+        LOG.infof("Built category tree of %d categories", tree.get().size());
+    }
+
+    @Scheduled(every = "{app.category.tree.refresh-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @Transactional
+    void refresh() {
+        rebuild();
+    }
+
+    /**
+     * 他のインスタンスで変更された商品の商品数を反映する（CacheInvalidator が無効化の前に同期で発行する）
+     */
+    @Transactional
+    void onRemoteChange(@Observes RemoteProductChange change) {
+        rebuild();
+    }
+
+    /**
+     * 現在のスナップショット
+     */
+    public CategoryTree current() {
+        return tree.get();
+    }
+
+    /**
+     * 現在のトランザクションがコミットされたら、公開中の商品の追加を商品数に反映
+     */
+    public void productAddedAfterCommit(Product product) {
+        adjustAfterCommit(product, 1);
+    }
+
+    /**
+     * 現在のトランザクションがコミットされたら、公開中の商品の削除を商品数に反映
+     */
+    public void productRemovedAfterCommit(Product product) {
+        adjustAfterCommit(product, -1);
+    }
+
+    /**
+     * データベースから作り直す（トランザクション内で呼ぶ）
+     */
+    public void rebuild() {
+        for (int attempt = 1; attempt <= MAX_REBUILD_ATTEMPTS; attempt++) {
+            long version = deltaVersion();
+            List<Category> categories = Category.find("SELECT c FROM Category c LEFT JOIN FETCH c.parent").list();
+            if (install(CategoryTree.of(categories, Category.countProductsByCategory()), version)) {
+                return;
+            }
+        }
+        LOG.debugf("Category tree kept its incremental counts; deltas arrived during %d rebuilds", MAX_REBUILD_ATTEMPTS);
+    }
+
+    long deltaVersion() {
+        synchronized (lock) {
+            return deltaVersion;
+        }
+    }
+
+    /**
+     * version 以降に差分が反映されていなければ rebuilt に差し替え、変わったカテゴリのキャッシュを除く
+     *
+     * @return 差し替えた場合は true
+     */
+    boolean install(CategoryTree rebuilt, long version) {
+        CategoryTree previous;
+        synchronized (lock) {
+            if (deltaVersion != version) {
+                return false;
+            }
+            previous = tree.getAndSet(rebuilt);
+        }
+        Set<UUID> changed = rebuilt.changedSince(previous);
+        if (previous.size() > 0 && !changed.isEmpty()) {
+            List<String> tags = new ArrayList<>(changed.size() * 2);
+            changed.forEach(id -> {
+                tags.add(CacheTags.category(id));
+                tags.add(CacheTags.categoryProducts(id));
+            });
+            cacheDependencies.invalidate(tags);
+        }
+        return true;
+    }
+
+    void applyDelta(UUID categoryId, long delta) {
+        synchronized (lock) {
+            tree.updateAndGet(current -> current.withProductCountDelta(categoryId, delta));
+            deltaVersion++;
+        }
+    }
+
+    private void adjustAfterCommit(Product product, long delta) {
+        if (product.category == null || product.publishStatus != PublishStatus.PUBLISHED || !product.isActive) {
+            return;
+        }
+        UUID categoryId = product.category.id;
+        afterCommit.run(() -> applyDelta(categoryId, delta));
+    }
+}
@@ -1,12 +1,24 @@
 package com.ski.shop.catalog.service;
 
+import com.ski.shop.catalog.cache.CacheDependencyTracker;
+import com.ski.shop.catalog.cache.CacheInvalidator;
+import com.ski.shop.catalog.cache.CacheTags;
+import com.ski.shop.catalog.cache.TrackCacheDependencies;
 import com.ski.shop.catalog.domain.*;
 import com.ski.shop.catalog.dto.*;
+import com.ski.shop.catalog.search.FacetFilter;
+import com.ski.shop.catalog.search.KeywordHits;
+import com.ski.shop.catalog.search.ProductCursor;
+import com.ski.shop.catalog.search.ProductFacetIndex;
+import com.ski.shop.catalog.search.ProductSearchIndex;
 import io.quarkus.cache.CacheResult;
 import io.quarkus.cache.CacheKey;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.NotFoundException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -14,10 +26,31 @@ import java.util.stream.Collectors;
  * 商品サービス
  */
 @ApplicationScoped
+@TrackCacheDependencies
 public class ProductService {
 
+    @Inject
+    ProductSearchIndex searchIndex;
+
+    @Inject
+    ProductFacetIndex facetIndex;
+
+    @Inject
+    ProductViewCounter viewCounter;
+
+    @Inject
+    CategoryTreeIndex categoryTree;
+
+    @Inject
+    CacheDependencyTracker cacheDependencies;
+
+    @Inject
+    CacheInvalidator cacheInvalidator;
+
     /**
      * 商品一覧を検索条件に基づいて取得
+     *
+     * キーワード指定時はソート未指定（または relevance）なら関連度順に並べる。
      */
     @Transactional
     @CacheResult(cacheName = "products")
@@ -35,102 +68,41 @@ public class ProductService {
             @CacheKey int page,
             @CacheKey int size) {
 
-        StringBuilder query = new StringBuilder("p.publishStatus = ?1 AND p.isActive = ?2");
-        List<Object> params = new ArrayList<>();
-        params.add(PublishStatus.PUBLISHED);
-        params.add(true);
-
-        // キーワード検索（商品名、説明、ブランド名、カテゴリ名を対象）
-        if (keyword != null && !keyword.trim().isEmpty()) {
-            // より効率的な検索クエリに変更
-            query.append(" AND (LOWER(p.name) LIKE ?").append(params.size() + 1)
-                 .append(" OR LOWER(p.brand.name) LIKE ?").append(params.size() + 2).append(")");
-            String searchTerm = "%" + keyword.toLowerCase() + "%";
-            params.add(searchTerm);
-            params.add(searchTerm);
-        }
-
-        // カテゴリフィルター - 複数カテゴリIDまたは単一カテゴリIDをサポート
-        if (categoryIds != null && !categoryIds.isEmpty()) {
-            if (includeSubcategories) {
-                // サブカテゴリも含める場合は、メインカテゴリとそのサブカテゴリを検索
-                query.append(" AND (p.category.id IN (?").append(params.size() + 1).append(")");
-                query.append(" OR p.category.parent.id IN (?").append(params.size() + 2).append("))");
-                params.add(categoryIds);
-                params.add(categoryIds);
-            } else {
-                // 指定されたカテゴリのみ
-                query.append(" AND p.category.id IN (?").append(params.size() + 1).append(")");
-                params.add(categoryIds);
-            }
-        } else if (categoryId != null) {
-            if (includeSubcategories) {
-                // 単一カテゴリでサブカテゴリも含める場合
-                query.append(" AND (p.category.id = ?").append(params.size() + 1);
-                query.append(" OR p.category.parent.id = ?").append(params.size() + 2).append(")");
-                params.add(categoryId);
-                params.add(categoryId);
-            } else {
-                // 単一カテゴリのみ
-                query.append(" AND p.category.id = ?").append(params.size() + 1);
-                params.add(categoryId);
-            }
-        }
-
-        // ブランドフィルター
-        if (brandId != null) {
-            query.append(" AND p.brand.id = ?").append(params.size() + 1);
-            params.add(brandId);
-        }
-
-        // スキータイプフィルター
-        if (skiType != null) {
-            query.append(" AND p.skiType = ?").append(params.size() + 1);
-            params.add(skiType);
-        }
-
-        // 難易度フィルター
-        if (difficultyLevel != null) {
-            query.append(" AND p.difficultyLevel = ?").append(params.size() + 1);
-            params.add(difficultyLevel);
-        }
-
-        // 価格フィルター（以上）
-        if (minPrice != null && minPrice > 0) {
-            query.append(" AND p.basePrice >= ?").append(params.size() + 1);
-            params.add(minPrice);
-        }
-
-        // 価格フィルター（以下）
-        if (maxPrice != null && maxPrice > 0) {
-            query.append(" AND p.basePrice <= ?").append(params.size() + 1);
-            params.add(maxPrice);
-        }
-
-        // ソート
-        String orderBy = getOrderByClause(sortBy);
-        if (orderBy != null) {
-            query.append(" ORDER BY ").append(orderBy);
-        } else {
-            query.append(" ORDER BY p.createdAt DESC");
-        }
-
-        // 完全なクエリを構築してページネーション付きで商品を取得
-        String jpqlQuery = "SELECT DISTINCT p FROM Product p " +
-            "LEFT JOIN FETCH p.category " +
-            "LEFT JOIN FETCH p.brand " +
-            "LEFT JOIN FETCH p.images " +
-            "LEFT JOIN FETCH p.tags " +
-            "LEFT JOIN FETCH p.additionalSpecs " +
-            "WHERE " + query.toString();
-
-        List<Product> products = Product.find(jpqlQuery, params.toArray())
-                .page(page, size)
-                .list();
+        FacetFilter filter = toFacetFilter(categoryId, categoryIds, includeSubcategories, brandId, skiType, difficultyLevel, minPrice, maxPrice);
+        cacheDependencies.dependOn(listingScope(filter));
+        ProductFacetIndex.Result result = facetIndex.search(filter, searchKeyword(keyword), sortBy, page, size, false);
+        return findProducts(result.pageIds());
+    }
 
-        return products.stream()
-                .map(this::toProductSummaryResponse)
-                .collect(Collectors.toList());
+    /**
+     * 商品一覧を検索条件に基づいて取得し、ファセット毎の件数も返す
+     *
+     * カーソル指定時（またはページ番号 0 のとき）はキーセット方式で取得し、次のページのカーソルを返す。
+     */
+    @Transactional
+    @CacheResult(cacheName = "products")
+    public ProductSearchResponse searchProductsWithFacets(
+            @CacheKey String keyword,
+            @CacheKey UUID categoryId,
+            @CacheKey List<UUID> categoryIds,
+            @CacheKey boolean includeSubcategories,
+            @CacheKey UUID brandId,
+            @CacheKey SkiType skiType,
+            @CacheKey DifficultyLevel difficultyLevel,
+            @CacheKey Double minPrice,
+            @CacheKey Double maxPrice,
+            @CacheKey String sortBy,
+            @CacheKey int page,
+            @CacheKey int size,
+            @CacheKey String cursor) {
+
+        FacetFilter filter = toFacetFilter(categoryId, categoryIds, includeSubcategories, brandId, skiType, difficultyLevel, minPrice, maxPrice);
+        cacheDependencies.dependOn(listingScope(filter));
+        boolean hasCursor = cursor != null && !cursor.isBlank();
+        ProductFacetIndex.Result result = hasCursor || page == 0
+                ? facetIndex.searchAfter(filter, searchKeyword(keyword), sortBy, hasCursor ? ProductCursor.decode(cursor) : null, size, true)
+                : facetIndex.search(filter, searchKeyword(keyword), sortBy, page, size, true);
+        return new ProductSearchResponse(findProducts(result.pageIds()), result.totalCount(), page, size, result.facets(), result.nextCursor());
     }
 
     /**
@@ -165,10 +137,6 @@ public class ProductService {
             throw new NotFoundException("Product not found: " + productId);
         }
 
-        // ビュー数を増加
-        product.incrementViewCount();
-        product.persist();
-
         return toProductResponse(product);
     }
 
@@ -182,11 +150,14 @@ public class ProductService {
             throw new NotFoundException("Product not found: " + sku);
         }
 
-        Product product = productOpt.get();
-        product.incrementViewCount();
-        product.persist();
+        return toProductResponse(productOpt.get());
+    }
 
-        return toProductResponse(product);
+    /**
+     * 商品の閲覧を記録（キャッシュから返した場合も数えるため、詳細取得とは別に呼ぶ）
+     */
+    public void recordView(UUID productId) {
+        viewCounter.record(productId);
     }
 
     /**
@@ -194,6 +165,7 @@ public class ProductService {
      */
     @CacheResult(cacheName = "products")
     public List<ProductSummaryResponse> getFeaturedProducts() {
+        cacheDependencies.dependOn(CacheTags.ALL_PRODUCTS);
         List<Product> products = Product.findFeatured();
         return products.stream()
                 .map(this::toProductSummaryResponse)
@@ -205,6 +177,7 @@ public class ProductService {
      */
     @CacheResult(cacheName = "products")
     public List<ProductSummaryResponse> getProductsByCategory(@CacheKey UUID categoryId) {
+        cacheDependencies.dependOn(CacheTags.categoryProducts(categoryId));
         List<Product> products = Product.findByCategory(categoryId);
         return products.stream()
                 .map(this::toProductSummaryResponse)
@@ -216,6 +189,7 @@ public class ProductService {
      */
     @CacheResult(cacheName = "products")
     public List<ProductSummaryResponse> getProductsByBrand(@CacheKey UUID brandId) {
+        cacheDependencies.dependOn(CacheTags.brandProducts(brandId));
         List<Product> products = Product.findByBrand(brandId);
         return products.stream()
                 .map(this::toProductSummaryResponse)
@@ -279,6 +253,10 @@ public class ProductService {
         }
 
         product.persist();
+        searchIndex.indexAfterCommit(product);
+        facetIndex.indexAfterCommit(product);
+        categoryTree.productAddedAfterCommit(product);
+        cacheInvalidator.invalidateAfterCommit(CacheTags.ofProduct(product));
         return toProductResponse(product);
     }
 
@@ -315,6 +293,9 @@ public class ProductService {
         }
 
         product.persist();
+        searchIndex.indexAfterCommit(product);
+        facetIndex.indexAfterCommit(product);
+        cacheInvalidator.invalidateAfterCommit(CacheTags.ofProduct(product));
         return toProductResponse(product);
     }
 
@@ -328,37 +309,90 @@ public class ProductService {
             throw new NotFoundException("Product not found: " + productId);
         }
 
+        Set<String> cacheTags = CacheTags.ofProduct(product);
         product.delete();
+        searchIndex.removeAfterCommit(productId);
+        facetIndex.removeAfterCommit(productId);
+        categoryTree.productRemovedAfterCommit(product);
+        cacheInvalidator.invalidateAfterCommit(cacheTags);
     }
 
     // プライベートメソッド
 
-    private String getOrderByClause(String sortBy) {
-        return switch (sortBy != null ? sortBy : "created_desc") {
-            case "name_asc" -> "p.name ASC";
-            case "name_desc" -> "p.name DESC";
-            case "price_asc" -> "p.basePrice ASC";
-            case "price_desc" -> "p.basePrice DESC";
-            case "created_asc" -> "p.createdAt ASC";
-            case "created_desc" -> "p.createdAt DESC";
-            case "popularity" -> "p.salesCount DESC";
-            default -> "p.createdAt DESC";
-        };
+    /**
+     * キーワードに一致する全商品（関連度スコア付き）。キーワードなしなら null
+     */
+    private KeywordHits searchKeyword(String keyword) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return null;
+        }
+        return searchIndex.match(keyword);
     }
 
-    private ProductSummaryResponse toProductSummaryResponse(Product product) {
-        CategorySummaryResponse categoryResponse = null;
-        if (product.category != null) {
-            categoryResponse = new CategorySummaryResponse(
-                    product.category.id, product.category.name, product.category.path);
+    /**
+     * 一覧の絞り込み範囲のタグ（範囲内の商品が変わると結果が変わりうる）
+     */
+    private String[] listingScope(FacetFilter filter) {
+        if (!filter.categoryIds().isEmpty()) {
+            return filter.categoryIds().stream().map(CacheTags::categoryProducts).toArray(String[]::new);
+        }
+        if (filter.brandId() != null) {
+            return new String[] {CacheTags.brandProducts(filter.brandId())};
         }
+        return new String[] {CacheTags.ALL_PRODUCTS};
+    }
 
-        BrandSummaryResponse brandResponse = null;
-        if (product.brand != null) {
-            brandResponse = new BrandSummaryResponse(
-                    product.brand.id, product.brand.name, product.brand.logoUrl, product.brand.country);
+    private FacetFilter toFacetFilter(UUID categoryId, List<UUID> categoryIds, boolean includeSubcategories,
+                                      UUID brandId, SkiType skiType, DifficultyLevel difficultyLevel,
+                                      Double minPrice, Double maxPrice) {
+        // 複数カテゴリIDを優先し、なければ単一カテゴリID
+        List<UUID> effectiveCategoryIds = categoryIds != null && !categoryIds.isEmpty()
+                ? categoryIds
+                : categoryId != null ? List.of(categoryId) : List.of();
+        return new FacetFilter(effectiveCategoryIds, includeSubcategories, brandId, skiType, difficultyLevel, minPrice, maxPrice);
+    }
+
+    /**
+     * 表示するページの商品だけを主キーで取得（並び順は ids の順）
+     *
+     * エンティティと画像・タグ・追加仕様をまとめて JOIN FETCH せず、一覧に必要な列の射影と、
+     * 代表画像・タグをそれぞれ 1 回の IN 句で読む。
+     */
+    private List<ProductSummaryResponse> findProducts(List<UUID> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
         }
+        EntityManager em = Product.getEntityManager();
+        List<ProductSummaryRow> rows = em.createQuery("SELECT new com.ski.shop.catalog.service.ProductSummaryRow(" +
+                "p.id, p.sku, p.name, p.shortDescription, c.id, c.name, c.path, " +
+                "b.id, b.name, b.logoUrl, b.country, p.basePrice, p.salePrice, p.isFeatured, p.createdAt) " +
+                "FROM Product p JOIN p.category c JOIN p.brand b WHERE p.id IN ?1", ProductSummaryRow.class)
+                .setParameter(1, ids)
+                .getResultList();
+
+        Map<UUID, String> primaryImages = new HashMap<>();
+        em.createQuery("SELECT i.product.id, i.imageUrl FROM ProductImage i WHERE i.product.id IN ?1 AND i.isPrimary = true ORDER BY i.sortOrder", Object[].class)
+                .setParameter(1, ids)
+                .getResultList()
+                .forEach(row -> primaryImages.putIfAbsent((UUID) row[0], (String) row[1]));
+
+        Map<UUID, Set<String>> tags = new HashMap<>();
+        em.createQuery("SELECT p.id, t FROM Product p JOIN p.tags t WHERE p.id IN ?1", Object[].class)
+                .setParameter(1, ids)
+                .getResultList()
+                .forEach(row -> tags.computeIfAbsent((UUID) row[0], id -> new HashSet<>()).add((String) row[1]));
+
+        Map<UUID, ProductSummaryRow> rowsById = new HashMap<>();
+        rows.forEach(row -> rowsById.put(row.id(), row));
+
+        return ids.stream()
+                .map(rowsById::get)
+                .filter(Objects::nonNull)
+                .map(row -> toProductSummaryResponse(row, primaryImages.get(row.id()), tags.getOrDefault(row.id(), new HashSet<>())))
+                .collect(Collectors.toList());
+    }
 
+    private ProductSummaryResponse toProductSummaryResponse(Product product) {
         String primaryImageUrl = null;
         try {
             primaryImageUrl = product.getPrimaryImage()
@@ -369,24 +403,33 @@ public class ProductService {
             primaryImageUrl = null;
         }
 
+        return toProductSummaryResponse(ProductSummaryRow.of(product), primaryImageUrl, product.tags);
+    }
+
+    private ProductSummaryResponse toProductSummaryResponse(ProductSummaryRow row, String primaryImageUrl, Set<String> tags) {
+        CategorySummaryResponse categoryResponse = row.categoryId() == null ? null
+                : new CategorySummaryResponse(row.categoryId(), row.categoryName(), row.categoryPath());
+        BrandSummaryResponse brandResponse = row.brandId() == null ? null
+                : new BrandSummaryResponse(row.brandId(), row.brandName(), row.brandLogoUrl(), row.brandCountry());
+
         return new ProductSummaryResponse(
-                product.id,
-                product.sku,
-                product.name,
-                product.shortDescription,
+                row.id(),
+                row.sku(),
+                row.name(),
+                row.shortDescription(),
                 categoryResponse,
                 brandResponse,
-                product.getCurrentPrice(),
-                product.basePrice,
-                product.isOnSale(),
-                product.getDiscountPercentage(),
+                Product.currentPrice(row.basePrice(), row.salePrice()),
+                row.basePrice(),
+                Product.isOnSale(row.basePrice(), row.salePrice()),
+                Product.discountPercentage(row.basePrice(), row.salePrice()),
                 primaryImageUrl,
                 true, // TODO: 在庫サービスと連携
-                product.isFeatured,
+                row.featured(),
                 null, // TODO: レビューサービスと連携
                 0,    // TODO: レビューサービスと連携
-                product.tags,
-                product.createdAt
+                tags,
+                row.createdAt()
         );
     }
 
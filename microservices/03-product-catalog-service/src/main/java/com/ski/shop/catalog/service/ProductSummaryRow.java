@@ -0,0 +1,60 @@
+package com.ski.shop.catalog.service;
+
+import com.ski.shop.catalog.domain.Brand;
+import com.ski.shop.catalog.domain.Category;
+import com.ski.shop.catalog.domain.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 商品一覧表示用の射影（ProductSummaryResponse に必要な列だけを読む）
+ *
+ * エンティティから一覧表示用のレスポンスを作る場合もこの形に変換し、レスポンスの組み立てを1か所にまとめる。
+ *
+ * JPQL のコンストラクタ式で生成するため public なトップレベルの型にしている。
+ */
+public record ProductSummaryRow(
+    UUID id,
+    String sku,
+    String name,
+    String shortDescription,
+    UUID categoryId,
+    String categoryName,
+    String categoryPath,
+    UUID brandId,
+    String brandName,
+    String brandLogoUrl,
+    String brandCountry,
+    BigDecimal basePrice,
+    BigDecimal salePrice,
+    boolean featured,
+    LocalDateTime createdAt
+) {
+
+    /**
+     * 読み込み済みのエンティティから作成（カテゴリ・ブランドがなければ null）
+     */
+    public static ProductSummaryRow of(Product product) {
+        Category category = product.category;
+        Brand brand = product.brand;
+        return new ProductSummaryRow(
+            product.id,
+            product.sku,
+            product.name,
+            product.shortDescription,
+            category == null ? null : category.id,
+            category == null ? null : category.name,
+            category == null ? null : category.path,
+            brand == null ? null : brand.id,
+            brand == null ? null : brand.name,
+            brand == null ? null : brand.logoUrl,
+            brand == null ? null : brand.country,
+            product.basePrice,
+            product.salePrice,
+            product.isFeatured,
+            product.createdAt
+        );
+    }
+}
@@ -0,0 +1,164 @@
+package com.ski.shop.catalog.service;
+
+import com.ski.shop.catalog.domain.Product;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 商品の閲覧数のライトビハインド集計
+ *
+ * 閲覧は商品毎の {@link LongAdder} に加算するだけで、データベースへは定期的に差分をまとめて反映する。
+ * 同じ差分の商品は 1 つの UPDATE 文にまとめるため、文の数は商品数ではなく差分の種類数程度になる。
+ * 反映に失敗した差分は次回に持ち越し、終了時には残りを反映する。
+ */
+@ApplicationScoped
+public class ProductViewCounter {
+
+    private static final Logger LOG = Logger.getLogger(ProductViewCounter.class);
+
+    // 1 文の IN 句に含める商品数の上限
+    private static final int MAX_IDS_PER_UPDATE = 500;
+
+    // 商品ID → 未反映の閲覧数（エントリは商品数までしか増えないため削除しない）
+    private final ConcurrentHashMap<UUID, LongAdder> pending = new ConcurrentHashMap<>();
+    // 未反映の最も古い閲覧の時刻（System.nanoTime、未反映がなければ 0）
+    private final AtomicLong oldestPendingNanos = new AtomicLong();
+    private final LongAdder flushedViews = new LongAdder();
+
+    @Inject
+    MeterRegistry registry;
+
+    private Counter flushFailures;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("catalog.product.views.pending", this, ProductViewCounter::pendingViews)
+                .description("データベースに未反映の閲覧数")
+                .register(registry);
+        Gauge.builder("catalog.product.views.flush.lag", this, ProductViewCounter::flushLagSeconds)
+                .description("未反映の最も古い閲覧からの経過時間")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("catalog.product.views.flushed", flushedViews, LongAdder::sum)
+                .description("データベースに反映した閲覧数")
+                .register(registry);
+        flushFailures = Counter.builder("catalog.product.views.flush.failures")
+                .description("閲覧数の反映の失敗回数")
+                .register(registry);
+    }
+
+    /**
+     * 閲覧を 1 件記録
+     */
+    public void record(UUID productId) {
+        pending.computeIfAbsent(productId, id -> new LongAdder()).increment();
+        oldestPendingNanos.compareAndSet(0, System.nanoTime());
+    }
+
+    @Scheduled(every = "{app.product.views.flush-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledFlush() {
+        flush();
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        int flushed = flush();
+        LOG.infof("Flushed view counts of %d products on shutdown", flushed);
+    }
+
+    /**
+     * 未反映の閲覧数をデータベースに反映
+     *
+     * @return 反映した商品数
+     */
+    public synchronized int flush() {
+        long oldest = oldestPendingNanos.getAndSet(0);
+        Map<Long, List<UUID>> byDelta = drain();
+        if (byDelta.isEmpty()) {
+            return 0;
+        }
+        try {
+            write(byDelta);
+        } catch (RuntimeException e) {
+            LOG.warnf(e, "Failed to flush view counts, will retry");
+            if (flushFailures != null) {
+                flushFailures.increment();
+            }
+            restore(byDelta);
+            oldestPendingNanos.accumulateAndGet(oldest, (current, previous) -> current == 0 ? previous : Math.min(current, previous));
+            return 0;
+        }
+
+        int products = 0;
+        for (Map.Entry<Long, List<UUID>> entry : byDelta.entrySet()) {
+            products += entry.getValue().size();
+            flushedViews.add(entry.getKey() * entry.getValue().size());
+        }
+        return products;
+    }
+
+    /**
+     * 差分毎にまとめた商品IDを UPDATE 文で反映（1 トランザクション）
+     */
+    void write(Map<Long, List<UUID>> byDelta) {
+        QuarkusTransaction.requiringNew().run(() -> byDelta.forEach((delta, ids) -> {
+            for (int from = 0; from < ids.size(); from += MAX_IDS_PER_UPDATE) {
+                List<UUID> chunk = ids.subList(from, Math.min(from + MAX_IDS_PER_UPDATE, ids.size()));
+                Product.update("viewCount = viewCount + ?1 WHERE id IN ?2", delta, chunk);
+            }
+        }));
+    }
+
+    /**
+     * データベースに未反映の閲覧数
+     */
+    public long pendingViews() {
+        long total = 0;
+        for (LongAdder adder : pending.values()) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    /**
+     * 未反映の最も古い閲覧からの経過秒数（未反映がなければ 0）
+     */
+    public double flushLagSeconds() {
+        long oldest = oldestPendingNanos.get();
+        return oldest == 0 ? 0 : (System.nanoTime() - oldest) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private Map<Long, List<UUID>> drain() {
+        Map<Long, List<UUID>> byDelta = new HashMap<>();
+        pending.forEach((productId, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta > 0) {
+                byDelta.computeIfAbsent(delta, d -> new ArrayList<>()).add(productId);
+            }
+        });
+        return byDelta;
+    }
+
+    private void restore(Map<Long, List<UUID>> byDelta) {
+        byDelta.forEach((delta, ids) -> ids.forEach(productId ->
+                pending.computeIfAbsent(productId, id -> new LongAdder()).add(delta)));
+    }
+}
@@ -0,0 +1,11 @@
+-- キャッシュ無効化の通知テーブル
+-- V1.0.6__Create_cache_invalidations.sql
+
+CREATE TABLE cache_invalidations (
+    id BIGSERIAL PRIMARY KEY,
+    origin VARCHAR(36) NOT NULL,
+    tags VARCHAR(4000) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_cache_invalidations_created ON cache_invalidations(created_at);
@@ -0,0 +1,112 @@
+package com.ski.shop.catalog.cache;
+
+import com.ski.shop.catalog.dto.CategorySummaryResponse;
+import com.ski.shop.catalog.dto.ProductSummaryResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * キャッシュの依存先の記録と無効化のテスト
+ */
+public class CacheDependencyTrackerTest {
+
+    private static final UUID CATEGORY = UUID.randomUUID();
+
+    @Test
+    public void testInvalidateEvictsOnlyDependentEntries() {
+        RecordingTracker tracker = new RecordingTracker();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        compute(tracker, "products", first, summary(first));
+        compute(tracker, "products", "list", List.of(summary(first), summary(second)));
+        compute(tracker, "products", second, summary(second));
+        assertEquals(3, tracker.size());
+
+        // first を含むエントリだけが破棄される
+        assertEquals(2, tracker.invalidate(Set.of(CacheTags.product(first))));
+        assertEquals(Set.of(first, "list"), Set.copyOf(tracker.evictedKeys()));
+        assertEquals(1, tracker.size());
+
+        // 既に破棄したエントリは二重に破棄しない
+        assertEquals(0, tracker.invalidate(Set.of(CacheTags.product(first))));
+    }
+
+    @Test
+    public void testProductIdsAreReadBackFromInvalidationTags() {
+        UUID productId = UUID.randomUUID();
+        Set<String> tags = Set.of(CacheTags.product(productId), CacheTags.ALL_PRODUCTS, CacheTags.categoryProducts(CATEGORY));
+
+        // 他のインスタンスの通知から、索引を読み直す商品を取り出す
+        assertEquals(Set.of(productId), CacheTags.productIds(tags));
+        assertTrue(CacheTags.productIds(Set.of(CacheTags.category(CATEGORY))).isEmpty());
+    }
+
+    @Test
+    public void testDependOnAddsScopeAndPropagatesToOuterComputation() {
+        RecordingTracker tracker = new RecordingTracker();
+        CacheDependencyTracker.Computation outer = tracker.begin();
+        CacheDependencyTracker.Computation inner = tracker.begin();
+        tracker.dependOn(CacheTags.categoryProducts(CATEGORY));
+        tracker.end(inner, "products", "inner", List.of());
+        tracker.end(outer, "categories", "outer", List.of());
+
+        // 値に商品がなくても、絞り込み範囲の商品が変われば内側・外側とも破棄される
+        assertEquals(2, tracker.invalidate(Set.of(CacheTags.categoryProducts(CATEGORY))));
+        assertEquals(0, tracker.size());
+    }
+
+    @Test
+    public void testEntryComputedDuringInvalidationIsDiscarded() {
+        RecordingTracker tracker = new RecordingTracker();
+        UUID productId = UUID.randomUUID();
+
+        // 計算中に依存先が無効化された場合は、古い値として記録せずに破棄する
+        CacheDependencyTracker.Computation computation = tracker.begin();
+        tracker.invalidate(Set.of(CacheTags.product(productId)));
+        tracker.end(computation, "products", productId, summary(productId));
+        assertEquals(0, tracker.size());
+        assertEquals(List.of(productId), tracker.evictedKeys());
+
+        // 無効化と関係のないエントリは記録される
+        UUID other = UUID.randomUUID();
+        compute(tracker, "products", other, summary(other));
+        assertEquals(1, tracker.size());
+        assertTrue(tracker.invalidate(Set.of(CacheTags.product(other))) > 0);
+    }
+
+    private static void compute(CacheDependencyTracker tracker, String cacheName, Object key, Object value) {
+        CacheDependencyTracker.Computation computation = tracker.begin();
+        tracker.end(computation, cacheName, key, value);
+    }
+
+    private static ProductSummaryResponse summary(UUID productId) {
+        ProductSummaryResponse summary = new ProductSummaryResponse();
+        summary.setId(productId);
+        summary.setCategory(new CategorySummaryResponse(CATEGORY, "Skis", "/skis"));
+        return summary;
+    }
+
+    /**
+     * キャッシュの代わりに破棄したキーを記録する
+     */
+    private static class RecordingTracker extends CacheDependencyTracker {
+
+        private final List<Object> evicted = new ArrayList<>();
+
+        @Override
+        void evict(Entry entry) {
+            evicted.add(entry.key());
+        }
+
+        List<Object> evictedKeys() {
+            return evicted;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.ski.shop.catalog.cache;
+
+import com.ski.shop.catalog.domain.CacheInvalidation;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.NotificationOptions;
+import jakarta.enterprise.util.TypeLiteral;
+import org.junit.jupiter.api.Test;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 他のインスタンスのキャッシュ無効化通知の適用のテスト
+ */
+public class CacheInvalidatorTest {
+
+    @Test
+    public void testReindexesChangedProductsBeforeInvalidating() {
+        List<String> steps = new ArrayList<>();
+        UUID productId = UUID.randomUUID();
+        CacheInvalidator invalidator = new CacheInvalidator();
+        invalidator.tracker = new CacheDependencyTracker() {
+            @Override
+            public int invalidate(Collection<String> tags) {
+                steps.add("invalidate " + tags.size());
+                return 0;
+            }
+        };
+        invalidator.remoteProductChanges = new RecordingEvent(change -> steps.add("reindex " + change.productIds()));
+
+        invalidator.apply(List.of(
+                invalidation(1L, CacheTags.product(productId), CacheTags.ALL_PRODUCTS),
+                invalidation(2L, CacheTags.ALL_PRODUCTS)));
+
+        // 索引を更新してから無効化する（無効化直後の再計算が古い索引を読まないため）
+        assertEquals(List.of("reindex " + Set.of(productId), "invalidate 2", "invalidate 1"), steps);
+    }
+
+    @Test
+    public void testInvalidatesWithoutReindexWhenNoProductChanged() {
+        List<String> steps = new ArrayList<>();
+        CacheInvalidator invalidator = new CacheInvalidator();
+        invalidator.tracker = new CacheDependencyTracker() {
+            @Override
+            public int invalidate(Collection<String> tags) {
+                steps.add("invalidate");
+                return 0;
+            }
+        };
+        invalidator.remoteProductChanges = new RecordingEvent(change -> steps.add("reindex"));
+
+        invalidator.apply(List.of(invalidation(1L, CacheTags.category(UUID.randomUUID()))));
+        assertEquals(List.of("invalidate"), steps);
+    }
+
+    private static CacheInvalidation invalidation(long id, String... tags) {
+        CacheInvalidation invalidation = new CacheInvalidation();
+        invalidation.id = id;
+        invalidation.origin = "other";
+        invalidation.tags = String.join(" ", tags);
+        return invalidation;
+    }
+
+    /**
+     * 同期イベントの発行だけを記録する
+     */
+    private record RecordingEvent(Consumer<RemoteProductChange> observer)
+            implements Event<RemoteProductChange> {
+
+        @Override
+        public void fire(RemoteProductChange event) {
+            observer.accept(event);
+        }
+
+        @Override
+        public <U extends RemoteProductChange> CompletionStage<U> fireAsync(U event) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <U extends RemoteProductChange> CompletionStage<U> fireAsync(U event, NotificationOptions options) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Event<RemoteProductChange> select(Annotation... qualifiers) {
+            return this;
+        }
+
+        @Override
+        public <U extends RemoteProductChange> Event<U> select(Class<U> subtype, Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <U extends RemoteProductChange> Event<U> select(TypeLiteral<U> subtype, Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.ski.shop.catalog.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * キャッシュ無効化通知の読み取り位置のテスト
+ */
+public class InvalidationCursorTest {
+
+    @Test
+    public void testAppliesEachIdOnce() {
+        InvalidationCursor cursor = new InvalidationCursor();
+        assertFalse(cursor.isStarted());
+        cursor.start(10);
+
+        assertTrue(cursor.advance(11, 0));
+        assertTrue(cursor.advance(12, 0));
+        assertFalse(cursor.advance(12, 0));
+        assertFalse(cursor.advance(9, 0));
+        assertEquals(12, cursor.highWater());
+        assertTrue(cursor.pendingGaps().isEmpty());
+    }
+
+    @Test
+    public void testAppliesLateCommitsOfSkippedIds() {
+        InvalidationCursor cursor = new InvalidationCursor();
+        cursor.start(0);
+
+        // 2 と 3 は採番済みだが未コミット
+        assertTrue(cursor.advance(1, 0));
+        assertTrue(cursor.advance(4, 0));
+        assertEquals(Set.of(2L, 3L), cursor.pendingGaps());
+
+        assertTrue(cursor.advance(3, 100));
+        assertFalse(cursor.advance(3, 100));
+        assertEquals(Set.of(2L), cursor.pendingGaps());
+    }
+
+    @Test
+    public void testExpiresGapsLeftByRollbacks() {
+        InvalidationCursor cursor = new InvalidationCursor();
+        cursor.start(0);
+        cursor.advance(3, 1_000);
+
+        cursor.expireGaps(20_000, 30_000);
+        assertEquals(Set.of(1L, 2L), cursor.pendingGaps());
+
+        cursor.expireGaps(31_001, 30_000);
+        assertTrue(cursor.pendingGaps().isEmpty());
+        assertFalse(cursor.advance(2, 31_001));
+    }
+}
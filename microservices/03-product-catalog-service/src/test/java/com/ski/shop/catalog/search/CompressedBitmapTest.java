@@ -0,0 +1,71 @@
+package com.ski.shop.catalog.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 圧縮ビットマップのテスト
+ */
+public class CompressedBitmapTest {
+
+    @Test
+    public void testSetOperationsMatchBitSet() {
+        // 疎なチャンク（配列）と密なチャンク（ビット列）が混在するデータで BitSet と突き合わせる
+        Random random = new Random(42);
+        CompressedBitmap a = new CompressedBitmap();
+        CompressedBitmap b = new CompressedBitmap();
+        BitSet expectedA = new BitSet();
+        BitSet expectedB = new BitSet();
+        for (int i = 0; i < 20_000; i++) {
+            int dense = random.nextInt(8192);
+            int sparse = 65536 * (1 + random.nextInt(3)) + random.nextInt(65536);
+            a.add(dense);
+            expectedA.set(dense);
+            b.add(i % 2 == 0 ? dense : sparse);
+            expectedB.set(i % 2 == 0 ? dense : sparse);
+        }
+
+        BitSet and = (BitSet) expectedA.clone();
+        and.and(expectedB);
+        BitSet or = (BitSet) expectedA.clone();
+        or.or(expectedB);
+
+        assertEquals(expectedA.cardinality(), a.cardinality());
+        assertEquals(and, toBitSet(CompressedBitmap.and(a, b)));
+        assertEquals(and.cardinality(), CompressedBitmap.andCardinality(a, b));
+        assertEquals(or, toBitSet(CompressedBitmap.or(a, b)));
+    }
+
+    @Test
+    public void testRemoveShrinksAndDropsEmptyChunks() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int i = 0; i < 5000; i++) {
+            bitmap.add(i);
+        }
+        bitmap.add(1 << 20);
+        for (int i = 0; i < 5000; i += 2) {
+            bitmap.remove(i);
+        }
+        assertEquals(2501, bitmap.cardinality());
+        assertTrue(bitmap.contains(1));
+        assertFalse(bitmap.contains(2));
+
+        bitmap.remove(1 << 20);
+        for (int i = 1; i < 5000; i += 2) {
+            bitmap.remove(i);
+        }
+        assertTrue(bitmap.isEmpty());
+    }
+
+    private static BitSet toBitSet(CompressedBitmap bitmap) {
+        BitSet bits = new BitSet();
+        bitmap.forEach(bits::set);
+        return bits;
+    }
+}
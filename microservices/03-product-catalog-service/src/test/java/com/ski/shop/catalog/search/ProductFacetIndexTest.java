@@ -0,0 +1,158 @@
+package com.ski.shop.catalog.search;
+
+import com.ski.shop.catalog.domain.DifficultyLevel;
+import com.ski.shop.catalog.domain.SkiType;
+import com.ski.shop.catalog.dto.FacetCountResponse;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 商品のファセットインデックスのテスト
+ */
+public class ProductFacetIndexTest {
+
+    private static final UUID SKIS = UUID.randomUUID();
+    private static final UUID CARVING_SKIS = UUID.randomUUID();
+    private static final UUID ROSSIGNOL = UUID.randomUUID();
+    private static final UUID ATOMIC = UUID.randomUUID();
+
+    private static final UUID HERO = UUID.randomUUID();
+    private static final UUID REDSTER = UUID.randomUUID();
+    private static final UUID BENT = UUID.randomUUID();
+    private static final UUID DRAFT = UUID.randomUUID();
+
+    private static final FacetFilter NO_FILTER = new FacetFilter(List.of(), false, null, null, null, null, null);
+
+    private ProductFacetIndex newIndex() {
+        ProductFacetIndex index = new ProductFacetIndex(List.of(50000L, 100000L));
+        index.index(document(HERO, true, ROSSIGNOL, List.of(CARVING_SKIS, SKIS), SkiType.CARVING, DifficultyLevel.EXPERT, "120000", "Hero", 1, 50));
+        index.index(document(REDSTER, true, ATOMIC, List.of(CARVING_SKIS, SKIS), SkiType.CARVING, DifficultyLevel.ADVANCED, "80000", "Redster", 2, 10));
+        index.index(document(BENT, true, ATOMIC, List.of(SKIS), SkiType.POWDER, DifficultyLevel.ADVANCED, "45000", "Bent", 3, 30));
+        index.index(document(DRAFT, false, ATOMIC, List.of(SKIS), SkiType.POWDER, DifficultyLevel.BEGINNER, "30000", "Draft", 4, 0));
+        return index;
+    }
+
+    @Test
+    public void testFiltersIntersectAndExcludeUnpublished() {
+        ProductFacetIndex index = newIndex();
+
+        assertEquals(List.of(BENT, REDSTER, HERO), index.search(NO_FILTER, null, null, 0, 10, false).pageIds());
+        assertEquals(List.of(REDSTER), index.search(new FacetFilter(List.of(), false, ATOMIC, SkiType.CARVING, null, null, null),
+                null, null, 0, 10, false).pageIds());
+        // 配下のカテゴリを含める指定と価格範囲（価格帯の途中で区切る）
+        assertEquals(List.of(BENT), index.search(new FacetFilter(List.of(SKIS), false, null, null, null, null, null),
+                null, null, 0, 10, false).pageIds());
+        ProductFacetIndex.Result result = index.search(new FacetFilter(List.of(SKIS), true, null, null, null, 40000.0, 90000.0),
+                null, "price_asc", 0, 10, false);
+        assertEquals(List.of(BENT, REDSTER), result.pageIds());
+        assertEquals(2, result.totalCount());
+    }
+
+    @Test
+    public void testFacetCountsIgnoreOwnDimension() {
+        ProductFacetIndex index = newIndex();
+
+        ProductFacetIndex.Result result = index.search(new FacetFilter(List.of(), false, ATOMIC, null, null, null, null),
+                null, null, 0, 10, true);
+
+        assertEquals(2, result.totalCount());
+        // ブランドの件数はブランド条件を外して数える（下書きの商品は数えない）
+        assertEquals(Map.of(ROSSIGNOL.toString(), 1L, ATOMIC.toString(), 2L), countsOf(result, "brand"));
+        assertEquals(Map.of("CARVING", 1L, "POWDER", 1L), countsOf(result, "skiType"));
+        assertEquals(Map.of("-50000", 1L, "50000-100000", 1L), countsOf(result, "price"));
+    }
+
+    @Test
+    public void testRankedOrderPagingAndIncrementalUpdate() {
+        ProductFacetIndex index = newIndex();
+
+        KeywordHits ranked = KeywordHits.ranked(List.of(HERO, DRAFT, BENT, REDSTER));
+        assertEquals(List.of(BENT), index.search(NO_FILTER, ranked, null, 1, 1, false).pageIds());
+        assertEquals(List.of(HERO, BENT), index.search(NO_FILTER, ranked, "popularity", 0, 2, false).pageIds());
+
+        index.index(document(DRAFT, true, ROSSIGNOL, List.of(SKIS), SkiType.POWDER, DifficultyLevel.BEGINNER, "30000", "Draft", 4, 0));
+        index.remove(HERO);
+        assertEquals(List.of(DRAFT, BENT, REDSTER), index.search(NO_FILTER, ranked, "relevance", 0, 10, false).pageIds());
+        assertEquals(List.of(DRAFT), index.search(new FacetFilter(List.of(), false, ROSSIGNOL, null, null, null, null),
+                null, null, 0, 10, false).pageIds());
+    }
+
+    @Test
+    public void testCursorPagingWalksSameOrderAsOffsetPaging() {
+        ProductFacetIndex index = new ProductFacetIndex(List.of(50000L));
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            // 価格が同じ商品を多く含め、商品IDで順序が決まることを確かめる
+            index.index(document(id, true, ATOMIC, List.of(SKIS), SkiType.CARVING, DifficultyLevel.ADVANCED,
+                    String.valueOf(10000 * (i % 5)), "p" + i, 1 + i % 28, i));
+        }
+
+        for (String sortBy : List.of("price_asc", "name_desc", "created_desc", "popularity")) {
+            List<UUID> walked = new ArrayList<>();
+            ProductCursor cursor = null;
+            do {
+                ProductFacetIndex.Result result = index.searchAfter(NO_FILTER, null, sortBy, cursor, 7, false);
+                walked.addAll(result.pageIds());
+                cursor = result.nextCursor() != null ? ProductCursor.decode(result.nextCursor()) : null;
+            } while (cursor != null);
+            assertEquals(index.search(NO_FILTER, null, sortBy, 0, 50, false).pageIds(), walked, sortBy);
+        }
+
+        List<UUID> ranked = ids.subList(0, 10);
+        KeywordHits hits = KeywordHits.ranked(ranked);
+        ProductFacetIndex.Result first = index.searchAfter(NO_FILTER, hits, null, null, 6, false);
+        ProductFacetIndex.Result second = index.searchAfter(NO_FILTER, hits, null, ProductCursor.decode(first.nextCursor()), 6, false);
+        assertEquals(ranked.subList(0, 6), first.pageIds());
+        assertEquals(ranked.subList(6, 10), second.pageIds());
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    public void testRanksOnlyFilteredHitsAndCountsAllHits() {
+        ProductFacetIndex index = new ProductFacetIndex(List.of(50000L));
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            // 関連度の低い方から 5 件だけが Rossignol
+            index.index(document(id, true, i >= 35 ? ROSSIGNOL : ATOMIC, List.of(SKIS), SkiType.CARVING,
+                    DifficultyLevel.ADVANCED, "30000", "p" + i, 1, i));
+        }
+        KeywordHits hits = KeywordHits.ranked(ids);
+        FacetFilter rossignol = new FacetFilter(List.of(), false, ROSSIGNOL, null, null, null, null);
+
+        ProductFacetIndex.Result result = index.search(rossignol, hits, null, 1, 2, true);
+        assertEquals(ids.subList(37, 39), result.pageIds());
+        assertEquals(5, result.totalCount());
+        assertEquals(Map.of(ROSSIGNOL.toString(), 5L, ATOMIC.toString(), 35L), countsOf(result, "brand"));
+
+        ProductFacetIndex.Result first = index.searchAfter(rossignol, hits, null, null, 3, false);
+        ProductFacetIndex.Result second = index.searchAfter(rossignol, hits, null, ProductCursor.decode(first.nextCursor()), 3, false);
+        assertEquals(ids.subList(35, 38), first.pageIds());
+        assertEquals(ids.subList(38, 40), second.pageIds());
+        assertNull(second.nextCursor());
+    }
+
+    private static Map<String, Long> countsOf(ProductFacetIndex.Result result, String facet) {
+        return result.facets().get(facet).stream()
+                .collect(Collectors.toMap(FacetCountResponse::getValue, FacetCountResponse::getCount));
+    }
+
+    private static FacetDocument document(UUID id, boolean visible, UUID brandId, List<UUID> categoryPath, SkiType skiType,
+                                          DifficultyLevel difficultyLevel, String price, String name, int day, long salesCount) {
+        return new FacetDocument(id, visible, brandId, "brand", categoryPath, "category", skiType, difficultyLevel,
+                new BigDecimal(price), name, LocalDateTime.of(2025, 1, day, 0, 0), salesCount);
+    }
+}
@@ -0,0 +1,83 @@
+package com.ski.shop.catalog.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 商品の全文検索インデックスのテスト
+ */
+public class ProductSearchIndexTest {
+
+    private static final UUID CARVING = UUID.randomUUID();
+    private static final UUID POWDER = UUID.randomUUID();
+    private static final UUID BOOTS = UUID.randomUUID();
+
+    private ProductSearchIndex newIndex() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.index(new SearchDocument(CARVING, "Rossignol Hero カービングスキー", "ゲレンデで安定したターン",
+                "Rossignol", "オールマウンテン", List.of("上級者", "レース"), List.of("サイドカーブ")));
+        index.index(new SearchDocument(POWDER, "Atomic Bent パウダースキー", "深雪で浮力のあるファットスキー",
+                "Atomic", "フリーライド", List.of("パウダー"), List.of()));
+        index.index(new SearchDocument(BOOTS, "Salomon S/Pro ブーツ", "快適なフィット",
+                "Salomon", "スキーブーツ", List.of(), List.of()));
+        return index;
+    }
+
+    @Test
+    public void testJapaneseNgramAndKanaFolding() {
+        ProductSearchIndex index = newIndex();
+
+        assertEquals(List.of(POWDER), index.search("ぱうだー", 10));
+        assertEquals(List.of(CARVING), index.search("カービング", 10));
+        // 1 文字の漢字、全角英字、英単語の前方一致
+        assertEquals(List.of(POWDER), index.search("雪", 10));
+        assertEquals(List.of(CARVING), index.search("ＲＯＳＳＩ", 10));
+        // 全ての語を含む商品だけがヒットする
+        assertEquals(List.of(), index.search("atomic ブーツ", 10));
+    }
+
+    @Test
+    public void testPrefixMatchesEveryExpandedWord() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        for (int i = 0; i < 100; i++) {
+            index.index(new SearchDocument(UUID.randomUUID(), "model" + i, null, "Atomic", null, List.of(), List.of()));
+        }
+
+        // 展開される語の数に関係なく、前方一致する全ての商品がヒットする
+        assertEquals(100, index.match("model").size());
+        assertEquals(11, index.match("model9").size());
+        assertEquals(5, index.search("model", 5).size());
+    }
+
+    @Test
+    public void testBm25RanksStrongerMatchesFirst() {
+        ProductSearchIndex index = newIndex();
+
+        // 「スキー」が商品名と概要の両方に出現する商品が最上位
+        List<UUID> hits = index.search("スキー", 10);
+        assertEquals(3, hits.size());
+        assertEquals(POWDER, hits.get(0));
+        assertEquals(List.of(POWDER), index.search("スキー", 1));
+    }
+
+    @Test
+    public void testIncrementalUpdateAndRemove() {
+        ProductSearchIndex index = newIndex();
+        int terms = index.termCount();
+
+        index.index(new SearchDocument(BOOTS, "Salomon Shift ビンディング", null,
+                "Salomon", "ビンディング", List.of(), List.of()));
+        assertEquals(List.of(), index.search("ブーツ", 10));
+        assertEquals(List.of(BOOTS), index.search("ビンディング", 10));
+
+        index.remove(BOOTS);
+        assertEquals(2, index.size());
+        assertEquals(List.of(), index.search("salomon", 10));
+        assertTrue(index.termCount() < terms);
+    }
+}
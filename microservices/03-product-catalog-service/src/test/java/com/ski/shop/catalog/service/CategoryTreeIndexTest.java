@@ -0,0 +1,84 @@
+package com.ski.shop.catalog.service;
+
+import com.ski.shop.catalog.cache.CacheDependencyTracker;
+import com.ski.shop.catalog.cache.CacheTags;
+import com.ski.shop.catalog.domain.Category;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * カテゴリツリーの作り直しと差分反映の競合のテスト
+ */
+public class CategoryTreeIndexTest {
+
+    private final Category ski = category("Ski", null);
+    private final Category boots = category("Boots", null);
+    private final List<String> invalidated = new ArrayList<>();
+
+    @Test
+    public void testKeepsDeltaAppliedDuringRebuild() {
+        CategoryTreeIndex index = index();
+        assertTrue(index.install(CategoryTree.of(List.of(ski, boots), Map.of(ski.id, 1L)), index.deltaVersion()));
+
+        // 読み込み開始後にコミットされた追加は、読み込んだ件数に含まれているか分からない
+        long version = index.deltaVersion();
+        index.applyDelta(ski.id, 1);
+        assertFalse(index.install(CategoryTree.of(List.of(ski, boots), Map.of(ski.id, 1L)), version));
+        assertEquals(2, index.current().find(ski.id).orElseThrow().productCount());
+
+        assertTrue(index.install(CategoryTree.of(List.of(ski, boots), Map.of(ski.id, 2L)), index.deltaVersion()));
+        assertEquals(2, index.current().find(ski.id).orElseThrow().productCount());
+    }
+
+    @Test
+    public void testEvictsOnlyCategoriesChangedByRebuild() {
+        CategoryTreeIndex index = index();
+        index.install(CategoryTree.of(List.of(ski, boots), Map.of(ski.id, 1L)), index.deltaVersion());
+        assertTrue(invalidated.isEmpty());
+
+        // 他のインスタンスで Boots に商品が追加された
+        index.install(CategoryTree.of(List.of(ski, boots), Map.of(ski.id, 1L, boots.id, 1L)), index.deltaVersion());
+        assertEquals(List.of(CacheTags.category(boots.id), CacheTags.categoryProducts(boots.id)), invalidated);
+    }
+
+    @Test
+    public void testChangedSinceIncludesRemovedCategories() {
+        CategoryTree before = CategoryTree.of(List.of(ski, boots), Map.of());
+        CategoryTree after = CategoryTree.of(List.of(ski), Map.of());
+
+        assertEquals(Set.of(boots.id), after.changedSince(before));
+        assertTrue(after.changedSince(after).isEmpty());
+    }
+
+    private CategoryTreeIndex index() {
+        CategoryTreeIndex index = new CategoryTreeIndex();
+        index.cacheDependencies = new CacheDependencyTracker() {
+            @Override
+            public int invalidate(Collection<String> tags) {
+                invalidated.addAll(tags);
+                return 0;
+            }
+        };
+        return index;
+    }
+
+    private static Category category(String name, Category parent) {
+        Category category = new Category();
+        category.id = UUID.randomUUID();
+        category.name = name;
+        category.parent = parent;
+        category.level = 0;
+        category.path = "/" + name.toLowerCase();
+        return category;
+    }
+}
@@ -0,0 +1,82 @@
+package com.ski.shop.catalog.service;
+
+import com.ski.shop.catalog.domain.Category;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * カテゴリツリーのスナップショットのテスト
+ */
+public class CategoryTreeTest {
+
+    private final Category ski = category("Ski", null, 1);
+    private final Category wear = category("Wear", null, 2);
+    private final Category racing = category("Racing", ski, 2);
+    private final Category allMountain = category("All Mountain", ski, 1);
+    private final Category slalom = category("Slalom", racing, 1);
+
+    private CategoryTree tree() {
+        return CategoryTree.of(List.of(slalom, wear, racing, ski, allMountain),
+                Map.of(ski.id, 1L, racing.id, 2L, slalom.id, 4L, allMountain.id, 8L, wear.id, 16L));
+    }
+
+    @Test
+    public void testRollsUpProductCountsThroughSubtrees() {
+        CategoryTree tree = tree();
+
+        assertEquals(1, tree.find(ski.id).orElseThrow().productCount());
+        assertEquals(15, tree.find(ski.id).orElseThrow().totalProductCount());
+        assertEquals(6, tree.find(racing.id).orElseThrow().totalProductCount());
+        assertEquals(4, tree.find(slalom.id).orElseThrow().totalProductCount());
+
+        // 子カテゴリは並び順
+        assertEquals(List.of(allMountain.id, racing.id), tree.find(ski.id).orElseThrow().childIds());
+        assertEquals(List.of(ski.id, wear.id), tree.roots().stream().map(CategoryTree.Node::id).toList());
+    }
+
+    @Test
+    public void testProductCountDeltaPatchesAncestorsOnNewSnapshot() {
+        CategoryTree tree = tree();
+        CategoryTree patched = tree.withProductCountDelta(slalom.id, 1);
+
+        assertEquals(5, patched.find(slalom.id).orElseThrow().productCount());
+        assertEquals(7, patched.find(racing.id).orElseThrow().totalProductCount());
+        assertEquals(2, patched.find(racing.id).orElseThrow().productCount());
+        assertEquals(16, patched.find(ski.id).orElseThrow().totalProductCount());
+        assertEquals(16, patched.find(wear.id).orElseThrow().totalProductCount());
+
+        // 元のスナップショットは変わらない
+        assertEquals(15, tree.find(ski.id).orElseThrow().totalProductCount());
+        assertTrue(patched.findByPath("/ski/racing/slalom").isPresent());
+    }
+
+    @Test
+    public void testAncestorsAndDescendantsUseMaterializedLinks() {
+        CategoryTree tree = tree();
+
+        assertEquals(List.of(ski.id, racing.id), tree.ancestors(slalom.id).stream().map(CategoryTree.Node::id).toList());
+        assertEquals(List.of(allMountain.id, racing.id, slalom.id), tree.descendants(ski.id).stream().map(CategoryTree.Node::id).toList());
+        assertEquals(List.of(racing.id), tree.byLevel(1).stream().filter(node -> node.name().equals("Racing")).map(CategoryTree.Node::id).toList());
+        assertTrue(tree.ancestors(ski.id).isEmpty());
+    }
+
+    private static Category category(String name, Category parent, int sortOrder) {
+        Category category = new Category();
+        category.id = UUID.randomUUID();
+        category.name = name;
+        category.parent = parent;
+        category.sortOrder = sortOrder;
+        category.level = parent == null ? 0 : parent.level + 1;
+        category.path = (parent == null ? "" : parent.path) + "/" + name.toLowerCase().replace(" ", "-");
+        if (parent != null) {
+            parent.children.add(category);
+        }
+        return category;
+    }
+}
@@ -0,0 +1,98 @@
+package com.ski.shop.catalog.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 閲覧数のライトビハインド集計のテスト
+ */
+public class ProductViewCounterTest {
+
+    @Test
+    public void testFlushGroupsProductsByDelta() {
+        RecordingCounter counter = new RecordingCounter();
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID c = UUID.randomUUID();
+        counter.record(a);
+        counter.record(a);
+        counter.record(b);
+        counter.record(b);
+        counter.record(c);
+
+        assertEquals(5, counter.pendingViews());
+        assertEquals(3, counter.flush());
+
+        // 差分が同じ商品は 1 つの UPDATE にまとまる
+        Map<Long, List<UUID>> written = counter.writes.get(0);
+        assertEquals(2, written.size());
+        assertEquals(2, written.get(2L).size());
+        assertTrue(written.get(2L).containsAll(List.of(a, b)));
+        assertEquals(List.of(c), written.get(1L));
+        assertEquals(0, counter.pendingViews());
+        assertEquals(0.0, counter.flushLagSeconds());
+
+        // 未反映がなければ書き込まない
+        assertEquals(0, counter.flush());
+        assertEquals(1, counter.writes.size());
+    }
+
+    @Test
+    public void testFailedFlushKeepsViewsForRetry() {
+        RecordingCounter counter = new RecordingCounter();
+        UUID a = UUID.randomUUID();
+        counter.record(a);
+        counter.record(a);
+
+        counter.failing = true;
+        assertEquals(0, counter.flush());
+        assertEquals(2, counter.pendingViews());
+        assertTrue(counter.flushLagSeconds() > 0);
+
+        // 失敗中に増えた閲覧と合わせて次回に反映される
+        counter.record(a);
+        counter.failing = false;
+        assertEquals(1, counter.flush());
+        assertEquals(List.of(a), counter.writes.get(counter.writes.size() - 1).get(3L));
+        assertEquals(0, counter.pendingViews());
+    }
+
+    @Test
+    public void testFlushLagTracksOldestPendingView() throws InterruptedException {
+        RecordingCounter counter = new RecordingCounter();
+        assertEquals(0.0, counter.flushLagSeconds());
+
+        counter.record(UUID.randomUUID());
+        Thread.sleep(20);
+        counter.record(UUID.randomUUID());
+        assertTrue(counter.flushLagSeconds() >= 0.02);
+
+        counter.flush();
+        assertEquals(0.0, counter.flushLagSeconds());
+    }
+
+    /**
+     * データベースの代わりに書き込み内容を記録する
+     */
+    private static class RecordingCounter extends ProductViewCounter {
+
+        final List<Map<Long, List<UUID>>> writes = new ArrayList<>();
+        boolean failing;
+
+        @Override
+        void write(Map<Long, List<UUID>> byDelta) {
+            if (failing) {
+                throw new IllegalStateException("database unavailable");
+            }
+            writes.add(new HashMap<>(byDelta));
+        }
+    }
+}